@@ -0,0 +1,151 @@
+package benchmarks;
+
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import model.Moosage;
+import model.User;
+import util.JsonFileHandler;
+import util.UserIdOrdinals;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Builds the benchmark datasets, in the same JSON layout the repositories read, inside a
+// temporary directory. The data is deterministic so runs can be compared with each other.
+final class BenchmarkData {
+
+    static final String AUTHOR_ID = "USER-bench-author";
+    static final int LIKES_PER_MOOSAGE = 10;
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+    // Placeholder BCrypt hash; the benchmarks never check passwords
+    private static final String PASSWORD_HASH = "$2a$12$abcdefghijklmnopqrstuuAbCdEfGhIjKlMnOpQrStUvWxYz01234";
+
+    private BenchmarkData() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    static User author() {
+        return new User("benchauthor", "author@bench.example", PASSWORD_HASH, AUTHOR_ID);
+    }
+
+    static User user(int i) {
+        return new User(username(i), email(i), PASSWORD_HASH, userId(i));
+    }
+
+    static String username(int i) {
+        return "benchuser" + i;
+    }
+
+    static String email(int i) {
+        return "benchuser" + i + "@bench.example";
+    }
+
+    static String userId(int i) {
+        return "USER-bench-" + i;
+    }
+
+    // Moosages 1..count, one second apart, each liked by LIKES_PER_MOOSAGE users. Their likes share
+    // one ordinals table, as the moosages of a store do.
+    static List<Moosage> moosages(int count) {
+        List<Moosage> moosages = new ArrayList<>(count);
+        UserIdOrdinals ordinals = new UserIdOrdinals();
+        for (int i = 1; i <= count; i++) {
+            Moosage moosage = new Moosage((long) i, "Benchmark moosage number " + i, AUTHOR_ID, START.plusSeconds(i),
+                    ordinals);
+            for (int like = 0; like < LIKES_PER_MOOSAGE; like++) {
+                moosage.addLike(userId((i + like) % 1000));
+            }
+            moosages.add(moosage);
+        }
+        return moosages;
+    }
+
+    // Writes moosages.json in the JSON layout MoosageRepository imports and exports
+    static void writeMoosages(JsonFileHandler fileHandler, Path file, int count) throws IOException {
+        Map<String, Object> storage = new HashMap<>();
+        storage.put("moosages", moosages(count));
+        storage.put("nextId", (long) count + 1);
+        fileHandler.writeJsonToFile(file.toFile(), storage);
+    }
+
+    // Writes data.json with the author followed by 'count' users, in the layout of UserRepository
+    static void writeUsers(JsonFileHandler fileHandler, Path file, int count) throws IOException {
+        List<Map<String, String>> users = new ArrayList<>(count + 1);
+        users.add(userEntry("benchauthor", "author@bench.example", AUTHOR_ID));
+        for (int i = 0; i < count; i++) {
+            users.add(userEntry(username(i), email(i), userId(i)));
+        }
+        fileHandler.writeJsonToFile(file.toFile(), Map.of("users", users));
+    }
+
+    private static Map<String, String> userEntry(String username, String email, String userId) {
+        Map<String, String> entry = new HashMap<>();
+        entry.put("username", username);
+        entry.put("email", email);
+        entry.put("password", PASSWORD_HASH);
+        entry.put("userID", userId);
+        return entry;
+    }
+
+    // A JsonFileHandler that resolves every data file to the given path, with java.time support
+    static JsonFileHandler fileHandler(Path file) {
+        JsonFileHandler fileHandler = new FixedPathFileHandler(file.toAbsolutePath().toString());
+        fileHandler.getObjectMapper().registerModule(new JavaTimeModule());
+        return fileHandler;
+    }
+
+    // A JsonFileHandler that keeps every data file in the given directory, under its own name
+    static JsonFileHandler directoryFileHandler(Path directory) {
+        JsonFileHandler fileHandler = new DirectoryFileHandler(directory.toAbsolutePath());
+        fileHandler.getObjectMapper().registerModule(new JavaTimeModule());
+        return fileHandler;
+    }
+
+    static void deleteRecursively(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class FixedPathFileHandler extends JsonFileHandler {
+        private final String filePath;
+
+        private FixedPathFileHandler(String filePath) {
+            this.filePath = filePath;
+        }
+
+        @Override
+        public String getDataFilePath(String relativePath) {
+            return filePath;
+        }
+    }
+
+    private static final class DirectoryFileHandler extends JsonFileHandler {
+        private final Path directory;
+
+        private DirectoryFileHandler(Path directory) {
+            this.directory = directory;
+        }
+
+        @Override
+        public String getDataFilePath(String relativePath) {
+            return directory.resolve(Path.of(relativePath).getFileName()).toString();
+        }
+    }
+}
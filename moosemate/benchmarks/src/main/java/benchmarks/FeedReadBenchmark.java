@@ -0,0 +1,115 @@
+package benchmarks;
+
+import model.Moosage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import repository.GroupCommitPolicy;
+import repository.MoosageRepository;
+import repository.UserRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Read throughput of the feed with and without writers. Readers take the first feed page and
+// what MoosageDto needs of each moosage (like count, liked by the viewer), and the likers of a
+// moosage on it. In the 'underWrites' group two writers like and unlike moosages on that first
+// page at the same time. Compare the 'read' scores of 'quiet' and 'underWrites'. With sync=NEVER the
+// writers do not wait for the disk, so they write far more often.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FeedReadBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int USERS = 1000;
+
+    @Param({"1000", "10000", "100000"})
+    private int moosages;
+
+    @Param({"EVERY_BATCH", "NEVER"})
+    private GroupCommitPolicy.SyncMode sync;
+
+    private Path directory;
+    private MoosageRepository repository;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("moosemate-bench-");
+        Path userFile = directory.resolve("data.json");
+        Path moosageFile = directory.resolve("moosages.json");
+        BenchmarkData.writeUsers(BenchmarkData.fileHandler(userFile), userFile, USERS);
+        BenchmarkData.writeMoosages(BenchmarkData.fileHandler(moosageFile), moosageFile, moosages);
+
+        UserRepository userRepository = new UserRepository(BenchmarkData.fileHandler(userFile));
+        repository = new MoosageRepository(userRepository, BenchmarkData.fileHandler(moosageFile),
+                new GroupCommitPolicy(GroupCommitPolicy.DEFAULT_WINDOW, GroupCommitPolicy.DEFAULT_MAX_BATCH_SIZE,
+                        sync, GroupCommitPolicy.DEFAULT_SYNC_INTERVAL));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        repository.close();
+        BenchmarkData.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    @Group("quiet")
+    @GroupThreads(4)
+    public int read() {
+        return readFeed();
+    }
+
+    @Benchmark
+    @Group("underWrites")
+    @GroupThreads(4)
+    public int readWhileWriting() {
+        return readFeed();
+    }
+
+    @Benchmark
+    @Group("underWrites")
+    @GroupThreads(2)
+    public Optional<Moosage> write() {
+        // The newest moosages have the highest ids, so the writes land on the page being read.
+        // Toggled twice, so the like sets the readers walk keep their size.
+        long id = moosages - ThreadLocalRandom.current().nextInt(PAGE_SIZE);
+        String userId = BenchmarkData.userId(ThreadLocalRandom.current().nextInt(USERS));
+        repository.toggleLike(id, userId);
+        return repository.toggleLike(id, userId);
+    }
+
+    private int readFeed() {
+        String viewer = BenchmarkData.userId(ThreadLocalRandom.current().nextInt(USERS));
+        List<Moosage> page = repository.getMoosagesBefore(null, null, PAGE_SIZE);
+        int result = 0;
+        for (Moosage moosage : page) {
+            result += moosage.getLikeCount();
+            if (moosage.isLikedBy(viewer)) {
+                result++;
+            }
+        }
+        Moosage liked = page.get(ThreadLocalRandom.current().nextInt(page.size()));
+        return result + repository.getLikers(liked.getId(), null, PAGE_SIZE).orElseThrow().size();
+    }
+}
@@ -0,0 +1,77 @@
+package benchmarks;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import model.Moosage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import util.JsonFileHandler;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Reading and writing a moosage snapshot of 'moosages' entries through JsonFileHandler.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonFileHandlerBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int moosages;
+
+    private Path directory;
+    private JsonFileHandler fileHandler;
+    private File readFile;
+    private File writeFile;
+    private Storage storage;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("moosemate-bench-");
+        Path readPath = directory.resolve("moosages.json");
+        fileHandler = BenchmarkData.fileHandler(readPath);
+        BenchmarkData.writeMoosages(fileHandler, readPath, moosages);
+        readFile = readPath.toFile();
+        writeFile = directory.resolve("moosages-write.json").toFile();
+        storage = fileHandler.readJsonFromFile(readFile, new TypeReference<Storage>() { });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkData.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public Storage read() throws IOException {
+        return fileHandler.readJsonFromFile(readFile, new TypeReference<Storage>() { });
+    }
+
+    @Benchmark
+    public void write() throws IOException {
+        fileHandler.writeJsonToFile(writeFile, storage);
+    }
+
+    // Same layout as the snapshot MoosageRepository writes
+    public static class Storage {
+        public List<Moosage> moosages = new ArrayList<>();
+        public long nextId = 1;
+    }
+}
@@ -0,0 +1,94 @@
+package benchmarks;
+
+import model.Moosage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import repository.MoosageRepository;
+import repository.UserRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// The write paths of MoosageService (user check, then the repository write) with 'users'
+// registered users and a fixed 10 000 moosages. The user checks are index lookups, so the
+// cost per like and per post should not grow with the number of users.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LikeCostBenchmark {
+
+    private static final int MOOSAGES = 10_000;
+
+    @Param({"1000", "10000", "100000"})
+    private int users;
+
+    private Path directory;
+    // Built up front, so the benchmarks do not measure building the id strings
+    private String[] userIds;
+    private UserRepository userRepository;
+    private MoosageRepository moosageRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("moosemate-bench-");
+        Path userFile = directory.resolve("data.json");
+        Path moosageFile = directory.resolve("moosages.json");
+        BenchmarkData.writeUsers(BenchmarkData.fileHandler(userFile), userFile, users);
+        BenchmarkData.writeMoosages(BenchmarkData.fileHandler(moosageFile), moosageFile, MOOSAGES);
+
+        userIds = new String[users];
+        for (int i = 0; i < users; i++) {
+            userIds[i] = BenchmarkData.userId(i);
+        }
+        userRepository = new UserRepository(BenchmarkData.fileHandler(userFile));
+        moosageRepository = new MoosageRepository(userRepository, BenchmarkData.fileHandler(moosageFile));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        moosageRepository.close();
+        BenchmarkData.deleteRecursively(directory);
+    }
+
+    // As MoosageService.toggleLike
+    @Benchmark
+    public Optional<Moosage> toggleLike() {
+        String userId = userIds[ThreadLocalRandom.current().nextInt(users)];
+        if (!userRepository.existsById(userId)) {
+            throw new IllegalStateException("Unknown user " + userId);
+        }
+        return moosageRepository.toggleLike(1L + ThreadLocalRandom.current().nextInt(MOOSAGES), userId);
+    }
+
+    // As MoosageService.createMoosage
+    @Benchmark
+    public Moosage createMoosage() {
+        String authorUsername = userRepository.getUsername(BenchmarkData.AUTHOR_ID);
+        return moosageRepository.createMoosage("Benchmark moosage", BenchmarkData.AUTHOR_ID, authorUsername);
+    }
+
+    // The user check on its own
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean userCheck() {
+        return userRepository.existsById(userIds[ThreadLocalRandom.current().nextInt(users)]);
+    }
+}
@@ -0,0 +1,67 @@
+package benchmarks;
+
+import model.Moosage;
+import org.openjdk.jol.info.GraphLayout;
+import org.pcollections.PSortedSet;
+import org.pcollections.TreePSet;
+import util.IntHashSet;
+import util.UserIdOrdinals;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Heap footprint of 1 000 000 likes (100 000 moosages liked by 10 of 10 000 users each) in the
+// like set representations moosages have used: HashSet<String>, a persistent TreePSet<String>
+// and IntHashSet of user ordinals. The userID strings are counted once in every case; for
+// IntHashSet they are counted with the UserIdOrdinals table the likes are interned in, which
+// is per user, not per like. Not a JMH benchmark; run it with
+//   java -cp benchmarks/target/benchmarks.jar benchmarks.LikeFootprintReport
+public final class LikeFootprintReport {
+
+    private static final int MOOSAGES = 100_000;
+    private static final int USERS = 10_000;
+    private static final int LIKES = MOOSAGES * BenchmarkData.LIKES_PER_MOOSAGE;
+
+    private LikeFootprintReport() {
+    }
+
+    public static void main(String[] args) {
+        String[] userIds = new String[USERS];
+        for (int i = 0; i < USERS; i++) {
+            userIds[i] = BenchmarkData.userId(i);
+        }
+
+        List<Set<String>> hashSets = new ArrayList<>(MOOSAGES);
+        List<PSortedSet<String>> treeSets = new ArrayList<>(MOOSAGES);
+        List<IntHashSet> ordinalSets = new ArrayList<>(MOOSAGES);
+        // One table for all moosages, as a store keeps it
+        UserIdOrdinals ordinals = new UserIdOrdinals();
+        for (int m = 0; m < MOOSAGES; m++) {
+            Set<String> hashSet = new HashSet<>();
+            PSortedSet<String> treeSet = TreePSet.empty();
+            Moosage moosage = new Moosage((long) m, "", BenchmarkData.AUTHOR_ID, null, ordinals);
+            for (int like = 0; like < BenchmarkData.LIKES_PER_MOOSAGE; like++) {
+                String userId = userIds[(m * 7 + like * 997) % USERS];
+                hashSet.add(userId);
+                treeSet = treeSet.plus(userId);
+                moosage.addLike(userId);
+            }
+            hashSets.add(hashSet);
+            treeSets.add(treeSet);
+            ordinalSets.add(moosage.getLikes());
+        }
+
+        long strings = GraphLayout.parseInstance((Object) userIds).totalSize();
+        System.out.printf("%,d likes, %,d moosages, %,d users (userID strings: %,d bytes)%n",
+                LIKES, MOOSAGES, USERS, strings);
+        report("HashSet<String>", GraphLayout.parseInstance(hashSets, userIds).totalSize());
+        report("TreePSet<String>", GraphLayout.parseInstance(treeSets, userIds).totalSize());
+        report("IntHashSet + ordinals", GraphLayout.parseInstance(ordinalSets, ordinals).totalSize());
+    }
+
+    private static void report(String representation, long bytes) {
+        System.out.printf("%-22s %,13d bytes  %6.1f bytes/like%n", representation, bytes, (double) bytes / LIKES);
+    }
+}
@@ -0,0 +1,68 @@
+package benchmarks;
+
+import dto.MoosageDto;
+import model.Moosage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import repository.UserRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Mapping a whole feed to DTOs, as GET /api/moosages does for every request, including the
+// author username lookup in the user cache.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoosageDtoBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int moosages;
+
+    private Path directory;
+    private UserRepository users;
+    private List<Moosage> feed;
+    private String currentUserId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("moosemate-bench-");
+        Path userFile = directory.resolve("data.json");
+        BenchmarkData.writeUsers(BenchmarkData.fileHandler(userFile), userFile, 1000);
+        users = new UserRepository(BenchmarkData.fileHandler(userFile));
+        feed = BenchmarkData.moosages(moosages);
+        currentUserId = BenchmarkData.userId(7);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkData.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public List<MoosageDto> fromMoosageFeed() {
+        List<MoosageDto> dtos = new ArrayList<>(feed.size());
+        for (Moosage moosage : feed) {
+            dtos.add(MoosageDto.fromMoosage(moosage, users.getUsername(moosage.getAuthorId()), currentUserId));
+        }
+        return dtos;
+    }
+}
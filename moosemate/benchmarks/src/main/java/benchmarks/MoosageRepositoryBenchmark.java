@@ -0,0 +1,94 @@
+package benchmarks;
+
+import model.Moosage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import repository.MoosageRepository;
+import repository.UserRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// MoosageRepository operations against a resident dataset of 'moosages' entries.
+// The write benchmarks include appending to the mutation log, as in production.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoosageRepositoryBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int moosages;
+
+    private Path directory;
+    private MoosageRepository repository;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("moosemate-bench-");
+        Path userFile = directory.resolve("data.json");
+        Path moosageFile = directory.resolve("moosages.json");
+        BenchmarkData.writeUsers(BenchmarkData.fileHandler(userFile), userFile, 1000);
+        BenchmarkData.writeMoosages(BenchmarkData.fileHandler(moosageFile), moosageFile, moosages);
+
+        UserRepository userRepository = new UserRepository(BenchmarkData.fileHandler(userFile));
+        repository = new MoosageRepository(userRepository, BenchmarkData.fileHandler(moosageFile));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        // close() prints the batch sizes the log's group commit achieved
+        repository.close();
+        BenchmarkData.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public List<Moosage> getAllMoosages() {
+        return repository.getAllMoosages();
+    }
+
+    @Benchmark
+    public Optional<Moosage> getMoosageById() {
+        return repository.getMoosageById(randomId());
+    }
+
+    @Benchmark
+    public Optional<Moosage> toggleLike() {
+        return repository.toggleLike(randomId(), BenchmarkData.userId(ThreadLocalRandom.current().nextInt(1000)));
+    }
+
+    // Many writers at once, so the mutation log can group their appends
+    @Benchmark
+    @Threads(16)
+    public Optional<Moosage> toggleLikeContended() {
+        return toggleLike();
+    }
+
+    @Benchmark
+    public Moosage createMoosage() {
+        return repository.createMoosage("Benchmark moosage", BenchmarkData.AUTHOR_ID, "benchauthor");
+    }
+
+    private long randomId() {
+        return 1 + ThreadLocalRandom.current().nextInt(moosages);
+    }
+}
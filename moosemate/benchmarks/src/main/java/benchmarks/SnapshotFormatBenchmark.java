@@ -0,0 +1,85 @@
+package benchmarks;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import repository.BinaryMoosageSnapshot;
+import util.JsonFileHandler;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Loading and saving the same moosage snapshot as JSON and in the binary format, i.e. the
+// cold-start and compaction costs of MoosageRepository under either format.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SnapshotFormatBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int moosages;
+
+    private Path directory;
+    private JsonFileHandler fileHandler;
+    private File jsonFile;
+    private File binaryFile;
+    private File jsonWriteFile;
+    private File binaryWriteFile;
+    private JsonFileHandlerBenchmark.Storage storage;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("moosemate-bench-");
+        Path jsonPath = directory.resolve("moosages.json");
+        fileHandler = BenchmarkData.fileHandler(jsonPath);
+        BenchmarkData.writeMoosages(fileHandler, jsonPath, moosages);
+        jsonFile = jsonPath.toFile();
+        binaryFile = directory.resolve("moosages.bin").toFile();
+        storage = fileHandler.readJsonFromFile(jsonFile, new TypeReference<JsonFileHandlerBenchmark.Storage>() { });
+        BinaryMoosageSnapshot.write(binaryFile, storage.moosages, storage.nextId);
+        jsonWriteFile = directory.resolve("moosages-write.json").toFile();
+        binaryWriteFile = directory.resolve("moosages-write.bin").toFile();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkData.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public JsonFileHandlerBenchmark.Storage loadJson() throws IOException {
+        return fileHandler.readJsonFromFile(jsonFile, new TypeReference<JsonFileHandlerBenchmark.Storage>() { });
+    }
+
+    @Benchmark
+    public BinaryMoosageSnapshot.Contents loadBinary() throws IOException {
+        return BinaryMoosageSnapshot.read(binaryFile);
+    }
+
+    @Benchmark
+    public void saveJson() throws IOException {
+        fileHandler.writeJsonToFile(jsonWriteFile, storage);
+    }
+
+    @Benchmark
+    public void saveBinary() throws IOException {
+        BinaryMoosageSnapshot.write(binaryWriteFile, storage.moosages, storage.nextId);
+    }
+}
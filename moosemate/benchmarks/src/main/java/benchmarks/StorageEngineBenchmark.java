@@ -0,0 +1,105 @@
+package benchmarks;
+
+import model.Moosage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import repository.FileStorageEngine;
+import repository.GroupCommitPolicy;
+import repository.JdbcStorageEngine;
+import repository.MoosageRepository;
+import repository.MoosageStore;
+import repository.StorageEngine;
+import repository.UserRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// The same MoosageRepository writes and startup load on each storage engine, with a dataset of
+// 'moosages' entries and 1000 users. Writes include making the change durable in the engine.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageEngineBenchmark {
+
+    private static final int USERS = 1000;
+
+    @Param({FileStorageEngine.NAME, JdbcStorageEngine.NAME})
+    private String engine;
+
+    @Param({"1000", "10000", "100000"})
+    private int moosages;
+
+    private Path directory;
+    private StorageEngine storageEngine;
+    private MoosageRepository repository;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("moosemate-bench-");
+        if (FileStorageEngine.NAME.equals(engine)) {
+            Path userFile = directory.resolve("data.json");
+            BenchmarkData.writeUsers(BenchmarkData.fileHandler(userFile), userFile, USERS);
+            storageEngine = new FileStorageEngine(BenchmarkData.directoryFileHandler(directory),
+                    GroupCommitPolicy.defaults());
+        } else {
+            storageEngine = new JdbcStorageEngine("jdbc:h2:file:" + directory.resolve("moosemate").toAbsolutePath());
+            storageEngine.users().insert(BenchmarkData.author());
+            for (int i = 0; i < USERS; i++) {
+                storageEngine.users().insert(BenchmarkData.user(i));
+            }
+        }
+        storageEngine.moosages().checkpoint(BenchmarkData.moosages(moosages), moosages + 1L);
+
+        repository = new MoosageRepository(new UserRepository(storageEngine), storageEngine);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        repository.close();
+        storageEngine.close();
+        BenchmarkData.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public Moosage createMoosage() {
+        return repository.createMoosage("Benchmark moosage", BenchmarkData.AUTHOR_ID, "benchauthor");
+    }
+
+    @Benchmark
+    public Optional<Moosage> toggleLike() {
+        long id = 1 + ThreadLocalRandom.current().nextInt(moosages);
+        return repository.toggleLike(id, BenchmarkData.userId(ThreadLocalRandom.current().nextInt(USERS)));
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Optional<Moosage> toggleLikeContended() {
+        return toggleLike();
+    }
+
+    // What a restart reads, without building the repository's indexes
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public MoosageStore.State load() throws IOException {
+        return storageEngine.moosages().load();
+    }
+}
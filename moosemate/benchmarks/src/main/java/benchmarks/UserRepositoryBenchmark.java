@@ -0,0 +1,83 @@
+package benchmarks;
+
+import model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import repository.UserRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// UserRepository lookups against 'users' registered users. The data file is written directly,
+// since registering through createUser would spend the setup time on BCrypt-sized inputs.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserRepositoryBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int users;
+
+    private Path directory;
+    private UserRepository repository;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("moosemate-bench-");
+        Path userFile = directory.resolve("data.json");
+        BenchmarkData.writeUsers(BenchmarkData.fileHandler(userFile), userFile, users);
+        repository = new UserRepository(BenchmarkData.fileHandler(userFile));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkData.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public Optional<User> findByUsername() {
+        return repository.findByUsernameOrEmail(BenchmarkData.username(randomUser()));
+    }
+
+    @Benchmark
+    public Optional<User> findByEmail() {
+        return repository.findByUsernameOrEmail(BenchmarkData.email(randomUser()));
+    }
+
+    @Benchmark
+    public Optional<User> getUserById() {
+        return repository.getUserById(BenchmarkData.userId(randomUser()));
+    }
+
+    @Benchmark
+    public boolean userExists() {
+        return repository.userExists(BenchmarkData.username(randomUser()));
+    }
+
+    @Benchmark
+    public boolean userExistsMiss() {
+        return repository.userExists("nosuchuser" + randomUser());
+    }
+
+    private int randomUser() {
+        return ThreadLocalRandom.current().nextInt(users);
+    }
+}
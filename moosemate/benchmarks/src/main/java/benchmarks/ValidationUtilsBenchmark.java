@@ -0,0 +1,57 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import util.ValidationUtils;
+
+import java.util.concurrent.TimeUnit;
+
+// The input checks that run on every signup, login and post.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationUtilsBenchmark {
+
+    private String email = "benchuser42@bench.example";
+    private String invalidEmail = "benchuser42.bench.example";
+    private String username = "benchuser42";
+    private String password = "Benchmark1!";
+    private String content = "Benchmark moosage number 42";
+
+    @Benchmark
+    public boolean isValidEmail() {
+        return ValidationUtils.isValidEmail(email);
+    }
+
+    @Benchmark
+    public boolean isValidEmailInvalid() {
+        return ValidationUtils.isValidEmail(invalidEmail);
+    }
+
+    @Benchmark
+    public String validateUsername() {
+        ValidationUtils.validateUsername(username);
+        return username;
+    }
+
+    @Benchmark
+    public String validatePassword() {
+        ValidationUtils.validatePassword(password);
+        return password;
+    }
+
+    @Benchmark
+    public boolean anyNullOrEmpty() {
+        return ValidationUtils.anyNullOrEmpty(username, email, password, content);
+    }
+}
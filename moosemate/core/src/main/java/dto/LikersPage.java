@@ -0,0 +1,44 @@
+package dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// One page of the users who liked a moosage, as userIDs in ascending order.
+// nextCursor is passed back as 'after' for the following page, and is null on the last page.
+public class LikersPage {
+    private List<String> userIds;
+    private String nextCursor;
+
+    public LikersPage() {
+        this.userIds = new ArrayList<>();
+    }
+
+    public LikersPage(List<String> userIds, String nextCursor) {
+        this.userIds = userIds != null ? new ArrayList<>(userIds) : new ArrayList<>();
+        this.nextCursor = nextCursor;
+    }
+
+    public List<String> getUserIds() {
+        return new ArrayList<>(userIds);
+    }
+
+    public void setUserIds(List<String> userIds) {
+        this.userIds = userIds != null ? new ArrayList<>(userIds) : new ArrayList<>();
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    // True if there is a page after this one
+    @JsonIgnore
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
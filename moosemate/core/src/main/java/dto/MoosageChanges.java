@@ -0,0 +1,106 @@
+package dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// What changed in the feed after a change sequence number (GET /api/moosages/changes?since=n):
+// the changed moosages as they are now, new ones included, and the ids of deleted ones.
+// sequence is the number to ask from next time. If complete is false the server cannot tell
+// what changed (the number is too old, from before a restart, or too much changed), the lists
+// are empty and the feed has to be loaded again.
+public class MoosageChanges {
+    private long sequence;
+    private boolean complete;
+    private List<MoosageDto> changed;
+    private List<Long> deleted;
+
+    public MoosageChanges() {
+        this.changed = new ArrayList<>();
+        this.deleted = new ArrayList<>();
+    }
+
+    public MoosageChanges(long sequence, boolean complete, List<MoosageDto> changed, List<Long> deleted) {
+        this.sequence = sequence;
+        this.complete = complete;
+        this.changed = changed != null ? new ArrayList<>(changed) : new ArrayList<>();
+        this.deleted = deleted != null ? new ArrayList<>(deleted) : new ArrayList<>();
+    }
+
+    // Applies the changes to a loaded feed, newest first, and returns false if they are not
+    // complete. Deleted and changed moosages that are loaded are removed or replaced. Others are
+    // inserted in feed order if they are newer than the oldest loaded one, as older moosages
+    // come with the following pages.
+    public boolean applyTo(List<MoosageDto> feed) {
+        if (!complete) {
+            return false;
+        }
+        for (Long id : deleted) {
+            MoosageEvent.deleted(id).applyTo(feed);
+        }
+        for (MoosageDto moosage : changed) {
+            int index = indexOf(feed, moosage.getId());
+            if (index >= 0) {
+                feed.set(index, moosage);
+            } else {
+                int position = insertionPoint(feed, moosage);
+                if (position < feed.size() || feed.isEmpty()) {
+                    feed.add(position, moosage);
+                }
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(List<MoosageDto> feed, Long id) {
+        for (int i = 0; i < feed.size(); i++) {
+            if (feed.get(i).getId().equals(id)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Index of the first loaded moosage that comes after the given one in feed order
+    private static int insertionPoint(List<MoosageDto> feed, MoosageDto moosage) {
+        for (int i = 0; i < feed.size(); i++) {
+            MoosageDto loaded = feed.get(i);
+            int byTime = moosage.getTime().compareTo(loaded.getTime());
+            if (byTime > 0 || byTime == 0 && moosage.getId() > loaded.getId()) {
+                return i;
+            }
+        }
+        return feed.size();
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public void setComplete(boolean complete) {
+        this.complete = complete;
+    }
+
+    public List<MoosageDto> getChanged() {
+        return new ArrayList<>(changed);
+    }
+
+    public void setChanged(List<MoosageDto> changed) {
+        this.changed = changed != null ? new ArrayList<>(changed) : new ArrayList<>();
+    }
+
+    public List<Long> getDeleted() {
+        return new ArrayList<>(deleted);
+    }
+
+    public void setDeleted(List<Long> deleted) {
+        this.deleted = deleted != null ? new ArrayList<>(deleted) : new ArrayList<>();
+    }
+}
@@ -1,10 +1,6 @@
 package dto;
 
-import com.fasterxml.jackson.annotation.JsonIgnore;
-
 import java.time.LocalDateTime;
-import java.util.HashSet;
-import java.util.Set;
 
 // Partially implemented by AI (Copilot, Claude sonnet 4.5), 
 // in order to efficiently generate boilerplate code.
@@ -16,38 +12,42 @@ public class MoosageDto {
     private String authorId;  // userID UUID String
     private String authorUsername;  // For display purposes
     private LocalDateTime time;
-    private Set<String> likedByUserIds;  // Set of userID UUID Strings
+    private int likeCount;  // Number of users who liked the moosage
+    private boolean likedByMe;  // True if the requesting user has liked the moosage
     private boolean edited;  // True if moosage has been edited
     
     public MoosageDto() {
-        this.likedByUserIds = new HashSet<>();
         this.edited = false;
     }
     
     public MoosageDto(Long id, String content, String authorId,
                       String authorUsername, LocalDateTime time,
-                      Set<String> likedByUserIds) {
+                      int likeCount, boolean likedByMe) {
         this.id = id;
         this.content = content;
         this.authorId = authorId;
         this.authorUsername = authorUsername;
         this.time = time;
-        this.likedByUserIds = likedByUserIds != null ? likedByUserIds : new HashSet<>();
+        this.likeCount = likeCount;
+        this.likedByMe = likedByMe;
         this.edited = false;
     }
     
-    // Factory method for converting from Moosage model
-    public static MoosageDto fromMoosage(model.Moosage moosage) {
+    // Factory method for converting from Moosage model. Likes are sent as a count and a flag for the
+    // requesting user, not as the full list of likers, which can be very large. Moosages only
+    // store the author's id, so the caller looks up the username to display.
+    public static MoosageDto fromMoosage(model.Moosage moosage, String authorUsername, String currentUserId) {
         if (moosage == null) {
             return null;
         }
         MoosageDto dto = new MoosageDto();
         dto.setId(moosage.getId());
         dto.setContent(moosage.getContent());
-        dto.setAuthorId(moosage.getAuthor().getUserID());
-        dto.setAuthorUsername(moosage.getAuthor().getUsername());
+        dto.setAuthorId(moosage.getAuthorId());
+        dto.setAuthorUsername(authorUsername);
         dto.setTime(moosage.getTime());
-        dto.setLikedByUserIds(new HashSet<>(moosage.getLikedByUserIds()));
+        dto.setLikeCount(moosage.getLikeCount());
+        dto.setLikedByMe(moosage.isLikedBy(currentUserId));
         dto.setEdited(moosage.isEdited());
         return dto;
     }
@@ -92,31 +92,27 @@ public class MoosageDto {
         this.time = time;
     }
     
-    public Set<String> getLikedByUserIds() {
-        // Return defensive copy to avoid exposing internal representation
-        return new HashSet<>(likedByUserIds);
+    public int getLikeCount() {
+        return likeCount;
     }
     
-    public void setLikedByUserIds(Set<String> likedByUserIds) {
-        // Create defensive copy to avoid exposing internal representation
-        this.likedByUserIds = likedByUserIds != null ? new HashSet<>(likedByUserIds) : new HashSet<>();
+    public void setLikeCount(int likeCount) {
+        this.likeCount = likeCount;
     }
     
-    public boolean isEdited() {
-        return edited;
+    public boolean isLikedByMe() {
+        return likedByMe;
     }
     
-    public void setEdited(boolean edited) {
-        this.edited = edited;
+    public void setLikedByMe(boolean likedByMe) {
+        this.likedByMe = likedByMe;
     }
     
-    @JsonIgnore
-    public int getLikeCount() {
-        return likedByUserIds.size();
+    public boolean isEdited() {
+        return edited;
     }
     
-    @JsonIgnore
-    public boolean isLikedBy(String userId) {
-        return likedByUserIds.contains(userId);
+    public void setEdited(boolean edited) {
+        this.edited = edited;
     }
 }
@@ -0,0 +1,162 @@
+package dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+// A change to the feed, as pushed by the feed event stream (GET /api/moosages/stream).
+// CREATED carries the new moosage, EDITED the new content, LIKES the new like count and DELETED
+// only the id. RESYNC means events may have been missed, e.g. because the client fell behind or
+// the stream was (re)opened after the feed was loaded, so the feed has to be brought up to date.
+//
+// Events describe the resulting state rather than a difference, so applying one twice, or one
+// that the loaded feed already reflects, leaves the feed unchanged.
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MoosageEvent {
+
+    public enum Type { CREATED, EDITED, LIKES, DELETED, RESYNC }
+
+    private Type type;
+    private Long id;
+    private MoosageDto moosage;
+    private String content;
+    private Integer likeCount;
+
+    public MoosageEvent() {
+    }
+
+    private MoosageEvent(Type type, Long id) {
+        this.type = type;
+        this.id = id;
+    }
+
+    public static MoosageEvent created(MoosageDto moosage) {
+        if (moosage == null) {
+            throw new IllegalArgumentException("Moosage cannot be null");
+        }
+        MoosageEvent event = new MoosageEvent(Type.CREATED, moosage.getId());
+        event.moosage = moosage;
+        return event;
+    }
+
+    public static MoosageEvent edited(Long id, String content) {
+        MoosageEvent event = new MoosageEvent(Type.EDITED, id);
+        event.content = content;
+        return event;
+    }
+
+    public static MoosageEvent likes(Long id, int likeCount) {
+        MoosageEvent event = new MoosageEvent(Type.LIKES, id);
+        event.likeCount = likeCount;
+        return event;
+    }
+
+    public static MoosageEvent deleted(Long id) {
+        return new MoosageEvent(Type.DELETED, id);
+    }
+
+    public static MoosageEvent resync() {
+        return new MoosageEvent(Type.RESYNC, null);
+    }
+
+    // Applies the event to a loaded feed, newest first. A new moosage goes to the top unless the
+    // feed has it already; changes to moosages that are not loaded are ignored. Changed entries
+    // are set again, so an observable list reports them. Returns false for RESYNC, which can only
+    // be handled by loading the feed again.
+    public boolean applyTo(List<MoosageDto> feed) {
+        if (type == null || type == Type.RESYNC) {
+            return false;
+        }
+        int index = indexOf(feed, id);
+        switch (type) {
+            case CREATED -> {
+                if (index >= 0) {
+                    feed.set(index, moosage);
+                } else {
+                    feed.add(0, moosage);
+                }
+            }
+            case EDITED -> {
+                if (index >= 0) {
+                    MoosageDto dto = feed.get(index);
+                    dto.setContent(content);
+                    dto.setEdited(true);
+                    feed.set(index, dto);
+                }
+            }
+            case LIKES -> {
+                if (index >= 0 && likeCount != null) {
+                    MoosageDto dto = feed.get(index);
+                    dto.setLikeCount(likeCount);
+                    feed.set(index, dto);
+                }
+            }
+            case DELETED -> {
+                if (index >= 0) {
+                    feed.remove(index);
+                }
+            }
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Loaded feeds are a few pages long, so a scan is cheaper than keeping an index in sync
+    private static int indexOf(List<MoosageDto> feed, Long id) {
+        for (int i = 0; i < feed.size(); i++) {
+            if (id != null && id.equals(feed.get(i).getId())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public MoosageDto getMoosage() {
+        return moosage;
+    }
+
+    public void setMoosage(MoosageDto moosage) {
+        this.moosage = moosage;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public Integer getLikeCount() {
+        return likeCount;
+    }
+
+    public void setLikeCount(Integer likeCount) {
+        this.likeCount = likeCount;
+    }
+
+    // True for events that say the feed has to be loaded again
+    @JsonIgnore
+    public boolean isResync() {
+        return type == Type.RESYNC;
+    }
+}
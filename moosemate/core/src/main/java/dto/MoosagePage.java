@@ -0,0 +1,54 @@
+package dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// One page of the moosage feed. nextCursor is an opaque token for the following page,
+// or null when this is the last page. changeSequence is the server's change sequence number
+// from before the page was read, to ask what changed since (see MoosageChanges); null if unknown.
+public class MoosagePage {
+    private List<MoosageDto> moosages;
+    private String nextCursor;
+    private Long changeSequence;
+
+    public MoosagePage() {
+        this.moosages = new ArrayList<>();
+    }
+
+    public MoosagePage(List<MoosageDto> moosages, String nextCursor) {
+        this.moosages = moosages != null ? new ArrayList<>(moosages) : new ArrayList<>();
+        this.nextCursor = nextCursor;
+    }
+
+    public List<MoosageDto> getMoosages() {
+        return new ArrayList<>(moosages);
+    }
+
+    public void setMoosages(List<MoosageDto> moosages) {
+        this.moosages = moosages != null ? new ArrayList<>(moosages) : new ArrayList<>();
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public Long getChangeSequence() {
+        return changeSequence;
+    }
+
+    public void setChangeSequence(Long changeSequence) {
+        this.changeSequence = changeSequence;
+    }
+
+    // True if there is a page after this one
+    @JsonIgnore
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
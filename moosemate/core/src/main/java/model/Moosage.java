@@ -1,7 +1,18 @@
 package model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import util.IntHashSet;
+import util.UserIdOrdinals;
+
 import java.time.LocalDateTime;
-import java.util.HashSet;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
 import java.util.Set;
 
 // Partially implemented by AI (Copilot, Claude sonnet 4.5), 
@@ -9,31 +20,79 @@ import java.util.Set;
 public class Moosage {
     private Long id;
     private String content;
-    private User author; // userID for author of Moosage
+    private String authorId; // userID for author of Moosage; username etc. come from the user repository
     private LocalDateTime time; // date for original post time
-    private Set<String> likedByUserIds;  // Each moosage has a set of UserID Strings (users who have liked the moosage)
+    // Users who have liked the moosage, as their ordinals in 'ordinals'. The set is immutable (a
+    // like makes a new set), so it is handed out without copying and copies of the moosage share it.
+    private IntHashSet likes;
+    // Table the like ordinals come from, usually the store's (see internLikes). Null until the
+    // first like of a moosage built outside a store, which then gets a table of its own.
+    @JsonIgnore
+    private UserIdOrdinals ordinals;
+    // The likers sorted by userID, built on first use of getLikedByUserIdsAfter. Copies share it,
+    // and it is rebuilt once the like set it was built from has been replaced.
+    @JsonIgnore
+    private volatile SortedLikers sortedLikers;
     private boolean edited;  // Track if moosage has been edited
+    // Set when MoosageRepository publishes the moosage; from then on it refuses every change
+    @JsonIgnore
+    private boolean frozen;
 
     public Moosage() {
-        this.likedByUserIds = new HashSet<>();
+        this.likes = IntHashSet.empty();
         this.edited = false;
     }
 
-    public Moosage(Long id, String content, User author, LocalDateTime time) {
+    public Moosage(Long id, String content, String authorId, LocalDateTime time) {
         this.id = id;
         this.content = content;
-        // Defensive copy to avoid exposing internal representation
-        this.author = author != null ? new User(author) : null;
+        this.authorId = authorId;
         this.time = time;
-        this.likedByUserIds = new HashSet<>();
+        this.likes = IntHashSet.empty();
         this.edited = false;
     }
 
+    // A moosage whose likes will be interned in the given table, e.g. the one of the store loading it
+    public Moosage(Long id, String content, String authorId, LocalDateTime time, UserIdOrdinals ordinals) {
+        this(id, content, authorId, time);
+        this.ordinals = ordinals;
+    }
+
+    // Copy of this moosage that can be changed; the like set is shared, not copied.
+    // MoosageRepository changes copies of published moosages, so readers holding a moosage
+    // never see it change.
+    public Moosage copy() {
+        Moosage copy = new Moosage(id, content, authorId, time);
+        copy.likes = likes;
+        copy.ordinals = ordinals;
+        copy.sortedLikers = sortedLikers;
+        copy.edited = edited;
+        return copy;
+    }
+
+    // Makes the moosage read-only: every setter then throws UnsupportedOperationException.
+    // Called by MoosageRepository before it publishes the moosage.
+    public void freeze() {
+        frozen = true;
+    }
+
+    @JsonIgnore
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException("Moosage " + id + " is published and read-only; change a copy()");
+        }
+    }
+
     public Long getId() {
         return id;
     }
 
     public void setId(Long id) {
+        checkNotFrozen();
         this.id = id;
     }
 
@@ -42,17 +101,26 @@ public class Moosage {
     }
 
     public void setContent(String content) {
+        checkNotFrozen();
         this.content = content;
     }
 
-    public User getAuthor() {
-        // Defensive copy to avoid exposing internal representation
-        return author != null ? new User(author) : null;
+    public String getAuthorId() {
+        return authorId;
     }
 
-    public void setAuthor(User author) {
-        // Defensive copy to avoid exposing internal representation
-        this.author = author != null ? new User(author) : null;
+    public void setAuthorId(String authorId) {
+        checkNotFrozen();
+        this.authorId = authorId;
+    }
+
+    // Older data files embed a copy of the author ({"author": {"userID": ...}}); only the id is kept
+    @JsonProperty("author")
+    private void setEmbeddedAuthor(Map<String, Object> author) {
+        checkNotFrozen();
+        if (authorId == null && author != null && author.get("userID") instanceof String userId) {
+            this.authorId = userId;
+        }
     }
 
     public LocalDateTime getTime() {
@@ -60,20 +128,138 @@ public class Moosage {
     }
 
     public void setTime(LocalDateTime time) {
+        checkNotFrozen();
         this.time = time;
     }
 
+    // UserIDs of the users who liked the moosage, in no particular order. A read-only view of
+    // the like set, so nothing is copied.
     public Set<String> getLikedByUserIds() {
-        // Return defensive copy to avoid exposing internal representation
-        return new HashSet<>(likedByUserIds);
+        return new LikedByUserIds(likes, ordinals);
+    }
+
+    // Up to 'limit' userIDs of the users who liked the moosage, in ascending order and starting
+    // after 'afterUserId' (null for the first page). The likers are sorted once per like set, so
+    // each page is a binary search and a copy of the page.
+    public List<String> getLikedByUserIdsAfter(String afterUserId, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        String[] sorted = sortedLikers().userIds();
+        int from = 0;
+        if (afterUserId != null) {
+            int at = Arrays.binarySearch(sorted, afterUserId);
+            from = at >= 0 ? at + 1 : -at - 1;
+        }
+        int to = (int) Math.min((long) from + limit, sorted.length);
+        return List.of(Arrays.copyOfRange(sorted, from, to));
+    }
+
+    private SortedLikers sortedLikers() {
+        SortedLikers sorted = sortedLikers;
+        if (sorted == null || sorted.likes() != likes || sorted.ordinals() != ordinals) {
+            // Two readers may both build it; they build the same array
+            String[] userIds = getLikedByUserIds().toArray(new String[0]);
+            Arrays.sort(userIds);
+            sorted = new SortedLikers(likes, ordinals, userIds);
+            sortedLikers = sorted;
+        }
+        return sorted;
+    }
+
+    // Replaces all likes at once, which is cheaper than adding them one by one
+    public void setLikedByUserIds(Collection<String> userIds) {
+        checkNotFrozen();
+        if (userIds == null) {
+            this.likes = IntHashSet.empty();
+            return;
+        }
+        UserIdOrdinals table = ordinals();
+        int[] liked = new int[userIds.size()];
+        int i = 0;
+        for (String userId : userIds) {
+            liked[i++] = table.ordinalOf(userId);
+        }
+        this.likes = IntHashSet.of(liked);
+    }
+
+    // The likes as ordinals in getUserIdOrdinals(), for stores that keep them as ints
+    @JsonIgnore
+    public IntHashSet getLikes() {
+        return likes;
+    }
+
+    // Replaces the likes with ordinals from the given table
+    @JsonIgnore
+    public void setLikes(IntHashSet likes, UserIdOrdinals ordinals) {
+        checkNotFrozen();
+        if (likes == null) {
+            throw new IllegalArgumentException("Likes cannot be null");
+        }
+        if (ordinals == null && !likes.isEmpty()) {
+            throw new IllegalArgumentException("Likes need the table of their ordinals");
+        }
+        this.likes = likes;
+        this.ordinals = ordinals;
+    }
+
+    // Table the ordinals of getLikes() come from; null if the moosage has never had a table
+    @JsonIgnore
+    public UserIdOrdinals getUserIdOrdinals() {
+        return ordinals;
+    }
+
+    // Moves the likes into the given table, so they compare by ordinal with the likes of every
+    // other moosage in it. Stores and MoosageRepository call this before publishing a moosage
+    // built elsewhere, e.g. one read from JSON; for a moosage already in the table it does nothing.
+    public void internLikes(UserIdOrdinals table) {
+        if (table == null) {
+            throw new IllegalArgumentException("User ID ordinals cannot be null");
+        }
+        if (table == ordinals) {
+            return;
+        }
+        checkNotFrozen();
+        if (!likes.isEmpty()) {
+            int[] moved = likes.toArray();
+            for (int i = 0; i < moved.length; i++) {
+                moved[i] = table.ordinalOf(ordinals.userIdOf(moved[i]));
+            }
+            likes = IntHashSet.of(moved);
+        }
+        ordinals = table;
+    }
+
+    // The table to add likes to, made on first use for a moosage built outside a store
+    private UserIdOrdinals ordinals() {
+        if (ordinals == null) {
+            ordinals = new UserIdOrdinals();
+        }
+        return ordinals;
+    }
+
+    // Number of likes
+    @JsonIgnore
+    public int getLikeCount() {
+        return likes.size();
+    }
+
+    public boolean isLikedBy(String userId) {
+        int ordinal = ordinals != null ? ordinals.find(userId) : -1;
+        return ordinal >= 0 && likes.contains(ordinal);
     }
 
     public void addLike(String userId) {
-        likedByUserIds.add(userId);
+        checkNotFrozen();
+        likes = likes.with(ordinals().ordinalOf(userId));
     }
 
     public void removeLike(String userId) {
-        likedByUserIds.remove(userId);
+        checkNotFrozen();
+        int ordinal = ordinals != null ? ordinals.find(userId) : -1;
+        if (ordinal >= 0) {
+            likes = likes.without(ordinal);
+        }
     }
 
     public boolean isEdited() {
@@ -81,6 +267,53 @@ public class Moosage {
     }
 
     public void setEdited(boolean edited) {
+        checkNotFrozen();
         this.edited = edited;
     }
+
+    // The userIDs of a like set in ascending order, with the set and table they were read from
+    private record SortedLikers(IntHashSet likes, UserIdOrdinals ordinals, String[] userIds) {
+    }
+
+    // Read-only Set<String> over a like set; userIDs are looked up as the set is walked
+    private static final class LikedByUserIds extends AbstractSet<String> {
+        private final IntHashSet likes;
+        // Null only when there are no likes
+        private final UserIdOrdinals ordinals;
+
+        LikedByUserIds(IntHashSet likes, UserIdOrdinals ordinals) {
+            this.likes = likes;
+            this.ordinals = ordinals;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof String userId)) {
+                return false;
+            }
+            int ordinal = ordinals != null ? ordinals.find(userId) : -1;
+            return ordinal >= 0 && likes.contains(ordinal);
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            PrimitiveIterator.OfInt liked = likes.iterator();
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return liked.hasNext();
+                }
+
+                @Override
+                public String next() {
+                    return ordinals.userIdOf(liked.nextInt());
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return likes.size();
+        }
+    }
 }
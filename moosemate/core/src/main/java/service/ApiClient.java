@@ -5,24 +5,39 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import dto.ApiResponse;
 import dto.CreateMoosageRequest;
+import dto.LikersPage;
 import dto.LoginRequest;
 import dto.LoginResponse;
+import dto.MoosageChanges;
 import dto.MoosageDto;
+import dto.MoosageEvent;
+import dto.MoosagePage;
 import dto.SignUpRequest;
 import dto.UpdateMoosageRequest;
 
 import java.io.IOException;
 import java.net.URI;
+import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 // Partially implemented by AI (Copilot, Claude sonnet 4.5), due to minimal previous experience.
 public class ApiClient {
     private static final String BASE_URL = "http://localhost:8080/api";
     private final HttpClient httpClient;
     private final ObjectMapper objectMapper;
+    // Last body of each conditional GET, by URL; see sendConditional
+    private final Map<String, CachedBody> cachedBodies = new ConcurrentHashMap<>();
+
+    private record CachedBody(String sessionToken, String etag, String body) {
+    }
 
     private ApiClient() {
         this.httpClient = HttpClient.newHttpClient();
@@ -57,6 +72,7 @@ public class ApiClient {
 
     // Logout user by terminating session on server
     public ApiResponse<String> logout(String sessionToken) throws IOException, InterruptedException {
+        cachedBodies.clear();
         HttpRequest request = HttpRequest.newBuilder()
                 .uri(URI.create(BASE_URL + "/auth/logout"))
                 .header("Content-Type", "application/json")
@@ -89,21 +105,112 @@ public class ApiClient {
         return objectMapper.readValue(response.body(), typeRef);
     }
 
-    // HTTP-GET request to fetch all moosages
+    // HTTP-GET request to fetch all moosages. Conditional, so an unchanged feed is not sent again.
     public ApiResponse<List<MoosageDto>> getMoosages() throws IOException, InterruptedException {
-        String sessionToken = SessionManager.getInstance().getSessionToken();
+        String body = sendConditional(BASE_URL + "/moosages");
         
+        TypeReference<ApiResponse<List<MoosageDto>>> typeRef =
+                new TypeReference<ApiResponse<List<MoosageDto>>>() { };
+        return objectMapper.readValue(body, typeRef);
+    }
+
+    // HTTP-GET request to fetch one moosage. Conditional, so an unchanged moosage is not sent again.
+    public ApiResponse<MoosageDto> getMoosage(Long moosageId) throws IOException, InterruptedException {
+        String body = sendConditional(BASE_URL + "/moosages/" + moosageId);
+
+        TypeReference<ApiResponse<MoosageDto>> typeRef =
+                new TypeReference<ApiResponse<MoosageDto>>() { };
+        return objectMapper.readValue(body, typeRef);
+    }
+
+    // Sends a GET with the ETag of the last body of the URL as If-None-Match, and returns the
+    // body, or the cached one if the server answers 304 Not Modified. Bodies are cached per
+    // session, as they depend on the user, and parsed anew each time, as callers change them.
+    private String sendConditional(String url) throws IOException, InterruptedException {
+        String sessionToken = SessionManager.getInstance().getSessionToken();
+        CachedBody cached = cachedBodies.get(url);
+        if (cached != null && !cached.sessionToken().equals(sessionToken)) {
+            cached = null;
+        }
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .header("Content-Type", "application/json")
+                .header("Session-Token", sessionToken)
+                .GET();
+        if (cached != null) {
+            builder.header("If-None-Match", cached.etag());
+        }
+
+        HttpResponse<String> response = httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() == 304 && cached != null) {
+            return cached.body();
+        }
+        Optional<String> etag = response.headers().firstValue("ETag");
+        if (response.statusCode() == 200 && etag.isPresent()) {
+            cachedBodies.put(url, new CachedBody(sessionToken, etag.get(), response.body()));
+        } else {
+            cachedBodies.remove(url);
+        }
+        return response.body();
+    }
+
+    // HTTP-GET request for one page of the feed. Pass null as cursor for the first page,
+    // then the nextCursor of the previous page. Conditional, so an unchanged page is not sent again.
+    public ApiResponse<MoosagePage> getMoosagePage(int limit, String beforeCursor)
+            throws IOException, InterruptedException {
+        String url = BASE_URL + "/moosages?limit=" + limit;
+        if (beforeCursor != null) {
+            url += "&before=" + URLEncoder.encode(beforeCursor, StandardCharsets.UTF_8);
+        }
+        String body = sendConditional(url);
+
+        TypeReference<ApiResponse<MoosagePage>> typeRef =
+                new TypeReference<ApiResponse<MoosagePage>>() { };
+        return objectMapper.readValue(body, typeRef);
+    }
+
+    // HTTP-GET request for what changed in the feed after a change sequence number, as given
+    // by the first feed page and then by each answer. Refreshing this way transfers only what
+    // changed; if the answer is not complete, the feed has to be loaded again.
+    public ApiResponse<MoosageChanges> getMoosageChanges(long since) throws IOException, InterruptedException {
+        String sessionToken = SessionManager.getInstance().getSessionToken();
+
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(BASE_URL + "/moosages"))
+                .uri(URI.create(BASE_URL + "/moosages/changes?since=" + since))
                 .header("Content-Type", "application/json")
                 .header("Session-Token", sessionToken)
                 .GET()
                 .build();
 
         HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-        
-        TypeReference<ApiResponse<List<MoosageDto>>> typeRef =
-                new TypeReference<ApiResponse<List<MoosageDto>>>() { };
+
+        TypeReference<ApiResponse<MoosageChanges>> typeRef =
+                new TypeReference<ApiResponse<MoosageChanges>>() { };
+        return objectMapper.readValue(response.body(), typeRef);
+    }
+
+    // HTTP-GET request for one page of the users who liked a moosage. Pass null as cursor for
+    // the first page, then the nextCursor of the previous page.
+    public ApiResponse<LikersPage> getLikers(Long moosageId, int limit, String afterCursor)
+            throws IOException, InterruptedException {
+        String sessionToken = SessionManager.getInstance().getSessionToken();
+        String url = BASE_URL + "/moosages/" + moosageId + "/likes?limit=" + limit;
+        if (afterCursor != null) {
+            url += "&after=" + URLEncoder.encode(afterCursor, StandardCharsets.UTF_8);
+        }
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .header("Content-Type", "application/json")
+                .header("Session-Token", sessionToken)
+                .GET()
+                .build();
+
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+
+        TypeReference<ApiResponse<LikersPage>> typeRef =
+                new TypeReference<ApiResponse<LikersPage>>() { };
         return objectMapper.readValue(response.body(), typeRef);
     }
 
@@ -179,4 +286,14 @@ public class ApiClient {
         TypeReference<ApiResponse<Void>> typeRef = new TypeReference<ApiResponse<Void>>() { };
         return objectMapper.readValue(response.body(), typeRef);
     }
+
+    // Subscribes to the feed's change events, so a loaded feed can be kept current without
+    // reloading it. The listener runs on the subscription's background thread; see
+    // MoosageEventStream. Close the returned subscription to stop.
+    public MoosageEventStream subscribeToMoosageEvents(Consumer<MoosageEvent> listener) {
+        MoosageEventStream stream = new MoosageEventStream(httpClient, objectMapper,
+                URI.create(BASE_URL + "/moosages/stream"), listener);
+        stream.start();
+        return stream;
+    }
 }
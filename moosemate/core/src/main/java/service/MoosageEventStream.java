@@ -0,0 +1,158 @@
+package service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dto.MoosageEvent;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+// A subscription to the feed's event stream (GET /api/moosages/stream), opened by
+// ApiClient.subscribeToMoosageEvents. Events are read on a daemon thread and passed to the
+// listener in the order the server sent them.
+//
+// The stream is opened again when it ends or fails, waiting longer after each failed attempt.
+// Changes made before the stream was open are never sent on it: on the first connect that is
+// whatever changed after the feed was loaded, on a reconnect whatever was sent while it was down.
+// So the first event each time the stream opens is a RESYNC.
+// Close the subscription to stop, e.g. on logout.
+public final class MoosageEventStream implements AutoCloseable {
+
+    static final long INITIAL_RETRY_MILLIS = 1000;
+    static final long MAX_RETRY_MILLIS = 30_000;
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final URI uri;
+    private final Consumer<MoosageEvent> listener;
+    private final Thread reader;
+    private volatile boolean closed;
+    private volatile InputStream body;
+
+    MoosageEventStream(HttpClient httpClient, ObjectMapper objectMapper, URI uri, Consumer<MoosageEvent> listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.uri = uri;
+        this.listener = listener;
+        this.reader = new Thread(this::run, "moosage-event-stream");
+        this.reader.setDaemon(true);
+    }
+
+    void start() {
+        reader.start();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    private void run() {
+        long retryMillis = INITIAL_RETRY_MILLIS;
+        while (!closed) {
+            try {
+                if (read()) {
+                    retryMillis = INITIAL_RETRY_MILLIS;
+                }
+            } catch (IOException e) {
+                if (!closed) {
+                    System.err.println("Feed event stream failed: " + e.getMessage());
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                Thread.sleep(retryMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+            retryMillis = Math.min(retryMillis * 2, MAX_RETRY_MILLIS);
+        }
+    }
+
+    // Opens the stream and reads it until it ends. Returns false if the server refused it.
+    private boolean read() throws IOException, InterruptedException {
+        // The token is read on every attempt, as the session may change
+        String sessionToken = SessionManager.getInstance().getSessionToken();
+        if (sessionToken == null) {
+            return false;
+        }
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(uri)
+                .header("Accept", "text/event-stream")
+                .header("Session-Token", sessionToken)
+                .GET()
+                .build();
+
+        HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream stream = response.body()) {
+            if (response.statusCode() != 200) {
+                System.err.println("Feed event stream refused: HTTP " + response.statusCode());
+                return false;
+            }
+            body = stream;
+            if (closed) {
+                return true;
+            }
+            deliver(MoosageEvent.resync());
+            readEvents(new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8)));
+            return true;
+        } finally {
+            body = null;
+        }
+    }
+
+    // Server-sent events are "field: value" lines ending with an empty line. Only data lines
+    // matter here, as each event's JSON carries its type; comments (heartbeats) are skipped.
+    private void readEvents(BufferedReader in) throws IOException {
+        StringBuilder data = new StringBuilder();
+        String line;
+        while (!closed && (line = in.readLine()) != null) {
+            if (line.isEmpty()) {
+                if (data.length() > 0) {
+                    deliver(objectMapper.readValue(data.toString(), MoosageEvent.class));
+                    data.setLength(0);
+                }
+            } else if (line.startsWith("data:")) {
+                if (data.length() > 0) {
+                    data.append('\n');
+                }
+                data.append(line.startsWith("data: ") ? line.substring(6) : line.substring(5));
+            }
+        }
+    }
+
+    private void deliver(MoosageEvent event) {
+        if (closed) {
+            return;
+        }
+        try {
+            listener.accept(event);
+        } catch (RuntimeException e) {
+            System.err.println("Error handling feed event: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        reader.interrupt();
+        InputStream stream = body;
+        if (stream != null) {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                System.err.println("Error closing feed event stream: " + e.getMessage());
+            }
+        }
+    }
+}
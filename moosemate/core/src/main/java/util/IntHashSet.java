@@ -0,0 +1,348 @@
+package util;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+// Immutable set of non-negative ints, e.g. the user ordinals (see UserIdOrdinals) of a moosage's
+// likes. Values are stored unboxed. with and without return a changed set and leave the set
+// alone, so one set can be read by many threads and shared by versions of a moosage without
+// locking.
+//
+// The set is a hash trie: a set of up to LEAF_CAPACITY values is one sorted int array, a larger
+// one branches 32 ways on the next 5 bits of the values' hashes, down to such arrays. A change
+// copies only the path to the array it touches, at most a few hundred bytes however large the
+// set is, and the untouched parts are shared with the previous set. Removals fold branches
+// back into an array once they are small enough, so shrinking sets give the memory back.
+public final class IntHashSet {
+
+    // Values in a leaf before it is split; a change copies at most one leaf
+    static final int LEAF_CAPACITY = 64;
+    // Branches smaller than this after a removal are folded into a leaf
+    private static final int COLLAPSE_SIZE = LEAF_CAPACITY / 2;
+    private static final int BITS_PER_LEVEL = 5;
+    // 32 hash bits are used up after 7 levels, so leaves that deep hold a single value
+    private static final int MAX_DEPTH = 7;
+
+    private static final int[] EMPTY_LEAF = new int[0];
+    private static final IntHashSet EMPTY = new IntHashSet(EMPTY_LEAF, 0);
+
+    // A sorted int[] leaf or a Branch
+    private final Object root;
+    private final int size;
+
+    // Children indexed by the set bits of the bitmap, as in a hash array mapped trie
+    private static final class Branch {
+        private final int bitmap;
+        private final Object[] children;
+        private final int size;
+
+        Branch(int bitmap, Object[] children, int size) {
+            this.bitmap = bitmap;
+            this.children = children;
+            this.size = size;
+        }
+    }
+
+    private IntHashSet(Object root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    public static IntHashSet empty() {
+        return EMPTY;
+    }
+
+    // Set of the given values; duplicates are stored once.
+    public static IntHashSet of(int... values) {
+        if (values.length == 0) {
+            return EMPTY;
+        }
+        int[] sorted = values.clone();
+        Arrays.sort(sorted);
+        checked(sorted[0]);
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        int[] unique = distinct == sorted.length ? sorted : Arrays.copyOf(sorted, distinct);
+        return new IntHashSet(build(unique, 0), distinct);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int value) {
+        if (size == 0 || value < 0) {
+            return false;
+        }
+        int hash = hash(value);
+        Object node = root;
+        for (int depth = 0; ; depth++) {
+            if (node instanceof int[] leaf) {
+                return Arrays.binarySearch(leaf, value) >= 0;
+            }
+            Branch branch = (Branch) node;
+            int bit = bit(hash, depth);
+            if ((branch.bitmap & bit) == 0) {
+                return false;
+            }
+            node = branch.children[index(branch.bitmap, bit)];
+        }
+    }
+
+    // This set plus the value; the set itself if it already holds the value.
+    public IntHashSet with(int value) {
+        Object changed = insert(root, checked(value), hash(value), 0);
+        return changed == root ? this : new IntHashSet(changed, size + 1);
+    }
+
+    // This set minus the value; the set itself if it does not hold the value.
+    public IntHashSet without(int value) {
+        if (value < 0) {
+            return this;
+        }
+        Object changed = remove(root, value, hash(value), 0);
+        if (changed == root) {
+            return this;
+        }
+        return size == 1 ? EMPTY : new IntHashSet(changed, size - 1);
+    }
+
+    public void forEach(IntConsumer action) {
+        forEach(root, action);
+    }
+
+    // Values in no particular order
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private final Deque<Branch> branches = new ArrayDeque<>();
+            private final Deque<Integer> positions = new ArrayDeque<>();
+            private int[] leaf = EMPTY_LEAF;
+            private int index;
+
+            {
+                descend(root);
+            }
+
+            // Goes down to the first leaf of the node, remembering the way back up
+            private void descend(Object node) {
+                while (node instanceof Branch branch) {
+                    branches.push(branch);
+                    positions.push(0);
+                    node = branch.children[0];
+                }
+                leaf = (int[]) node;
+                index = 0;
+            }
+
+            // Moves on to the next leaf that has values, if any
+            private void advance() {
+                while (index >= leaf.length && !branches.isEmpty()) {
+                    Branch branch = branches.peek();
+                    int next = positions.pop() + 1;
+                    if (next < branch.children.length) {
+                        positions.push(next);
+                        descend(branch.children[next]);
+                    } else {
+                        branches.pop();
+                    }
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                advance();
+                return index < leaf.length;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return leaf[index++];
+            }
+        };
+    }
+
+    // Copies the values into a new array, in no particular order.
+    public int[] toArray() {
+        int[] values = new int[size];
+        collect(root, values, 0);
+        return values;
+    }
+
+    private static int checked(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Value cannot be negative: " + value);
+        }
+        return value;
+    }
+
+    private static int hash(int value) {
+        // Fibonacci hashing spreads sequential ordinals over the branches; both steps are
+        // reversible, so distinct values have distinct hashes
+        int hash = value * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int bit(int hash, int depth) {
+        return 1 << ((hash >>> (depth * BITS_PER_LEVEL)) & 31);
+    }
+
+    private static int index(int bitmap, int bit) {
+        return Integer.bitCount(bitmap & (bit - 1));
+    }
+
+    // A node holding the given sorted distinct values, all of whose hashes share the path
+    // down to this depth
+    private static Object build(int[] sorted, int depth) {
+        if (sorted.length <= LEAF_CAPACITY || depth >= MAX_DEPTH) {
+            return sorted;
+        }
+        int[] counts = new int[32];
+        for (int value : sorted) {
+            counts[Integer.numberOfTrailingZeros(bit(hash(value), depth))]++;
+        }
+        int bitmap = 0;
+        int[][] groups = new int[32][];
+        for (int i = 0; i < 32; i++) {
+            if (counts[i] > 0) {
+                bitmap |= 1 << i;
+                groups[i] = new int[counts[i]];
+                counts[i] = 0;
+            }
+        }
+        // Values are taken in order, so every group stays sorted
+        for (int value : sorted) {
+            int i = Integer.numberOfTrailingZeros(bit(hash(value), depth));
+            groups[i][counts[i]++] = value;
+        }
+        Object[] children = new Object[Integer.bitCount(bitmap)];
+        int child = 0;
+        for (int i = 0; i < 32; i++) {
+            if (groups[i] != null) {
+                children[child++] = build(groups[i], depth + 1);
+            }
+        }
+        return new Branch(bitmap, children, sorted.length);
+    }
+
+    // The node with the value added, or the node itself if it holds the value
+    private static Object insert(Object node, int value, int hash, int depth) {
+        if (node instanceof int[] leaf) {
+            int at = Arrays.binarySearch(leaf, value);
+            if (at >= 0) {
+                return leaf;
+            }
+            at = -at - 1;
+            int[] changed = new int[leaf.length + 1];
+            System.arraycopy(leaf, 0, changed, 0, at);
+            changed[at] = value;
+            System.arraycopy(leaf, at, changed, at + 1, leaf.length - at);
+            return build(changed, depth);
+        }
+        Branch branch = (Branch) node;
+        int bit = bit(hash, depth);
+        int at = index(branch.bitmap, bit);
+        if ((branch.bitmap & bit) == 0) {
+            Object[] children = new Object[branch.children.length + 1];
+            System.arraycopy(branch.children, 0, children, 0, at);
+            children[at] = new int[] {value};
+            System.arraycopy(branch.children, at, children, at + 1, branch.children.length - at);
+            return new Branch(branch.bitmap | bit, children, branch.size + 1);
+        }
+        Object child = branch.children[at];
+        Object changed = insert(child, value, hash, depth + 1);
+        if (changed == child) {
+            return branch;
+        }
+        Object[] children = branch.children.clone();
+        children[at] = changed;
+        return new Branch(branch.bitmap, children, branch.size + 1);
+    }
+
+    // The node with the value removed, or the node itself if it does not hold the value
+    private static Object remove(Object node, int value, int hash, int depth) {
+        if (node instanceof int[] leaf) {
+            int at = Arrays.binarySearch(leaf, value);
+            if (at < 0) {
+                return leaf;
+            }
+            if (leaf.length == 1) {
+                return EMPTY_LEAF;
+            }
+            int[] changed = new int[leaf.length - 1];
+            System.arraycopy(leaf, 0, changed, 0, at);
+            System.arraycopy(leaf, at + 1, changed, at, leaf.length - at - 1);
+            return changed;
+        }
+        Branch branch = (Branch) node;
+        int bit = bit(hash, depth);
+        if ((branch.bitmap & bit) == 0) {
+            return branch;
+        }
+        int at = index(branch.bitmap, bit);
+        Object child = branch.children[at];
+        Object changed = remove(child, value, hash, depth + 1);
+        if (changed == child) {
+            return branch;
+        }
+        int size = branch.size - 1;
+        if (size < COLLAPSE_SIZE) {
+            // Small enough to be a leaf again
+            int[] values = new int[size];
+            int filled = 0;
+            for (int i = 0; i < branch.children.length; i++) {
+                filled = collect(i == at ? changed : branch.children[i], values, filled);
+            }
+            Arrays.sort(values);
+            return values;
+        }
+        if (changed == EMPTY_LEAF) {
+            Object[] children = new Object[branch.children.length - 1];
+            System.arraycopy(branch.children, 0, children, 0, at);
+            System.arraycopy(branch.children, at + 1, children, at, branch.children.length - at - 1);
+            return new Branch(branch.bitmap & ~bit, children, size);
+        }
+        Object[] children = branch.children.clone();
+        children[at] = changed;
+        return new Branch(branch.bitmap, children, size);
+    }
+
+    // Copies the node's values into the array from the given position; returns the next position
+    private static int collect(Object node, int[] values, int from) {
+        if (node instanceof int[] leaf) {
+            System.arraycopy(leaf, 0, values, from, leaf.length);
+            return from + leaf.length;
+        }
+        int next = from;
+        for (Object child : ((Branch) node).children) {
+            next = collect(child, values, next);
+        }
+        return next;
+    }
+
+    private static void forEach(Object node, IntConsumer action) {
+        if (node instanceof int[] leaf) {
+            for (int value : leaf) {
+                action.accept(value);
+            }
+            return;
+        }
+        for (Object child : ((Branch) node).children) {
+            forEach(child, action);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package util;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Dense int ordinals for userID strings, so sets of users (such as the likes of a moosage) can be
+// stored as IntHashSets instead of sets of ~41 character strings. Ordinals are handed out in
+// first-seen order and never reused. They only live in memory; data files and the API keep the
+// userID strings. Each userID string is kept once, so a table also dedupes them.
+//
+// There is no global table: a moosage store owns the table its moosages' likes are interned in
+// (see MoosageStore), and the table goes away with the store. A moosage built outside a store
+// gets a table of its own on its first like.
+// Thread-safe: lookups do not lock, handing out a new ordinal does.
+public final class UserIdOrdinals {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Map<String, Integer> ordinals = new ConcurrentHashMap<>();
+    // Index is the ordinal. Replaced when it grows; entries are written before the ordinal is
+    // published in ordinals, so anyone holding an ordinal sees its entry.
+    private volatile String[] userIds = new String[INITIAL_CAPACITY];
+    private int count;  // guarded by this
+
+    // Ordinal of the userID, handing out the next one if it is new
+    public int ordinalOf(String userId) {
+        if (userId == null) {
+            throw new IllegalArgumentException("User ID cannot be null");
+        }
+        Integer ordinal = ordinals.get(userId);
+        if (ordinal != null) {
+            return ordinal;
+        }
+        synchronized (this) {
+            ordinal = ordinals.get(userId);
+            if (ordinal != null) {
+                return ordinal;
+            }
+            int next = count;
+            String[] ids = userIds;
+            if (next == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length * 2);
+            }
+            ids[next] = userId;
+            userIds = ids;
+            ordinals.put(userId, next);
+            count = next + 1;
+            return next;
+        }
+    }
+
+    // Ordinal of the userID, or -1 if it never got one; never hands out a new one
+    public int find(String userId) {
+        if (userId == null) {
+            return -1;
+        }
+        Integer ordinal = ordinals.get(userId);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    public String userIdOf(int ordinal) {
+        String[] ids = userIds;
+        String userId = ordinal >= 0 && ordinal < ids.length ? ids[ordinal] : null;
+        if (userId == null) {
+            throw new IllegalArgumentException("Unknown user ordinal: " + ordinal);
+        }
+        return userId;
+    }
+
+    // Number of ordinals handed out
+    public int size() {
+        return ordinals.size();
+    }
+}
@@ -0,0 +1,50 @@
+package dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Tests for the LikersPage DTO.
+public class LikersPageTest {
+
+    @Test
+    public void testDefaultConstructor() {
+        LikersPage page = new LikersPage();
+
+        assertTrue(page.getUserIds().isEmpty());
+        assertNull(page.getNextCursor());
+        assertFalse(page.hasMore());
+    }
+
+    @Test
+    public void testDefensiveCopies() {
+        List<String> userIds = new ArrayList<>(List.of("user1", "user2"));
+        LikersPage page = new LikersPage(userIds, "user2");
+
+        userIds.clear();
+        page.getUserIds().clear();
+
+        assertEquals(List.of("user1", "user2"), page.getUserIds());
+        assertTrue(page.hasMore());
+    }
+
+    @Test
+    public void testJsonRoundTrip() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+
+        String json = mapper.writeValueAsString(new LikersPage(List.of("user1"), null));
+        LikersPage read = mapper.readValue(json, LikersPage.class);
+
+        assertFalse(json.contains("hasMore"));
+        assertEquals(List.of("user1"), read.getUserIds());
+        assertNull(read.getNextCursor());
+    }
+}
@@ -0,0 +1,99 @@
+package dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+// Tests for the MoosageChanges DTO returned by the delta sync endpoint.
+public class MoosageChangesTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 11, 1, 12, 0);
+
+    private List<MoosageDto> feed;
+
+    // Moosage n was posted n minutes after the first one
+    private static MoosageDto moosage(long id) {
+        return new MoosageDto(id, "Content " + id, "author-id", "author", NOW.plusMinutes(id), 0, false);
+    }
+
+    private List<Long> ids() {
+        return feed.stream().map(MoosageDto::getId).toList();
+    }
+
+    @BeforeEach
+    public void setUp() {
+        feed = new ArrayList<>(List.of(moosage(5), moosage(3), moosage(2)));
+    }
+
+    @Test
+    public void testChangedMoosagesAreReplaced() {
+        MoosageDto liked = moosage(3);
+        liked.setLikeCount(4);
+
+        assertTrue(new MoosageChanges(10, true, List.of(liked), List.of()).applyTo(feed));
+
+        assertEquals(List.of(5L, 3L, 2L), ids());
+        assertEquals(4, feed.get(1).getLikeCount());
+    }
+
+    @Test
+    public void testNewMoosagesAreInsertedInFeedOrder() {
+        new MoosageChanges(10, true, List.of(moosage(4), moosage(6)), List.of()).applyTo(feed);
+
+        assertEquals(List.of(6L, 5L, 4L, 3L, 2L), ids());
+    }
+
+    @Test
+    public void testMoosagesOlderThanTheLoadedOnesAreLeftToLaterPages() {
+        new MoosageChanges(10, true, List.of(moosage(1)), List.of()).applyTo(feed);
+
+        assertEquals(List.of(5L, 3L, 2L), ids());
+    }
+
+    @Test
+    public void testDeletedMoosagesAreRemoved() {
+        new MoosageChanges(10, true, List.of(), List.of(3L, 99L)).applyTo(feed);
+
+        assertEquals(List.of(5L, 2L), ids());
+    }
+
+    @Test
+    public void testEmptyFeedTakesNewMoosages() {
+        feed.clear();
+
+        new MoosageChanges(10, true, List.of(moosage(1)), List.of()).applyTo(feed);
+
+        assertEquals(List.of(1L), ids());
+    }
+
+    @Test
+    public void testIncompleteChangesAreNotApplied() {
+        assertFalse(new MoosageChanges(10, false, List.of(moosage(7)), List.of(5L)).applyTo(feed));
+
+        assertEquals(List.of(5L, 3L, 2L), ids());
+    }
+
+    @Test
+    public void testJsonRoundTrip() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+
+        String json = mapper.writeValueAsString(new MoosageChanges(12, true, List.of(moosage(4)), List.of(2L)));
+        MoosageChanges read = mapper.readValue(json, MoosageChanges.class);
+
+        assertEquals(12, read.getSequence());
+        assertTrue(read.isComplete());
+        assertEquals(4L, read.getChanged().get(0).getId());
+        assertEquals(List.of(2L), read.getDeleted());
+    }
+}
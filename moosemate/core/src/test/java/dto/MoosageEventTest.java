@@ -0,0 +1,118 @@
+package dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+// Tests for the MoosageEvent DTO pushed by the feed event stream.
+public class MoosageEventTest {
+
+    private List<MoosageDto> feed;
+
+    private static MoosageDto moosage(long id) {
+        return new MoosageDto(id, "Content " + id, "author-id", "author", LocalDateTime.now(), 0, false);
+    }
+
+    @BeforeEach
+    public void setUp() {
+        feed = new ArrayList<>(List.of(moosage(3), moosage(2), moosage(1)));
+    }
+
+    @Test
+    public void testCreatedGoesToTheTop() {
+        assertTrue(MoosageEvent.created(moosage(4)).applyTo(feed));
+
+        assertEquals(4, feed.size());
+        assertEquals(4L, feed.get(0).getId());
+    }
+
+    @Test
+    public void testCreatedIsNotAddedTwice() {
+        MoosageEvent event = MoosageEvent.created(moosage(4));
+
+        event.applyTo(feed);
+        event.applyTo(feed);
+        MoosageEvent.created(moosage(2)).applyTo(feed);
+
+        assertEquals(4, feed.size());
+        assertEquals(2L, feed.get(2).getId());
+    }
+
+    @Test
+    public void testEditedChangesContent() {
+        MoosageEvent.edited(2L, "New content").applyTo(feed);
+
+        assertEquals("New content", feed.get(1).getContent());
+        assertTrue(feed.get(1).isEdited());
+        assertFalse(feed.get(0).isEdited());
+    }
+
+    @Test
+    public void testLikesSetsCountAndKeepsLikedByMe() {
+        feed.get(0).setLikedByMe(true);
+
+        MoosageEvent.likes(3L, 7).applyTo(feed);
+
+        assertEquals(7, feed.get(0).getLikeCount());
+        assertTrue(feed.get(0).isLikedByMe());
+    }
+
+    @Test
+    public void testDeletedRemoves() {
+        MoosageEvent.deleted(2L).applyTo(feed);
+        MoosageEvent.deleted(2L).applyTo(feed);
+
+        assertEquals(List.of(3L, 1L), feed.stream().map(MoosageDto::getId).toList());
+    }
+
+    @Test
+    public void testChangesOfMoosagesNotLoadedAreIgnored() {
+        MoosageEvent.edited(99L, "Elsewhere").applyTo(feed);
+        MoosageEvent.likes(99L, 1).applyTo(feed);
+        MoosageEvent.deleted(99L).applyTo(feed);
+
+        assertEquals(3, feed.size());
+    }
+
+    @Test
+    public void testResyncCannotBeApplied() {
+        MoosageEvent resync = MoosageEvent.resync();
+
+        assertTrue(resync.isResync());
+        assertFalse(resync.applyTo(feed));
+        assertEquals(3, feed.size());
+    }
+
+    @Test
+    public void testCreatedNeedsAMoosage() {
+        assertThrows(IllegalArgumentException.class, () -> MoosageEvent.created(null));
+    }
+
+    @Test
+    public void testJsonRoundTrip() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+
+        String json = mapper.writeValueAsString(MoosageEvent.likes(5L, 2));
+        MoosageEvent read = mapper.readValue(json, MoosageEvent.class);
+
+        assertFalse(json.contains("content"));
+        assertFalse(json.contains("resync"));
+        assertEquals(MoosageEvent.Type.LIKES, read.getType());
+        assertEquals(5L, read.getId());
+        assertEquals(2, read.getLikeCount());
+        assertNull(read.getMoosage());
+    }
+}
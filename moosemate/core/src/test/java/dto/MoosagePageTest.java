@@ -0,0 +1,67 @@
+package dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+// Tests for the MoosagePage DTO used by the paged feed.
+public class MoosagePageTest {
+
+    @Test
+    public void testDefaultConstructor() {
+        MoosagePage page = new MoosagePage();
+
+        assertTrue(page.getMoosages().isEmpty());
+        assertNull(page.getNextCursor());
+        assertFalse(page.hasMore());
+    }
+
+    @Test
+    public void testConstructorCopiesList() {
+        List<MoosageDto> moosages = new ArrayList<>();
+        moosages.add(new MoosageDto());
+        MoosagePage page = new MoosagePage(moosages, "cursor");
+
+        moosages.clear();
+        page.getMoosages().clear();
+
+        assertEquals(1, page.getMoosages().size());
+        assertTrue(page.hasMore());
+    }
+
+    @Test
+    public void testNullListBecomesEmpty() {
+        MoosagePage page = new MoosagePage(null, null);
+        page.setMoosages(null);
+
+        assertTrue(page.getMoosages().isEmpty());
+    }
+
+    @Test
+    public void testJsonRoundTrip() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        MoosageDto dto = new MoosageDto();
+        dto.setId(3L);
+        dto.setContent("Hello");
+
+        MoosagePage page = new MoosagePage(List.of(dto), "abc");
+        page.setChangeSequence(99L);
+        String json = mapper.writeValueAsString(page);
+        MoosagePage read = mapper.readValue(json, MoosagePage.class);
+
+        assertFalse(json.contains("hasMore"));
+        assertEquals("abc", read.getNextCursor());
+        assertEquals(99L, read.getChangeSequence());
+        assertEquals(3L, read.getMoosages().get(0).getId());
+    }
+}
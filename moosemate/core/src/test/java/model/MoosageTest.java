@@ -5,14 +5,23 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import util.IntHashSet;
+import util.UserIdOrdinals;
+
 /**
  * Comprehensive tests for Moosage class with focus on error handling.
  */
@@ -26,7 +35,7 @@ public class MoosageTest {
     public void setUp() {
         testUser = new User("testuser", "test@example.com", "hashedpassword", "user123");
         testTime = LocalDateTime.now();
-        moosage = new Moosage(1L, "Test content", testUser, testTime);
+        moosage = new Moosage(1L, "Test content", testUser.getUserID(), testTime);
     }
     
     @Test
@@ -41,7 +50,7 @@ public class MoosageTest {
     public void testParameterizedConstructor() {
         assertEquals(1L, moosage.getId());
         assertEquals("Test content", moosage.getContent());
-        assertEquals(testUser, moosage.getAuthor());
+        assertEquals("user123", moosage.getAuthorId());
         assertEquals(testTime, moosage.getTime());
         assertNotNull(moosage.getLikedByUserIds());
         assertTrue(moosage.getLikedByUserIds().isEmpty());
@@ -50,17 +59,16 @@ public class MoosageTest {
     @Test
     public void testSettersAndGetters() {
         Moosage newMoosage = new Moosage();
-        User newUser = new User("newuser", "new@example.com", "password", "user456");
         LocalDateTime newTime = LocalDateTime.now().plusHours(1);
         
         newMoosage.setId(2L);
         newMoosage.setContent("New content");
-        newMoosage.setAuthor(newUser);
+        newMoosage.setAuthorId("user456");
         newMoosage.setTime(newTime);
         
         assertEquals(2L, newMoosage.getId());
         assertEquals("New content", newMoosage.getContent());
-        assertEquals(newUser, newMoosage.getAuthor());
+        assertEquals("user456", newMoosage.getAuthorId());
         assertEquals(newTime, newMoosage.getTime());
     }
     
@@ -115,9 +123,20 @@ public class MoosageTest {
         assertEquals(0, moosage.getLikedByUserIds().size());
     }
     
+    @Test
+    public void testLikeCountAndIsLikedBy() {
+        moosage.addLike("user1");
+        moosage.addLike("user2");
+        
+        assertEquals(2, moosage.getLikeCount());
+        assertTrue(moosage.isLikedBy("user1"));
+        assertFalse(moosage.isLikedBy("user3"));
+        assertFalse(moosage.isLikedBy(null));
+    }
+    
     @Test
     public void testLikedByUserIdsNotNull() {
-        Moosage newMoosage = new Moosage(5L, "Content", testUser, testTime);
+        Moosage newMoosage = new Moosage(5L, "Content", testUser.getUserID(), testTime);
         assertNotNull(newMoosage.getLikedByUserIds());
     }
     
@@ -141,9 +160,9 @@ public class MoosageTest {
     }
     
     @Test
-    public void testSetAuthorWithNull() {
-        moosage.setAuthor(null);
-        assertNull(moosage.getAuthor());
+    public void testSetAuthorIdWithNull() {
+        moosage.setAuthorId(null);
+        assertNull(moosage.getAuthorId());
     }
     
     @Test
@@ -180,4 +199,154 @@ public class MoosageTest {
         assertNotNull(likes);
         assertTrue(likes instanceof Set);
     }
+
+    @Test
+    public void testLikedByUserIdsCannotBeModified() {
+        moosage.addLike("user1");
+
+        assertThrows(UnsupportedOperationException.class, () -> moosage.getLikedByUserIds().add("user2"));
+        assertEquals(Set.of("user1"), moosage.getLikedByUserIds());
+    }
+
+    @Test
+    public void testLikesAreKeptAsUserOrdinals() {
+        moosage.addLike("user1");
+        moosage.addLike("user2");
+
+        IntHashSet likes = moosage.getLikes();
+        UserIdOrdinals ordinals = moosage.getUserIdOrdinals();
+        assertEquals(2, likes.size());
+        assertTrue(likes.contains(ordinals.find("user1")));
+        assertTrue(likes.contains(ordinals.find("user2")));
+
+        Moosage other = new Moosage(2L, "Other", "user123", testTime);
+        other.setLikes(likes, ordinals);
+        assertEquals(Set.of("user1", "user2"), other.getLikedByUserIds());
+        assertThrows(IllegalArgumentException.class, () -> other.setLikes(likes, null));
+    }
+
+    @Test
+    public void testLikedByUserIdsAfterPagesInUserIdOrder() {
+        for (String userId : List.of("user4", "user2", "user5", "user3", "user1")) {
+            moosage.addLike(userId);
+        }
+
+        assertEquals(List.of("user1", "user2"), moosage.getLikedByUserIdsAfter(null, 2));
+        assertEquals(List.of("user3", "user4"), moosage.getLikedByUserIdsAfter("user2", 2));
+        assertEquals(List.of("user4", "user5"), moosage.getLikedByUserIdsAfter("user3x", 10));
+        assertEquals(List.of(), moosage.getLikedByUserIdsAfter("user5", 2));
+        assertThrows(IllegalArgumentException.class, () -> moosage.getLikedByUserIdsAfter(null, 0));
+    }
+
+    @Test
+    public void testLikedByUserIdsAfterFollowsChangedLikes() {
+        moosage.addLike("user2");
+        moosage.freeze();
+        assertEquals(List.of("user2"), moosage.getLikedByUserIdsAfter(null, 10));
+
+        Moosage liked = moosage.copy();
+        liked.addLike("user1");
+
+        assertEquals(List.of("user1", "user2"), liked.getLikedByUserIdsAfter(null, 10));
+        assertEquals(List.of("user2"), moosage.getLikedByUserIdsAfter(null, 10));
+    }
+
+    @Test
+    public void testLikesAreInternedInTheGivenTable() {
+        UserIdOrdinals store = new UserIdOrdinals();
+        store.ordinalOf("user9");
+        moosage.addLike("user1");
+        moosage.addLike("user2");
+
+        moosage.internLikes(store);
+
+        assertSame(store, moosage.getUserIdOrdinals());
+        assertEquals(Set.of("user1", "user2"), moosage.getLikedByUserIds());
+        assertTrue(moosage.getLikes().contains(store.find("user1")));
+        assertTrue(moosage.isLikedBy("user2"));
+
+        Moosage loaded = new Moosage(2L, "Loaded", "user123", testTime, store);
+        loaded.addLike("user9");
+        assertTrue(loaded.getLikes().contains(store.find("user9")));
+        assertEquals(3, store.size());
+    }
+
+    @Test
+    public void testUnknownUserIsNotALiker() {
+        assertFalse(moosage.isLikedBy("USER-moosage-test-never-seen"));
+        moosage.removeLike("USER-moosage-test-never-seen");
+        assertEquals(0, moosage.getLikeCount());
+    }
+
+    @Test
+    public void testCopyIsNotChangedWithOriginal() {
+        moosage.addLike("user1");
+        moosage.setEdited(true);
+
+        Moosage copy = moosage.copy();
+        copy.addLike("user2");
+        copy.setContent("Changed");
+
+        assertEquals(Set.of("user1"), moosage.getLikedByUserIds());
+        assertEquals("Test content", moosage.getContent());
+        assertEquals(Set.of("user1", "user2"), copy.getLikedByUserIds());
+        assertEquals(moosage.getId(), copy.getId());
+        assertEquals(moosage.getAuthorId(), copy.getAuthorId());
+        assertEquals(testTime, copy.getTime());
+        assertTrue(copy.isEdited());
+    }
+
+    @Test
+    public void testJsonLikesRoundTrip() throws JsonProcessingException {
+        moosage.setTime(null);
+        moosage.addLike("user1");
+        moosage.addLike("user2");
+        ObjectMapper mapper = new ObjectMapper();
+
+        Moosage read = mapper.readValue(mapper.writeValueAsString(moosage), Moosage.class);
+
+        assertEquals(Set.of("user1", "user2"), read.getLikedByUserIds());
+        read.addLike("user3");
+        assertEquals(3, read.getLikeCount());
+    }
+
+    @Test
+    public void testJsonStoresOnlyAuthorId() throws JsonProcessingException {
+        moosage.setTime(null);
+        String json = new ObjectMapper().writeValueAsString(moosage);
+
+        assertTrue(json.contains("\"authorId\":\"user123\""));
+        assertFalse(json.contains("\"author\":"));
+        assertFalse(json.contains("testuser"));
+    }
+    
+    @Test
+    public void testJsonWithEmbeddedAuthorIsRead() throws JsonProcessingException {
+        String json = "{\"id\":1,\"content\":\"Old\",\"author\":{\"username\":\"testuser\","
+                + "\"email\":\"test@example.com\",\"userID\":\"user123\"},\"likedByUserIds\":[],\"edited\":false}";
+
+        Moosage read = new ObjectMapper().readValue(json, Moosage.class);
+
+        assertEquals("user123", read.getAuthorId());
+        assertEquals("Old", read.getContent());
+    }
+
+    @Test
+    public void testFrozenMoosageRefusesChanges() {
+        moosage.addLike("user1");
+        moosage.freeze();
+
+        assertTrue(moosage.isFrozen());
+        assertThrows(UnsupportedOperationException.class, () -> moosage.setContent("Changed"));
+        assertThrows(UnsupportedOperationException.class, () -> moosage.setEdited(true));
+        assertThrows(UnsupportedOperationException.class, () -> moosage.addLike("user2"));
+        assertThrows(UnsupportedOperationException.class, () -> moosage.removeLike("user1"));
+        assertEquals(Set.of("user1"), moosage.getLikedByUserIds());
+
+        // A copy can be changed and leaves the frozen moosage as it was
+        Moosage copy = moosage.copy();
+        assertFalse(copy.isFrozen());
+        copy.addLike("user2");
+        assertEquals(Set.of("user1"), moosage.getLikedByUserIds());
+    }
 }
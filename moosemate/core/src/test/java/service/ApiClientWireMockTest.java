@@ -9,8 +9,12 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.github.tomakehurst.wiremock.WireMockServer;
 import dto.ApiResponse;
+import dto.LikersPage;
+import dto.MoosageChanges;
 import dto.LoginResponse;
 import dto.MoosageDto;
+import dto.MoosageEvent;
+import dto.MoosagePage;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -18,6 +22,9 @@ import org.junit.jupiter.api.Test;
 
 import java.lang.reflect.Field;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
 import static com.github.tomakehurst.wiremock.client.WireMock.containing;
@@ -33,6 +40,7 @@ import static com.github.tomakehurst.wiremock.client.WireMock.putRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -248,7 +256,8 @@ class ApiClientWireMockTest {
                         "time": "2025-11-08T10:00:00",
                         "authorId": "user-uuid-1",
                         "authorUsername": "user1",
-                        "likedByUserIds": [],
+                        "likeCount": 0,
+                        "likedByMe": false,
                         "edited": false
                     },
                     {
@@ -257,7 +266,8 @@ class ApiClientWireMockTest {
                         "time": "2025-11-08T11:00:00",
                         "authorId": "user-uuid-2",
                         "authorUsername": "user2",
-                        "likedByUserIds": ["user-uuid-1"],
+                        "likeCount": 1,
+                        "likedByMe": true,
                         "edited": false
                     }
                 ]
@@ -288,13 +298,115 @@ class ApiClientWireMockTest {
         MoosageDto secondMoosage = response.getData().get(1);
         assertEquals(2L, secondMoosage.getId());
         assertEquals("Second moosage", secondMoosage.getContent());
-        assertEquals(1, secondMoosage.getLikedByUserIds().size());
+        assertEquals(1, secondMoosage.getLikeCount());
+        assertTrue(secondMoosage.isLikedByMe());
         
         // Verify request
         wireMockServer.verify(getRequestedFor(urlEqualTo("/api/moosages"))
             .withHeader("Session-Token", equalTo(testToken)));
     }
 
+    @Test
+    void testGetMoosagePage_FollowsCursor() throws Exception {
+        String testToken = "test-token";
+        setSessionToken(testToken);
+
+        String firstPageJson = """
+            {
+                "success": true,
+                "message": "Moosages retrieved successfully",
+                "data": {
+                    "moosages": [
+                        {
+                            "id": 2,
+                            "content": "Second moosage",
+                            "time": "2025-11-08T11:00:00",
+                            "authorId": "user-uuid-2",
+                            "authorUsername": "user2",
+                            "likeCount": 0,
+                            "likedByMe": false,
+                            "edited": false
+                        }
+                    ],
+                    "nextCursor": "abc-_1"
+                }
+            }
+            """;
+        String lastPageJson = """
+            {
+                "success": true,
+                "message": "Moosages retrieved successfully",
+                "data": {
+                    "moosages": [
+                        {
+                            "id": 1,
+                            "content": "First moosage",
+                            "time": "2025-11-08T10:00:00",
+                            "authorId": "user-uuid-1",
+                            "authorUsername": "user1",
+                            "likeCount": 0,
+                            "likedByMe": false,
+                            "edited": false
+                        }
+                    ],
+                    "nextCursor": null
+                }
+            }
+            """;
+
+        wireMockServer.stubFor(get(urlEqualTo("/api/moosages?limit=1"))
+            .withHeader("Session-Token", equalTo(testToken))
+            .willReturn(aResponse()
+                .withStatus(200)
+                .withHeader("Content-Type", "application/json")
+                .withBody(firstPageJson)));
+        wireMockServer.stubFor(get(urlEqualTo("/api/moosages?limit=1&before=abc-_1"))
+            .withHeader("Session-Token", equalTo(testToken))
+            .willReturn(aResponse()
+                .withStatus(200)
+                .withHeader("Content-Type", "application/json")
+                .withBody(lastPageJson)));
+
+        ApiResponse<MoosagePage> first = apiClient.getMoosagePage(1, null);
+        ApiResponse<MoosagePage> last = apiClient.getMoosagePage(1, first.getData().getNextCursor());
+
+        assertEquals(2L, first.getData().getMoosages().get(0).getId());
+        assertTrue(first.getData().hasMore());
+        assertEquals(1L, last.getData().getMoosages().get(0).getId());
+        assertFalse(last.getData().hasMore());
+        wireMockServer.verify(getRequestedFor(urlEqualTo("/api/moosages?limit=1&before=abc-_1"))
+            .withHeader("Session-Token", equalTo(testToken)));
+    }
+
+    @Test
+    void testGetLikers_Success() throws Exception {
+        String testToken = "test-token";
+        setSessionToken(testToken);
+
+        String responseJson = """
+            {
+                "success": true,
+                "message": "Likes retrieved successfully",
+                "data": {
+                    "userIds": ["user-uuid-1", "user-uuid-2"],
+                    "nextCursor": "user-uuid-2"
+                }
+            }
+            """;
+
+        wireMockServer.stubFor(get(urlEqualTo("/api/moosages/5/likes?limit=2&after=user-uuid-0"))
+            .withHeader("Session-Token", equalTo(testToken))
+            .willReturn(aResponse()
+                .withStatus(200)
+                .withHeader("Content-Type", "application/json")
+                .withBody(responseJson)));
+
+        ApiResponse<LikersPage> response = apiClient.getLikers(5L, 2, "user-uuid-0");
+
+        assertEquals(List.of("user-uuid-1", "user-uuid-2"), response.getData().getUserIds());
+        assertEquals("user-uuid-2", response.getData().getNextCursor());
+    }
+
     @Test
     void testGetMoosages_Unauthorized() throws Exception {
         // Arrange
@@ -338,7 +450,8 @@ class ApiClientWireMockTest {
                     "time": "2025-11-08T12:00:00",
                     "authorId": "user-uuid-1",
                     "authorUsername": "testuser",
-                    "likedByUserIds": [],
+                    "likeCount": 0,
+                    "likedByMe": false,
                     "edited": false
                 }
             }
@@ -385,7 +498,8 @@ class ApiClientWireMockTest {
                     "time": "2025-11-08T12:00:00",
                     "authorId": "user-uuid-2",
                     "authorUsername": "otheruser",
-                    "likedByUserIds": ["user-uuid-1"],
+                    "likeCount": 1,
+                    "likedByMe": true,
                     "edited": false
                 }
             }
@@ -406,8 +520,8 @@ class ApiClientWireMockTest {
         assertEquals("Like toggled successfully", response.getMessage());
         assertNotNull(response.getData());
         assertEquals(5L, response.getData().getId());
-        assertEquals(1, response.getData().getLikedByUserIds().size());
-        assertTrue(response.getData().getLikedByUserIds().contains("user-uuid-1"));
+        assertEquals(1, response.getData().getLikeCount());
+        assertTrue(response.getData().isLikedByMe());
         
         // Verify request
         wireMockServer.verify(postRequestedFor(urlEqualTo("/api/moosages/5/like"))
@@ -431,7 +545,8 @@ class ApiClientWireMockTest {
                     "time": "2025-11-08T12:30:00",
                     "authorId": "user-uuid-1",
                     "authorUsername": "testuser",
-                    "likedByUserIds": [],
+                    "likeCount": 0,
+                    "likedByMe": false,
                     "edited": true
                 }
             }
@@ -524,6 +639,193 @@ class ApiClientWireMockTest {
 
     // Helper method to set session token using reflection since SessionManager is a singleton
      
+    @Test
+    void testGetMoosages_NotModifiedServesCachedBody() throws Exception {
+        String testToken = "test-token";
+        setSessionToken(testToken);
+
+        String responseJson = """
+            {
+                "message": "Moosages retrieved successfully",
+                "data": [{"id": 1, "content": "Cached", "authorUsername": "author"}]
+            }
+            """;
+
+        wireMockServer.stubFor(get(urlEqualTo("/api/moosages"))
+            .withHeader("Session-Token", equalTo(testToken))
+            .willReturn(aResponse()
+                .withStatus(200)
+                .withHeader("Content-Type", "application/json")
+                .withHeader("ETag", "\"v1\"")
+                .withBody(responseJson)));
+        wireMockServer.stubFor(get(urlEqualTo("/api/moosages"))
+            .atPriority(1)
+            .withHeader("If-None-Match", equalTo("\"v1\""))
+            .willReturn(aResponse()
+                .withStatus(304)
+                .withHeader("ETag", "\"v1\"")));
+
+        ApiResponse<List<MoosageDto>> first = apiClient.getMoosages();
+        ApiResponse<List<MoosageDto>> second = apiClient.getMoosages();
+
+        assertEquals("Cached", first.getData().get(0).getContent());
+        assertEquals("Cached", second.getData().get(0).getContent());
+        // Parsed anew, so changing one answer leaves the cached body alone
+        assertFalse(first.getData() == second.getData());
+        wireMockServer.verify(1, getRequestedFor(urlEqualTo("/api/moosages"))
+            .withHeader("If-None-Match", equalTo("\"v1\"")));
+    }
+
+    @Test
+    void testGetMoosage_CacheIsPerSession() throws Exception {
+        setSessionToken("first-token");
+
+        String responseJson = """
+            {
+                "message": "Moosage found",
+                "data": {"id": 3, "content": "One", "authorUsername": "author"}
+            }
+            """;
+
+        wireMockServer.stubFor(get(urlEqualTo("/api/moosages/3"))
+            .willReturn(aResponse()
+                .withStatus(200)
+                .withHeader("Content-Type", "application/json")
+                .withHeader("ETag", "\"v3\"")
+                .withBody(responseJson)));
+
+        assertEquals("One", apiClient.getMoosage(3L).getData().getContent());
+        setSessionToken("second-token");
+        assertEquals("One", apiClient.getMoosage(3L).getData().getContent());
+
+        wireMockServer.verify(getRequestedFor(urlEqualTo("/api/moosages/3"))
+            .withHeader("Session-Token", equalTo("second-token"))
+            .withoutHeader("If-None-Match"));
+    }
+
+    @Test
+    void testGetMoosagePage_NotModifiedServesCachedBody() throws Exception {
+        String testToken = "test-token";
+        setSessionToken(testToken);
+
+        String pageJson = """
+            {
+                "message": "Moosages retrieved successfully",
+                "data": {
+                    "moosages": [{"id": 7, "content": "Cached page", "authorUsername": "author"}],
+                    "nextCursor": null,
+                    "changeSequence": 12
+                }
+            }
+            """;
+
+        wireMockServer.stubFor(get(urlEqualTo("/api/moosages?limit=7&before=abc-_7"))
+            .withHeader("Session-Token", equalTo(testToken))
+            .willReturn(aResponse()
+                .withStatus(200)
+                .withHeader("Content-Type", "application/json")
+                .withHeader("ETag", "\"page7\"")
+                .withBody(pageJson)));
+        wireMockServer.stubFor(get(urlEqualTo("/api/moosages?limit=7&before=abc-_7"))
+            .atPriority(1)
+            .withHeader("If-None-Match", equalTo("\"page7\""))
+            .willReturn(aResponse()
+                .withStatus(304)
+                .withHeader("ETag", "\"page7\"")));
+
+        ApiResponse<MoosagePage> first = apiClient.getMoosagePage(7, "abc-_7");
+        ApiResponse<MoosagePage> second = apiClient.getMoosagePage(7, "abc-_7");
+
+        assertEquals("Cached page", first.getData().getMoosages().get(0).getContent());
+        assertEquals("Cached page", second.getData().getMoosages().get(0).getContent());
+        assertEquals(12L, second.getData().getChangeSequence());
+        wireMockServer.verify(1, getRequestedFor(urlEqualTo("/api/moosages?limit=7&before=abc-_7"))
+            .withHeader("If-None-Match", equalTo("\"page7\"")));
+    }
+
+    @Test
+    void testGetMoosageChanges_Success() throws Exception {
+        String testToken = "test-token";
+        setSessionToken(testToken);
+
+        String responseJson = """
+            {
+                "message": "Changes retrieved successfully",
+                "data": {
+                    "sequence": 1700000000000005,
+                    "complete": true,
+                    "changed": [{"id": 4, "content": "Edited", "authorUsername": "author", "likeCount": 1}],
+                    "deleted": [2]
+                }
+            }
+            """;
+
+        wireMockServer.stubFor(get(urlEqualTo("/api/moosages/changes?since=1700000000000001"))
+            .withHeader("Session-Token", equalTo(testToken))
+            .willReturn(aResponse()
+                .withStatus(200)
+                .withHeader("Content-Type", "application/json")
+                .withBody(responseJson)));
+
+        ApiResponse<MoosageChanges> response = apiClient.getMoosageChanges(1700000000000001L);
+
+        assertNotNull(response);
+        MoosageChanges changes = response.getData();
+        assertTrue(changes.isComplete());
+        assertEquals(1700000000000005L, changes.getSequence());
+        assertEquals("Edited", changes.getChanged().get(0).getContent());
+        assertEquals(List.of(2L), changes.getDeleted());
+    }
+
+    @Test
+    void testSubscribeToMoosageEvents() throws Exception {
+        String testToken = "test-token";
+        setSessionToken(testToken);
+
+        String streamBody = """
+            event: created
+            data: {"type":"CREATED","id":4,"moosage":{"id":4,"content":"New","authorUsername":"author"}}
+
+            :
+
+            event: likes
+            data: {"type":"LIKES","id":4,"likeCount":2}
+
+            """;
+
+        wireMockServer.stubFor(get(urlEqualTo("/api/moosages/stream"))
+            .withHeader("Session-Token", equalTo(testToken))
+            .willReturn(aResponse()
+                .withStatus(200)
+                .withHeader("Content-Type", "text/event-stream")
+                .withBody(streamBody)));
+
+        BlockingQueue<MoosageEvent> events = new LinkedBlockingQueue<>();
+        try (MoosageEventStream stream = apiClient.subscribeToMoosageEvents(events::add)) {
+            // Changes made before the stream was open are caught up on first
+            MoosageEvent connected = events.poll(10, TimeUnit.SECONDS);
+            MoosageEvent created = events.poll(10, TimeUnit.SECONDS);
+            MoosageEvent likes = events.poll(10, TimeUnit.SECONDS);
+            // The stub's stream ends, so the client reconnects and asks for a resync again
+            MoosageEvent resync = events.poll(10, TimeUnit.SECONDS);
+
+            assertNotNull(connected);
+            assertTrue(connected.isResync());
+            assertNotNull(created);
+            assertEquals(MoosageEvent.Type.CREATED, created.getType());
+            assertEquals("New", created.getMoosage().getContent());
+            assertNotNull(likes);
+            assertEquals(2, likes.getLikeCount());
+            assertNotNull(resync);
+            assertTrue(resync.isResync());
+            assertFalse(stream.isClosed());
+        }
+
+        wireMockServer.verify(getRequestedFor(urlEqualTo("/api/moosages/stream"))
+            .withHeader("Session-Token", equalTo(testToken))
+            .withHeader("Accept", equalTo("text/event-stream")));
+    }
+
     private void setSessionToken(String token) throws Exception {
         Field sessionTokenField = SessionManager.class.getDeclaredField("sessionToken");
         sessionTokenField.setAccessible(true);
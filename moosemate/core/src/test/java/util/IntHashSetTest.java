@@ -0,0 +1,175 @@
+package util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+// Tests for the immutable primitive int set.
+public class IntHashSetTest {
+
+    @Test
+    public void testEmpty() {
+        IntHashSet set = IntHashSet.empty();
+
+        assertTrue(set.isEmpty());
+        assertEquals(0, set.size());
+        assertFalse(set.contains(0));
+        assertFalse(set.iterator().hasNext());
+    }
+
+    @Test
+    public void testOfDropsDuplicates() {
+        IntHashSet set = IntHashSet.of(3, 1, 3, 7);
+
+        assertEquals(3, set.size());
+        assertTrue(set.contains(1));
+        assertTrue(set.contains(3));
+        assertTrue(set.contains(7));
+        assertFalse(set.contains(2));
+        int[] values = set.toArray();
+        Arrays.sort(values);
+        assertArrayEquals(new int[] {1, 3, 7}, values);
+    }
+
+    @Test
+    public void testWithAndWithoutLeaveTheSetAlone() {
+        IntHashSet original = IntHashSet.of(1, 2);
+
+        IntHashSet added = original.with(3);
+        IntHashSet removed = original.without(1);
+
+        assertEquals(2, original.size());
+        assertFalse(original.contains(3));
+        assertTrue(original.contains(1));
+        assertTrue(added.contains(3));
+        assertEquals(3, added.size());
+        assertFalse(removed.contains(1));
+        assertEquals(1, removed.size());
+    }
+
+    @Test
+    public void testUnchangedSetIsReturnedAsIs() {
+        IntHashSet set = IntHashSet.of(1, 2);
+
+        assertSame(set, set.with(2));
+        assertSame(set, set.without(5));
+    }
+
+    @Test
+    public void testNegativeValuesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> IntHashSet.of(-1));
+        assertThrows(IllegalArgumentException.class, () -> IntHashSet.empty().with(-1));
+        assertFalse(IntHashSet.of(1).contains(-1));
+    }
+
+    @Test
+    public void testIteratorVisitsEveryValue() {
+        IntHashSet set = IntHashSet.empty();
+        for (int i = 0; i < 100; i++) {
+            set = set.with(i * 31);
+        }
+
+        Set<Integer> seen = new HashSet<>();
+        PrimitiveIterator.OfInt values = set.iterator();
+        while (values.hasNext()) {
+            seen.add(values.nextInt());
+        }
+        assertEquals(100, seen.size());
+        for (int i = 0; i < 100; i++) {
+            assertTrue(seen.contains(i * 31));
+        }
+    }
+
+    @Test
+    public void testRandomOperationsMatchHashSet() {
+        Random random = new Random(42);
+        IntHashSet set = IntHashSet.empty();
+        Set<Integer> reference = new HashSet<>();
+
+        for (int i = 0; i < 50_000; i++) {
+            int value = random.nextInt(500);
+            int op = random.nextInt(3);
+            if (op == 0) {
+                reference.add(value);
+                set = set.with(value);
+            } else if (op == 1) {
+                reference.remove(value);
+                set = set.without(value);
+            } else {
+                assertEquals(reference.contains(value), set.contains(value));
+            }
+        }
+
+        assertEquals(reference.size(), set.size());
+        for (int value : reference) {
+            assertTrue(set.contains(value));
+        }
+    }
+
+    @Test
+    public void testLargeSetGrowsAndShrinks() {
+        IntHashSet set = IntHashSet.empty();
+        for (int i = 0; i < 100_000; i++) {
+            set = set.with(i);
+        }
+        IntHashSet full = set;
+        for (int i = 0; i < 100_000; i += 2) {
+            set = set.without(i);
+        }
+
+        assertEquals(100_000, full.size());
+        assertEquals(50_000, set.size());
+        assertTrue(full.contains(4));
+        assertFalse(set.contains(4));
+        assertTrue(set.contains(5));
+        int[] values = set.toArray();
+        Arrays.sort(values);
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(2 * i + 1, values[i]);
+        }
+        for (int i = 1; i < 100_000; i += 2) {
+            set = set.without(i);
+        }
+        assertSame(IntHashSet.empty(), set);
+    }
+
+    @Test
+    public void testSetsBuiltEitherWayMatch() {
+        Random random = new Random(7);
+        int[] values = new int[5_000];
+        IntHashSet grown = IntHashSet.empty();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt(1_000_000);
+            grown = grown.with(values[i]);
+        }
+        IntHashSet built = IntHashSet.of(values);
+
+        int[] expected = Arrays.stream(values).distinct().sorted().toArray();
+        int[] fromGrown = grown.toArray();
+        int[] fromBuilt = built.toArray();
+        Arrays.sort(fromGrown);
+        Arrays.sort(fromBuilt);
+        assertArrayEquals(expected, fromGrown);
+        assertArrayEquals(expected, fromBuilt);
+        assertEquals(expected.length, built.size());
+        int[] iterated = new int[built.size()];
+        int count = 0;
+        PrimitiveIterator.OfInt iterator = built.iterator();
+        while (iterator.hasNext()) {
+            iterated[count++] = iterator.nextInt();
+        }
+        Arrays.sort(iterated);
+        assertArrayEquals(expected, iterated);
+    }
+}
@@ -0,0 +1,91 @@
+package util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+// Tests for the userID ordinal tables.
+public class UserIdOrdinalsTest {
+
+    private final UserIdOrdinals ordinals = new UserIdOrdinals();
+
+    @Test
+    public void testSameUserIdGetsSameOrdinal() {
+        int first = ordinals.ordinalOf("USER-ordinals-same");
+
+        assertEquals(first, ordinals.ordinalOf(new String("USER-ordinals-same")));
+        assertEquals(first, ordinals.find("USER-ordinals-same"));
+        assertNotEquals(first, ordinals.ordinalOf("USER-ordinals-other"));
+    }
+
+    @Test
+    public void testUserIdOfReturnsTheFirstInstance() {
+        String userId = new String("USER-ordinals-instance");
+        int ordinal = ordinals.ordinalOf(userId);
+
+        ordinals.ordinalOf(new String("USER-ordinals-instance"));
+
+        assertSame(userId, ordinals.userIdOf(ordinal));
+    }
+
+    @Test
+    public void testFindDoesNotHandOutOrdinals() {
+        assertEquals(-1, ordinals.find("USER-ordinals-never-seen"));
+        assertEquals(-1, ordinals.find("USER-ordinals-never-seen"));
+        assertEquals(-1, ordinals.find(null));
+    }
+
+    @Test
+    public void testInvalidInput() {
+        assertThrows(IllegalArgumentException.class, () -> ordinals.ordinalOf(null));
+        assertThrows(IllegalArgumentException.class, () -> ordinals.userIdOf(-1));
+        assertThrows(IllegalArgumentException.class, () -> ordinals.userIdOf(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void testTablesAreIndependent() {
+        UserIdOrdinals other = new UserIdOrdinals();
+        other.ordinalOf("USER-ordinals-elsewhere");
+
+        assertEquals(-1, ordinals.find("USER-ordinals-elsewhere"));
+        assertEquals(0, ordinals.size());
+        assertEquals(0, ordinals.ordinalOf("USER-ordinals-first"));
+    }
+
+    @Test
+    public void testConcurrentCallersAgree() throws Exception {
+        int users = 5000;
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<int[]>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                results.add(executor.submit(() -> {
+                    int[] handedOut = new int[users];
+                    for (int i = 0; i < users; i++) {
+                        handedOut[i] = ordinals.ordinalOf("USER-ordinals-concurrent-" + i);
+                    }
+                    return handedOut;
+                }));
+            }
+            int[] expected = results.get(0).get();
+            for (Future<int[]> result : results) {
+                int[] handedOut = result.get();
+                for (int i = 0; i < users; i++) {
+                    assertEquals(expected[i], handedOut[i]);
+                    assertEquals("USER-ordinals-concurrent-" + i, ordinals.userIdOf(handedOut[i]));
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package repository;
+
+import model.Moosage;
+import util.IntHashSet;
+import util.SnapshotFiles;
+import util.UserIdOrdinals;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+// Binary snapshot of the moosage store, written on compaction and memory-mapped on startup, so
+// a cold start decodes fixed-layout records instead of parsing JSON text. JSON stays the format
+// for export and import (see MoosageRepository).
+//
+// Layout, big-endian:
+//   header   magic, format version, generation, next id, record count, index offset,
+//            body length and CRC32 of the body; HEADER_LENGTH bytes
+//   strings  count, then each string as byte length and UTF-8. Every user id is stored once,
+//            so a user who posted or liked many moosages costs one entry
+//   records  per moosage: byte length of the rest of the record, id, time as epoch second and
+//            nano (the local time read as UTC), author id as string index (-1 for none), edited flag,
+//            content as byte length (-1 for none) and UTF-8, like count and the string
+//            indexes of the user ids that liked it
+//   index    per record in id order: id and file offset of the record
+//
+// Snapshots are replaced atomically and the previous one is kept, like the JSON data files.
+// Reading picks the newest generation whose checksum matches. A mapping is limited to 2 GB.
+//
+// Version 1 snapshots are still read. They have an authors table (count, then user id, username
+// and email as string indexes) between strings and records, and records refer to an author by
+// its position in that table; only the user id is used.
+public final class BinaryMoosageSnapshot {
+
+    static final int MAGIC = 0x4D4F4F53;  // "MOOS"
+    static final int FORMAT_VERSION = 2;
+    private static final int EMBEDDED_AUTHOR_VERSION = 1;
+    static final int HEADER_LENGTH = 48;
+
+    // Records are decoded in parallel from this many on; the index gives each its offset
+    private static final int PARALLEL_DECODE_THRESHOLD = 10_000;
+    private static final long NO_TIME = Long.MIN_VALUE;
+    // Windows cannot rename a file while it is mapped, and a mapping is only released when it is
+    // garbage collected, so there the snapshot is read into the heap to keep compaction working
+    private static final boolean MAP_FILES = !System.getProperty("os.name", "").startsWith("Windows");
+
+    private BinaryMoosageSnapshot() {
+    }
+
+    // What a snapshot holds: the moosages in id order and the next id to hand out
+    public record Contents(List<Moosage> moosages, long nextId) {
+    }
+
+    // Whether there is a snapshot to read, see SnapshotFiles.hasData
+    public static boolean exists(File file) {
+        return SnapshotFiles.hasData(file);
+    }
+
+    // Writes the moosages as a new snapshot generation, replacing the file atomically.
+    // The moosages must not change while they are written.
+    public static void write(File file, Collection<Moosage> moosages, long nextId) throws IOException {
+        List<Moosage> ordered = new ArrayList<>(moosages);
+        ordered.sort(Comparator.comparing(Moosage::getId));
+        long generation = 1;
+        for (Header header : findSnapshots(file)) {
+            generation = Math.max(generation, header.generation() + 1);
+        }
+
+        // Intern the strings first, the table precedes the records
+        Map<String, Integer> stringIndexes = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        int[] authorOf = new int[ordered.size()];
+        List<String[]> likesOf = new ArrayList<>(ordered.size());
+        for (int i = 0; i < ordered.size(); i++) {
+            Moosage moosage = ordered.get(i);
+            String authorId = moosage.getAuthorId();
+            authorOf[i] = authorId != null ? intern(authorId, stringIndexes, strings) : -1;
+            String[] likes = moosage.getLikedByUserIds().toArray(String[]::new);
+            for (String userId : likes) {
+                intern(userId, stringIndexes, strings);
+            }
+            likesOf.add(likes);
+        }
+
+        Path temp = SnapshotFiles.tempFile(file);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            // Stream the body after room for the header, then fill the header in
+            channel.position(HEADER_LENGTH);
+            CRC32 crc = new CRC32();
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024), crc));
+
+            out.writeInt(strings.size());
+            for (String string : strings) {
+                writeBytes(out, string.getBytes(StandardCharsets.UTF_8));
+            }
+
+            long[] offsets = new long[ordered.size()];
+            for (int i = 0; i < ordered.size(); i++) {
+                Moosage moosage = ordered.get(i);
+                offsets[i] = HEADER_LENGTH + (long) out.size();
+                byte[] content = moosage.getContent() != null
+                        ? moosage.getContent().getBytes(StandardCharsets.UTF_8) : null;
+                String[] likes = likesOf.get(i);
+                int length = Long.BYTES * 2 + Integer.BYTES * 2 + 1
+                        + Integer.BYTES + (content != null ? content.length : 0)
+                        + Integer.BYTES * (1 + likes.length);
+                out.writeInt(length);
+                out.writeLong(moosage.getId());
+                LocalDateTime time = moosage.getTime();
+                out.writeLong(time != null ? time.toEpochSecond(ZoneOffset.UTC) : NO_TIME);
+                out.writeInt(time != null ? time.getNano() : 0);
+                out.writeInt(authorOf[i]);
+                out.writeBoolean(moosage.isEdited());
+                if (content != null) {
+                    writeBytes(out, content);
+                } else {
+                    out.writeInt(-1);
+                }
+                out.writeInt(likes.length);
+                for (String userId : likes) {
+                    out.writeInt(stringIndexes.get(userId));
+                }
+            }
+
+            long indexOffset = HEADER_LENGTH + (long) out.size();
+            for (int i = 0; i < ordered.size(); i++) {
+                out.writeLong(ordered.get(i).getId());
+                out.writeLong(offsets[i]);
+            }
+            out.flush();
+            // size() stops counting at Integer.MAX_VALUE
+            if (out.size() > Integer.MAX_VALUE - HEADER_LENGTH - 1) {
+                throw new IOException("Moosage snapshot exceeds the 2 GB that can be mapped");
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH)
+                    .putInt(MAGIC)
+                    .putInt(FORMAT_VERSION)
+                    .putLong(generation)
+                    .putLong(nextId)
+                    .putInt(ordered.size())
+                    .putLong(indexOffset)
+                    .putLong(out.size())
+                    .putInt((int) crc.getValue())
+                    .flip();
+            long position = 0;
+            while (header.hasRemaining()) {
+                position += channel.write(header, position);
+            }
+            channel.force(true);
+        }
+        SnapshotFiles.replace(file);
+    }
+
+    // Reads the newest snapshot generation that is intact, with the likes in a table of their own.
+    public static Contents read(File file) throws IOException {
+        return read(file, new UserIdOrdinals());
+    }
+
+    // Reads the newest snapshot generation that is intact, interning the liking userIDs in the
+    // given table. Throws FileNotFoundException if there is no snapshot at all, and another
+    // IOException if none of them is intact.
+    public static Contents read(File file, UserIdOrdinals ordinals) throws IOException {
+        if (!exists(file)) {
+            throw new FileNotFoundException("No moosage snapshot found: " + file.getPath());
+        }
+        List<Header> snapshots = findSnapshots(file);
+        if (snapshots.isEmpty()) {
+            throw new IOException("No moosage snapshot with a valid header: " + file.getPath());
+        }
+        IOException failure = null;
+        for (Header snapshot : snapshots) {
+            try {
+                Contents contents = load(snapshot, ordinals);
+                if (!snapshot.path().equals(file.toPath())) {
+                    System.err.println("Recovered " + file.getName() + " from " + snapshot.path().getFileName()
+                            + " (generation " + snapshot.generation() + ")");
+                }
+                return contents;
+            } catch (IOException e) {
+                System.err.println("Skipping invalid snapshot " + snapshot.path().getFileName()
+                        + ": " + e.getMessage());
+                failure = e;
+            }
+        }
+        throw failure;
+    }
+
+    // Deletes the snapshot together with its previous and temporary generations.
+    public static void delete(File file) throws IOException {
+        SnapshotFiles.delete(file);
+    }
+
+    private static int intern(String string, Map<String, Integer> indexes, List<String> strings) {
+        return indexes.computeIfAbsent(string, key -> {
+            strings.add(key);
+            return strings.size() - 1;
+        });
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    // The snapshot file and its leftover generations, newest first. Only headers are read.
+    private static List<Header> findSnapshots(File file) throws IOException {
+        List<Header> snapshots = new ArrayList<>();
+        for (Path path : SnapshotFiles.candidates(file)) {
+            if (!Files.isRegularFile(path) || Files.size(path) == 0) {
+                continue;
+            }
+            try {
+                snapshots.add(readHeader(path));
+            } catch (IOException e) {
+                System.err.println("Skipping unreadable snapshot " + path.getFileName() + ": " + e.getMessage());
+            }
+        }
+        // Stable sort keeps the snapshot file ahead of leftovers with the same generation
+        snapshots.sort(Comparator.comparingLong(Header::generation).reversed());
+        return snapshots;
+    }
+
+    private static Header readHeader(Path path) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // Keep reading until the header is complete or the file ends
+            int read = 0;
+            while (header.hasRemaining() && read >= 0) {
+                read = channel.read(header);
+            }
+        }
+        if (header.hasRemaining()) {
+            throw new IOException("Truncated snapshot header");
+        }
+        header.flip();
+        if (header.getInt() != MAGIC) {
+            throw new IOException("Not a moosage snapshot");
+        }
+        int version = header.getInt();
+        if (version != FORMAT_VERSION && version != EMBEDDED_AUTHOR_VERSION) {
+            throw new IOException("Unsupported snapshot version " + version);
+        }
+        Header parsed = new Header(path, version, header.getLong(), header.getLong(), header.getInt(),
+                header.getLong(), header.getLong(), Integer.toUnsignedLong(header.getInt()));
+        if (parsed.generation() < 0 || parsed.recordCount() < 0 || parsed.bodyLength() < 0) {
+            throw new IOException("Malformed snapshot header");
+        }
+        return parsed;
+    }
+
+    // Maps the snapshot, checks length and checksum, then decodes it
+    private static Contents load(Header snapshot, UserIdOrdinals ordinals) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(snapshot.path(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size != HEADER_LENGTH + snapshot.bodyLength()) {
+                throw new IOException("Snapshot is " + size + " bytes, header expects "
+                        + (HEADER_LENGTH + snapshot.bodyLength()));
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot exceeds the 2 GB that can be mapped");
+            }
+            if (MAP_FILES) {
+                // The mapping stays valid after the channel is closed
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                buffer = ByteBuffer.allocate((int) size);
+                // Read the whole file, or what there is of it
+                int read = 0;
+                while (buffer.hasRemaining() && read >= 0) {
+                    read = channel.read(buffer);
+                }
+                buffer.flip();
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(HEADER_LENGTH, (int) snapshot.bodyLength()));
+        if (crc.getValue() != snapshot.crc()) {
+            throw new IOException("Checksum mismatch");
+        }
+        try {
+            return decode(buffer, snapshot, ordinals);
+        } catch (RuntimeException e) {
+            // A matching checksum over a malformed body means a bug in the writer, not damage
+            throw new IOException("Malformed snapshot: " + e.getMessage(), e);
+        }
+    }
+
+    private static Contents decode(ByteBuffer buffer, Header snapshot, UserIdOrdinals ordinals) {
+        ByteBuffer tables = buffer.duplicate().position(HEADER_LENGTH);
+        String[] strings = new String[tables.getInt()];
+        for (int i = 0; i < strings.length; i++) {
+            byte[] bytes = new byte[tables.getInt()];
+            tables.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        // Author ids by the index records refer to them with
+        String[] authors = strings;
+        if (snapshot.version() == EMBEDDED_AUTHOR_VERSION) {
+            authors = new String[tables.getInt()];
+            for (int i = 0; i < authors.length; i++) {
+                authors[i] = strings[tables.getInt()];
+                tables.position(tables.position() + 2 * Integer.BYTES);  // username and email
+            }
+        }
+        String[] authorIds = authors;
+        // Ordinals of liking users by string index, looked up on first use. Decoding threads
+        // may look one up twice, which gives the same ordinal.
+        int[] likeOrdinals = new int[strings.length];
+        Arrays.fill(likeOrdinals, -1);
+
+        // Records are read with absolute gets only, so threads can share the buffer
+        int indexOffset = Math.toIntExact(snapshot.indexOffset());
+        IntStream records = IntStream.range(0, snapshot.recordCount());
+        if (snapshot.recordCount() >= PARALLEL_DECODE_THRESHOLD) {
+            records = records.parallel();
+        }
+        List<Moosage> moosages = records
+                .mapToObj(i -> decodeRecord(buffer,
+                        Math.toIntExact(buffer.getLong(indexOffset + i * 2 * Long.BYTES + Long.BYTES)),
+                        strings, authorIds, ordinals, likeOrdinals))
+                .collect(Collectors.toCollection(ArrayList::new));
+        return new Contents(moosages, snapshot.nextId());
+    }
+
+    private static Moosage decodeRecord(ByteBuffer buffer, int offset, String[] strings, String[] authorIds,
+                                        UserIdOrdinals ordinals, int[] likeOrdinals) {
+        int end = offset + Integer.BYTES + buffer.getInt(offset);
+        int position = offset + Integer.BYTES;
+        long id = buffer.getLong(position);
+        position += Long.BYTES;
+        long epochSecond = buffer.getLong(position);
+        position += Long.BYTES;
+        int nano = buffer.getInt(position);
+        position += Integer.BYTES;
+        int author = buffer.getInt(position);
+        position += Integer.BYTES;
+        boolean edited = buffer.get(position) != 0;
+        position += 1;
+        int contentLength = buffer.getInt(position);
+        position += Integer.BYTES;
+        String content = null;
+        if (contentLength >= 0) {
+            byte[] bytes = new byte[contentLength];
+            buffer.get(position, bytes);
+            content = new String(bytes, StandardCharsets.UTF_8);
+            position += contentLength;
+        }
+        LocalDateTime time = epochSecond != NO_TIME
+                ? LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC) : null;
+
+        Moosage moosage = new Moosage(id, content, author >= 0 ? authorIds[author] : null, time, ordinals);
+        moosage.setEdited(edited);
+        int[] likes = new int[buffer.getInt(position)];
+        position += Integer.BYTES;
+        for (int i = 0; i < likes.length; i++) {
+            int string = buffer.getInt(position);
+            int ordinal = likeOrdinals[string];
+            if (ordinal < 0) {
+                ordinal = ordinals.ordinalOf(strings[string]);
+                likeOrdinals[string] = ordinal;
+            }
+            likes[i] = ordinal;
+            position += Integer.BYTES;
+        }
+        moosage.setLikes(IntHashSet.of(likes), ordinals);
+        if (position != end) {
+            throw new IllegalStateException("Record " + id + " does not match its length");
+        }
+        return moosage;
+    }
+
+    // Header of a snapshot file on disk
+    private record Header(Path path, int version, long generation, long nextId, int recordCount,
+                          long indexOffset, long bodyLength, long crc) {
+    }
+}
@@ -0,0 +1,107 @@
+package repository;
+
+import org.pcollections.HashTreePMap;
+import org.pcollections.PMap;
+import org.pcollections.PSortedMap;
+import org.pcollections.TreePMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// The change sequence of one version of the resident moosages (see MoosageRepository). Each
+// published change takes the next sequence number; a moosage is listed under the number of its
+// latest change, and a deleted one stays listed as a tombstone. So "what changed since n" is
+// the tail of the index after n, however many moosages there are.
+//
+// Immutable and persistent like the version it belongs to. Sequences start from the clock at
+// load time (microseconds), so numbers a client got before a restart are below the horizon
+// (or above the sequence) and are answered with a full reload rather than a wrong difference.
+// Only the newest MAX_TOMBSTONES deletes are kept; dropping one moves the horizon past it.
+// Numbers belong to one process: instances sharing a data directory each number the changes
+// they publish themselves.
+final class ChangeSequence {
+
+    static final int MAX_TOMBSTONES = 10_000;
+
+    private final long sequence;
+    // Changes after this number are all known
+    private final long horizon;
+    private final PMap<Long, Long> sequenceOf;
+    private final PSortedMap<Long, Long> bySequence;
+    private final PSortedMap<Long, Long> tombstones;
+
+    private ChangeSequence(long sequence, long horizon, PMap<Long, Long> sequenceOf,
+                           PSortedMap<Long, Long> bySequence, PSortedMap<Long, Long> tombstones) {
+        this.sequence = sequence;
+        this.horizon = horizon;
+        this.sequenceOf = sequenceOf;
+        this.bySequence = bySequence;
+        this.tombstones = tombstones;
+    }
+
+    // A sequence with no known changes, starting at the given number or the clock if later
+    static ChangeSequence startingAfter(long sequence) {
+        long start = Math.max(sequence, System.currentTimeMillis() * 1000);
+        return new ChangeSequence(start, start, HashTreePMap.empty(), TreePMap.empty(), TreePMap.empty());
+    }
+
+    long sequence() {
+        return sequence;
+    }
+
+    long horizon() {
+        return horizon;
+    }
+
+    // Number of the latest change of the given moosage, or the horizon if it did not change
+    // since the sequence started
+    long sequenceOf(long id) {
+        Long latest = sequenceOf.get(id);
+        return latest != null ? latest : horizon;
+    }
+
+    // True if every change after the given number is known
+    boolean covers(long since) {
+        return since >= horizon && since <= sequence;
+    }
+
+    ChangeSequence changed(long id) {
+        long next = sequence + 1;
+        return new ChangeSequence(next, horizon, sequenceOf.plus(id, next), moved(id, next), tombstones);
+    }
+
+    ChangeSequence deleted(long id) {
+        long next = sequence + 1;
+        PMap<Long, Long> nextSequenceOf = sequenceOf.plus(id, next);
+        PSortedMap<Long, Long> nextBySequence = moved(id, next);
+        PSortedMap<Long, Long> nextTombstones = tombstones.plus(next, id);
+        long nextHorizon = horizon;
+        if (nextTombstones.size() > MAX_TOMBSTONES) {
+            Map.Entry<Long, Long> oldest = nextTombstones.firstEntry();
+            nextTombstones = nextTombstones.minus(oldest.getKey());
+            nextBySequence = nextBySequence.minus(oldest.getKey());
+            nextSequenceOf = nextSequenceOf.minus(oldest.getValue());
+            nextHorizon = oldest.getKey();
+        }
+        return new ChangeSequence(next, nextHorizon, nextSequenceOf, nextBySequence, nextTombstones);
+    }
+
+    private PSortedMap<Long, Long> moved(long id, long next) {
+        Long previous = sequenceOf.get(id);
+        return (previous != null ? bySequence.minus(previous) : bySequence).plus(next, id);
+    }
+
+    // Ids changed after the given number, in change order, or null if there are more than
+    // the limit. Only the returned entries are visited.
+    List<Long> idsChangedSince(long since, int limit) {
+        List<Long> ids = new ArrayList<>();
+        for (Long id : bySequence.tailMap(since, false).values()) {
+            if (ids.size() == limit) {
+                return null;
+            }
+            ids.add(id);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,26 @@
+package repository;
+
+import model.Moosage;
+
+import java.time.LocalDateTime;
+
+// Key of the time index in MoosageRepository. Natural order is the feed order:
+// newest first, with the higher id first when two moosages share a timestamp.
+record FeedKey(LocalDateTime time, long id) implements Comparable<FeedKey> {
+
+    FeedKey {
+        if (time == null) {
+            throw new IllegalArgumentException("Time cannot be null");
+        }
+    }
+
+    static FeedKey of(Moosage moosage) {
+        return new FeedKey(moosage.getTime(), moosage.getId());
+    }
+
+    @Override
+    public int compareTo(FeedKey other) {
+        int byTime = other.time.compareTo(time);
+        return byTime != 0 ? byTime : Long.compare(other.id, id);
+    }
+}
@@ -0,0 +1,364 @@
+package repository;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import model.Moosage;
+import util.DataDirectoryLock;
+import util.JsonFileHandler;
+import util.LongObjectHashMap;
+import util.UserIdOrdinals;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+// Moosage store of the file engine: a binary snapshot plus a mutation log next to it
+// (moosages.json -> moosages.bin and moosages.log). Mutations are appended to the log, and
+// a checkpoint writes a new snapshot and empties the log.
+//
+// The snapshot is memory-mapped on startup, see BinaryMoosageSnapshot. JSON is the import
+// format: without a binary snapshot the JSON data file is imported. Delete the binary snapshot
+// to import an edited JSON file on the next start.
+//
+// With a DataDirectoryLock the store is shared with other processes. Each one appends to the
+// same log under the lock and bumps the moosages counter, and the others read the records
+// appended since they last looked. When a process folds the log into a snapshot, the others
+// reload the snapshot, unless they had read the whole folded log and so already hold its state.
+public final class FileMoosageStore implements MoosageStore {
+
+    static final String DATA_FILE_PATH = "persistence/src/main/resources/data/moosages.json";
+
+    private final JsonFileHandler fileHandler;
+    private final File dataFile;
+    private final File snapshotFile;
+    // Null if the log cannot be opened, in which case every mutation rewrites the snapshot
+    private final MoosageMutationLog mutationLog;
+    // Null unless the data directory is shared with other processes
+    private final DataDirectoryLock sharedLock;
+    private final UserIdOrdinals ordinals = new UserIdOrdinals();
+
+    // What of the shared store this process has seen; written holding the shared lock
+    private volatile long seenGeneration;
+    private long seenLogEpoch;
+    private long seenLogLength;
+    private volatile Runnable changeListener;
+    private volatile boolean closed;
+
+    public FileMoosageStore(JsonFileHandler fileHandler, GroupCommitPolicy logPolicy) {
+        this(fileHandler, logPolicy, null);
+    }
+
+    // Shares the data files with the other processes that use the same lock file; the caller
+    // closes the lock after the store
+    public FileMoosageStore(JsonFileHandler fileHandler, GroupCommitPolicy logPolicy, DataDirectoryLock sharedLock) {
+        if (fileHandler == null) {
+            throw new IllegalArgumentException("JsonFileHandler cannot be null");
+        }
+        if (logPolicy == null) {
+            throw new IllegalArgumentException("GroupCommitPolicy cannot be null");
+        }
+        this.fileHandler = fileHandler;
+        // Register JavaTimeModule for LocalDateTime serialization
+        fileHandler.getObjectMapper().registerModule(new JavaTimeModule());
+
+        // DATA_FILE_PATH is a hardcoded constant, not user input
+        String filePath = fileHandler.getDataFilePath(DATA_FILE_PATH);
+        if (filePath == null || filePath.trim().isEmpty()) {
+            throw new IllegalArgumentException("Data file path cannot be null or empty");
+        }
+        this.dataFile = new File(filePath);
+        this.snapshotFile = siblingFile(".bin");
+        this.mutationLog = openMutationLog(logPolicy);
+        this.sharedLock = sharedLock;
+    }
+
+    @Override
+    public UserIdOrdinals userIdOrdinals() {
+        return ordinals;
+    }
+
+    // Loads the snapshot and replays the log tail on top of it. If anything was replayed or
+    // imported from JSON, the result is written as a fresh snapshot.
+    @Override
+    public State load() throws IOException {
+        if (sharedLock == null) {
+            return loadAndCheckpoint();
+        }
+        sharedLock.lock();
+        try {
+            State state = loadAndCheckpoint();
+            markSeen();
+            return state;
+        } finally {
+            sharedLock.unlock();
+        }
+    }
+
+    private State loadAndCheckpoint() throws IOException {
+        boolean imported = !BinaryMoosageSnapshot.exists(snapshotFile);
+        Replayed replayed = replaySnapshotAndLog();
+        List<Moosage> moosages = replayed.state().moosages();
+        if (replayed.mutations() > 0 || (imported && !moosages.isEmpty())) {
+            // Imported from JSON, so the next start can map the binary snapshot instead
+            checkpoint(moosages, replayed.state().nextId());
+        }
+        return replayed.state();
+    }
+
+    // The stored state and the number of log records replayed to get it
+    private record Replayed(State state, int mutations) {
+    }
+
+    // A damaged log fails the replay rather than being left behind: its records after the damage
+    // were acknowledged, and the next checkpoint would empty the log they are in.
+    private Replayed replaySnapshotAndLog() throws IOException {
+        State snapshot = loadSnapshot();
+        LongObjectHashMap<Moosage> moosagesById = new LongObjectHashMap<>(snapshot.moosages().size());
+        for (Moosage moosage : snapshot.moosages()) {
+            // Moosages imported from JSON come with likes in tables of their own
+            moosage.internLikes(ordinals);
+            moosagesById.put(moosage.getId(), moosage);
+        }
+        long nextId = snapshot.nextId();
+
+        List<MoosageMutation> mutations = mutationLog != null ? mutationLog.readAll() : List.of();
+        for (MoosageMutation mutation : mutations) {
+            nextId = replay(mutation, moosagesById, nextId, ordinals);
+        }
+        if (mutationLog != null) {
+            try {
+                seenLogLength = mutationLog.length();
+            } catch (IOException e) {
+                System.err.println("Error reading moosage log length: " + e.getMessage());
+            }
+        }
+
+        List<Moosage> moosages = moosagesById.values();
+        moosages.sort(Comparator.comparing(Moosage::getId));
+        return new Replayed(new State(moosages, nextId), mutations.size());
+    }
+
+    // Loads the binary snapshot, or imports the JSON data file if there is none yet. Starts
+    // empty only if there is no data at all.
+    private State loadSnapshot() {
+        try {
+            if (BinaryMoosageSnapshot.exists(snapshotFile)) {
+                BinaryMoosageSnapshot.Contents contents = BinaryMoosageSnapshot.read(snapshotFile, ordinals);
+                return new State(contents.moosages(), contents.nextId());
+            }
+            JsonStorage storage = fileHandler.readJsonFromFile(dataFile, new TypeReference<JsonStorage>() { });
+            return new State(storage.moosages != null ? storage.moosages : new ArrayList<>(),
+                    storage.nextId != null ? storage.nextId : 1L);
+        } catch (FileNotFoundException e) {
+            System.err.println("No moosages data file, starting empty: " + e.getMessage());
+            return new State(new ArrayList<>(), 1L);
+        } catch (IOException e) {
+            File damaged = BinaryMoosageSnapshot.exists(snapshotFile) ? snapshotFile : dataFile;
+            throw new IllegalStateException("No readable moosages snapshot in " + damaged.getPath(), e);
+        }
+    }
+
+    // Applies a logged mutation and returns the next id. Every operation is idempotent, so
+    // records that are already reflected in the snapshot can safely be replayed again.
+    private static long replay(MoosageMutation mutation, LongObjectHashMap<Moosage> moosagesById, long nextId,
+                               UserIdOrdinals ordinals) {
+        long id = mutation.id();
+        Moosage moosage = moosagesById.get(id);
+        switch (mutation.op()) {
+            case CREATE -> {
+                if (moosage == null) {
+                    mutation.moosage().internLikes(ordinals);
+                    moosagesById.put(id, mutation.moosage());
+                }
+                return Math.max(nextId, id + 1);
+            }
+            case LIKE -> {
+                if (moosage != null) {
+                    if (Boolean.TRUE.equals(mutation.liked())) {
+                        moosage.addLike(mutation.userId());
+                    } else {
+                        moosage.removeLike(mutation.userId());
+                    }
+                }
+            }
+            case UPDATE -> {
+                if (moosage != null) {
+                    moosage.setContent(mutation.content());
+                    moosage.setEdited(true);
+                }
+            }
+            case DELETE -> moosagesById.remove(id);
+            default -> throw new IllegalStateException("Unknown moosage log operation: " + mutation.op());
+        }
+        return nextId;
+    }
+
+    @Override
+    public void append(MoosageMutation mutation) throws IOException {
+        if (mutationLog == null) {
+            throw new IOException("Moosage log is not available");
+        }
+        if (sharedLock == null) {
+            mutationLog.append(mutation);
+            return;
+        }
+        // Usually held by the repository already, since it caught up before deciding the mutation
+        sharedLock.lock();
+        try {
+            mutationLog.append(mutation);
+            // The others see the record, and this process does not read it back
+            seenLogLength = mutationLog.length();
+            seenGeneration = sharedLock.increment(DataDirectoryLock.Counter.MOOSAGES);
+        } finally {
+            sharedLock.unlock();
+        }
+    }
+
+    @Override
+    public long pendingMutations() {
+        return mutationLog != null ? mutationLog.size() : 0;
+    }
+
+    @Override
+    public boolean checkpointsEveryMutation() {
+        return mutationLog == null;
+    }
+
+    // Writes the snapshot first, so a crash before the log is emptied only leaves records
+    // that replay idempotently.
+    @Override
+    public void checkpoint(Collection<Moosage> moosages, long nextId) throws IOException {
+        if (sharedLock == null) {
+            writeCheckpoint(moosages, nextId);
+            return;
+        }
+        sharedLock.lock();
+        try {
+            writeCheckpoint(moosages, nextId);
+            // Processes that had read the whole log hold this state already and need not reload
+            sharedLock.set(DataDirectoryLock.Counter.CHECKPOINTED_LOG_LENGTH, seenLogLength);
+            sharedLock.increment(DataDirectoryLock.Counter.LOG_EPOCH);
+            sharedLock.increment(DataDirectoryLock.Counter.MOOSAGES);
+            markSeen();
+        } finally {
+            sharedLock.unlock();
+        }
+    }
+
+    private void writeCheckpoint(Collection<Moosage> moosages, long nextId) throws IOException {
+        BinaryMoosageSnapshot.write(snapshotFile, moosages, nextId);
+        if (mutationLog != null) {
+            mutationLog.reset();
+        }
+    }
+
+    @Override
+    public boolean isShared() {
+        return sharedLock != null;
+    }
+
+    @Override
+    public void lock() throws IOException {
+        if (sharedLock != null) {
+            sharedLock.lock();
+        }
+    }
+
+    @Override
+    public void unlock() {
+        if (sharedLock != null) {
+            sharedLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean changesPending() {
+        return sharedLock != null && sharedLock.get(DataDirectoryLock.Counter.MOOSAGES) != seenGeneration;
+    }
+
+    @Override
+    public void onChange(Runnable listener) {
+        changeListener = listener;
+    }
+
+    // Called by the engine's directory watcher
+    void notifyChanged() {
+        Runnable listener = changeListener;
+        if (listener != null && !closed) {
+            listener.run();
+        }
+    }
+
+    // Reads the log records other processes appended since this one last looked. If the log
+    // was folded into a snapshot meanwhile, reads from the start of the emptied log when this
+    // process had seen all of the folded records, and reloads everything otherwise (also
+    // when this process has no log to read).
+    @Override
+    public Changes pollChanges() throws IOException {
+        if (!changesPending()) {
+            return null;
+        }
+        long epoch = sharedLock.get(DataDirectoryLock.Counter.LOG_EPOCH);
+        if (mutationLog == null || epoch != seenLogEpoch) {
+            boolean sawFoldedLog = mutationLog != null && epoch == seenLogEpoch + 1
+                    && sharedLock.get(DataDirectoryLock.Counter.CHECKPOINTED_LOG_LENGTH) == seenLogLength;
+            if (!sawFoldedLog) {
+                State state = replaySnapshotAndLog().state();
+                markSeen();
+                return new Changes(List.of(), state);
+            }
+            seenLogEpoch = epoch;
+            seenLogLength = 0;
+        }
+        MoosageMutationLog.Tail tail = mutationLog.readFrom(seenLogLength);
+        seenLogLength = tail.end();
+        seenGeneration = sharedLock.get(DataDirectoryLock.Counter.MOOSAGES);
+        return tail.mutations().isEmpty() ? null : new Changes(tail.mutations(), null);
+    }
+
+    // Notes that this process has seen everything stored so far. Must hold the shared lock.
+    private void markSeen() throws IOException {
+        seenLogLength = mutationLog != null ? mutationLog.length() : 0;
+        seenLogEpoch = sharedLock.get(DataDirectoryLock.Counter.LOG_EPOCH);
+        seenGeneration = sharedLock.get(DataDirectoryLock.Counter.MOOSAGES);
+    }
+
+    @Override
+    public GroupCommitStats stats() {
+        return mutationLog != null ? mutationLog.stats() : new GroupCommitStats(0, 0, 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        if (mutationLog != null) {
+            mutationLog.close();
+        }
+    }
+
+    // A file next to the JSON data file with another extension (moosages.json -> moosages.log)
+    private File siblingFile(String extension) {
+        String name = dataFile.getName();
+        int dot = name.lastIndexOf('.');
+        return new File(dataFile.getParentFile(), (dot > 0 ? name.substring(0, dot) : name) + extension);
+    }
+
+    private MoosageMutationLog openMutationLog(GroupCommitPolicy logPolicy) {
+        try {
+            return new MoosageMutationLog(siblingFile(".log"), logPolicy);
+        } catch (IOException e) {
+            System.err.println("Opening moosage log failed, falling back to snapshot writes: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // The JSON data file's layout, used for import and by MoosageRepository.exportJson
+    static class JsonStorage {
+        public List<Moosage> moosages = new ArrayList<>();
+        public Long nextId = 1L;
+    }
+}
@@ -0,0 +1,103 @@
+package repository;
+
+import util.DataDirectoryLock;
+import util.DataDirectoryWatcher;
+import util.JsonFileHandler;
+
+import java.io.File;
+import java.io.IOException;
+
+// Storage engine that keeps data files on disk: users in a JSON file and moosages in a binary
+// snapshot with a mutation log (see FileUserStore and FileMoosageStore). Paths are resolved
+// by the JsonFileHandler.
+//
+// In shared mode several processes may use the same data directory: writers coordinate through
+// a DataDirectoryLock, and a DataDirectoryWatcher tells the stores when another process wrote,
+// so the repositories apply those changes instead of reloading everything.
+public final class FileStorageEngine implements StorageEngine {
+
+    public static final String NAME = "file";
+
+    private final FileMoosageStore moosages;
+    private final FileUserStore users;
+    // Both null unless shared
+    private final DataDirectoryLock sharedLock;
+    private final DataDirectoryWatcher watcher;
+
+    public FileStorageEngine() {
+        this(new JsonFileHandler(), GroupCommitPolicy.defaults());
+    }
+
+    public FileStorageEngine(JsonFileHandler fileHandler, GroupCommitPolicy logPolicy) {
+        this(fileHandler, logPolicy, false);
+    }
+
+    public FileStorageEngine(JsonFileHandler fileHandler, GroupCommitPolicy logPolicy, boolean shared) {
+        if (fileHandler == null) {
+            throw new IllegalArgumentException("JsonFileHandler cannot be null");
+        }
+        if (!shared) {
+            this.sharedLock = null;
+            this.watcher = null;
+            this.users = new FileUserStore(fileHandler);
+            this.moosages = new FileMoosageStore(fileHandler, logPolicy);
+            return;
+        }
+        File directory = new File(fileHandler.getDataFilePath(FileMoosageStore.DATA_FILE_PATH)).getParentFile();
+        try {
+            this.sharedLock = DataDirectoryLock.open(directory);
+        } catch (IOException e) {
+            throw new IllegalStateException("Opening the shared data directory failed", e);
+        }
+        this.users = new FileUserStore(fileHandler, sharedLock);
+        this.moosages = new FileMoosageStore(fileHandler, logPolicy, sharedLock);
+        try {
+            this.watcher = new DataDirectoryWatcher(directory, () -> {
+                users.notifyChanged();
+                moosages.notifyChanged();
+            });
+        } catch (IOException e) {
+            closeQuietly();
+            throw new IllegalStateException("Watching the shared data directory failed", e);
+        }
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    public boolean isShared() {
+        return sharedLock != null;
+    }
+
+    @Override
+    public MoosageStore moosages() {
+        return moosages;
+    }
+
+    @Override
+    public UserStore users() {
+        return users;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (watcher != null) {
+            watcher.close();
+        }
+        moosages.close();
+        if (sharedLock != null) {
+            sharedLock.close();
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            moosages.close();
+            sharedLock.close();
+        } catch (IOException e) {
+            System.err.println("Error closing the shared data directory: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package repository;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.type.TypeReference;
+import model.User;
+import util.DataDirectoryLock;
+import util.JsonFileHandler;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// User store of the file engine: every user in one JSON data file (data.json), rewritten as a
+// new snapshot on each insert. Entries are kept as stored, so invalid ones are not lost on save.
+//
+// With a DataDirectoryLock the file is shared with other processes: inserts write it under the
+// lock and bump the users counter, and the others then re-read it. Users are only ever added, so
+// the entries past the ones a process has seen are the new users.
+public final class FileUserStore implements UserStore {
+
+    private static final String DATA_FILE_PATH = "persistence/src/main/resources/data/data.json";
+
+    private final JsonFileHandler fileHandler;
+    private final File dataFile;
+    // Null unless the data directory is shared with other processes
+    private final DataDirectoryLock sharedLock;
+    // Resident copy of data.json; guarded by this store's monitor
+    private UserStorage storage = new UserStorage();
+    // Users counter of the shared lock when the resident copy was last in sync with the file
+    private volatile long seenGeneration;
+    private volatile Runnable changeListener;
+
+    public FileUserStore(JsonFileHandler fileHandler) {
+        this(fileHandler, null);
+    }
+
+    // Shares data.json with the other processes that use the same lock file
+    public FileUserStore(JsonFileHandler fileHandler, DataDirectoryLock sharedLock) {
+        if (fileHandler == null) {
+            throw new IllegalArgumentException("JsonFileHandler cannot be null");
+        }
+        this.fileHandler = fileHandler;
+        // DATA_FILE_PATH is a hardcoded constant, not user input
+        String filePath = fileHandler.getDataFilePath(DATA_FILE_PATH);
+        if (filePath == null || filePath.trim().isEmpty()) {
+            throw new IllegalArgumentException("Data file path cannot be null or empty");
+        }
+        this.dataFile = new File(filePath);
+        this.sharedLock = sharedLock;
+    }
+
+    // Takes the shared lock before the monitor, in the order of the other methods' callers
+    @Override
+    public List<User> load() throws IOException {
+        lock();
+        try {
+            synchronized (this) {
+                initializeDataFile();
+                storage = loadStorage();
+                markSeen();
+                return toUsers(storage.users);
+            }
+        } finally {
+            unlock();
+        }
+    }
+
+    private static List<User> toUsers(List<UserEntry> entries) {
+        List<User> users = new ArrayList<>(entries.size());
+        for (UserEntry entry : entries) {
+            try {
+                users.add(new User(entry.username, entry.email, entry.password, entry.userID));
+            } catch (IllegalArgumentException e) {
+                System.err.println("Skipping incomplete user entry in data file");
+            }
+        }
+        return users;
+    }
+
+    // Initializes the data file if it doesn't exist or is empty.
+    private void initializeDataFile() {
+        try {
+            fileHandler.initializeDataFile(dataFile, new UserStorage());
+        } catch (IOException e) {
+            System.err.println("Initializing the data file failed: " + e.getMessage());
+        }
+    }
+
+    // Reads the user storage from the newest intact snapshot of the JSON file. Starts empty if
+    // there is no data file; if no snapshot of it is readable, starting empty would overwrite
+    // the users on the next save.
+    private UserStorage loadStorage() {
+        try {
+            UserStorage loaded = fileHandler.readJsonFromFile(dataFile, new TypeReference<UserStorage>() { });
+            if (loaded == null || loaded.users == null) {
+                System.err.println("Users array is null or missing in data file");
+                return new UserStorage();
+            }
+            return loaded;
+        } catch (FileNotFoundException e) {
+            return new UserStorage();
+        } catch (IOException e) {
+            throw new IllegalStateException("No readable users snapshot in " + dataFile.getPath(), e);
+        }
+    }
+
+    // Writes the file first, so the user is only kept once it is stored. On a shared store the
+    // caller holds the lock and has polled new users, so no other process's entries are lost.
+    @Override
+    public synchronized void insert(User user) throws IOException {
+        UserEntry entry = new UserEntry();
+        entry.username = user.getUsername();
+        entry.email = user.getEmail();
+        entry.password = user.getPassword();
+        entry.userID = user.getUserID();
+
+        storage.users.add(entry);
+        try {
+            fileHandler.writeJsonToFile(dataFile, storage);
+        } catch (IOException e) {
+            storage.users.remove(storage.users.size() - 1);
+            throw e;
+        }
+        if (sharedLock != null) {
+            seenGeneration = sharedLock.increment(DataDirectoryLock.Counter.USERS);
+        }
+    }
+
+    // Re-reads the file if another process changed it and returns the entries past the ones
+    // seen so far.
+    @Override
+    public synchronized List<User> pollNewUsers() throws IOException {
+        if (!changesPending()) {
+            return List.of();
+        }
+        UserStorage loaded = loadStorage();
+        int seen = storage.users.size();
+        storage = loaded;
+        markSeen();
+        return seen < loaded.users.size() ? toUsers(loaded.users.subList(seen, loaded.users.size())) : List.of();
+    }
+
+    private void markSeen() {
+        if (sharedLock != null) {
+            seenGeneration = sharedLock.get(DataDirectoryLock.Counter.USERS);
+        }
+    }
+
+    @Override
+    public boolean isShared() {
+        return sharedLock != null;
+    }
+
+    @Override
+    public void lock() throws IOException {
+        if (sharedLock != null) {
+            sharedLock.lock();
+        }
+    }
+
+    @Override
+    public void unlock() {
+        if (sharedLock != null) {
+            sharedLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean changesPending() {
+        return sharedLock != null && sharedLock.get(DataDirectoryLock.Counter.USERS) != seenGeneration;
+    }
+
+    @Override
+    public void onChange(Runnable listener) {
+        changeListener = listener;
+    }
+
+    // Called by the engine's directory watcher
+    void notifyChanged() {
+        Runnable listener = changeListener;
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
+    // Storage class for JSON serialization.
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private static class UserStorage {
+        public List<UserEntry> users = new ArrayList<>();
+    }
+
+    // A user as stored in data.json, including the hashed password.
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private static class UserEntry {
+        public String username;
+        public String email;
+        public String password;
+        public String userID;
+    }
+}
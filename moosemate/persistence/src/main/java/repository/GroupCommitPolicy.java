@@ -0,0 +1,42 @@
+package repository;
+
+import java.time.Duration;
+
+// How the moosage mutation log groups appends into batches and when it forces them to disk.
+// A batch is closed when it holds maxBatchSize records, or 'window' after its first record
+// arrived. A zero window writes whatever has queued up while the previous batch was written.
+public record GroupCommitPolicy(Duration window, int maxBatchSize, SyncMode sync, Duration syncInterval) {
+
+    public enum SyncMode {
+        // Force every batch to disk before its callers return
+        EVERY_BATCH,
+        // Force at most once per sync interval; a crash can lose the writes of the last interval
+        INTERVAL,
+        // Leave flushing to the operating system; only compaction and close force the log
+        NEVER
+    }
+
+    public static final Duration DEFAULT_WINDOW = Duration.ofMillis(1);
+    public static final int DEFAULT_MAX_BATCH_SIZE = 256;
+    public static final Duration DEFAULT_SYNC_INTERVAL = Duration.ofMillis(100);
+
+    public GroupCommitPolicy {
+        if (window == null || window.isNegative()) {
+            throw new IllegalArgumentException("Batch window cannot be negative");
+        }
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Max batch size must be positive");
+        }
+        if (sync == null) {
+            throw new IllegalArgumentException("Sync mode cannot be null");
+        }
+        if (syncInterval == null || syncInterval.isNegative() || syncInterval.isZero()) {
+            throw new IllegalArgumentException("Sync interval must be positive");
+        }
+    }
+
+    public static GroupCommitPolicy defaults() {
+        return new GroupCommitPolicy(DEFAULT_WINDOW, DEFAULT_MAX_BATCH_SIZE, SyncMode.EVERY_BATCH,
+                DEFAULT_SYNC_INTERVAL);
+    }
+}
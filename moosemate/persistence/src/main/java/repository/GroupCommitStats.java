@@ -0,0 +1,10 @@
+package repository;
+
+// Batch sizes achieved by the moosage log's group commit since it was opened.
+public record GroupCommitStats(long batches, long records, int largestBatch) {
+
+    // Records per durable write, or 0 before the first batch
+    public double averageBatchSize() {
+        return batches == 0 ? 0.0 : (double) records / batches;
+    }
+}
@@ -0,0 +1,224 @@
+package repository;
+
+import model.Moosage;
+import util.UserIdOrdinals;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+
+// Moosage store of the JDBC engine. Every mutation is applied to the tables in place and
+// committed before append returns, so there is nothing to checkpoint; a checkpoint replaces
+// all rows, which is how a state from another engine is imported.
+final class JdbcMoosageStore implements MoosageStore {
+
+    private static final String SELECT_MOOSAGES = "SELECT id, content, author_id, posted_at, edited "
+            + "FROM moosages ORDER BY id";
+    private static final String SELECT_LIKES = "SELECT moosage_id, user_id FROM moosage_likes";
+    private static final String SELECT_NEXT_ID = "SELECT next_id FROM moosage_sequence";
+    private static final String INSERT_MOOSAGE = "INSERT INTO moosages (id, content, author_id, posted_at, edited) "
+            + "VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_LIKE = "MERGE INTO moosage_likes (moosage_id, user_id) "
+            + "KEY (moosage_id, user_id) VALUES (?, ?)";
+    private static final String DELETE_LIKE = "DELETE FROM moosage_likes WHERE moosage_id = ? AND user_id = ?";
+    private static final String UPDATE_CONTENT = "UPDATE moosages SET content = ?, edited = TRUE WHERE id = ?";
+    private static final String DELETE_MOOSAGE = "DELETE FROM moosages WHERE id = ?";
+    private static final String ADVANCE_NEXT_ID = "UPDATE moosage_sequence SET next_id = GREATEST(next_id, ?)";
+    private static final String SET_NEXT_ID = "UPDATE moosage_sequence SET next_id = ?";
+
+    private final DataSource dataSource;
+    private final UserIdOrdinals ordinals = new UserIdOrdinals();
+    private volatile boolean closed;
+
+    JdbcMoosageStore(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public UserIdOrdinals userIdOrdinals() {
+        return ordinals;
+    }
+
+    @Override
+    public State load() throws IOException {
+        try (Connection connection = dataSource.getConnection()) {
+            Map<Long, Moosage> moosagesById = new HashMap<>();
+            List<Moosage> moosages = new ArrayList<>();
+            try (PreparedStatement statement = connection.prepareStatement(SELECT_MOOSAGES);
+                 ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    Timestamp postedAt = rows.getTimestamp(4);
+                    Moosage moosage = new Moosage(rows.getLong(1), rows.getString(2), rows.getString(3),
+                            postedAt != null ? postedAt.toLocalDateTime() : null, ordinals);
+                    moosage.setEdited(rows.getBoolean(5));
+                    moosages.add(moosage);
+                    moosagesById.put(moosage.getId(), moosage);
+                }
+            }
+            // Collected per moosage first, so each like set is built once instead of once per like
+            Map<Long, List<String>> likesById = new HashMap<>();
+            try (PreparedStatement statement = connection.prepareStatement(SELECT_LIKES);
+                 ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    long moosageId = rows.getLong(1);
+                    if (moosagesById.containsKey(moosageId)) {
+                        likesById.computeIfAbsent(moosageId, id -> new ArrayList<>()).add(rows.getString(2));
+                    }
+                }
+            }
+            likesById.forEach((moosageId, userIds) -> moosagesById.get(moosageId).setLikedByUserIds(userIds));
+            long nextId = 1;
+            try (PreparedStatement statement = connection.prepareStatement(SELECT_NEXT_ID);
+                 ResultSet rows = statement.executeQuery()) {
+                if (rows.next()) {
+                    nextId = rows.getLong(1);
+                }
+            }
+            return new State(moosages, nextId);
+        } catch (SQLException e) {
+            throw new IOException("Loading moosages failed: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void append(MoosageMutation mutation) throws IOException {
+        if (closed) {
+            throw new IOException("Moosage store is closed");
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            switch (mutation.op()) {
+                case CREATE -> inTransaction(connection, () -> {
+                    insert(connection, List.of(mutation.moosage()));
+                    try (PreparedStatement statement = connection.prepareStatement(ADVANCE_NEXT_ID)) {
+                        statement.setLong(1, mutation.id() + 1);
+                        statement.executeUpdate();
+                    }
+                });
+                case LIKE -> {
+                    boolean liked = Boolean.TRUE.equals(mutation.liked());
+                    try (PreparedStatement statement = connection.prepareStatement(liked ? INSERT_LIKE : DELETE_LIKE)) {
+                        statement.setLong(1, mutation.id());
+                        statement.setString(2, mutation.userId());
+                        statement.executeUpdate();
+                    }
+                }
+                case UPDATE -> {
+                    try (PreparedStatement statement = connection.prepareStatement(UPDATE_CONTENT)) {
+                        statement.setString(1, mutation.content());
+                        statement.setLong(2, mutation.id());
+                        statement.executeUpdate();
+                    }
+                }
+                case DELETE -> {
+                    // Likes go with it (ON DELETE CASCADE)
+                    try (PreparedStatement statement = connection.prepareStatement(DELETE_MOOSAGE)) {
+                        statement.setLong(1, mutation.id());
+                        statement.executeUpdate();
+                    }
+                }
+                default -> throw new IllegalStateException("Unknown moosage operation: " + mutation.op());
+            }
+        } catch (SQLException e) {
+            throw new IOException("Storing moosage " + mutation.op() + " failed: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public long pendingMutations() {
+        return 0;
+    }
+
+    @Override
+    public boolean checkpointsEveryMutation() {
+        return false;
+    }
+
+    // Replaces every row in one transaction
+    @Override
+    public void checkpoint(Collection<Moosage> moosages, long nextId) throws IOException {
+        if (closed) {
+            throw new IOException("Moosage store is closed");
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            inTransaction(connection, () -> {
+                try (Statement statement = connection.createStatement()) {
+                    statement.executeUpdate("DELETE FROM moosage_likes");
+                    statement.executeUpdate("DELETE FROM moosages");
+                }
+                insert(connection, moosages);
+                try (PreparedStatement statement = connection.prepareStatement(SET_NEXT_ID)) {
+                    statement.setLong(1, nextId);
+                    statement.executeUpdate();
+                }
+            });
+        } catch (SQLException e) {
+            throw new IOException("Replacing moosages failed: " + e.getMessage(), e);
+        }
+    }
+
+    // Inserts moosages and their likes as two batches
+    private static void insert(Connection connection, Collection<Moosage> moosages) throws SQLException {
+        try (PreparedStatement insertMoosage = connection.prepareStatement(INSERT_MOOSAGE);
+             PreparedStatement insertLike = connection.prepareStatement(INSERT_LIKE)) {
+            for (Moosage moosage : moosages) {
+                insertMoosage.setLong(1, moosage.getId());
+                insertMoosage.setString(2, moosage.getContent());
+                insertMoosage.setString(3, moosage.getAuthorId());
+                if (moosage.getTime() != null) {
+                    insertMoosage.setTimestamp(4, Timestamp.valueOf(moosage.getTime()));
+                } else {
+                    insertMoosage.setNull(4, Types.TIMESTAMP);
+                }
+                insertMoosage.setBoolean(5, moosage.isEdited());
+                insertMoosage.addBatch();
+                for (String userId : moosage.getLikedByUserIds()) {
+                    insertLike.setLong(1, moosage.getId());
+                    insertLike.setString(2, userId);
+                    insertLike.addBatch();
+                }
+            }
+            insertMoosage.executeBatch();
+            insertLike.executeBatch();
+        }
+    }
+
+    private static void inTransaction(Connection connection, SqlWork work) throws SQLException {
+        connection.setAutoCommit(false);
+        try {
+            work.run();
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    @Override
+    public GroupCommitStats stats() {
+        return new GroupCommitStats(0, 0, 0);
+    }
+
+    // The connection pool belongs to the engine, which disposes of it
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    @FunctionalInterface
+    private interface SqlWork {
+        void run() throws SQLException;
+    }
+}
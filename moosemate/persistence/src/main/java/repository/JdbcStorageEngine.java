@@ -0,0 +1,110 @@
+package repository;
+
+import org.h2.jdbcx.JdbcConnectionPool;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+
+// Storage engine on an embedded H2 database, e.g. jdbc:h2:file:/var/lib/moosemate/moosemate.
+// Connections come from a bounded pool, statements are prepared, and the schema is created on
+// first start. Likes are a table of their own keyed by (moosage, user), so toggling a like
+// touches one row instead of rewriting the moosage.
+//
+// Commits are written to the database file before they return (WRITE_DELAY=0 is added to the
+// URL unless it sets a delay of its own).
+public final class JdbcStorageEngine implements StorageEngine {
+
+    public static final String NAME = "jdbc";
+    public static final int DEFAULT_POOL_SIZE = 10;
+
+    private static final String[] SCHEMA = {
+        "CREATE TABLE IF NOT EXISTS users ("
+            + "user_id VARCHAR(64) PRIMARY KEY, "
+            + "username VARCHAR(255) NOT NULL, "
+            + "email VARCHAR(255) NOT NULL, "
+            + "password VARCHAR(255) NOT NULL)",
+        "CREATE UNIQUE INDEX IF NOT EXISTS users_username ON users(username)",
+        "CREATE UNIQUE INDEX IF NOT EXISTS users_email ON users(email)",
+        "CREATE TABLE IF NOT EXISTS moosages ("
+            + "id BIGINT PRIMARY KEY, "
+            + "content VARCHAR, "
+            + "author_id VARCHAR(64), "
+            + "posted_at TIMESTAMP(9), "
+            + "edited BOOLEAN NOT NULL)",
+        // Feed order, newest first
+        "CREATE INDEX IF NOT EXISTS moosages_feed ON moosages(posted_at DESC, id DESC)",
+        "CREATE INDEX IF NOT EXISTS moosages_author ON moosages(author_id)",
+        "CREATE TABLE IF NOT EXISTS moosage_likes ("
+            + "moosage_id BIGINT NOT NULL REFERENCES moosages(id) ON DELETE CASCADE, "
+            + "user_id VARCHAR(64) NOT NULL, "
+            + "PRIMARY KEY (moosage_id, user_id))",
+        // One row; ids of deleted moosages are not handed out again
+        "CREATE TABLE IF NOT EXISTS moosage_sequence (next_id BIGINT NOT NULL)",
+        "INSERT INTO moosage_sequence SELECT 1 WHERE NOT EXISTS (SELECT * FROM moosage_sequence)"
+    };
+
+    private final JdbcConnectionPool pool;
+    private final JdbcMoosageStore moosages;
+    private final JdbcUserStore users;
+
+    public JdbcStorageEngine(String url) {
+        this(url, "sa", "", DEFAULT_POOL_SIZE);
+    }
+
+    public JdbcStorageEngine(String url, String username, String password, int poolSize) {
+        if (url == null || !url.startsWith("jdbc:h2:")) {
+            throw new IllegalArgumentException("JDBC storage needs an H2 URL (jdbc:h2:...)");
+        }
+        if (poolSize < 1) {
+            throw new IllegalArgumentException("Pool size must be positive");
+        }
+        String durableUrl = url.toUpperCase(Locale.ROOT).contains(";WRITE_DELAY=") ? url : url + ";WRITE_DELAY=0";
+        this.pool = JdbcConnectionPool.create(durableUrl, username, password);
+        pool.setMaxConnections(poolSize);
+        try {
+            createSchema();
+        } catch (SQLException e) {
+            pool.dispose();
+            throw new IllegalStateException("Creating the database schema failed: " + e.getMessage(), e);
+        }
+        this.moosages = new JdbcMoosageStore(pool);
+        this.users = new JdbcUserStore(pool);
+    }
+
+    private void createSchema() throws SQLException {
+        try (Connection connection = pool.getConnection(); Statement statement = connection.createStatement()) {
+            for (String sql : SCHEMA) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public MoosageStore moosages() {
+        return moosages;
+    }
+
+    @Override
+    public UserStore users() {
+        return users;
+    }
+
+    // Connections currently handed out by the pool
+    public int getActiveConnections() {
+        return pool.getActiveConnections();
+    }
+
+    @Override
+    public void close() throws IOException {
+        moosages.close();
+        pool.dispose();
+    }
+}
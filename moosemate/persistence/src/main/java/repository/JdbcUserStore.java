@@ -0,0 +1,59 @@
+package repository;
+
+import model.User;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+
+// User store of the JDBC engine: one row per user in the users table.
+final class JdbcUserStore implements UserStore {
+
+    private static final String SELECT_ALL = "SELECT username, email, password, user_id FROM users";
+    private static final String INSERT =
+            "INSERT INTO users (user_id, username, email, password) VALUES (?, ?, ?, ?)";
+
+    private final DataSource dataSource;
+
+    JdbcUserStore(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public List<User> load() throws IOException {
+        List<User> users = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_ALL);
+             ResultSet rows = statement.executeQuery()) {
+            while (rows.next()) {
+                try {
+                    users.add(new User(rows.getString(1), rows.getString(2), rows.getString(3), rows.getString(4)));
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Skipping incomplete user row");
+                }
+            }
+        } catch (SQLException e) {
+            throw new IOException("Loading users failed: " + e.getMessage(), e);
+        }
+        return users;
+    }
+
+    @Override
+    public void insert(User user) throws IOException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(INSERT)) {
+            statement.setString(1, user.getUserID());
+            statement.setString(2, user.getUsername());
+            statement.setString(3, user.getEmail());
+            statement.setString(4, user.getPassword());
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new IOException("Storing user failed: " + e.getMessage(), e);
+        }
+    }
+}
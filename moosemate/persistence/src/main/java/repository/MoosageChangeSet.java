@@ -0,0 +1,22 @@
+package repository;
+
+import model.Moosage;
+
+import java.util.List;
+
+// What changed in the moosages after a change sequence number, as read by
+// MoosageRepository.getChangesSince: the changed moosages as they are now and the ids of the
+// deleted ones, each in change order. 'sequence' is the number to ask from next time.
+// If complete is false the changes are not known (the number is too old, from before a
+// restart, or too much changed) and both lists are empty; the caller has to reload everything.
+public record MoosageChangeSet(long sequence, boolean complete, List<Moosage> changed, List<Long> deleted) {
+
+    public MoosageChangeSet {
+        changed = List.copyOf(changed);
+        deleted = List.copyOf(deleted);
+    }
+
+    static MoosageChangeSet incomplete(long sequence) {
+        return new MoosageChangeSet(sequence, false, List.of(), List.of());
+    }
+}
@@ -0,0 +1,19 @@
+package repository;
+
+import model.Moosage;
+
+// Told about every change the MoosageRepository publishes, both its own mutations and those
+// it applies from other processes sharing the store. Listeners run on the writing thread,
+// while the changed moosage's lock is held, so they must return quickly and must not call
+// back into the repository; changes of one moosage arrive in the order they were published.
+public interface MoosageListener {
+
+    // The moosage as published after the mutation, or null if the mutation deleted it or
+    // it no longer exists. The moosage must not be modified.
+    void moosageChanged(MoosageMutation mutation, Moosage moosage);
+
+    // The repository replaced all moosages with a reloaded state, so the individual
+    // changes are not known
+    default void moosagesReloaded() {
+    }
+}
@@ -0,0 +1,30 @@
+package repository;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import model.Moosage;
+
+// A single change to the moosage store, as handed to a MoosageStore and written to the
+// mutation log. Mutations describe the resulting state (liked true/false rather than
+// "toggle"), so applying one that is already reflected leaves the store unchanged.
+// Only the fields used by the operation are set.
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record MoosageMutation(Operation op, Long id, Moosage moosage, String userId, Boolean liked, String content) {
+
+    public enum Operation { CREATE, LIKE, UPDATE, DELETE }
+
+    public static MoosageMutation create(Moosage moosage) {
+        return new MoosageMutation(Operation.CREATE, moosage.getId(), moosage, null, null, null);
+    }
+
+    public static MoosageMutation like(Long id, String userId, boolean liked) {
+        return new MoosageMutation(Operation.LIKE, id, null, userId, liked, null);
+    }
+
+    public static MoosageMutation update(Long id, String content) {
+        return new MoosageMutation(Operation.UPDATE, id, null, null, null, content);
+    }
+
+    public static MoosageMutation delete(Long id) {
+        return new MoosageMutation(Operation.DELETE, id, null, null, null, null);
+    }
+}
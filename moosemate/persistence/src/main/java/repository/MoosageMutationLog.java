@@ -0,0 +1,328 @@
+package repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Append-only log of moosage mutations, stored as one compact JSON record per line.
+// Records describe the resulting state (see MoosageMutation), so replaying a record that is
+// already part of the snapshot leaves the storage unchanged.
+//
+// Appends are group-committed: callers hand their record to a writer thread, which collects
+// the records arriving within the policy's window into one write (and one force), then releases
+// every caller of the batch. Concurrent writers therefore share a single disk sync.
+final class MoosageMutationLog implements AutoCloseable {
+
+    // A serialized record waiting for its batch to be written
+    private record PendingRecord(byte[] bytes, CompletableFuture<Void> written) { }
+
+    // Queued by close() after the last accepted record; stops the writer
+    private static final PendingRecord STOP = new PendingRecord(new byte[0], null);
+
+    private final File logFile;
+    private final ObjectMapper objectMapper;
+    private final FileChannel channel;
+    private final GroupCommitPolicy policy;
+    private final BlockingQueue<PendingRecord> queue = new LinkedBlockingQueue<>();
+    private final Object appendLock = new Object();
+    private final Thread writer;
+    private boolean closed;
+
+    // Guarded by the log's monitor
+    private int recordCount;
+    private boolean unforced;
+    private long lastForceNanos = System.nanoTime();
+    private long batchCount;
+    private long batchedRecords;
+    private int largestBatch;
+
+    MoosageMutationLog(File logFile) throws IOException {
+        this(logFile, GroupCommitPolicy.defaults());
+    }
+
+    MoosageMutationLog(File logFile, GroupCommitPolicy policy) throws IOException {
+        if (logFile == null) {
+            throw new IllegalArgumentException("Log file cannot be null");
+        }
+        if (policy == null) {
+            throw new IllegalArgumentException("Group commit policy cannot be null");
+        }
+        this.logFile = logFile;
+        this.policy = policy;
+        // Compact single-line output, unlike the pretty-printed snapshot
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new JavaTimeModule());
+        this.channel = FileChannel.open(logFile.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.channel.position(channel.size());
+
+        this.writer = new Thread(this::runWriter, "moosage-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    // Records read from the log, and the offset after the last complete one
+    record Tail(List<MoosageMutation> mutations, long end) {
+    }
+
+    // Reads every complete record in the log. A torn record at the end (from a crash
+    // mid-append) is cut off so that new records are appended after the last good one.
+    // Throws IOException if an unreadable record is followed by others, which is damage
+    // rather than a torn append, so that no acknowledged record is cut off with it.
+    synchronized List<MoosageMutation> readAll() throws IOException {
+        Tail tail = read(0);
+        if (channel.size() > tail.end()) {
+            channel.truncate(tail.end());
+        }
+        channel.position(tail.end());
+        recordCount = tail.mutations().size();
+        return tail.mutations();
+    }
+
+    // Reads the records appended after 'offset', the end of the records seen so far, by another
+    // process sharing the log. Nothing is cut off: that process may still be writing.
+    synchronized Tail readFrom(long offset) throws IOException {
+        Tail tail = read(offset);
+        // Reading from the start means the log was emptied since the records counted so far
+        recordCount = (offset == 0 ? 0 : recordCount) + tail.mutations().size();
+        return tail;
+    }
+
+    private Tail read(long offset) throws IOException {
+        List<MoosageMutation> mutations = new ArrayList<>();
+        long validLength = offset;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(logFile.toPath()))) {
+            in.skipNBytes(offset);
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            long position = offset;
+            int b;
+            while ((b = in.read()) != -1) {
+                position++;
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+                try {
+                    mutations.add(objectMapper.readValue(line.toByteArray(), MoosageMutation.class));
+                } catch (IOException e) {
+                    if (in.read() != -1) {
+                        throw new IOException("Unreadable moosage log record at offset " + validLength
+                                + " is followed by more records: " + e.getMessage(), e);
+                    }
+                    System.err.println("Discarding unreadable moosage log record: " + e.getMessage());
+                    break;
+                }
+                validLength = position;
+                line.reset();
+            }
+        }
+        return new Tail(mutations, validLength);
+    }
+
+    // Appends a record and returns once the batch holding it has been written, and forced
+    // to disk if the policy says so.
+    void append(MoosageMutation mutation) throws IOException {
+        PendingRecord pending = new PendingRecord(objectMapper.writeValueAsBytes(mutation), new CompletableFuture<>());
+        synchronized (appendLock) {
+            if (closed) {
+                throw new IOException("Moosage log is closed");
+            }
+            queue.add(pending);
+        }
+        try {
+            pending.written().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the moosage log");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("Writing the moosage log failed", e.getCause());
+        }
+    }
+
+    // Batch sizes achieved so far
+    synchronized GroupCommitStats stats() {
+        return new GroupCommitStats(batchCount, batchedRecords, largestBatch);
+    }
+
+    // Writer thread: waits for a first record, gathers the batch, writes it and releases its callers.
+    private void runWriter() {
+        List<PendingRecord> batch = new ArrayList<>();
+        long windowNanos = policy.window().toNanos();
+        boolean running = true;
+        try {
+            while (running) {
+                PendingRecord first = policy.sync() == GroupCommitPolicy.SyncMode.INTERVAL
+                        ? queue.poll(policy.syncInterval().toNanos(), TimeUnit.NANOSECONDS)
+                        : queue.take();
+                if (first == null) {
+                    // Idle: flush what the last batches left unforced
+                    forceIfDue();
+                    continue;
+                }
+                if (first == STOP) {
+                    break;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < policy.maxBatchSize()) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingRecord next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    if (next == STOP) {
+                        running = false;
+                        break;
+                    }
+                    batch.add(next);
+                }
+                commit(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // Only reached with records left over if the writer was interrupted
+            IOException stopped = new IOException("Moosage log writer stopped");
+            batch.forEach(pending -> pending.written().completeExceptionally(stopped));
+            for (PendingRecord pending = queue.poll(); pending != null; pending = queue.poll()) {
+                if (pending != STOP) {
+                    pending.written().completeExceptionally(stopped);
+                }
+            }
+        }
+    }
+
+    private void commit(List<PendingRecord> batch) {
+        try {
+            writeBatch(batch);
+            batch.forEach(pending -> pending.written().complete(null));
+        } catch (IOException e) {
+            batch.forEach(pending -> pending.written().completeExceptionally(e));
+        }
+    }
+
+    // Writes the batch as one buffer and forces it according to the policy. If that fails the
+    // log is cut back to where the batch began: the callers are told their records were not
+    // stored, so neither a torn line in front of the next batch nor the records themselves may
+    // turn up on replay.
+    private synchronized void writeBatch(List<PendingRecord> batch) throws IOException {
+        int length = 0;
+        for (PendingRecord pending : batch) {
+            length += pending.bytes().length + 1;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        for (PendingRecord pending : batch) {
+            buffer.put(pending.bytes()).put((byte) '\n');
+        }
+        buffer.flip();
+        // At the end of the file, which another process sharing the log may have moved
+        long start = channel.size();
+        try {
+            long position = start;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            unforced = true;
+            if (policy.sync() == GroupCommitPolicy.SyncMode.EVERY_BATCH) {
+                force();
+            } else {
+                forceIfDue();
+            }
+        } catch (IOException e) {
+            try {
+                channel.truncate(start);
+                channel.force(false);
+            } catch (IOException truncateFailure) {
+                e.addSuppressed(truncateFailure);
+            }
+            throw e;
+        }
+        recordCount += batch.size();
+        batchCount++;
+        batchedRecords += batch.size();
+        largestBatch = Math.max(largestBatch, batch.size());
+    }
+
+    // Forces unforced writes once the sync interval has passed; only used by the interval policy.
+    private synchronized void forceIfDue() {
+        if (!unforced || policy.sync() != GroupCommitPolicy.SyncMode.INTERVAL) {
+            return;
+        }
+        if (System.nanoTime() - lastForceNanos >= policy.syncInterval().toNanos()) {
+            try {
+                force();
+            } catch (IOException e) {
+                System.err.println("Error syncing moosage log: " + e.getMessage());
+            }
+        }
+    }
+
+    private void force() throws IOException {
+        channel.force(false);
+        unforced = false;
+        lastForceNanos = System.nanoTime();
+    }
+
+    // Empties the log once its records have been folded into a snapshot.
+    synchronized void reset() throws IOException {
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(true);
+        unforced = false;
+        recordCount = 0;
+    }
+
+    // Length of the log file in bytes
+    synchronized long length() throws IOException {
+        return channel.size();
+    }
+
+    // Number of records appended since the last reset.
+    synchronized int size() {
+        return recordCount;
+    }
+
+    // Writes out every accepted record, stops the writer and closes the file.
+    @Override
+    public void close() throws IOException {
+        synchronized (appendLock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.add(STOP);
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (unforced && channel.isOpen()) {
+                force();
+            }
+            channel.close();
+        }
+    }
+}
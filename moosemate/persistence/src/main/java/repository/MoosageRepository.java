@@ -1,13 +1,15 @@
 package repository;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import model.Moosage;
-import model.User;
+import org.pcollections.PSortedMap;
+import org.pcollections.TreePMap;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 import util.JsonFileHandler;
+import util.LongObjectHashTrie;
+import util.UserIdOrdinals;
 
 import java.io.File;
 import java.io.IOException;
@@ -15,175 +17,630 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.NavigableMap;
 import java.util.Optional;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
-//Repository class for managing Moosage data persistence using JSON files.
+//Repository class for managing Moosage data persistence.
+// The storage is loaded once on construction into an in-memory version that is kept resident
+// as the source of truth; reads are served from memory. Every mutation is handed to the
+// MoosageStore of the configured StorageEngine. Stores that log mutations (the file engine)
+// are checkpointed by a background compactor, which folds the log into a new snapshot.
+// JSON is the export format on every engine, see exportJson.
+//
+// Concurrency: the resident moosages are an immutable Version, replaced as a whole after each
+// mutation. Readers take the current version and never lock; a feed page or a like list comes
+// from one version, even while writers publish newer ones. Moosages in a version are never
+// changed: a like or an edit publishes a changed copy. Moosages are frozen as they enter a
+// version, so a caller that modifies a returned moosage gets UnsupportedOperationException
+// instead of changing what every reader sees.
+// Ids come from an atomic counter, and mutations of a moosage hold the lock stripe for its id,
+// so writers on different moosages run in parallel. Mutations share the state lock, which
+// compaction takes exclusively so the snapshot and the log reset see no writes in between.
+// Lock order is state lock, then stripe.
+//
+// A shared store (see SharedStore) is also written by other processes. Every mutation then takes
+// the state lock exclusively and the store's lock, and first applies what the others stored, so
+// ids are not handed out twice and changes are applied in the order they were stored. Reads
+// catch up first when the store reports changes, and the store's change listener catches up in
+// the background.
+//
+// MoosageListeners are told about every published change, including those of other processes.
+// Each published change also takes the next number of the version's ChangeSequence, so clients
+// can ask what changed after a number they were given (getChangesSince).
 @Repository
-public final class MoosageRepository {
-    
-    private static final String DATA_FILE_PATH = "persistence/src/main/resources/data/moosages.json";
+public final class MoosageRepository implements AutoCloseable {
+
+    // Compaction runs when the log holds this many records, or when it is older than the max age
+    private static final int COMPACTION_RECORD_THRESHOLD = 1000;
+    private static final long COMPACTION_MAX_AGE_MILLIS = TimeUnit.SECONDS.toMillis(60);
+    private static final long COMPACTION_CHECK_INTERVAL_SECONDS = 10;
+
+    private static final int LOCK_STRIPES = 64;  // power of two
     
-    private final JsonFileHandler fileHandler;
-    private final File dataFile;
+    // One version of the resident moosages, indexed by id and in feed order (newest first), with
+    // the sequence of changes that led to it. All are persistent, so a new version shares all but
+    // O(log n) nodes with the old one. Ids are primitive keys, so lookups by id do not box.
+    // Every moosage's likes are interned in the store's ordinals table as it enters a version.
+    private record Version(LongObjectHashTrie<Moosage> byId, PSortedMap<FeedKey, Moosage> byTime,
+                           ChangeSequence changes, UserIdOrdinals ordinals) {
+
+        static Version of(List<Moosage> moosages, ChangeSequence changes, UserIdOrdinals ordinals) {
+            TreeMap<FeedKey, Moosage> byTime = new TreeMap<>();
+            for (Moosage moosage : moosages) {
+                moosage.internLikes(ordinals);
+                moosage.freeze();
+                byTime.put(FeedKey.of(moosage), moosage);
+            }
+            return new Version(LongObjectHashTrie.of(moosages, Moosage::getId), TreePMap.fromSortedMap(byTime),
+                    changes, ordinals);
+        }
+
+        // Adds the moosage, or replaces the moosage with its id
+        Version with(Moosage moosage) {
+            moosage.internLikes(ordinals);
+            moosage.freeze();
+            return new Version(byId.plus(moosage.getId(), moosage), byTime.plus(FeedKey.of(moosage), moosage),
+                    changes.changed(moosage.getId()), ordinals);
+        }
+
+        Version without(Moosage moosage) {
+            return new Version(byId.minus(moosage.getId()), byTime.minus(FeedKey.of(moosage)),
+                    changes.deleted(moosage.getId()), ordinals);
+        }
+    }
+
+    private final MoosageStore store;
     private final UserRepository userRepository;
+    private final AtomicReference<Version> current;
+    private final AtomicLong nextId = new AtomicLong(1);
+    // Random per instance: change sequence numbers only mean something together with it
+    private final String changeEpoch = Long.toUnsignedString(UUID.randomUUID().getMostSignificantBits(), 36);
+    private final Object[] stripes = new Object[LOCK_STRIPES];
+    // Shared by mutations, exclusive for compaction and close
+    private final ReadWriteLock stateLock = new ReentrantReadWriteLock();
+    private final ScheduledExecutorService compactor;
+    private final List<MoosageListener> listeners = new CopyOnWriteArrayList<>();
+    private long lastCompactionMillis = System.currentTimeMillis();
 
-    @Autowired
     public MoosageRepository(UserRepository userRepository) {
         this(userRepository, new JsonFileHandler());
     }
 
+    @Autowired
+    public MoosageRepository(UserRepository userRepository, StorageEngine storageEngine) {
+        this(userRepository, storageEngine != null ? storageEngine.moosages() : null);
+    }
+
     //Constructor for testing that accepts a custom JsonFileHandler.
     public MoosageRepository(UserRepository userRepository, JsonFileHandler fileHandler) {
+        this(userRepository, fileHandler, GroupCommitPolicy.defaults());
+    }
+
+    public MoosageRepository(UserRepository userRepository, JsonFileHandler fileHandler,
+                             GroupCommitPolicy logPolicy) {
+        this(userRepository, new FileMoosageStore(fileHandler, logPolicy));
+    }
+
+    // The repository closes the store when it is closed
+    public MoosageRepository(UserRepository userRepository, MoosageStore store) {
         if (userRepository == null) {
             throw new IllegalArgumentException("UserRepository cannot be null");
         }
-        if (fileHandler == null) {
-            throw new IllegalArgumentException("JsonFileHandler cannot be null");
+        if (store == null) {
+            throw new IllegalArgumentException("MoosageStore cannot be null");
         }
         this.userRepository = userRepository;
-        this.fileHandler = fileHandler;
-        
-        // Register JavaTimeModule for LocalDateTime serialization
-        ObjectMapper mapper = fileHandler.getObjectMapper();
-        mapper.registerModule(new JavaTimeModule());
-        
-        // DATA_FILE_PATH is a hardcoded constant, not user input
-        String filePath = fileHandler.getDataFilePath(DATA_FILE_PATH);
-        if (filePath == null || filePath.trim().isEmpty()) {
-            throw new IllegalArgumentException("Data file path cannot be null or empty");
+        this.store = store;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+        MoosageStore.State state;
+        try {
+            state = store.load();
+        } catch (IOException e) {
+            try {
+                store.close();
+            } catch (IOException closeFailure) {
+                e.addSuppressed(closeFailure);
+            }
+            throw new IllegalStateException("Loading moosages failed", e);
         }
-        this.dataFile = new File(filePath);
-        initializeDataFile();
+        this.current = new AtomicReference<>(Version.of(state.moosages(), ChangeSequence.startingAfter(0),
+                store.userIdOrdinals()));
+        this.nextId.set(state.nextId());
+        store.onChange(this::catchUpIfChanged);
+
+        this.compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "moosage-log-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor.scheduleWithFixedDelay(this::compactIfDue,
+                COMPACTION_CHECK_INTERVAL_SECONDS, COMPACTION_CHECK_INTERVAL_SECONDS, TimeUnit.SECONDS);
     }
 
-   // Initializes the data file if it doesn't exist.
-    
-    private void initializeDataFile() {
+    // Writes the given version to the store as its new state. Throws IllegalStateException if
+    // the store fails, in which case the store still holds its previous state.
+    // Must hold the state lock exclusively, so no mutation is logged after the version was taken.
+    private void checkpoint(Version version) {
         try {
-            MoosageStorage storage = new MoosageStorage();
-            fileHandler.initializeDataFile(dataFile, storage);
+            store.checkpoint(new ArrayList<>(version.byId().values()), nextId.get());
+            lastCompactionMillis = System.currentTimeMillis();
         } catch (IOException e) {
-            System.err.println("Initializing moosages data file failed: " + e.getMessage());
+            throw new IllegalStateException("Saving moosages failed: " + e.getMessage(), e);
         }
     }
 
-    // Loads the moosage storage from file.
-    private MoosageStorage loadStorage() {
+    // Runs a mutation of the given moosage under its lock stripe. If the store needs a checkpoint
+    // per mutation, mutations take the state lock exclusively instead, and on a shared store
+    // they run exclusively after catching up.
+    private <T> T mutate(Long id, Supplier<T> mutation) {
+        if (store.isShared()) {
+            return exclusive(mutation);
+        }
+        Lock lock = store.checkpointsEveryMutation() ? stateLock.writeLock() : stateLock.readLock();
+        lock.lock();
         try {
-            return fileHandler.readJsonFromFile(dataFile, new TypeReference<MoosageStorage>() { });
+            synchronized (stripeFor(id)) {
+                return mutation.get();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Runs the action holding the state lock exclusively. On a shared store it also holds the
+    // store's lock and first applies the changes of other processes.
+    private <T> T exclusive(Supplier<T> action) {
+        stateLock.writeLock().lock();
+        try {
+            if (!store.isShared()) {
+                return action.get();
+            }
+            store.lock();
+            try {
+                catchUp();
+                return action.get();
+            } finally {
+                store.unlock();
+            }
         } catch (IOException e) {
-            System.err.println("Error loading moosages: " + e.getMessage());
-            return new MoosageStorage();
+            throw new IllegalStateException("Reading moosage changes of other processes failed: " + e.getMessage(), e);
+        } finally {
+            stateLock.writeLock().unlock();
         }
     }
 
-    // Saves the moosage storage to file
-    private void saveStorage(MoosageStorage storage) {
+    // Applies the changes other processes stored and publishes the resulting version.
+    // Must hold the store's lock and the state lock exclusively.
+    private void catchUp() throws IOException {
+        MoosageStore.Changes changes = store.pollChanges();
+        if (changes == null) {
+            return;
+        }
+        if (changes.reloaded() != null) {
+            // What changed is not known, so clients' change sequence numbers are outdated
+            ChangeSequence sequence = ChangeSequence.startingAfter(current.get().changes().sequence() + 1);
+            current.set(Version.of(changes.reloaded().moosages(), sequence, store.userIdOrdinals()));
+            nextId.set(Math.max(nextId.get(), changes.reloaded().nextId()));
+            for (MoosageListener listener : listeners) {
+                try {
+                    listener.moosagesReloaded();
+                } catch (RuntimeException e) {
+                    System.err.println("Error in moosage listener: " + e.getMessage());
+                }
+            }
+            return;
+        }
+        Version version = current.get();
+        for (MoosageMutation mutation : changes.mutations()) {
+            version = apply(version, mutation);
+        }
+        current.set(version);
+        for (MoosageMutation mutation : changes.mutations()) {
+            notifyListeners(mutation, version);
+        }
+    }
+
+    // Applies a mutation another process stored, the way FileMoosageStore replays its log
+    private Version apply(Version version, MoosageMutation mutation) {
+        Moosage moosage = version.byId().get(mutation.id());
+        switch (mutation.op()) {
+            case CREATE -> {
+                nextId.accumulateAndGet(mutation.id() + 1, Math::max);
+                return moosage == null ? version.with(mutation.moosage()) : version;
+            }
+            case LIKE -> {
+                if (moosage == null) {
+                    return version;
+                }
+                Moosage changed = moosage.copy();
+                if (Boolean.TRUE.equals(mutation.liked())) {
+                    changed.addLike(mutation.userId());
+                } else {
+                    changed.removeLike(mutation.userId());
+                }
+                return version.with(changed);
+            }
+            case UPDATE -> {
+                if (moosage == null) {
+                    return version;
+                }
+                Moosage changed = moosage.copy();
+                changed.setContent(mutation.content());
+                changed.setEdited(true);
+                return version.with(changed);
+            }
+            case DELETE -> {
+                return moosage == null ? version : version.without(moosage);
+            }
+            default -> throw new IllegalStateException("Unknown moosage operation: " + mutation.op());
+        }
+    }
+
+    // The current version, after catching up if another process changed the store. If that
+    // fails, the version this process has is served.
+    private Version latest() {
+        catchUpIfChanged();
+        return current.get();
+    }
+
+    private void catchUpIfChanged() {
+        if (!store.changesPending()) {
+            return;
+        }
         try {
-            fileHandler.writeJsonToFile(dataFile, storage);
+            exclusive(() -> null);
+        } catch (IllegalStateException e) {
+            System.err.println(e.getMessage());
+        }
+    }
+
+    private Object stripeFor(Long id) {
+        if (id == null) {
+            return stripes[0];
+        }
+        // Spread sequential ids over the stripes
+        long hash = id * 0x9E3779B97F4A7C15L;
+        return stripes[(int) (hash >>> 32) & (LOCK_STRIPES - 1)];
+    }
+
+    // Makes a mutation durable, then publishes the version with the change applied. The mutation
+    // is appended to the store, or the new version is checkpointed if the store needs that.
+    // If storing fails, IllegalStateException is thrown and nothing is published or notified,
+    // so the caller never acknowledges a change that is not stored.
+    // Called under the moosage's stripe, so records of one moosage are stored in order and the
+    // change is applied to the latest version of that moosage. Changes of other moosages may be
+    // published concurrently, so the change is retried on the version they published.
+    private void commit(MoosageMutation mutation, UnaryOperator<Version> change) {
+        if (store.checkpointsEveryMutation()) {
+            // The state lock is held exclusively, so there are no concurrent changes
+            Version next = change.apply(current.get());
+            checkpoint(next);
+            current.set(next);
+            notifyListeners(mutation, next);
+            return;
+        }
+        try {
+            store.append(mutation);
         } catch (IOException e) {
-            System.err.println("Error saving moosages: " + e.getMessage());
+            throw new IllegalStateException("Storing moosage " + mutation.op() + " failed: " + e.getMessage(), e);
+        }
+        notifyListeners(mutation, current.updateAndGet(change));
+    }
+
+    // Tells the listeners about a published mutation, with the moosage as the given version has
+    // it. A failing listener does not fail the mutation, which is durable already.
+    private void notifyListeners(MoosageMutation mutation, Version version) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        Moosage moosage = version.byId().get(mutation.id());
+        for (MoosageListener listener : listeners) {
+            try {
+                listener.moosageChanged(mutation, moosage);
+            } catch (RuntimeException e) {
+                System.err.println("Error in moosage listener: " + e.getMessage());
+            }
+        }
+    }
+
+    public void addListener(MoosageListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        listeners.add(listener);
+    }
+
+    public void removeListener(MoosageListener listener) {
+        listeners.remove(listener);
+    }
+
+    // Runs on the compactor thread; compacts when the log is large or old enough.
+    private void compactIfDue() {
+        if (store.pendingMutations() == 0) {
+            return;
+        }
+        stateLock.writeLock().lock();
+        try {
+            boolean large = store.pendingMutations() >= COMPACTION_RECORD_THRESHOLD;
+            boolean old = System.currentTimeMillis() - lastCompactionMillis >= COMPACTION_MAX_AGE_MILLIS;
+            if (large || old) {
+                compact();
+            }
+        } catch (IllegalStateException e) {
+            // The log still holds the mutations; compaction is tried again on the next check
+            System.err.println(e.getMessage());
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+    }
+
+    // Folds the store's pending mutations into a new snapshot. Does nothing for stores that
+    // apply mutations in place.
+    void compact() {
+        // On a shared store after catching up, so the snapshot holds every logged record
+        exclusive(() -> {
+            if (store.pendingMutations() > 0) {
+                checkpoint(current.get());
+            }
+            return null;
+        });
+    }
+
+    private Optional<Moosage> findById(Long id) {
+        if (id == null) {
+            return Optional.empty();
         }
+        return Optional.ofNullable(latest().byId().get(id));
+    }
+
+    // Stops the compactor, folds any pending mutations into the snapshot and closes the store.
+    @Override
+    public void close() {
+        compactor.shutdownNow();
+        stateLock.writeLock().lock();
+        try {
+            try {
+                compact();
+            } catch (IllegalStateException e) {
+                // The log still holds the mutations and is replayed on the next load
+                System.err.println(e.getMessage());
+            }
+            try {
+                store.close();
+            } catch (IOException e) {
+                System.err.println("Error closing moosage store: " + e.getMessage());
+            }
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+    }
+
+    // Writes all moosages to a JSON file in the layout of the file engine's JSON data file,
+    // ordered by id, so they can be imported again (see FileMoosageStore). The current version
+    // is written, so mutations do not wait for the export.
+    public void exportJson(File target) throws IOException {
+        if (target == null) {
+            throw new IllegalArgumentException("Export file cannot be null");
+        }
+        FileMoosageStore.JsonStorage storage = new FileMoosageStore.JsonStorage();
+        storage.moosages = new ArrayList<>(latest().byId().values());
+        storage.moosages.sort(Comparator.comparing(Moosage::getId));
+        // Read after the version, so it is past every id in it
+        storage.nextId = nextId.get();
+        // Plain JSON without a snapshot header, so other tools can read it and an edited
+        // export is imported without a checksum to match
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(target, storage);
+    }
+
+    // Batch sizes achieved by the store's group commit; all zero if it has none
+    public GroupCommitStats getLogStats() {
+        return store.stats();
+    }
+
+    // The table the likes of every returned moosage are interned in, owned by the store
+    public UserIdOrdinals getUserIdOrdinals() {
+        return store.userIdOrdinals();
     }
 
     // Gets all moosages sorted by time (newest first)
     public List<Moosage> getAllMoosages() {
-        MoosageStorage storage = loadStorage();
-        return storage.moosages.stream()
-            .sorted(Comparator.comparing(Moosage::getTime).reversed())
-            .collect(Collectors.toList());
+        return new ArrayList<>(latest().byTime().values());
+    }
+
+    // Gets moosages posted from 'from' (inclusive) until 'to' (exclusive), newest first.
+    public List<Moosage> getMoosagesBetween(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Time range cannot be null");
+        }
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Start of time range must not be after its end");
+        }
+        // In feed order the newest key at 'to' is (to, MAX) and the oldest at 'from' is (from, MIN)
+        return new ArrayList<>(latest().byTime().subMap(
+                new FeedKey(to, Long.MIN_VALUE), false,
+                new FeedKey(from, Long.MIN_VALUE), true).values());
+    }
+
+    // Gets up to 'limit' moosages that come after the given (time, id) position in feed order,
+    // i.e. older ones. A null time starts at the newest moosage. Only the returned entries are visited.
+    public List<Moosage> getMoosagesBefore(LocalDateTime time, Long id, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        if (time != null && id == null) {
+            throw new IllegalArgumentException("Cursor id cannot be null when a cursor time is given");
+        }
+        PSortedMap<FeedKey, Moosage> byTime = latest().byTime();
+        NavigableMap<FeedKey, Moosage> view = time == null ? byTime : byTime.tailMap(new FeedKey(time, id), false);
+        List<Moosage> page = new ArrayList<>(Math.min(limit, 256));
+        for (Moosage moosage : view.values()) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(moosage);
+        }
+        return page;
+    }
+
+    // The change sequence number of the current version, to pass to getChangesSince later.
+    // Read it before reading moosages, so changes made in between are reported again rather than missed.
+    public long getChangeSequence() {
+        return latest().changes().sequence();
+    }
+
+    // Names the numbering of this instance's change sequence numbers. Another instance, e.g. a
+    // process sharing the data directory or this one after a restart, numbers its changes
+    // itself and may hand out the same numbers for other states, so compare numbers only
+    // within one epoch, e.g. by putting the epoch into validators built from them.
+    public String getChangeEpoch() {
+        return changeEpoch;
+    }
+
+    // The change sequence number of the latest change of a moosage, e.g. as a validator for
+    // caching it. It differs whenever the moosage changed, was deleted or was created again.
+    public long getChangeSequence(Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("Moosage id cannot be null");
+        }
+        return latest().changes().sequenceOf(id);
+    }
+
+    // Gets what changed after the given change sequence number: the changed moosages as they
+    // are now and the ids of deleted ones. Incomplete if the number is not covered by the kept
+    // changes, or more than 'limit' moosages changed. Only the changed entries are visited.
+    public MoosageChangeSet getChangesSince(long since, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        Version version = latest();
+        ChangeSequence changes = version.changes();
+        if (!changes.covers(since)) {
+            return MoosageChangeSet.incomplete(changes.sequence());
+        }
+        List<Long> ids = changes.idsChangedSince(since, limit);
+        if (ids == null) {
+            return MoosageChangeSet.incomplete(changes.sequence());
+        }
+        List<Moosage> changed = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        for (Long id : ids) {
+            Moosage moosage = version.byId().get(id);
+            if (moosage != null) {
+                changed.add(moosage);
+            } else {
+                deleted.add(id);
+            }
+        }
+        return new MoosageChangeSet(changes.sequence(), true, changed, deleted);
     }
 
     // Gets a moosage by moosageID.
     public Optional<Moosage> getMoosageById(Long id) {
-        MoosageStorage storage = loadStorage();
-        return storage.moosages.stream()
-            .filter(m -> m.getId().equals(id))
-            .findFirst();
+        return findById(id);
+    }
+
+    // Gets up to 'limit' userIDs of users who liked the moosage, in ascending order and starting
+    // after 'afterUserId' (null for the first page). Empty if the moosage does not exist.
+    // The moosage keeps its likers sorted (see Moosage.getLikedByUserIdsAfter), so a page does
+    // not walk the whole like set; versions share the sorted likers until the likes change.
+    public Optional<List<String>> getLikers(Long id, String afterUserId, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        return findById(id).map(moosage -> moosage.getLikedByUserIdsAfter(afterUserId, limit));
     }
 
     // Creates a new moosage
     public Moosage createMoosage(String content, String authorId, String authorUsername) {
-        MoosageStorage storage = loadStorage();
-        
-        // Find the User object from repository
-        Optional<User> authorOpt = userRepository.getUserById(authorId);
-        if (!authorOpt.isPresent()) {
+        // Only the author's id is stored; the username is looked up when the moosage is shown
+        if (!userRepository.existsById(authorId)) {
             throw new IllegalArgumentException("Author user not found: " + authorId);
         }
         
-        Moosage moosage = new Moosage(
-                storage.nextId++,
-                content,
-                authorOpt.get(),
-                LocalDateTime.now()
-        );
-        
-        storage.moosages.add(moosage);
-        saveStorage(storage);
-        
+        if (store.isShared()) {
+            // The id is taken after catching up, so ids other processes handed out are skipped
+            return mutate(null, () -> insert(content, authorId));
+        }
+        // Held until the create is logged, so a like on the new moosage is logged after it
+        long id = nextId.getAndIncrement();
+        return mutate(id, () -> insert(id, content, authorId));
+    }
+
+    private Moosage insert(String content, String authorId) {
+        return insert(nextId.getAndIncrement(), content, authorId);
+    }
+
+    private Moosage insert(long id, String content, String authorId) {
+        Moosage moosage = new Moosage(id, content, authorId, LocalDateTime.now(), store.userIdOrdinals());
+        commit(MoosageMutation.create(moosage), version -> version.with(moosage));
         return moosage;
     }
 
     // Toggles like on a moosage. Returns the updated moosage.
     public Optional<Moosage> toggleLike(Long moosageId, String userId) {
-        MoosageStorage storage = loadStorage();
-        
-        Optional<Moosage> moosageOpt = storage.moosages.stream()
-                .filter(m -> m.getId().equals(moosageId))
-                .findFirst();
-            
-        if (moosageOpt.isPresent()) {
-            Moosage moosage = moosageOpt.get();
-            Set<String> likes = moosage.getLikedByUserIds();
-            
-            if (likes.contains(userId)) {
-                moosage.removeLike(userId);
-            } else {
-                moosage.addLike(userId);
+        return mutate(moosageId, () -> {
+            Optional<Moosage> moosageOpt = findById(moosageId);
+
+            if (moosageOpt.isPresent()) {
+                Moosage moosage = moosageOpt.get().copy();
+                boolean liked = !moosage.isLikedBy(userId);
+
+                if (liked) {
+                    moosage.addLike(userId);
+                } else {
+                    moosage.removeLike(userId);
+                }
+
+                commit(MoosageMutation.like(moosageId, userId, liked), version -> version.with(moosage));
+                return Optional.of(moosage);
             }
-            
-            saveStorage(storage);
-            return Optional.of(moosage);
-        }
-        
-        return Optional.empty();
+
+            return Optional.empty();
+        });
     }
 
     // Updates the content of a moosage by ID. Returns the updated moosage.
     public Optional<Moosage> updateMoosage(Long id, String newContent) {
-        MoosageStorage storage = loadStorage();
-        
-        Optional<Moosage> moosageOpt = storage.moosages.stream()
-                .filter(m -> m.getId().equals(id))
-                .findFirst();
-            
-        if (moosageOpt.isPresent()) {
-            Moosage moosage = moosageOpt.get();
-            moosage.setContent(newContent);
-            moosage.setEdited(true);
-            saveStorage(storage);
-            return Optional.of(moosage);
-        }
-        
-        return Optional.empty();
+        return mutate(id, () -> {
+            Optional<Moosage> moosageOpt = findById(id);
+
+            if (moosageOpt.isPresent()) {
+                Moosage moosage = moosageOpt.get().copy();
+                moosage.setContent(newContent);
+                moosage.setEdited(true);
+                commit(MoosageMutation.update(id, newContent), version -> version.with(moosage));
+                return Optional.of(moosage);
+            }
+
+            return Optional.empty();
+        });
     }
 
     // Deletes a moosage by ID.
     public boolean deleteMoosage(Long id) {
-        MoosageStorage storage = loadStorage();
-        boolean removed = storage.moosages.removeIf(m -> m.getId().equals(id));
-        if (removed) {
-            saveStorage(storage);
-        }
-        return removed;
-    }
-
-    // Storage class for JSON serialization.
-    private static class MoosageStorage {
-        public List<Moosage> moosages = new ArrayList<>();
-        public Long nextId = 1L;
+        return mutate(id, () -> {
+            Optional<Moosage> moosage = findById(id);
+            if (moosage.isEmpty()) {
+                return false;
+            }
+            commit(MoosageMutation.delete(id), version -> version.without(moosage.get()));
+            return true;
+        });
     }
 }
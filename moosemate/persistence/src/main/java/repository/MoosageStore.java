@@ -0,0 +1,62 @@
+package repository;
+
+import model.Moosage;
+import util.UserIdOrdinals;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
+// Durable storage behind MoosageRepository, see StorageEngine.
+//
+// The repository calls append for every mutation while holding the lock stripe of the moosage,
+// so the mutations of one moosage arrive in order, while those of different moosages may
+// arrive concurrently. Stores that collect mutations in a log until the full state is written
+// report them as pending; the repository then checkpoints with no mutation in flight.
+// On a shared store every mutation and checkpoint holds the store's lock, see SharedStore.
+public interface MoosageStore extends SharedStore, AutoCloseable {
+
+    // Everything the store holds: the moosages in id order and the next id to hand out
+    record State(List<Moosage> moosages, long nextId) {
+    }
+
+    // What other processes changed in a shared store: the mutations they stored, in order, or
+    // the whole state if the changes cannot be given as mutations (e.g. they were compacted).
+    record Changes(List<MoosageMutation> mutations, State reloaded) {
+    }
+
+    // The table the likes of the moosages this store loads are interned in. Owned by the store,
+    // so the ordinals of one store's moosages can be compared with each other.
+    UserIdOrdinals userIdOrdinals();
+
+    // Loads the stored state. Throws IllegalStateException if there is data but none of it is
+    // readable, since starting empty would overwrite it.
+    State load() throws IOException;
+
+    // Makes a mutation durable before returning.
+    void append(MoosageMutation mutation) throws IOException;
+
+    // Mutations appended since the last checkpoint that the store only holds in a log; 0 for
+    // stores that apply mutations in place.
+    long pendingMutations();
+
+    // True if append cannot make a mutation durable on its own, so the repository checkpoints
+    // after every mutation instead.
+    boolean checkpointsEveryMutation();
+
+    // Replaces the stored state with the given one, after which pending mutations are dropped.
+    void checkpoint(Collection<Moosage> moosages, long nextId) throws IOException;
+
+    // Changes other processes stored since this store last loaded, wrote or polled, or null if
+    // there are none; always null for stores that are not shared. Must hold the lock.
+    default Changes pollChanges() throws IOException {
+        return null;
+    }
+
+    // Batching achieved by appends; all zero for stores that do not group commit
+    GroupCommitStats stats();
+
+    // Releases files or connections. Idempotent; appends fail afterwards.
+    @Override
+    void close() throws IOException;
+}
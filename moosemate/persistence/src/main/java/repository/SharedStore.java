@@ -0,0 +1,35 @@
+package repository;
+
+import java.io.IOException;
+
+// A store that other processes may write at the same time, such as the file engine's stores on
+// a shared data directory (see FileStorageEngine). The defaults describe a store only this
+// process uses: locking does nothing and there are never changes of other processes.
+//
+// Repositories of a shared store write under its lock, after applying what other processes
+// changed, so every change is decided on the latest state and stored after all earlier ones.
+// Reads call changesPending, a cheap check, and catch up if it says so.
+public interface SharedStore {
+
+    default boolean isShared() {
+        return false;
+    }
+
+    // Takes the lock writers of every process share; blocks until it is free. Reentrant.
+    default void lock() throws IOException {
+    }
+
+    default void unlock() {
+    }
+
+    // True if another process changed the store since this one last loaded, wrote or caught up.
+    // Needs no lock.
+    default boolean changesPending() {
+        return false;
+    }
+
+    // Runs the listener, on a background thread, when another process may have changed the
+    // store. It may also run when nothing changed, so listeners check changesPending.
+    default void onChange(Runnable listener) {
+    }
+}
@@ -0,0 +1,22 @@
+package repository;
+
+import java.io.IOException;
+
+// Where the repositories keep their data. MoosageRepository and UserRepository hold their data
+// resident and serve reads from memory; the engine's stores load it on startup and make every
+// change durable. Engines are selected by Spring configuration (moosemate.storage.engine):
+// FileStorageEngine keeps data files on disk, JdbcStorageEngine an embedded SQL database.
+//
+// Each store is created once and shared; closing the engine closes its stores.
+public interface StorageEngine extends AutoCloseable {
+
+    // Short name used in configuration and logs, e.g. "file" or "jdbc"
+    String name();
+
+    MoosageStore moosages();
+
+    UserStore users();
+
+    @Override
+    void close() throws IOException;
+}
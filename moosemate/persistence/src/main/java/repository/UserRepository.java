@@ -1,30 +1,35 @@
 package repository;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import model.User;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 import util.IdGenerator;
 import util.JsonFileHandler;
 import util.ValidationUtils;
 
-import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
-// Repository class for managing User data persistence using JSON files.
-// Handles CRUD operations for User objects using the same pattern as UserService.
+// Repository class for managing User data persistence.
+// Users are loaded once into typed User objects and indexed by username, email and userID,
+// so lookups are hash lookups instead of file reads. New users are written to the UserStore
+// of the configured StorageEngine. Returned users are shared instances and must not be
+// modified by callers. On a shared store (see SharedStore) lookups first index the users other
+// processes added, if the store reports any, and createUser checks uniqueness under its lock.
 
 @Repository
 public final class UserRepository {
-    
-    private static final String DATA_FILE_PATH = "persistence/src/main/resources/data/data.json";
-    
-    private final JsonFileHandler fileHandler;
-    private final File dataFile;
+
+    private final UserStore store;
+
+    // Indexes are read without locking; createUser holds the monitor so the uniqueness
+    // checks and the insert happen atomically
+    private final Map<String, User> usersByUsername = new ConcurrentHashMap<>();
+    private final Map<String, User> usersByEmail = new ConcurrentHashMap<>();
+    private final Map<String, User> usersById = new ConcurrentHashMap<>();
 
     public UserRepository() {
         this(new JsonFileHandler());
@@ -33,46 +38,109 @@ public final class UserRepository {
     /**
      * Constructor for testing that accepts a custom JsonFileHandler.
      * Package-visible to allow test customization across modules.
-     * 
+     *
      * @param fileHandler the JsonFileHandler to use
      */
     public UserRepository(JsonFileHandler fileHandler) {
-        if (fileHandler == null) {
-            throw new IllegalArgumentException("JsonFileHandler cannot be null");
-        }
-        this.fileHandler = fileHandler;
-        // DATA_FILE_PATH is a hardcoded constant, not user input
-        String filePath = fileHandler.getDataFilePath(DATA_FILE_PATH);
-        if (filePath == null || filePath.trim().isEmpty()) {
-            throw new IllegalArgumentException("Data file path cannot be null or empty");
-        }
-        this.dataFile = new File(filePath);
-        initializeDataFile();
+        this(new FileUserStore(fileHandler));
+    }
+
+    /**
+     * Creates a repository on the user store of the configured storage engine.
+     *
+     * @param storageEngine the engine to store users in
+     */
+    @Autowired
+    public UserRepository(StorageEngine storageEngine) {
+        this(storageEngine != null ? storageEngine.users() : null);
     }
 
     /**
-     * Initializes the data file if it doesn't exist or is empty.
+     * Creates a repository on the given user store and loads its users.
+     *
+     * @param store the store to load from and write new users to
+     * @throws IllegalStateException if the store has data but none of it is readable
      */
-    private void initializeDataFile() {
+    public UserRepository(UserStore store) {
+        if (store == null) {
+            throw new IllegalArgumentException("UserStore cannot be null");
+        }
+        this.store = store;
+        List<User> users;
         try {
-            Map<String, Object> initialData = new HashMap<>();
-            initialData.put("users", new ArrayList<Map<String, String>>());
-            fileHandler.initializeDataFile(dataFile, initialData);
+            users = store.load();
         } catch (IOException e) {
-            System.err.println("Initializing the data file failed: " + e.getMessage());
+            throw new IllegalStateException("Loading users failed", e);
         }
+        for (User user : users) {
+            index(user);
+        }
+        store.onChange(this::indexNewUsersIfChanged);
+    }
+
+    /**
+     * Indexes the users other processes added to a shared store, if it reports any. Lookups
+     * call this first; it is a cheap check unless there are new users.
+     */
+    private void indexNewUsersIfChanged() {
+        if (!store.changesPending()) {
+            return;
+        }
+        synchronized (this) {
+            try {
+                store.lock();
+                try {
+                    indexNewUsers();
+                } finally {
+                    store.unlock();
+                }
+            } catch (IOException e) {
+                System.err.println("Error reading users of other processes: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Indexes the users other processes added. Must hold the store's lock.
+     *
+     * @throws IOException if the store cannot be read
+     */
+    private void indexNewUsers() throws IOException {
+        for (User user : store.pollNewUsers()) {
+            index(user);
+        }
+    }
+
+    /**
+     * Adds a user to the indexes.
+     *
+     * @param user the stored user
+     */
+    private void index(User user) {
+        usersByUsername.put(user.getUsername(), user);
+        usersByEmail.put(user.getEmail(), user);
+        usersById.put(user.getUserID(), user);
     }
 
     /**
      * Creates a new user in the repository.
-     * 
+     *
      * @param username the username
      * @param email the email address
      * @param password the password (should be hashed before calling this method)
      * @return true if user was created successfully, false otherwise
      */
-    public boolean createUser(String username, String email, String password) {
+    public synchronized boolean createUser(String username, String email, String password) {
         try {
+            store.lock();
+        } catch (IOException e) {
+            System.err.println("Error during user registration: " + e.getMessage());
+            return false;
+        }
+        try {
+            // Another process may have registered the username or email meanwhile
+            indexNewUsers();
+
             // Check if user already exists
             if (userExists(username)) {
                 System.err.println("Username already exists: " + username);
@@ -89,29 +157,9 @@ public final class UserRepository {
             // Validate input using User class (this will throw exceptions for invalid data)
             User newUser = new User(username, email, password, userID);
 
-            // Read existing data
-            Map<String, Object> data = readDataFromFile();
-            @SuppressWarnings("unchecked")
-            List<Map<String, String>> users = (List<Map<String, String>>) data.get("users");
-            
-            // Handle null users array
-            if (users == null) {
-                System.err.println("Users array is null or missing in data file");
-                return false;
-            }
-
-            // Create new user entry with validated data
-            Map<String, String> userMap = new HashMap<>();
-            userMap.put("username", newUser.getUsername());
-            userMap.put("email", newUser.getEmail());
-            userMap.put("password", newUser.getPassword());
-            userMap.put("userID", newUser.getUserID());
-
-            // Add new user to the list
-            users.add(userMap);
-
-            // Write to file to store user in json
-            fileHandler.writeJsonToFile(dataFile, data);
+            // Store first, so the user is only visible once it is stored
+            store.insert(newUser);
+            index(newUser);
 
             return true;
 
@@ -121,49 +169,34 @@ public final class UserRepository {
         } catch (IOException e) {
             System.err.println("Error during user registration: " + e.getMessage());
             return false;
+        } finally {
+            store.unlock();
         }
     }
 
     /**
      * Finds a user by username or email.
-     * 
+     *
      * @param usernameOrEmail the username or email to search for
-     * @return Optional containing the user data if found, empty otherwise
+     * @return Optional containing the user if found, empty otherwise
      */
-    public Optional<Map<String, String>> findByUsernameOrEmail(String usernameOrEmail) {
+    public Optional<User> findByUsernameOrEmail(String usernameOrEmail) {
         // Handle null or empty input
         if (ValidationUtils.isNullOrEmpty(usernameOrEmail)) {
             return Optional.empty();
         }
-        
-        try {
-            if (!dataFile.exists()) {
-                return Optional.empty();
-            }
-
-            Map<String, Object> data = readDataFromFile();
-            @SuppressWarnings("unchecked")
-            List<Map<String, String>> users = (List<Map<String, String>>) data.get("users");
-
-            if (users == null || users.isEmpty()) {
-                return Optional.empty();
-            }
-
-            return users.stream()
-                    .filter(user -> usernameOrEmail.equals(user.get("username"))
-                                   || usernameOrEmail.equals(user.get("email")))
-                    .findFirst();
-
-        } catch (IOException e) {
-            System.err.println("Error finding user: " + e.getMessage());
-            return Optional.empty();
+        indexNewUsersIfChanged();
+        User user = usersByUsername.get(usernameOrEmail);
+        if (user == null) {
+            user = usersByEmail.get(usernameOrEmail);
         }
+        return Optional.ofNullable(user);
     }
 
     /**
-     * Finds a user by userID, so that MoosageRepository can convert authorID (String UUID) 
+     * Finds a user by userID, so that MoosageRepository can convert authorID (String UUID)
      * to User object when a moosage loads.
-     * 
+     *
      * @param userId the user ID to search for
      * @return Optional containing the User object if found, empty otherwise
      */
@@ -171,107 +204,54 @@ public final class UserRepository {
         if (ValidationUtils.isNullOrEmpty(userId)) {
             return Optional.empty();
         }
-        
-        try {
-            if (!dataFile.exists()) {
-                return Optional.empty();
-            }
-
-            Map<String, Object> data = readDataFromFile();
-            @SuppressWarnings("unchecked")
-            List<Map<String, String>> users = (List<Map<String, String>>) data.get("users");
-
-            if (users == null || users.isEmpty()) {
-                return Optional.empty();
-            }
+        indexNewUsersIfChanged();
+        return Optional.ofNullable(usersById.get(userId));
+    }
 
-            return users.stream()
-                    .filter(user -> userId.equals(user.get("userID")))
-                    .findFirst()
-                    .map(userMap -> new User(
-                        userMap.get("username"),
-                        userMap.get("email"),
-                        userMap.get("password"),
-                        userMap.get("userID")
-                    ));
+    /**
+     * Checks if a user with the given userID exists, without building an Optional. Used on
+     * every like and post.
+     *
+     * @param userId the user ID to check
+     * @return true if the user exists, false otherwise
+     */
+    public boolean existsById(String userId) {
+        indexNewUsersIfChanged();
+        return userId != null && usersById.containsKey(userId);
+    }
 
-        } catch (IOException e) {
-            System.err.println("Error finding user by ID: " + e.getMessage());
-            return Optional.empty();
-        }
+    /**
+     * Looks up the username of a user, e.g. to show the author of a moosage. Moosages store
+     * only the author's userID and resolve the username here, from the shared user instance.
+     *
+     * @param userId the user ID to look up
+     * @return the username, or null if there is no such user
+     */
+    public String getUsername(String userId) {
+        indexNewUsersIfChanged();
+        User user = userId != null ? usersById.get(userId) : null;
+        return user != null ? user.getUsername() : null;
     }
 
     /**
      * Checks if a username already exists.
-     * 
+     *
      * @param username the username to check
      * @return true if username exists, false otherwise
      */
     public boolean userExists(String username) {
-        try {
-            if (username == null || !dataFile.exists()) {
-                return false;
-            }
-
-            Map<String, Object> data = readDataFromFile();
-            @SuppressWarnings("unchecked")
-            List<Map<String, String>> users = (List<Map<String, String>>) data.get("users");
-
-            if (users == null || users.isEmpty()) {
-                return false;
-            }
-
-            return users.stream()
-                    .anyMatch(user -> username.equals(user.get("username")));
-
-        } catch (IOException e) {
-            System.err.println("Error checking if user exists: " + e.getMessage());
-            return false;
-        }
+        indexNewUsersIfChanged();
+        return username != null && usersByUsername.containsKey(username);
     }
 
     /**
      * Checks if an email already exists.
-     * 
+     *
      * @param email the email to check
      * @return true if email exists, false otherwise
      */
     public boolean emailExists(String email) {
-        try {
-            if (email == null || !dataFile.exists()) {
-                return false;
-            }
-
-            Map<String, Object> data = readDataFromFile();
-            @SuppressWarnings("unchecked")
-            List<Map<String, String>> users = (List<Map<String, String>>) data.get("users");
-
-            if (users == null || users.isEmpty()) {
-                return false;
-            }
-
-            return users.stream()
-                    .anyMatch(user -> email.equals(user.get("email")));
-
-        } catch (IOException e) {
-            System.err.println("Error checking if email exists: " + e.getMessage());
-            return false;
-        }
-    }
-
-    /**
-     * Reads data from the JSON file.
-     * 
-     * @return the data map
-     * @throws IOException if file reading fails
-     */
-    private Map<String, Object> readDataFromFile() throws IOException {
-        if (!dataFile.exists()) {
-            Map<String, Object> emptyData = new HashMap<>();
-            emptyData.put("users", new ArrayList<Map<String, String>>());
-            return emptyData;
-        }
-        TypeReference<Map<String, Object>> typeReference = new TypeReference<Map<String, Object>>() { };
-        return fileHandler.readJsonFromFile(dataFile, typeReference);
+        indexNewUsersIfChanged();
+        return email != null && usersByEmail.containsKey(email);
     }
 }
@@ -0,0 +1,26 @@
+package repository;
+
+import model.User;
+
+import java.io.IOException;
+import java.util.List;
+
+// Durable storage behind UserRepository, see StorageEngine. Usernames, emails and user ids
+// are unique; UserRepository checks this before inserting. On a shared store it does so holding
+// the store's lock, after taking in the users other processes added (see SharedStore).
+public interface UserStore extends SharedStore {
+
+    // Loads every stored user; entries that do not make a valid user are skipped. Throws
+    // IllegalStateException if there is data but none of it is readable, since starting
+    // empty would overwrite it.
+    List<User> load() throws IOException;
+
+    // Stores a new user, including the hashed password, before returning.
+    void insert(User user) throws IOException;
+
+    // Users other processes stored since this store last loaded, inserted or polled; always
+    // empty for stores that are not shared. Must hold the lock.
+    default List<User> pollNewUsers() throws IOException {
+        return List.of();
+    }
+}
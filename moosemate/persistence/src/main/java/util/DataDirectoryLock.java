@@ -0,0 +1,150 @@
+package util;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Coordinates processes sharing a data directory through a small file in it (moosemate.shared).
+// Writers hold an exclusive FileChannel lock on the file while they change data files, and bump
+// the generation counter of what they changed. The counters are memory-mapped, so checking
+// whether another process changed something is a memory read, without a file read or a lock.
+//
+// FileChannel locks are held by the whole process, so the threads of one process (and every
+// handle on the same file in it) first take a process-wide lock, and only its first holder takes
+// the file lock. The lock is reentrant.
+public final class DataDirectoryLock implements AutoCloseable {
+
+    public static final String FILE_NAME = "moosemate.shared";
+
+    // Values kept in the file, 8 bytes each; a new file starts with all of them 0
+    public enum Counter {
+        // Bumped on every change to the moosages
+        MOOSAGES,
+        // Bumped on every change to the users
+        USERS,
+        // Bumped whenever the moosage log is folded into a snapshot and emptied
+        LOG_EPOCH,
+        // Length of the moosage log the last snapshot folded in
+        CHECKPOINTED_LOG_LENGTH
+    }
+
+    private static final int FILE_SIZE = Counter.values().length * Long.BYTES;
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    // The lock of each shared file this process has open, by real path
+    private static final Map<Path, ProcessLock> PROCESS_LOCKS = new ConcurrentHashMap<>();
+
+    private static final class ProcessLock {
+        private final ReentrantLock lock = new ReentrantLock();
+        // Guarded by lock; held while a thread of this process holds it
+        private FileLock fileLock;
+    }
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer counters;
+    private final ProcessLock processLock;
+
+    private DataDirectoryLock(Path file, FileChannel channel, MappedByteBuffer counters, ProcessLock processLock) {
+        this.file = file;
+        this.channel = channel;
+        this.counters = counters;
+        this.processLock = processLock;
+    }
+
+    // Opens the shared file of the directory, creating both if needed
+    public static DataDirectoryLock open(File directory) throws IOException {
+        if (directory == null) {
+            throw new IllegalArgumentException("Data directory cannot be null");
+        }
+        Files.createDirectories(directory.toPath());
+        Path file = directory.toPath().resolve(FILE_NAME);
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            // Mapping past the end grows the file, zero-filled
+            MappedByteBuffer counters = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+            ProcessLock processLock = PROCESS_LOCKS.computeIfAbsent(file.toRealPath(), path -> new ProcessLock());
+            return new DataDirectoryLock(file, channel, counters, processLock);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    // Blocks until no other thread or process holds the lock
+    public void lock() throws IOException {
+        processLock.lock.lock();
+        if (processLock.fileLock != null) {
+            return;
+        }
+        try {
+            processLock.fileLock = channel.lock();
+        } catch (IOException | RuntimeException e) {
+            processLock.lock.unlock();
+            throw e;
+        }
+    }
+
+    public void unlock() {
+        if (processLock.lock.getHoldCount() == 1 && processLock.fileLock != null) {
+            try {
+                processLock.fileLock.release();
+            } catch (IOException e) {
+                // Released with the channel at the latest
+                System.err.println("Error releasing " + file.getFileName() + ": " + e.getMessage());
+            }
+            processLock.fileLock = null;
+        }
+        processLock.lock.unlock();
+    }
+
+    public boolean isHeldByCurrentThread() {
+        return processLock.lock.isHeldByCurrentThread();
+    }
+
+    // Current value; reads need no lock
+    public long get(Counter counter) {
+        return (long) LONGS.getVolatile(counters, counter.ordinal() * Long.BYTES);
+    }
+
+    // Must hold the lock
+    public void set(Counter counter, long value) {
+        checkHeld();
+        LONGS.setVolatile(counters, counter.ordinal() * Long.BYTES, value);
+    }
+
+    // Adds one and returns the new value. Must hold the lock.
+    public long increment(Counter counter) {
+        long value = get(counter) + 1;
+        set(counter, value);
+        return value;
+    }
+
+    private void checkHeld() {
+        if (!isHeldByCurrentThread()) {
+            throw new IllegalStateException("Changing " + FILE_NAME + " needs its lock");
+        }
+    }
+
+    // Closing the channel releases a file lock still held through it
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
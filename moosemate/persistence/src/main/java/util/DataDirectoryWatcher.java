@@ -0,0 +1,76 @@
+package util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+// Calls a listener on a background thread whenever files in a data directory are created or
+// written, so processes sharing the directory learn about each other's writes without polling.
+// Events are only a hint: they also come for this process's own writes, and a burst of them may
+// be reported once, so the listener checks what actually changed (see DataDirectoryLock).
+public final class DataDirectoryWatcher implements AutoCloseable {
+
+    private final WatchService watchService;
+    private final Runnable listener;
+    private final Thread thread;
+
+    public DataDirectoryWatcher(File directory, Runnable listener) throws IOException {
+        if (directory == null) {
+            throw new IllegalArgumentException("Data directory cannot be null");
+        }
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        this.listener = listener;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        Path path = directory.toPath();
+        try {
+            // Snapshots are renamed into place, which is reported as a create
+            path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException | RuntimeException e) {
+            watchService.close();
+            throw e;
+        }
+        this.thread = new Thread(this::run, "data-directory-watcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                // Overflows are reported like any other event
+                key.pollEvents();
+                try {
+                    listener.run();
+                } catch (RuntimeException e) {
+                    System.err.println("Error handling data directory change: " + e.getMessage());
+                }
+                if (!key.reset()) {
+                    System.err.println("Data directory is no longer watched: " + key.watchable());
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // Closed
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -4,17 +4,53 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.CRC32;
 
 
 // Partially implemented by AI (Copilot, Claude sonnet 4.5), 
 // in order to efficiently generate boilerplate code.
 
 //Utility class for handling JSON file operations.
+//
+// Data files are written as snapshots: a one-line header with the format version, a generation
+// number, the body length and a CRC32 of the body, followed by the JSON. A snapshot is written to
+// a temp file, forced to disk and renamed over the data file, and the previous snapshot is kept
+// next to it (data.json.prev). Reading picks the newest generation whose checksum matches, so a
+// crash mid-write or a damaged file falls back to the last good snapshot instead of losing it.
+// Files without a header (written before snapshots had one) are still read as plain JSON.
 
 public class JsonFileHandler {
     
+    static final String PREVIOUS_SUFFIX = SnapshotFiles.PREVIOUS_SUFFIX;
+    static final String TEMP_SUFFIX = SnapshotFiles.TEMP_SUFFIX;
+
+    private static final int FORMAT_VERSION = 1;
+    // Fixed width, so the header can be filled in after the body has been streamed out
+    private static final String HEADER_FORMAT =
+            "#moosemate-snapshot version=%d generation=%019d length=%019d crc32=%08x\n";
+    private static final String HEADER_PREFIX = "#moosemate-snapshot ";
+    private static final int HEADER_LENGTH =
+            String.format(HEADER_FORMAT, FORMAT_VERSION, 0L, 0L, 0L).getBytes(StandardCharsets.US_ASCII).length;
+
     private final ObjectMapper objectMapper;
 
     public JsonFileHandler() {
@@ -33,9 +69,10 @@ public class JsonFileHandler {
         return new File(dir != null ? dir : new File("."), relativePath).getAbsolutePath();
     }
 
-    // Initializes a data file if it doesn't exist or is empty.
+    // Initializes a data file if it doesn't exist or is empty, unless an interrupted write
+    // left a snapshot to recover.
     public void initializeDataFile(File dataFile, Object initialData) throws IOException {
-        if (!dataFile.exists() || dataFile.length() == 0) {
+        if (!SnapshotFiles.hasData(dataFile)) {
             File parentDir = dataFile.getParentFile();
             if (parentDir != null && !parentDir.exists()) {
                 boolean created = parentDir.mkdirs();
@@ -43,18 +80,235 @@ public class JsonFileHandler {
                     throw new IOException("Failed to create directory: " + parentDir.getAbsolutePath());
                 }
             }
-            objectMapper.writeValue(dataFile, initialData);
+            writeJsonToFile(dataFile, initialData);
         }
     }
 
-    // Reads JSON data from a file.
+    // Reads JSON data from a file, from the newest snapshot generation that is intact.
+    // Each candidate is parsed and checksummed in a single pass, and older ones are only read
+    // if a newer one fails. Throws FileNotFoundException if there is no snapshot at all.
     public <T> T readJsonFromFile(File dataFile, TypeReference<T> typeReference) throws IOException {
-        return objectMapper.readValue(dataFile, typeReference);
+        List<Snapshot> snapshots = SnapshotFiles.hasData(dataFile) ? findSnapshots(dataFile) : List.of();
+        if (snapshots.isEmpty()) {
+            throw new FileNotFoundException("No data file found: " + dataFile.getPath());
+        }
+        IOException failure = null;
+        for (Snapshot snapshot : snapshots) {
+            try {
+                T data = readSnapshot(snapshot, typeReference);
+                if (!snapshot.path().equals(dataFile.toPath())) {
+                    System.err.println("Recovered " + dataFile.getName() + " from " + snapshot.path().getFileName()
+                            + " (generation " + snapshot.generation() + ")");
+                }
+                return data;
+            } catch (IOException e) {
+                System.err.println("Skipping invalid snapshot " + snapshot.path().getFileName()
+                        + ": " + e.getMessage());
+                failure = e;
+            }
+        }
+        throw failure;
     }
 
-    //Writes JSON data to a file.
+    // Writes JSON data to a file as a new snapshot generation. The file is replaced atomically,
+    // so readers and crashes see either the old or the new snapshot, never a partial one.
     public void writeJsonToFile(File dataFile, Object data) throws IOException {
-        objectMapper.writeValue(dataFile, data);
+        Path temp = SnapshotFiles.tempFile(dataFile);
+        long generation = 1;
+        for (Snapshot snapshot : findSnapshots(dataFile)) {
+            if (!snapshot.isPlain()) {
+                generation = Math.max(generation, snapshot.generation() + 1);
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            // Stream the body after room for the header, then fill the header in
+            channel.position(HEADER_LENGTH);
+            ChecksumOutputStream body = new ChecksumOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024));
+            objectMapper.writeValue(body, data);
+            body.flush();
+            byte[] header = String.format(HEADER_FORMAT, FORMAT_VERSION, generation, body.count, body.crc.getValue())
+                    .getBytes(StandardCharsets.US_ASCII);
+            ByteBuffer buffer = ByteBuffer.wrap(header);
+            long position = 0;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            channel.force(true);
+        }
+
+        SnapshotFiles.replace(dataFile);
+    }
+
+    // Deletes a data file together with its previous and temporary snapshots.
+    public void deleteDataFile(File dataFile) throws IOException {
+        SnapshotFiles.delete(dataFile);
+    }
+
+    // The data file and its leftover snapshots, newest generation first. Only headers are read.
+    private List<Snapshot> findSnapshots(File dataFile) throws IOException {
+        List<Snapshot> snapshots = new ArrayList<>();
+        for (Path path : SnapshotFiles.candidates(dataFile)) {
+            if (!Files.isRegularFile(path) || Files.size(path) == 0) {
+                continue;
+            }
+            try (InputStream in = Files.newInputStream(path)) {
+                snapshots.add(readHeader(path, in, path.equals(dataFile.toPath())));
+            } catch (IOException e) {
+                System.err.println("Skipping unreadable snapshot " + path.getFileName() + ": " + e.getMessage());
+            }
+        }
+        // Stable sort keeps the data file ahead of leftovers with the same generation
+        snapshots.sort(Comparator.comparingLong(Snapshot::rank).reversed());
+        return snapshots;
+    }
+
+    // Parses the header line. A file without one is a plain JSON file of generation 0.
+    private static Snapshot readHeader(Path path, InputStream in, boolean current) throws IOException {
+        byte[] header = in.readNBytes(HEADER_LENGTH);
+        String line = new String(header, StandardCharsets.US_ASCII);
+        if (!line.startsWith(HEADER_PREFIX)) {
+            return new Snapshot(path, current, 0, -1, -1);
+        }
+        if (header.length < HEADER_LENGTH || header[HEADER_LENGTH - 1] != '\n') {
+            throw new IOException("Truncated snapshot header");
+        }
+        long version = -1;
+        long generation = -1;
+        long length = -1;
+        long crc = -1;
+        try {
+            for (String field : line.substring(HEADER_PREFIX.length()).trim().split(" ")) {
+                String[] pair = field.split("=", 2);
+                switch (pair[0]) {
+                    case "version" -> version = Long.parseLong(pair[1]);
+                    case "generation" -> generation = Long.parseLong(pair[1]);
+                    case "length" -> length = Long.parseLong(pair[1]);
+                    case "crc32" -> crc = Long.parseLong(pair[1], 16);
+                    default -> { }
+                }
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Malformed snapshot header", e);
+        }
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported snapshot version " + version);
+        }
+        if (generation < 0 || length < 0 || crc < 0) {
+            throw new IOException("Incomplete snapshot header");
+        }
+        return new Snapshot(path, current, generation, length, crc);
+    }
+
+    // Parses the body while checksumming it, then checks length and checksum against the header.
+    private <T> T readSnapshot(Snapshot snapshot, TypeReference<T> typeReference) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(snapshot.path()), 64 * 1024)) {
+            if (snapshot.isPlain()) {
+                return objectMapper.readValue(in, typeReference);
+            }
+            in.skipNBytes(HEADER_LENGTH);
+            ChecksumInputStream body = new ChecksumInputStream(in);
+            T data = objectMapper.readValue(body, typeReference);
+            // Whatever the parser did not consume still counts towards length and checksum
+            body.transferTo(OutputStream.nullOutputStream());
+            if (body.count != snapshot.length() || body.crc.getValue() != snapshot.crc()) {
+                throw new IOException("Checksum mismatch");
+            }
+            return data;
+        }
+    }
+
+    // A snapshot file found on disk; length and crc are -1 for a plain JSON file
+    private record Snapshot(Path path, boolean current, long generation, long length, long crc) {
+
+        boolean isPlain() {
+            return length < 0;
+        }
+
+        // A plain data file was written by hand or before snapshots had headers, never by an
+        // interrupted write, so it takes precedence over any leftover snapshot
+        long rank() {
+            return current && isPlain() ? Long.MAX_VALUE : generation;
+        }
+    }
+
+    // Counts and checksums what passes through. Closing is left to the owner of the underlying stream.
+    private static final class ChecksumInputStream extends FilterInputStream {
+        private final CRC32 crc = new CRC32();
+        private long count;
+
+        private ChecksumInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                crc.update(b);
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                crc.update(buffer, offset, read);
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // Skipped bytes must still be checksummed
+            byte[] buffer = new byte[(int) Math.min(n, 8192)];
+            int read = read(buffer, 0, buffer.length);
+            return Math.max(read, 0);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+            // Owned by the caller
+        }
+    }
+
+    private static final class ChecksumOutputStream extends FilterOutputStream {
+        private final CRC32 crc = new CRC32();
+        private long count;
+
+        private ChecksumOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            crc.update(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            out.write(buffer, offset, length);
+            crc.update(buffer, offset, length);
+            count += length;
+        }
+
+        @Override
+        public void close() throws IOException {
+            // The channel is closed by the caller; only push buffered bytes down to it
+            flush();
+        }
     }
 
     /**
@@ -0,0 +1,343 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+// Immutable hash map from primitive long keys to objects, e.g. the resident moosages by id in
+// each version of MoosageRepository. Keys are never boxed. plus and minus return a changed map
+// and leave the map alone, so versions can share one map and read it without locking.
+//
+// The map is a hash trie like IntHashSet: up to LEAF_CAPACITY entries are one leaf with the keys
+// sorted for binary search and the values alongside, more branch 32 ways on the next 5 bits of
+// the keys' hashes. A change copies only the path to the leaf it touches and shares the rest with
+// the previous map. Null values are not allowed.
+public final class LongObjectHashTrie<V> {
+
+    // Entries in a leaf before it is split; a change copies at most one leaf
+    static final int LEAF_CAPACITY = 16;
+    // Branches smaller than this after a removal are folded into a leaf
+    private static final int COLLAPSE_SIZE = LEAF_CAPACITY / 2;
+    private static final int BITS_PER_LEVEL = 5;
+    // 32 hash bits are used up after 7 levels, so leaves that deep hold every key left
+    private static final int MAX_DEPTH = 7;
+
+    private static final Leaf EMPTY_LEAF = new Leaf(new long[0], new Object[0]);
+    private static final LongObjectHashTrie<?> EMPTY = new LongObjectHashTrie<>(EMPTY_LEAF, 0);
+
+    // A Leaf or a Branch
+    private final Object root;
+    private final int size;
+
+    // Keys in ascending order, each with its value at the same index
+    private static final class Leaf {
+        private final long[] keys;
+        private final Object[] values;
+
+        Leaf(long[] keys, Object[] values) {
+            this.keys = keys;
+            this.values = values;
+        }
+    }
+
+    // Children indexed by the set bits of the bitmap, as in a hash array mapped trie
+    private static final class Branch {
+        private final int bitmap;
+        private final Object[] children;
+        private final int size;
+
+        Branch(int bitmap, Object[] children, int size) {
+            this.bitmap = bitmap;
+            this.children = children;
+            this.size = size;
+        }
+    }
+
+    private LongObjectHashTrie(Object root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <V> LongObjectHashTrie<V> empty() {
+        return (LongObjectHashTrie<V>) EMPTY;
+    }
+
+    // Map of the values by their keys. Of values with the same key, the last one is kept.
+    public static <V> LongObjectHashTrie<V> of(Collection<? extends V> values, ToLongFunction<? super V> keyOf) {
+        if (values.isEmpty()) {
+            return empty();
+        }
+        long[] keys = new long[values.size()];
+        Object[] entries = new Object[values.size()];
+        int n = 0;
+        for (V value : values) {
+            keys[n] = keyOf.applyAsLong(checked(value));
+            entries[n++] = value;
+        }
+        // Sort by key; the sort is stable, so equal keys stay in the given order
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(keys[a], keys[b]));
+        long[] sortedKeys = new long[n];
+        Object[] sortedValues = new Object[n];
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            int from = order[i];
+            if (distinct > 0 && sortedKeys[distinct - 1] == keys[from]) {
+                sortedValues[distinct - 1] = entries[from];
+                continue;
+            }
+            sortedKeys[distinct] = keys[from];
+            sortedValues[distinct++] = entries[from];
+        }
+        if (distinct < n) {
+            sortedKeys = Arrays.copyOf(sortedKeys, distinct);
+            sortedValues = Arrays.copyOf(sortedValues, distinct);
+        }
+        return new LongObjectHashTrie<>(build(sortedKeys, sortedValues, 0), distinct);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int hash = hash(key);
+        Object node = root;
+        for (int depth = 0; ; depth++) {
+            if (node instanceof Leaf leaf) {
+                int at = Arrays.binarySearch(leaf.keys, key);
+                return at >= 0 ? (V) leaf.values[at] : null;
+            }
+            Branch branch = (Branch) node;
+            int bit = bit(hash, depth);
+            if ((branch.bitmap & bit) == 0) {
+                return null;
+            }
+            node = branch.children[index(branch.bitmap, bit)];
+        }
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    // This map with the value stored for the key; the map itself if it already holds that value.
+    public LongObjectHashTrie<V> plus(long key, V value) {
+        V previous = get(key);
+        if (previous == checked(value)) {
+            return this;
+        }
+        int added = previous == null ? 1 : 0;
+        return new LongObjectHashTrie<>(insert(root, key, value, hash(key), 0, added), size + added);
+    }
+
+    // This map without the key; the map itself if it does not hold the key.
+    public LongObjectHashTrie<V> minus(long key) {
+        if (get(key) == null) {
+            return this;
+        }
+        return size == 1 ? empty() : new LongObjectHashTrie<>(remove(root, key, hash(key), 0), size - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEachValue(Consumer<? super V> action) {
+        forEach(root, (Consumer<Object>) action);
+    }
+
+    // Copies the values into a new list, in no particular order.
+    public List<V> values() {
+        List<V> result = new ArrayList<>(size);
+        forEachValue(result::add);
+        return result;
+    }
+
+    private static <V> V checked(V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Value cannot be null");
+        }
+        return value;
+    }
+
+    private static int hash(long key) {
+        // Fibonacci hashing spreads sequential ids over the branches
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    private static int bit(int hash, int depth) {
+        return 1 << ((hash >>> (depth * BITS_PER_LEVEL)) & 31);
+    }
+
+    private static int index(int bitmap, int bit) {
+        return Integer.bitCount(bitmap & (bit - 1));
+    }
+
+    // A node holding the given entries, sorted by distinct key, all of whose hashes share the
+    // path down to this depth
+    private static Object build(long[] keys, Object[] values, int depth) {
+        if (keys.length <= LEAF_CAPACITY || depth >= MAX_DEPTH) {
+            return new Leaf(keys, values);
+        }
+        int[] counts = new int[32];
+        for (long key : keys) {
+            counts[Integer.numberOfTrailingZeros(bit(hash(key), depth))]++;
+        }
+        int bitmap = 0;
+        long[][] groupKeys = new long[32][];
+        Object[][] groupValues = new Object[32][];
+        for (int i = 0; i < 32; i++) {
+            if (counts[i] > 0) {
+                bitmap |= 1 << i;
+                groupKeys[i] = new long[counts[i]];
+                groupValues[i] = new Object[counts[i]];
+                counts[i] = 0;
+            }
+        }
+        // Entries are taken in order, so every group stays sorted
+        for (int e = 0; e < keys.length; e++) {
+            int i = Integer.numberOfTrailingZeros(bit(hash(keys[e]), depth));
+            groupKeys[i][counts[i]] = keys[e];
+            groupValues[i][counts[i]++] = values[e];
+        }
+        Object[] children = new Object[Integer.bitCount(bitmap)];
+        int child = 0;
+        for (int i = 0; i < 32; i++) {
+            if (groupKeys[i] != null) {
+                children[child++] = build(groupKeys[i], groupValues[i], depth + 1);
+            }
+        }
+        return new Branch(bitmap, children, keys.length);
+    }
+
+    // The node with the value stored for the key; 'added' is 1 if the key is new, else 0
+    private static Object insert(Object node, long key, Object value, int hash, int depth, int added) {
+        if (node instanceof Leaf leaf) {
+            int at = Arrays.binarySearch(leaf.keys, key);
+            if (at >= 0) {
+                Object[] values = leaf.values.clone();
+                values[at] = value;
+                return new Leaf(leaf.keys, values);
+            }
+            at = -at - 1;
+            int length = leaf.keys.length;
+            long[] keys = new long[length + 1];
+            Object[] values = new Object[length + 1];
+            System.arraycopy(leaf.keys, 0, keys, 0, at);
+            System.arraycopy(leaf.values, 0, values, 0, at);
+            keys[at] = key;
+            values[at] = value;
+            System.arraycopy(leaf.keys, at, keys, at + 1, length - at);
+            System.arraycopy(leaf.values, at, values, at + 1, length - at);
+            return build(keys, values, depth);
+        }
+        Branch branch = (Branch) node;
+        int bit = bit(hash, depth);
+        int at = index(branch.bitmap, bit);
+        if ((branch.bitmap & bit) == 0) {
+            Object[] children = new Object[branch.children.length + 1];
+            System.arraycopy(branch.children, 0, children, 0, at);
+            children[at] = new Leaf(new long[] {key}, new Object[] {value});
+            System.arraycopy(branch.children, at, children, at + 1, branch.children.length - at);
+            return new Branch(branch.bitmap | bit, children, branch.size + 1);
+        }
+        Object[] children = branch.children.clone();
+        children[at] = insert(branch.children[at], key, value, hash, depth + 1, added);
+        return new Branch(branch.bitmap, children, branch.size + added);
+    }
+
+    // The node without the key, which it must hold
+    private static Object remove(Object node, long key, int hash, int depth) {
+        if (node instanceof Leaf leaf) {
+            int length = leaf.keys.length;
+            if (length == 1) {
+                return EMPTY_LEAF;
+            }
+            int at = Arrays.binarySearch(leaf.keys, key);
+            long[] keys = new long[length - 1];
+            Object[] values = new Object[length - 1];
+            System.arraycopy(leaf.keys, 0, keys, 0, at);
+            System.arraycopy(leaf.values, 0, values, 0, at);
+            System.arraycopy(leaf.keys, at + 1, keys, at, length - at - 1);
+            System.arraycopy(leaf.values, at + 1, values, at, length - at - 1);
+            return new Leaf(keys, values);
+        }
+        Branch branch = (Branch) node;
+        int bit = bit(hash, depth);
+        int at = index(branch.bitmap, bit);
+        Object changed = remove(branch.children[at], key, hash, depth + 1);
+        int size = branch.size - 1;
+        if (size < COLLAPSE_SIZE) {
+            // Small enough to be a leaf again
+            Leaf leaf = new Leaf(new long[size], new Object[size]);
+            int filled = 0;
+            for (int i = 0; i < branch.children.length; i++) {
+                filled = collect(i == at ? changed : branch.children[i], leaf, filled);
+            }
+            sortByKey(leaf);
+            return leaf;
+        }
+        if (changed == EMPTY_LEAF) {
+            Object[] children = new Object[branch.children.length - 1];
+            System.arraycopy(branch.children, 0, children, 0, at);
+            System.arraycopy(branch.children, at + 1, children, at, branch.children.length - at - 1);
+            return new Branch(branch.bitmap & ~bit, children, size);
+        }
+        Object[] children = branch.children.clone();
+        children[at] = changed;
+        return new Branch(branch.bitmap, children, size);
+    }
+
+    // Copies the node's entries into the leaf's arrays from the given position; returns the next position
+    private static int collect(Object node, Leaf into, int from) {
+        if (node instanceof Leaf leaf) {
+            System.arraycopy(leaf.keys, 0, into.keys, from, leaf.keys.length);
+            System.arraycopy(leaf.values, 0, into.values, from, leaf.values.length);
+            return from + leaf.keys.length;
+        }
+        int next = from;
+        for (Object child : ((Branch) node).children) {
+            next = collect(child, into, next);
+        }
+        return next;
+    }
+
+    // Insertion sort, for the few entries of a folded branch
+    private static void sortByKey(Leaf leaf) {
+        for (int i = 1; i < leaf.keys.length; i++) {
+            long key = leaf.keys[i];
+            Object value = leaf.values[i];
+            int j = i - 1;
+            while (j >= 0 && leaf.keys[j] > key) {
+                leaf.keys[j + 1] = leaf.keys[j];
+                leaf.values[j + 1] = leaf.values[j];
+                j--;
+            }
+            leaf.keys[j + 1] = key;
+            leaf.values[j + 1] = value;
+        }
+    }
+
+    private static void forEach(Object node, Consumer<Object> action) {
+        if (node instanceof Leaf leaf) {
+            for (Object value : leaf.values) {
+                action.accept(value);
+            }
+            return;
+        }
+        for (Object child : ((Branch) node).children) {
+            forEach(child, action);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// File handling shared by the snapshot formats. A snapshot is written to a temp file next to
+// the data file (data.tmp), forced to disk and renamed over the data file, and the replaced
+// snapshot is kept as data.prev, so a damaged data file can fall back to it.
+public final class SnapshotFiles {
+
+    public static final String PREVIOUS_SUFFIX = ".prev";
+    public static final String TEMP_SUFFIX = ".tmp";
+
+    private SnapshotFiles() {
+    }
+
+    public static Path tempFile(File dataFile) {
+        return Path.of(dataFile.getPath() + TEMP_SUFFIX);
+    }
+
+    public static Path previousFile(File dataFile) {
+        return Path.of(dataFile.getPath() + PREVIOUS_SUFFIX);
+    }
+
+    // The data file, its temp snapshot and its previous snapshot, in that order
+    public static Path[] candidates(File dataFile) {
+        return new Path[] {dataFile.toPath(), tempFile(dataFile), previousFile(dataFile)};
+    }
+
+    // Whether there is data to read. The rename of a write leaves no moment without either the
+    // data file or the temp snapshot, so a previous snapshot on its own means the data file was
+    // deleted on purpose, and it is not brought back.
+    public static boolean hasData(File dataFile) {
+        return dataFile.length() > 0 || tempFile(dataFile).toFile().length() > 0;
+    }
+
+    // Renames the forced temp snapshot over the data file, keeping the replaced one as previous.
+    public static void replace(File dataFile) throws IOException {
+        Path target = dataFile.toPath();
+        if (Files.exists(target)) {
+            move(target, previousFile(dataFile));
+        }
+        move(tempFile(dataFile), target);
+        syncDirectory(target.toAbsolutePath().getParent());
+    }
+
+    // Deletes a data file together with its previous and temporary snapshots.
+    public static void delete(File dataFile) throws IOException {
+        for (Path path : candidates(dataFile)) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // Makes the renames durable. Not supported on every platform, where it is skipped.
+    private static void syncDirectory(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Directories cannot be opened for syncing on Windows
+        }
+    }
+}
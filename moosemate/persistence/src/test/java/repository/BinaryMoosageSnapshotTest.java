@@ -0,0 +1,278 @@
+package repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import model.Moosage;
+import util.SnapshotFiles;
+
+// Tests for the binary moosage snapshot: round trips, interning, and falling back to an
+// intact generation when the newest one is damaged.
+public class BinaryMoosageSnapshotTest {
+
+    private static final LocalDateTime TIME = LocalDateTime.of(2025, 5, 17, 8, 15, 30, 123_456_789);
+
+    private Path directory;
+    private File snapshotFile;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("test-moosage-snapshot-");
+        snapshotFile = directory.resolve("moosages.bin").toFile();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        BinaryMoosageSnapshot.delete(snapshotFile);
+        Files.deleteIfExists(directory);
+    }
+
+    @Test
+    public void testRoundTripKeepsEveryField() throws IOException {
+        String authorId = "user1";
+        Moosage edited = new Moosage(3L, "Edited ✓ — æøå", authorId, TIME);
+        edited.setEdited(true);
+        edited.addLike("user2");
+        edited.addLike("user3");
+        Moosage plain = new Moosage(1L, "Plain", authorId, TIME.minusDays(1));
+
+        BinaryMoosageSnapshot.write(snapshotFile, List.of(edited, plain), 4L);
+        BinaryMoosageSnapshot.Contents contents = BinaryMoosageSnapshot.read(snapshotFile);
+
+        assertEquals(4L, contents.nextId());
+        assertEquals(List.of(1L, 3L), contents.moosages().stream().map(Moosage::getId).toList());
+        Moosage read = contents.moosages().get(1);
+        assertEquals("Edited ✓ — æøå", read.getContent());
+        assertEquals(TIME, read.getTime());
+        assertTrue(read.isEdited());
+        assertEquals(Set.of("user2", "user3"), read.getLikedByUserIds());
+        assertEquals("user1", read.getAuthorId());
+        assertFalse(contents.moosages().get(0).isEdited());
+    }
+
+    @Test
+    public void testMissingFieldsRoundTrip() throws IOException {
+        Moosage empty = new Moosage(1L, null, null, null);
+
+        BinaryMoosageSnapshot.write(snapshotFile, List.of(empty), 2L);
+        Moosage read = BinaryMoosageSnapshot.read(snapshotFile).moosages().get(0);
+
+        assertNull(read.getContent());
+        assertNull(read.getAuthorId());
+        assertNull(read.getTime());
+    }
+
+    @Test
+    public void testEmptySnapshot() throws IOException {
+        BinaryMoosageSnapshot.write(snapshotFile, List.of(), 1L);
+
+        BinaryMoosageSnapshot.Contents contents = BinaryMoosageSnapshot.read(snapshotFile);
+        assertTrue(contents.moosages().isEmpty());
+        assertEquals(1L, contents.nextId());
+    }
+
+    @Test
+    public void testRepeatedUserIdsAreStoredOnce() throws IOException {
+        String authorId = "USER-author";
+        List<Moosage> moosages = new ArrayList<>();
+        for (long id = 1; id <= 50; id++) {
+            Moosage moosage = new Moosage(id, "Moosage " + id, authorId, TIME);
+            moosage.addLike("USER-frequent-liker");
+            moosages.add(moosage);
+        }
+
+        BinaryMoosageSnapshot.write(snapshotFile, moosages, 51L);
+
+        String bytes = new String(Files.readAllBytes(snapshotFile.toPath()), StandardCharsets.ISO_8859_1);
+        assertEquals(1, occurrences(bytes, "USER-frequent-liker"));
+        assertEquals(1, occurrences(bytes, "USER-author"));
+        // Authors are stored by id only
+        assertEquals(0, occurrences(bytes, "test@example.com"));
+    }
+
+    @Test
+    public void testLargeSnapshotIsDecodedInIdOrder() throws IOException {
+        // Above the threshold for decoding in parallel
+        String authorId = "user1";
+        List<Moosage> moosages = new ArrayList<>();
+        for (long id = 20_000; id >= 1; id--) {
+            Moosage moosage = new Moosage(id, "Moosage " + id, authorId, TIME.plusSeconds(id));
+            moosage.addLike("user" + (id % 7));
+            moosages.add(moosage);
+        }
+
+        BinaryMoosageSnapshot.write(snapshotFile, moosages, 20_001L);
+        List<Moosage> read = BinaryMoosageSnapshot.read(snapshotFile).moosages();
+
+        assertEquals(20_000, read.size());
+        for (int i = 0; i < read.size(); i++) {
+            Moosage moosage = read.get(i);
+            assertEquals(i + 1L, moosage.getId());
+            assertEquals("Moosage " + moosage.getId(), moosage.getContent());
+            assertEquals(TIME.plusSeconds(moosage.getId()), moosage.getTime());
+            assertEquals(Set.of("user" + (moosage.getId() % 7)), moosage.getLikedByUserIds());
+        }
+    }
+
+    @Test
+    public void testHeaderCountsGenerations() throws IOException {
+        BinaryMoosageSnapshot.write(snapshotFile, List.of(moosage(1L, "First")), 2L);
+        BinaryMoosageSnapshot.write(snapshotFile, List.of(moosage(1L, "Second")), 2L);
+
+        ByteBuffer header = ByteBuffer.wrap(Files.readAllBytes(snapshotFile.toPath()));
+        assertEquals(BinaryMoosageSnapshot.MAGIC, header.getInt());
+        assertEquals(BinaryMoosageSnapshot.FORMAT_VERSION, header.getInt());
+        assertEquals(2L, header.getLong());
+        assertTrue(Files.exists(SnapshotFiles.previousFile(snapshotFile)));
+    }
+
+    @Test
+    public void testCorruptedSnapshotFallsBackToPreviousGeneration() throws IOException {
+        BinaryMoosageSnapshot.write(snapshotFile, List.of(moosage(1L, "Good")), 2L);
+        BinaryMoosageSnapshot.write(snapshotFile, List.of(moosage(1L, "Newer")), 2L);
+
+        byte[] bytes = Files.readAllBytes(snapshotFile.toPath());
+        bytes[bytes.length - 1] ^= 0x01;
+        Files.write(snapshotFile.toPath(), bytes);
+
+        assertEquals("Good", BinaryMoosageSnapshot.read(snapshotFile).moosages().get(0).getContent());
+    }
+
+    @Test
+    public void testTruncatedSnapshotFallsBackToPreviousGeneration() throws IOException {
+        BinaryMoosageSnapshot.write(snapshotFile, List.of(moosage(1L, "Good")), 2L);
+        BinaryMoosageSnapshot.write(snapshotFile, List.of(moosage(1L, "Newer")), 2L);
+
+        byte[] bytes = Files.readAllBytes(snapshotFile.toPath());
+        Files.write(snapshotFile.toPath(), Arrays.copyOf(bytes, bytes.length - 10));
+
+        assertEquals("Good", BinaryMoosageSnapshot.read(snapshotFile).moosages().get(0).getContent());
+    }
+
+    @Test
+    public void testInterruptedWriteIsRecoveredFromTempFile() throws IOException {
+        BinaryMoosageSnapshot.write(snapshotFile, List.of(moosage(1L, "Renamed away")), 2L);
+        // A crash between the two renames leaves only the previous and the temp snapshot
+        Files.move(snapshotFile.toPath(), SnapshotFiles.tempFile(snapshotFile));
+
+        assertTrue(BinaryMoosageSnapshot.exists(snapshotFile));
+        assertEquals("Renamed away", BinaryMoosageSnapshot.read(snapshotFile).moosages().get(0).getContent());
+    }
+
+    @Test
+    public void testNoIntactSnapshotFails() throws IOException {
+        Files.writeString(snapshotFile.toPath(), "not a snapshot");
+
+        IOException e = assertThrows(IOException.class, () -> BinaryMoosageSnapshot.read(snapshotFile));
+        assertFalse(e instanceof FileNotFoundException);
+    }
+
+    @Test
+    public void testMissingSnapshotIsNotFound() {
+        assertFalse(BinaryMoosageSnapshot.exists(snapshotFile));
+        assertThrows(FileNotFoundException.class, () -> BinaryMoosageSnapshot.read(snapshotFile));
+    }
+
+    @Test
+    public void testDeletedSnapshotIsNotResurrected() throws IOException {
+        BinaryMoosageSnapshot.write(snapshotFile, List.of(moosage(1L, "First")), 2L);
+        BinaryMoosageSnapshot.write(snapshotFile, List.of(moosage(1L, "Second")), 2L);
+        Files.delete(snapshotFile.toPath());
+
+        assertFalse(BinaryMoosageSnapshot.exists(snapshotFile));
+        assertThrows(FileNotFoundException.class, () -> BinaryMoosageSnapshot.read(snapshotFile));
+    }
+
+    @Test
+    public void testVersion1SnapshotWithAuthorTableIsRead() throws IOException {
+        // Strings, then the authors table (user id, username, email), then one record by author 0
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(body);
+        String[] strings = {"user1", "testuser", "test@example.com", "user2"};
+        out.writeInt(strings.length);
+        for (String string : strings) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        out.writeInt(1);
+        out.writeInt(0);
+        out.writeInt(1);
+        out.writeInt(2);
+        int recordOffset = BinaryMoosageSnapshot.HEADER_LENGTH + out.size();
+        byte[] content = "Version 1".getBytes(StandardCharsets.UTF_8);
+        out.writeInt(8 + 8 + 4 + 4 + 1 + 4 + content.length + 4 + 4);
+        out.writeLong(5L);
+        out.writeLong(TIME.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(TIME.getNano());
+        out.writeInt(0);
+        out.writeBoolean(true);
+        out.writeInt(content.length);
+        out.write(content);
+        out.writeInt(1);
+        out.writeInt(3);
+        int indexOffset = BinaryMoosageSnapshot.HEADER_LENGTH + out.size();
+        out.writeLong(5L);
+        out.writeLong(recordOffset);
+        CRC32 crc = new CRC32();
+        crc.update(body.toByteArray());
+        ByteBuffer header = ByteBuffer.allocate(BinaryMoosageSnapshot.HEADER_LENGTH)
+                .putInt(BinaryMoosageSnapshot.MAGIC)
+                .putInt(1)
+                .putLong(1L)
+                .putLong(6L)
+                .putInt(1)
+                .putLong(indexOffset)
+                .putLong(body.size())
+                .putInt((int) crc.getValue());
+        Files.write(snapshotFile.toPath(), header.array());
+        Files.write(snapshotFile.toPath(), body.toByteArray(), StandardOpenOption.APPEND);
+
+        BinaryMoosageSnapshot.Contents contents = BinaryMoosageSnapshot.read(snapshotFile);
+
+        assertEquals(6L, contents.nextId());
+        Moosage read = contents.moosages().get(0);
+        assertEquals("user1", read.getAuthorId());
+        assertEquals("Version 1", read.getContent());
+        assertEquals(TIME, read.getTime());
+        assertTrue(read.isEdited());
+        assertEquals(Set.of("user2"), read.getLikedByUserIds());
+    }
+
+    private static Moosage moosage(Long id, String content) {
+        return new Moosage(id, content, "user1", TIME);
+    }
+
+    private static int occurrences(String text, String needle) {
+        int count = 0;
+        for (int i = text.indexOf(needle); i >= 0; i = text.indexOf(needle, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,95 @@
+package repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+// Tests for the change sequence kept with each version of the resident moosages.
+public class ChangeSequenceTest {
+
+    @Test
+    public void testStartsFromTheClock() {
+        long before = System.currentTimeMillis() * 1000;
+        ChangeSequence sequence = ChangeSequence.startingAfter(0);
+
+        assertTrue(sequence.sequence() >= before);
+        assertEquals(sequence.sequence(), sequence.horizon());
+        assertEquals(List.of(), sequence.idsChangedSince(sequence.sequence(), 10));
+    }
+
+    @Test
+    public void testStartsAfterAnEarlierSequence() {
+        long later = System.currentTimeMillis() * 1000 + 1_000_000_000L;
+
+        assertEquals(later, ChangeSequence.startingAfter(later).sequence());
+    }
+
+    @Test
+    public void testChangesAreListedUnderTheirLatestNumber() {
+        ChangeSequence start = ChangeSequence.startingAfter(0);
+        long since = start.sequence();
+
+        ChangeSequence sequence = start.changed(1).changed(2).changed(1).deleted(3);
+
+        assertEquals(since + 4, sequence.sequence());
+        assertEquals(List.of(2L, 1L, 3L), sequence.idsChangedSince(since, 10));
+        assertEquals(List.of(1L, 3L), sequence.idsChangedSince(since + 2, 10));
+        assertEquals(List.of(), sequence.idsChangedSince(sequence.sequence(), 10));
+        // Versions are persistent
+        assertEquals(List.of(), start.idsChangedSince(since, 10));
+    }
+
+    @Test
+    public void testSequenceOfAMoosageIsItsLatestChange() {
+        ChangeSequence start = ChangeSequence.startingAfter(0);
+
+        ChangeSequence sequence = start.changed(1).changed(2).deleted(1);
+
+        assertEquals(start.sequence() + 3, sequence.sequenceOf(1));
+        assertEquals(start.sequence() + 2, sequence.sequenceOf(2));
+        assertEquals(sequence.horizon(), sequence.sequenceOf(3));
+    }
+
+    @Test
+    public void testTooManyChangesGiveNull() {
+        ChangeSequence start = ChangeSequence.startingAfter(0);
+
+        ChangeSequence sequence = start.changed(1).changed(2).changed(3);
+
+        assertNull(sequence.idsChangedSince(start.sequence(), 2));
+        assertEquals(List.of(1L, 2L, 3L), sequence.idsChangedSince(start.sequence(), 3));
+    }
+
+    @Test
+    public void testCoversOnlyKnownNumbers() {
+        ChangeSequence sequence = ChangeSequence.startingAfter(0).changed(1);
+
+        assertTrue(sequence.covers(sequence.horizon()));
+        assertTrue(sequence.covers(sequence.sequence()));
+        assertFalse(sequence.covers(sequence.horizon() - 1));
+        // From a process that numbered further, e.g. before a restart
+        assertFalse(sequence.covers(sequence.sequence() + 1));
+    }
+
+    @Test
+    public void testOldestTombstonesAreDropped() {
+        ChangeSequence sequence = ChangeSequence.startingAfter(0);
+        long since = sequence.sequence();
+        sequence = sequence.changed(0);
+        for (long id = 1; id <= ChangeSequence.MAX_TOMBSTONES + 1; id++) {
+            sequence = sequence.deleted(id);
+        }
+
+        // The first delete was dropped, so changes after its number are still known
+        assertFalse(sequence.covers(since));
+        assertEquals(since + 2, sequence.horizon());
+        List<Long> ids = sequence.idsChangedSince(sequence.horizon(), Integer.MAX_VALUE);
+        assertEquals(ChangeSequence.MAX_TOMBSTONES, ids.size());
+        assertEquals(2L, ids.get(0));
+    }
+}
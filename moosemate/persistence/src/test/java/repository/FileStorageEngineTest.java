@@ -0,0 +1,28 @@
+package repository;
+
+import java.nio.file.Path;
+
+import util.JsonFileHandler;
+
+// Runs the storage engine conformance tests against the data file engine.
+public class FileStorageEngineTest extends StorageEngineConformanceTest {
+
+    @Override
+    protected StorageEngine createEngine(Path directory) {
+        return new FileStorageEngine(new TestJsonFileHandler(directory), GroupCommitPolicy.defaults());
+    }
+
+    //Test JsonFileHandler that keeps every data file in the test directory.
+    static class TestJsonFileHandler extends JsonFileHandler {
+        private final Path directory;
+
+        TestJsonFileHandler(Path directory) {
+            this.directory = directory;
+        }
+
+        @Override
+        public String getDataFilePath(String defaultPath) {
+            return directory.resolve(Path.of(defaultPath).getFileName()).toString();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+// Tests for the group commit settings of the moosage log.
+public class GroupCommitPolicyTest {
+
+    @Test
+    public void testDefaults() {
+        GroupCommitPolicy policy = GroupCommitPolicy.defaults();
+
+        assertEquals(GroupCommitPolicy.DEFAULT_WINDOW, policy.window());
+        assertEquals(GroupCommitPolicy.DEFAULT_MAX_BATCH_SIZE, policy.maxBatchSize());
+        assertEquals(GroupCommitPolicy.SyncMode.EVERY_BATCH, policy.sync());
+    }
+
+    @Test
+    public void testZeroWindowIsAllowed() {
+        GroupCommitPolicy policy = new GroupCommitPolicy(Duration.ZERO, 1,
+                GroupCommitPolicy.SyncMode.NEVER, Duration.ofSeconds(1));
+
+        assertEquals(Duration.ZERO, policy.window());
+    }
+
+    @Test
+    public void testInvalidSettingsAreRejected() {
+        Duration interval = GroupCommitPolicy.DEFAULT_SYNC_INTERVAL;
+        GroupCommitPolicy.SyncMode sync = GroupCommitPolicy.SyncMode.EVERY_BATCH;
+
+        assertThrows(IllegalArgumentException.class, () -> new GroupCommitPolicy(null, 1, sync, interval));
+        assertThrows(IllegalArgumentException.class,
+                () -> new GroupCommitPolicy(Duration.ofMillis(-1), 1, sync, interval));
+        assertThrows(IllegalArgumentException.class, () -> new GroupCommitPolicy(Duration.ZERO, 0, sync, interval));
+        assertThrows(IllegalArgumentException.class,
+                () -> new GroupCommitPolicy(Duration.ZERO, 1, null, interval));
+        assertThrows(IllegalArgumentException.class,
+                () -> new GroupCommitPolicy(Duration.ZERO, 1, sync, Duration.ZERO));
+    }
+
+    @Test
+    public void testAverageBatchSize() {
+        assertEquals(0.0, new GroupCommitStats(0, 0, 0).averageBatchSize());
+        assertEquals(2.5, new GroupCommitStats(4, 10, 4).averageBatchSize());
+    }
+}
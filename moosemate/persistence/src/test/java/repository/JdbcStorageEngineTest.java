@@ -0,0 +1,55 @@
+package repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+// Runs the storage engine conformance tests against the embedded H2 engine, plus checks of
+// its own.
+public class JdbcStorageEngineTest extends StorageEngineConformanceTest {
+
+    @Override
+    protected StorageEngine createEngine(Path directory) {
+        return new JdbcStorageEngine("jdbc:h2:file:" + directory.resolve("moosemate").toAbsolutePath());
+    }
+
+    @Test
+    public void testOnlyH2UrlsAreAccepted() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new JdbcStorageEngine("jdbc:postgresql://localhost/moosemate"));
+        assertThrows(IllegalArgumentException.class, () -> new JdbcStorageEngine(null));
+    }
+
+    @Test
+    public void testPoolSizeMustBePositive() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new JdbcStorageEngine("jdbc:h2:mem:pool", "sa", "", 0));
+    }
+
+    @Test
+    public void testConnectionsAreReturnedToThePool() throws IOException {
+        Path directory = Files.createTempDirectory("test-jdbc-pool-");
+        try (JdbcStorageEngine engine = (JdbcStorageEngine) createEngine(directory)) {
+            UserRepository users = new UserRepository(engine);
+            for (int i = 0; i < 20; i++) {
+                users.createUser("user" + i, "user" + i + "@example.com", "hashedPassword123");
+            }
+            engine.moosages().load();
+
+            assertEquals(0, engine.getActiveConnections());
+        } finally {
+            try (Stream<Path> paths = Files.walk(directory)) {
+                for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import model.Moosage;
+
+// Tests for the append-only moosage mutation log.
+public class MoosageMutationLogTest {
+
+    private Path logFile;
+    private MoosageMutationLog log;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        logFile = Files.createTempFile("test-moosages-", ".log");
+        log = new MoosageMutationLog(logFile.toFile());
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        log.close();
+        Files.deleteIfExists(logFile);
+    }
+
+    @Test
+    public void testConstructorRejectsNullFile() {
+        assertThrows(IllegalArgumentException.class, () -> new MoosageMutationLog(null));
+    }
+
+    @Test
+    public void testAppendedRecordsAreReadBackInOrder() throws IOException {
+        String authorId = "user1";
+        Moosage moosage = new Moosage(7L, "Hello", authorId, LocalDateTime.of(2025, 1, 1, 12, 0));
+
+        log.append(MoosageMutation.create(moosage));
+        log.append(MoosageMutation.like(7L, "user2", true));
+        log.append(MoosageMutation.update(7L, "Edited"));
+        log.append(MoosageMutation.delete(7L));
+
+        List<MoosageMutation> mutations;
+        try (MoosageMutationLog reopened = new MoosageMutationLog(logFile.toFile())) {
+            mutations = reopened.readAll();
+        }
+
+        assertEquals(4, mutations.size());
+        assertEquals(MoosageMutation.Operation.CREATE, mutations.get(0).op());
+        assertEquals("Hello", mutations.get(0).moosage().getContent());
+        assertEquals("user1", mutations.get(0).moosage().getAuthorId());
+        assertEquals(MoosageMutation.Operation.LIKE, mutations.get(1).op());
+        assertEquals("user2", mutations.get(1).userId());
+        assertTrue(mutations.get(1).liked());
+        assertEquals("Edited", mutations.get(2).content());
+        assertEquals(MoosageMutation.Operation.DELETE, mutations.get(3).op());
+        assertEquals(7L, mutations.get(3).id());
+    }
+
+    @Test
+    public void testLikeRecordSizeDoesNotDependOnContent() throws IOException {
+        log.append(MoosageMutation.like(1L, "user2", true));
+        long first = Files.size(logFile);
+        log.append(MoosageMutation.like(2L, "user2", true));
+
+        assertEquals(first, Files.size(logFile) - first);
+    }
+
+    @Test
+    public void testTornTailIsDiscardedAndOverwritten() throws IOException {
+        log.append(MoosageMutation.update(1L, "Complete"));
+        long validLength = Files.size(logFile);
+        // A crash mid-append leaves a record without its trailing newline
+        Files.write(logFile, "{\"op\":\"UPD".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        List<MoosageMutation> mutations = log.readAll();
+
+        assertEquals(1, mutations.size());
+        assertEquals(validLength, Files.size(logFile));
+
+        log.append(MoosageMutation.delete(1L));
+        assertEquals(2, log.readAll().size());
+    }
+
+    @Test
+    public void testUnreadableLastRecordIsDiscarded() throws IOException {
+        log.append(MoosageMutation.update(1L, "Complete"));
+        long validLength = Files.size(logFile);
+        Files.write(logFile, "{\"op\":\"UPD\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        assertEquals(1, log.readAll().size());
+        assertEquals(validLength, Files.size(logFile));
+    }
+
+    @Test
+    public void testUnreadableRecordBeforeOthersFails() throws IOException {
+        log.append(MoosageMutation.update(1L, "Before"));
+        Files.write(logFile, "{\"op\":\"UPD\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        log.append(MoosageMutation.update(1L, "After"));
+        long length = Files.size(logFile);
+
+        assertThrows(IOException.class, () -> log.readAll());
+        // Nothing is cut off, the records after the damage are kept
+        assertEquals(length, Files.size(logFile));
+    }
+
+    @Test
+    public void testResetEmptiesLog() throws IOException {
+        log.append(MoosageMutation.delete(1L));
+        log.append(MoosageMutation.delete(2L));
+        assertEquals(2, log.size());
+
+        log.reset();
+
+        assertEquals(0, log.size());
+        assertEquals(0, Files.size(logFile));
+        assertTrue(log.readAll().isEmpty());
+    }
+
+    @Test
+    public void testConcurrentAppendsAreGroupedIntoBatches() throws Exception {
+        log.close();
+        // A long window, so every writer below lands in a few batches
+        GroupCommitPolicy policy = new GroupCommitPolicy(Duration.ofMillis(50), 256,
+                GroupCommitPolicy.SyncMode.EVERY_BATCH, GroupCommitPolicy.DEFAULT_SYNC_INTERVAL);
+        log = new MoosageMutationLog(logFile.toFile(), policy);
+
+        int writers = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < writers; i++) {
+                long id = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    log.append(MoosageMutation.delete(id));
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        GroupCommitStats stats = log.stats();
+        assertEquals(writers, stats.records());
+        assertTrue(stats.batches() < writers, "Expected batching, got " + stats.batches() + " batches");
+        assertTrue(stats.largestBatch() > 1);
+        assertEquals(writers, log.size());
+
+        Set<Long> ids = new HashSet<>();
+        log.readAll().forEach(mutation -> ids.add(mutation.id()));
+        assertEquals(writers, ids.size());
+    }
+
+    @Test
+    public void testBatchesAreCappedAtMaxBatchSize() throws Exception {
+        log.close();
+        GroupCommitPolicy policy = new GroupCommitPolicy(Duration.ofMillis(50), 2,
+                GroupCommitPolicy.SyncMode.NEVER, GroupCommitPolicy.DEFAULT_SYNC_INTERVAL);
+        log = new MoosageMutationLog(logFile.toFile(), policy);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                long id = i;
+                futures.add(executor.submit(() -> {
+                    log.append(MoosageMutation.delete(id));
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(log.stats().largestBatch() <= 2);
+        assertEquals(8, log.stats().records());
+    }
+
+    @Test
+    public void testIntervalSyncKeepsRecordsAcrossReopen() throws IOException {
+        log.close();
+        GroupCommitPolicy policy = new GroupCommitPolicy(Duration.ZERO, 256,
+                GroupCommitPolicy.SyncMode.INTERVAL, Duration.ofMillis(10));
+        log = new MoosageMutationLog(logFile.toFile(), policy);
+
+        log.append(MoosageMutation.update(1L, "First"));
+        log.append(MoosageMutation.update(1L, "Second"));
+        log.close();
+
+        try (MoosageMutationLog reopened = new MoosageMutationLog(logFile.toFile())) {
+            List<MoosageMutation> mutations = reopened.readAll();
+            assertEquals(2, mutations.size());
+            assertEquals("Second", mutations.get(1).content());
+        }
+    }
+
+    @Test
+    public void testAppendAfterCloseFails() throws IOException {
+        log.close();
+
+        assertThrows(IOException.class, () -> log.append(MoosageMutation.delete(1L)));
+    }
+}
@@ -0,0 +1,125 @@
+package repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import model.Moosage;
+import util.JsonFileHandler;
+
+// Feed latency benchmark comparing the old reload-per-call path with the resident storage.
+// Opt-in since the large datasets take minutes and gigabytes of heap:
+// mvn test -pl persistence -Dtest=MoosageRepositoryBenchmarkTest -Dmoosemate.benchmarks=true
+@EnabledIfSystemProperty(named = "moosemate.benchmarks", matches = "true")
+public class MoosageRepositoryBenchmarkTest {
+
+    private static final int[] DATASET_SIZES = {10_000, 100_000, 1_000_000};
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int MEASURED_ROUNDS = 5;
+
+    @Test
+    public void benchmarkFeedLatency() throws IOException {
+        System.out.printf("%-12s %18s %18s%n", "moosages", "reload (ms/op)", "resident (ms/op)");
+        for (int size : DATASET_SIZES) {
+            Path dataFile = Files.createTempFile("bench-moosages-", ".json");
+            try {
+                JsonFileHandler fileHandler = new BenchmarkJsonFileHandler(dataFile.toString());
+                fileHandler.getObjectMapper().registerModule(new JavaTimeModule());
+                writeDataset(fileHandler, dataFile, size);
+
+                double reload = measure(() -> reloadAndSort(fileHandler, dataFile).size(), size);
+
+                MoosageRepository repository = new MoosageRepository(mock(UserRepository.class), fileHandler);
+                double resident = measure(() -> repository.getAllMoosages().size(), size);
+                repository.close();
+
+                System.out.printf("%-12d %18.3f %18.3f%n", size, reload, resident);
+            } finally {
+                new BenchmarkJsonFileHandler(dataFile.toString()).deleteDataFile(dataFile.toFile());
+                String name = dataFile.getFileName().toString();
+                String baseName = name.substring(0, name.lastIndexOf('.'));
+                BinaryMoosageSnapshot.delete(dataFile.resolveSibling(baseName + ".bin").toFile());
+                Files.deleteIfExists(dataFile.resolveSibling(baseName + ".log"));
+            }
+        }
+    }
+
+    // The pre-resident feed path: parse the whole file and sort on every request
+    private static List<Moosage> reloadAndSort(JsonFileHandler fileHandler, Path dataFile) {
+        try {
+            LegacyStorage storage = fileHandler.readJsonFromFile(dataFile.toFile(),
+                    new TypeReference<LegacyStorage>() { });
+            return storage.moosages.stream()
+                    .sorted(Comparator.comparing(Moosage::getTime).reversed())
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static double measure(FeedCall call, int expectedSize) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            assertEquals(expectedSize, call.run());
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            assertEquals(expectedSize, call.run());
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / MEASURED_ROUNDS;
+    }
+
+    private static void writeDataset(JsonFileHandler fileHandler, Path dataFile, int size) throws IOException {
+        String authorId = "USER-bench";
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        List<Moosage> moosages = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            Moosage moosage = new Moosage((long) i, "Benchmark moosage number " + i, authorId, start.plusSeconds(i));
+            moosage.addLike("USER-liker-" + (i % 100));
+            moosages.add(moosage);
+        }
+        Map<String, Object> storage = new HashMap<>();
+        storage.put("moosages", moosages);
+        storage.put("nextId", (long) size + 1);
+        fileHandler.writeJsonToFile(dataFile.toFile(), storage);
+    }
+
+    @FunctionalInterface
+    private interface FeedCall {
+        int run();
+    }
+
+    // Mirrors the JSON layout of MoosageRepository's storage
+    private static class LegacyStorage {
+        public List<Moosage> moosages = new ArrayList<>();
+        public Long nextId = 1L;
+    }
+
+    private static class BenchmarkJsonFileHandler extends JsonFileHandler {
+        private final String filePath;
+
+        BenchmarkJsonFileHandler(String filePath) {
+            this.filePath = filePath;
+        }
+
+        @Override
+        public String getDataFilePath(String relativePath) {
+            return filePath;
+        }
+    }
+}
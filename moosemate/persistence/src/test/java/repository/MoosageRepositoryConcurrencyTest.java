@@ -0,0 +1,181 @@
+package repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import model.Moosage;
+
+// Stress tests for concurrent writers on MoosageRepository: no lost likes, no duplicate ids,
+// and nothing lost when the log is compacted while writers are running.
+public class MoosageRepositoryConcurrencyTest {
+
+    private static final int WRITERS = 64;
+    private static final int CREATES_PER_WRITER = 25;
+    private static final int SHARED_MOOSAGES = 8;
+
+    private UserRepository userRepository;
+    private TestJsonFileHandler fileHandler;
+    private MoosageRepository repository;
+    private Path testDataFile;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        testDataFile = Files.createTempFile("test-moosages-concurrent-", ".json");
+        fileHandler = new TestJsonFileHandler(testDataFile.toAbsolutePath().toString());
+        userRepository = mock(UserRepository.class);
+        when(userRepository.existsById(anyString())).thenReturn(true);
+        repository = new MoosageRepository(userRepository, fileHandler);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        repository.close();
+        fileHandler.deleteDataFile(testDataFile.toFile());
+        String name = testDataFile.getFileName().toString();
+        String baseName = name.substring(0, name.lastIndexOf('.'));
+        BinaryMoosageSnapshot.delete(testDataFile.resolveSibling(baseName + ".bin").toFile());
+        Files.deleteIfExists(testDataFile.resolveSibling(baseName + ".log"));
+    }
+
+    @Test
+    public void testConcurrentWritersLoseNoLikesAndGetUniqueIds() throws Exception {
+        List<Long> shared = new ArrayList<>();
+        for (int i = 0; i < SHARED_MOOSAGES; i++) {
+            shared.add(repository.createMoosage("Shared " + i, "author", "authorname").getId());
+        }
+
+        Set<Long> createdIds = ConcurrentHashMap.newKeySet();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS + 1);
+        try {
+            // Compacts over and over while the writers run
+            Future<?> compactor = executor.submit(() -> {
+                while (writing.get()) {
+                    repository.compact();
+                }
+            });
+
+            List<Future<?>> writers = new ArrayList<>();
+            for (int w = 0; w < WRITERS; w++) {
+                String userId = "writer" + w;
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < CREATES_PER_WRITER; i++) {
+                        Moosage moosage = repository.createMoosage("Moosage " + i + " by " + userId, userId, userId);
+                        assertTrue(createdIds.add(moosage.getId()), "Duplicate id " + moosage.getId());
+                        // Like and unlike the own moosage, then like every shared one once
+                        repository.toggleLike(moosage.getId(), userId);
+                        repository.toggleLike(moosage.getId(), userId);
+                        if (i < SHARED_MOOSAGES) {
+                            repository.toggleLike(shared.get(i), userId);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get(60, TimeUnit.SECONDS);
+            }
+            writing.set(false);
+            compactor.get(60, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(WRITERS * CREATES_PER_WRITER, createdIds.size());
+        assertState(repository, shared, createdIds);
+        // Concurrent writers share log writes
+        assertTrue(repository.getLogStats().averageBatchSize() > 1.0);
+
+        // Everything must also have reached the snapshot and log
+        repository.close();
+        repository = new MoosageRepository(userRepository, fileHandler);
+        assertState(repository, shared, createdIds);
+    }
+
+    @Test
+    public void testConcurrentTogglesOnOneMoosageKeepLastState() throws Exception {
+        Long id = repository.createMoosage("Hot moosage", "author", "authorname").getId();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int w = 0; w < WRITERS; w++) {
+                String userId = "writer" + w;
+                // Odd writers end liked, even writers end unliked
+                int toggles = (w % 2 == 1) ? 3 : 4;
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < toggles; i++) {
+                        repository.toggleLike(id, userId);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Set<String> expected = new HashSet<>();
+        for (int w = 1; w < WRITERS; w += 2) {
+            expected.add("writer" + w);
+        }
+        assertEquals(expected, repository.getMoosageById(id).orElseThrow().getLikedByUserIds());
+
+        repository.close();
+        repository = new MoosageRepository(userRepository, fileHandler);
+        assertEquals(expected, repository.getMoosageById(id).orElseThrow().getLikedByUserIds());
+    }
+
+    private static void assertState(MoosageRepository repository, List<Long> shared, Set<Long> createdIds) {
+        assertEquals(SHARED_MOOSAGES + WRITERS * CREATES_PER_WRITER, repository.getAllMoosages().size());
+        for (Long id : shared) {
+            assertEquals(WRITERS, repository.getMoosageById(id).orElseThrow().getLikeCount(),
+                    "Lost likes on shared moosage " + id);
+        }
+        for (Long id : createdIds) {
+            assertEquals(0, repository.getMoosageById(id).orElseThrow().getLikeCount());
+        }
+    }
+
+    private static class TestJsonFileHandler extends util.JsonFileHandler {
+        private final String testFilePath;
+
+        TestJsonFileHandler(String testFilePath) {
+            this.testFilePath = testFilePath;
+        }
+
+        @Override
+        public String getDataFilePath(String defaultPath) {
+            return testFilePath;
+        }
+    }
+}
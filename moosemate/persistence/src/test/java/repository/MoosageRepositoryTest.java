@@ -1,17 +1,29 @@
 package repository;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
 
+import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -19,8 +31,14 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
 import model.Moosage;
-import model.User;
+
+import util.UserIdOrdinals;
 
 //Comprehensive tests for MoosageRepository.
 // Tests JSON-based persistence of moosages.
@@ -43,31 +61,43 @@ public class MoosageRepositoryTest {
         TestJsonFileHandler testFileHandler = new TestJsonFileHandler(testDataFile.toAbsolutePath().toString());
         repository = new MoosageRepository(userRepository, testFileHandler);
         
-        // Mock user repository to return test users
-        User testUser1 = new User("testuser", "test@example.com", "password", "user1");
-        User testUser2 = new User("user2name", "user2@example.com", "password", "user2");
-        User testUser3 = new User("user3name", "user3@example.com", "password", "user3");
-        when(userRepository.getUserById("user1")).thenReturn(Optional.of(testUser1));
-        when(userRepository.getUserById("user2")).thenReturn(Optional.of(testUser2));
-        when(userRepository.getUserById("user3")).thenReturn(Optional.of(testUser3));
+        // Mock user repository to know the test users
+        when(userRepository.existsById("user1")).thenReturn(true);
+        when(userRepository.existsById("user2")).thenReturn(true);
+        when(userRepository.existsById("user3")).thenReturn(true);
     }
 
     @AfterEach
     public void tearDown() throws IOException {
-        // Clean up test file
-        if (testDataFile != null && Files.exists(testDataFile)) {
-            Files.delete(testDataFile);
+        repository.close();
+        // Clean up test file and its mutation log
+        if (testDataFile != null) {
+            new TestJsonFileHandler(testDataFile.toString()).deleteDataFile(testDataFile.toFile());
+            BinaryMoosageSnapshot.delete(snapshotFileFor(testDataFile).toFile());
+            Files.deleteIfExists(logFileFor(testDataFile));
         }
     }
 
+    private static Path logFileFor(Path dataFile) {
+        return siblingFile(dataFile, ".log");
+    }
+
+    private static Path snapshotFileFor(Path dataFile) {
+        return siblingFile(dataFile, ".bin");
+    }
+
+    private static Path siblingFile(Path dataFile, String extension) {
+        String name = dataFile.getFileName().toString();
+        return dataFile.resolveSibling(name.substring(0, name.lastIndexOf('.')) + extension);
+    }
+
     @Test
     public void testCreateMoosage() {
         Moosage moosage = repository.createMoosage("Test content", "user1", "testuser");
         
         assertNotNull(moosage);
         assertEquals("Test content", moosage.getContent());
-        assertEquals("user1", moosage.getAuthor().getUserID());
-        assertEquals("testuser", moosage.getAuthor().getUsername());
+        assertEquals("user1", moosage.getAuthorId());
         assertNotNull(moosage.getId());
         assertNotNull(moosage.getTime());
         assertNotNull(moosage.getLikedByUserIds());
@@ -118,6 +148,13 @@ public class MoosageRepositoryTest {
         assertEquals("Test", found.get().getContent());
     }
 
+    @Test
+    public void testCreateMoosageWithUnknownAuthorFails() {
+        assertThrows(IllegalArgumentException.class,
+                () -> repository.createMoosage("Content", "unknown", "unknown"));
+        assertTrue(repository.getAllMoosages().isEmpty());
+    }
+
     @Test
     public void testGetMoosageByIdNotFound() {
         Optional<Moosage> found = repository.getMoosageById(999L);
@@ -166,6 +203,74 @@ public class MoosageRepositoryTest {
         assertTrue(updated.get().getLikedByUserIds().contains("user4"));
     }
 
+    @Test
+    public void testReadMoosageDoesNotChangeOnLaterWrites() {
+        Moosage created = repository.createMoosage("Test", "user1", "user1");
+        Moosage read = repository.getMoosageById(created.getId()).orElseThrow();
+
+        Moosage liked = repository.toggleLike(created.getId(), "user2").orElseThrow();
+        repository.updateMoosage(created.getId(), "Edited");
+
+        assertTrue(read.getLikedByUserIds().isEmpty());
+        assertEquals("Test", read.getContent());
+        assertFalse(read.isEdited());
+        assertEquals(Set.of("user2"), liked.getLikedByUserIds());
+        Moosage current = repository.getMoosageById(created.getId()).orElseThrow();
+        assertEquals("Edited", current.getContent());
+        assertEquals(Set.of("user2"), current.getLikedByUserIds());
+    }
+
+    @Test
+    public void testReadsDuringConcurrentWritesSeeWholeVersions() throws Exception {
+        Moosage popular = repository.createMoosage("Popular", "user1", "user1");
+        int likers = 200;
+        for (int i = 0; i < likers; i++) {
+            when(userRepository.existsById("liker" + i)).thenReturn(true);
+        }
+
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<?> writer = executor.submit(() -> {
+                for (int i = 0; i < likers; i++) {
+                    repository.toggleLike(popular.getId(), "liker" + i);
+                    repository.createMoosage("Moosage " + i, "user1", "user1");
+                }
+                writing.set(false);
+            });
+            List<Future<?>> readers = new ArrayList<>();
+            for (int r = 0; r < 3; r++) {
+                readers.add(executor.submit(() -> {
+                    int lastLikes = 0;
+                    while (writing.get()) {
+                        // A page is taken from one version, so it is strictly in feed order
+                        List<Moosage> page = repository.getMoosagesBefore(null, null, 50);
+                        for (int i = 1; i < page.size(); i++) {
+                            assertTrue(FeedKey.of(page.get(i - 1)).compareTo(FeedKey.of(page.get(i))) < 0);
+                        }
+                        // Likes only grow, and the like count and likers agree within a version
+                        Moosage read = repository.getMoosageById(popular.getId()).orElseThrow();
+                        int likes = read.getLikeCount();
+                        assertTrue(likes >= lastLikes);
+                        assertEquals(likes, read.getLikedByUserIds().size());
+                        lastLikes = likes;
+                        assertTrue(repository.getLikers(popular.getId(), null, likers).orElseThrow().size() >= likes);
+                    }
+                    return null;
+                }));
+            }
+            writer.get();
+            for (Future<?> reader : readers) {
+                reader.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(likers, repository.getMoosageById(popular.getId()).orElseThrow().getLikeCount());
+        assertEquals(likers + 1, repository.getAllMoosages().size());
+    }
+
     @Test
     public void testToggleLikeNonexistentMoosage() {
         Optional<Moosage> result = repository.toggleLike(999L, "user1");
@@ -173,6 +278,24 @@ public class MoosageRepositoryTest {
         assertFalse(result.isPresent());
     }
 
+    @Test
+    public void testReturnedMoosagesCannotChangePublishedVersion() {
+        Moosage created = repository.createMoosage("Published", "user1", "user1");
+        repository.toggleLike(created.getId(), "user2");
+        Moosage returned = repository.getMoosageById(created.getId()).orElseThrow();
+
+        assertThrows(UnsupportedOperationException.class, () -> returned.setContent("Changed"));
+        assertThrows(UnsupportedOperationException.class, () -> returned.addLike("user3"));
+        assertThrows(UnsupportedOperationException.class, () -> created.setEdited(true));
+        assertThrows(UnsupportedOperationException.class,
+                () -> repository.getAllMoosages().get(0).removeLike("user2"));
+
+        Moosage published = repository.getMoosageById(created.getId()).orElseThrow();
+        assertEquals("Published", published.getContent());
+        assertFalse(published.isEdited());
+        assertEquals(Set.of("user2"), published.getLikedByUserIds());
+    }
+
     @Test
     public void testUpdateMoosage() {
         Moosage moosage = repository.createMoosage("Original content", "user1", "user1");
@@ -283,6 +406,524 @@ public class MoosageRepositoryTest {
         assertTrue(retrieved.get().getLikedByUserIds().contains("user2"));
     }
 
+    @Test
+    public void testWritesArePersistedForNewRepository() {
+        Moosage created = repository.createMoosage("Persisted", "user1", "user1");
+        repository.toggleLike(created.getId(), "user2");
+
+        // A fresh repository over the same file should load the written state
+        MoosageRepository reloaded = new MoosageRepository(userRepository,
+                new TestJsonFileHandler(testDataFile.toAbsolutePath().toString()));
+        Optional<Moosage> found = reloaded.getMoosageById(created.getId());
+
+        assertTrue(found.isPresent());
+        assertEquals("Persisted", found.get().getContent());
+        assertTrue(found.get().getLikedByUserIds().contains("user2"));
+        reloaded.close();
+    }
+
+    @Test
+    public void testMutationsAreAppendedToLogInsteadOfSnapshot() throws IOException {
+        repository.createMoosage("Compacted", "user1", "user1");
+        repository.compact();
+        byte[] snapshotBefore = Files.readAllBytes(snapshotFileFor(testDataFile));
+
+        Moosage created = repository.createMoosage("Logged", "user1", "user1");
+        repository.toggleLike(created.getId(), "user2");
+
+        assertArrayEquals(snapshotBefore, Files.readAllBytes(snapshotFileFor(testDataFile)));
+        assertEquals(2, Files.readAllLines(logFileFor(testDataFile)).size());
+    }
+
+    @Test
+    public void testRecoveryReplaysLogTail() {
+        Moosage kept = repository.createMoosage("Kept", "user1", "user1");
+        Moosage removed = repository.createMoosage("Removed", "user2", "user2");
+        repository.toggleLike(kept.getId(), "user2");
+        repository.toggleLike(kept.getId(), "user3");
+        repository.toggleLike(kept.getId(), "user2");
+        repository.updateMoosage(kept.getId(), "Kept and edited");
+        repository.deleteMoosage(removed.getId());
+
+        // Simulates a crash: the repository is never closed, so only the log holds the changes
+        MoosageRepository recovered = new MoosageRepository(userRepository,
+                new TestJsonFileHandler(testDataFile.toAbsolutePath().toString()));
+
+        List<Moosage> moosages = recovered.getAllMoosages();
+        assertEquals(1, moosages.size());
+        assertEquals("Kept and edited", moosages.get(0).getContent());
+        assertTrue(moosages.get(0).isEdited());
+        assertEquals(Set.of("user3"), moosages.get(0).getLikedByUserIds());
+
+        // Ids must continue after the recovered ones
+        Moosage next = recovered.createMoosage("Next", "user1", "user1");
+        assertTrue(next.getId() > removed.getId());
+        recovered.close();
+    }
+
+    @Test
+    public void testDamagedLogRefusesToStart() throws IOException {
+        repository.createMoosage("Before damage", "user1", "user1");
+        repository.createMoosage("Damaged", "user1", "user1");
+        repository.createMoosage("After damage", "user1", "user1");
+        Path logFile = logFileFor(testDataFile);
+        List<String> records = new ArrayList<>(Files.readAllLines(logFile));
+        records.set(1, "{\"op\":\"CRE");
+        Files.write(logFile, records);
+        byte[] damagedLog = Files.readAllBytes(logFile);
+
+        // The acknowledged record after the damage must not be compacted away
+        assertThrows(IllegalStateException.class, () -> new MoosageRepository(userRepository,
+                new TestJsonFileHandler(testDataFile.toAbsolutePath().toString())));
+        assertArrayEquals(damagedLog, Files.readAllBytes(logFile));
+    }
+
+    @Test
+    public void testCompactionFoldsLogIntoSnapshot() throws IOException {
+        Moosage created = repository.createMoosage("Compacted", "user1", "user1");
+        repository.toggleLike(created.getId(), "user2");
+
+        repository.compact();
+
+        assertEquals(0, Files.size(logFileFor(testDataFile)));
+        assertTrue(Files.size(snapshotFileFor(testDataFile)) > 0);
+
+        MoosageRepository reloaded = new MoosageRepository(userRepository,
+                new TestJsonFileHandler(testDataFile.toAbsolutePath().toString()));
+        Optional<Moosage> found = reloaded.getMoosageById(created.getId());
+        assertTrue(found.isPresent());
+        assertTrue(found.get().getLikedByUserIds().contains("user2"));
+        reloaded.close();
+    }
+
+    @Test
+    public void testReadsAreServedFromMemory() throws IOException {
+        Moosage created = repository.createMoosage("Resident", "user1", "user1");
+
+        // Removing the file must not affect reads once the storage is loaded
+        Files.delete(testDataFile);
+
+        assertTrue(repository.getMoosageById(created.getId()).isPresent());
+        assertEquals(1, repository.getAllMoosages().size());
+    }
+
+    @Test
+    public void testGetMoosagesBetweenReturnsRangeNewestFirst() throws InterruptedException {
+        Moosage first = repository.createMoosage("First", "user1", "user1");
+        Thread.sleep(10);
+        Moosage second = repository.createMoosage("Second", "user1", "user1");
+        Thread.sleep(10);
+        Moosage third = repository.createMoosage("Third", "user1", "user1");
+
+        // Start is inclusive, end is exclusive
+        List<Moosage> range = repository.getMoosagesBetween(first.getTime(), third.getTime());
+
+        assertEquals(2, range.size());
+        assertEquals(second.getId(), range.get(0).getId());
+        assertEquals(first.getId(), range.get(1).getId());
+        assertTrue(repository.getMoosagesBetween(first.getTime(), first.getTime()).isEmpty());
+    }
+
+    @Test
+    public void testGetMoosagesBetweenRejectsInvalidRange() {
+        LocalDateTime now = LocalDateTime.now();
+
+        assertThrows(IllegalArgumentException.class, () -> repository.getMoosagesBetween(null, now));
+        assertThrows(IllegalArgumentException.class, () -> repository.getMoosagesBetween(now, now.minusDays(1)));
+    }
+
+    @Test
+    public void testDeletedMoosageLeavesFeedAndRange() {
+        Moosage kept = repository.createMoosage("Kept", "user1", "user1");
+        Moosage removed = repository.createMoosage("Removed", "user1", "user1");
+
+        repository.deleteMoosage(removed.getId());
+
+        assertEquals(List.of(kept.getId()), repository.getAllMoosages().stream().map(Moosage::getId).toList());
+        assertEquals(1, repository.getMoosagesBetween(kept.getTime(), LocalDateTime.now().plusDays(1)).size());
+    }
+
+    @Test
+    public void testGetMoosagesBeforeWalksFeedInPages() {
+        // Same timestamp for all, so the id breaks the tie
+        LocalDateTime time = LocalDateTime.of(2025, 1, 1, 12, 0);
+        for (int i = 0; i < 5; i++) {
+            repository.createMoosage("Moosage " + i, "user1", "user1");
+        }
+        List<Moosage> feed = repository.getAllMoosages();
+        feed.forEach(m -> m.setTime(time));
+        // Reload so the index is built from the rewritten timestamps
+        repository.compact();
+        repository.close();
+        repository = new MoosageRepository(userRepository,
+                new TestJsonFileHandler(testDataFile.toAbsolutePath().toString()));
+
+        List<Moosage> firstPage = repository.getMoosagesBefore(null, null, 2);
+        Moosage last = firstPage.get(1);
+        List<Moosage> secondPage = repository.getMoosagesBefore(last.getTime(), last.getId(), 2);
+        Moosage lastOfSecond = secondPage.get(1);
+        List<Moosage> thirdPage = repository.getMoosagesBefore(lastOfSecond.getTime(), lastOfSecond.getId(), 2);
+
+        assertEquals(List.of(5L, 4L), firstPage.stream().map(Moosage::getId).toList());
+        assertEquals(List.of(3L, 2L), secondPage.stream().map(Moosage::getId).toList());
+        assertEquals(List.of(1L), thirdPage.stream().map(Moosage::getId).toList());
+    }
+
+    @Test
+    public void testGetMoosagesBeforeRejectsInvalidArguments() {
+        LocalDateTime now = LocalDateTime.now();
+
+        assertThrows(IllegalArgumentException.class, () -> repository.getMoosagesBefore(null, null, 0));
+        assertThrows(IllegalArgumentException.class, () -> repository.getMoosagesBefore(now, null, 10));
+    }
+
+    @Test
+    public void testGetLikersPagesInUserIdOrder() {
+        Moosage moosage = repository.createMoosage("Popular", "user1", "user1");
+        for (String userId : List.of("user4", "user2", "user5", "user3", "user1")) {
+            repository.toggleLike(moosage.getId(), userId);
+        }
+
+        List<String> first = repository.getLikers(moosage.getId(), null, 2).orElseThrow();
+        List<String> second = repository.getLikers(moosage.getId(), first.get(1), 2).orElseThrow();
+        List<String> third = repository.getLikers(moosage.getId(), second.get(1), 2).orElseThrow();
+
+        assertEquals(List.of("user1", "user2"), first);
+        assertEquals(List.of("user3", "user4"), second);
+        assertEquals(List.of("user5"), third);
+    }
+
+    @Test
+    public void testGetLikersForMissingMoosage() {
+        assertTrue(repository.getLikers(999L, null, 10).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> repository.getLikers(1L, null, 0));
+    }
+
+    @Test
+    public void testDamagedSnapshotIsRecoveredFromPreviousGeneration() throws IOException {
+        Moosage kept = repository.createMoosage("Kept", "user1", "user1");
+        repository.compact();
+        repository.createMoosage("Lost with the damaged snapshot", "user1", "user1");
+        repository.close();
+
+        // Flip a byte of the body without changing its length
+        Path snapshotFile = snapshotFileFor(testDataFile);
+        byte[] snapshot = Files.readAllBytes(snapshotFile);
+        snapshot[snapshot.length - 20] ^= 0x01;
+        Files.write(snapshotFile, snapshot);
+
+        repository = new MoosageRepository(userRepository,
+                new TestJsonFileHandler(testDataFile.toAbsolutePath().toString()));
+        assertEquals(1, repository.getAllMoosages().size());
+        assertEquals("Kept", repository.getMoosageById(kept.getId()).orElseThrow().getContent());
+    }
+
+    @Test
+    public void testUnreadableSnapshotRefusesToStartEmpty() throws IOException {
+        repository.createMoosage("Must not be overwritten", "user1", "user1");
+        repository.close();
+        TestJsonFileHandler fileHandler = new TestJsonFileHandler(testDataFile.toAbsolutePath().toString());
+        File snapshotFile = snapshotFileFor(testDataFile).toFile();
+        BinaryMoosageSnapshot.delete(snapshotFile);
+        Files.writeString(snapshotFile.toPath(), "not a snapshot");
+
+        assertThrows(IllegalStateException.class, () -> new MoosageRepository(userRepository, fileHandler));
+        assertEquals("not a snapshot", Files.readString(snapshotFile.toPath()));
+
+        // Leave a working repository for tearDown
+        BinaryMoosageSnapshot.delete(snapshotFile);
+        repository = new MoosageRepository(userRepository, fileHandler);
+    }
+
+    @Test
+    public void testUnreadableJsonImportRefusesToStartEmpty() throws IOException {
+        repository.close();
+        BinaryMoosageSnapshot.delete(snapshotFileFor(testDataFile).toFile());
+        TestJsonFileHandler fileHandler = new TestJsonFileHandler(testDataFile.toAbsolutePath().toString());
+        fileHandler.deleteDataFile(testDataFile.toFile());
+        Files.writeString(testDataFile, "{\"moosages\": [");
+
+        assertThrows(IllegalStateException.class, () -> new MoosageRepository(userRepository, fileHandler));
+        assertEquals("{\"moosages\": [", Files.readString(testDataFile));
+
+        // Leave a working repository for tearDown
+        fileHandler.deleteDataFile(testDataFile.toFile());
+        repository = new MoosageRepository(userRepository, fileHandler);
+    }
+
+    @Test
+    public void testJsonDataFileIsImportedIntoBinarySnapshot() throws IOException {
+        repository.close();
+        BinaryMoosageSnapshot.delete(snapshotFileFor(testDataFile).toFile());
+        String authorId = "user1";
+        Moosage moosage = new Moosage(7L, "Imported", authorId, LocalDateTime.of(2025, 3, 1, 9, 30));
+        moosage.addLike("user2");
+        TestJsonFileHandler fileHandler = new TestJsonFileHandler(testDataFile.toAbsolutePath().toString());
+        fileHandler.getObjectMapper().registerModule(new JavaTimeModule());
+        fileHandler.writeJsonToFile(testDataFile.toFile(), Map.of("moosages", List.of(moosage), "nextId", 8L));
+
+        repository = new MoosageRepository(userRepository, fileHandler);
+
+        Moosage imported = repository.getMoosageById(7L).orElseThrow();
+        assertEquals("Imported", imported.getContent());
+        assertEquals(Set.of("user2"), imported.getLikedByUserIds());
+        assertTrue(Files.size(snapshotFileFor(testDataFile)) > 0);
+        assertEquals(8L, repository.createMoosage("Next", "user1", "user1").getId());
+    }
+
+    @Test
+    public void testBinarySnapshotTakesPrecedenceOverJsonDataFile() throws IOException {
+        repository.createMoosage("From snapshot", "user1", "user1");
+        repository.close();
+        Files.writeString(testDataFile, "{\"moosages\": [], \"nextId\": 1}");
+
+        repository = new MoosageRepository(userRepository,
+                new TestJsonFileHandler(testDataFile.toAbsolutePath().toString()));
+
+        assertEquals(1, repository.getAllMoosages().size());
+        assertEquals("From snapshot", repository.getAllMoosages().get(0).getContent());
+    }
+
+    @Test
+    public void testExportedJsonIsImportedAfterSnapshotIsDeleted() throws IOException {
+        Moosage created = repository.createMoosage("Exported", "user1", "user1");
+        repository.toggleLike(created.getId(), "user3");
+        repository.updateMoosage(created.getId(), "Exported and edited");
+        repository.exportJson(testDataFile.toFile());
+        repository.close();
+        BinaryMoosageSnapshot.delete(snapshotFileFor(testDataFile).toFile());
+
+        // The export is plain JSON that can be edited by hand before it is imported
+        ObjectMapper objectMapper = new ObjectMapper();
+        JsonNode exported = objectMapper.readTree(testDataFile.toFile());
+        assertEquals("Exported and edited", exported.get("moosages").get(0).get("content").asText());
+        ((ObjectNode) exported.get("moosages").get(0)).put("content", "Edited after export");
+        objectMapper.writeValue(testDataFile.toFile(), exported);
+
+        repository = new MoosageRepository(userRepository,
+                new TestJsonFileHandler(testDataFile.toAbsolutePath().toString()));
+
+        Moosage imported = repository.getMoosageById(created.getId()).orElseThrow();
+        assertEquals("Edited after export", imported.getContent());
+        assertTrue(imported.isEdited());
+        assertEquals(created.getTime(), imported.getTime());
+        assertEquals(Set.of("user3"), imported.getLikedByUserIds());
+    }
+
+    @Test
+    public void testJsonWithEmbeddedAuthorsIsImported() throws IOException {
+        repository.close();
+        BinaryMoosageSnapshot.delete(snapshotFileFor(testDataFile).toFile());
+        // Data files from before moosages stored only the author's id
+        Files.writeString(testDataFile, "{\"moosages\": [{\"id\": 3, \"content\": \"Old format\", "
+                + "\"author\": {\"username\": \"testuser\", \"email\": \"test@example.com\", \"userID\": \"user1\"}, "
+                + "\"time\": [2025, 10, 26, 19, 0, 33], \"likedByUserIds\": [\"user2\"], \"edited\": false}], "
+                + "\"nextId\": 4}");
+
+        repository = new MoosageRepository(userRepository,
+                new TestJsonFileHandler(testDataFile.toAbsolutePath().toString()));
+
+        Moosage imported = repository.getMoosageById(3L).orElseThrow();
+        assertEquals("user1", imported.getAuthorId());
+        assertEquals("Old format", imported.getContent());
+        assertEquals(Set.of("user2"), imported.getLikedByUserIds());
+    }
+
+    @Test
+    public void testListenersAreToldAboutEveryChange() {
+        List<String> changes = new ArrayList<>();
+        repository.addListener((mutation, moosage) -> changes.add(mutation.op() + " " + mutation.id()
+                + " " + (moosage == null ? "gone" : moosage.getContent() + "/" + moosage.getLikeCount())));
+
+        Moosage moosage = repository.createMoosage("Listened", "user1", "testuser");
+        repository.toggleLike(moosage.getId(), "user2");
+        repository.updateMoosage(moosage.getId(), "Edited");
+        repository.deleteMoosage(moosage.getId());
+        // Nothing happens, so nothing is reported
+        repository.deleteMoosage(moosage.getId());
+
+        long id = moosage.getId();
+        assertEquals(List.of("CREATE " + id + " Listened/0", "LIKE " + id + " Listened/1",
+                "UPDATE " + id + " Edited/1", "DELETE " + id + " gone"), changes);
+    }
+
+    @Test
+    public void testFailingListenerDoesNotFailTheMutation() {
+        List<Long> told = new ArrayList<>();
+        MoosageListener failing = (mutation, moosage) -> {
+            throw new IllegalStateException("Listener failed");
+        };
+        repository.addListener(failing);
+        repository.addListener((mutation, moosage) -> told.add(mutation.id()));
+
+        Moosage moosage = repository.createMoosage("Still stored", "user1", "testuser");
+        repository.removeListener(failing);
+
+        assertEquals(List.of(moosage.getId()), told);
+        assertTrue(repository.getMoosageById(moosage.getId()).isPresent());
+        assertThrows(IllegalArgumentException.class, () -> repository.addListener(null));
+    }
+
+    @Test
+    public void testChangesSinceListChangedAndDeletedMoosages() {
+        Moosage unchanged = repository.createMoosage("Unchanged", "user1", "testuser");
+        Moosage liked = repository.createMoosage("Liked", "user1", "testuser");
+        Moosage deleted = repository.createMoosage("Deleted", "user1", "testuser");
+        long since = repository.getChangeSequence();
+
+        repository.toggleLike(liked.getId(), "user2");
+        Moosage created = repository.createMoosage("Created", "user2", "testuser2");
+        repository.deleteMoosage(deleted.getId());
+        MoosageChangeSet changes = repository.getChangesSince(since, 100);
+
+        assertTrue(changes.complete());
+        assertEquals(since + 3, changes.sequence());
+        assertEquals(List.of(liked.getId(), created.getId()), changes.changed().stream().map(Moosage::getId).toList());
+        assertEquals(1, changes.changed().get(0).getLikeCount());
+        assertEquals(List.of(deleted.getId()), changes.deleted());
+        assertFalse(changes.changed().stream().anyMatch(moosage -> moosage.getId().equals(unchanged.getId())));
+
+        MoosageChangeSet none = repository.getChangesSince(changes.sequence(), 100);
+        assertTrue(none.complete());
+        assertTrue(none.changed().isEmpty());
+        assertTrue(none.deleted().isEmpty());
+    }
+
+    @Test
+    public void testChangeSequenceOfAMoosageChangesOnlyWithIt() {
+        Moosage first = repository.createMoosage("First", "user1", "testuser");
+        Moosage second = repository.createMoosage("Second", "user1", "testuser");
+        long firstBefore = repository.getChangeSequence(first.getId());
+        long secondBefore = repository.getChangeSequence(second.getId());
+
+        repository.toggleLike(second.getId(), "user2");
+
+        assertEquals(firstBefore, repository.getChangeSequence(first.getId()));
+        assertTrue(repository.getChangeSequence(second.getId()) > secondBefore);
+        assertThrows(IllegalArgumentException.class, () -> repository.getChangeSequence(null));
+    }
+
+    @Test
+    public void testChangesSinceUnknownNumberAreIncomplete() {
+        long since = repository.getChangeSequence();
+        repository.createMoosage("First", "user1", "testuser");
+        repository.createMoosage("Second", "user1", "testuser");
+
+        assertFalse(repository.getChangesSince(since - 1, 100).complete());
+        assertFalse(repository.getChangesSince(Long.MAX_VALUE, 100).complete());
+        // Too much changed to be worth listing
+        MoosageChangeSet tooMany = repository.getChangesSince(since, 1);
+        assertFalse(tooMany.complete());
+        assertEquals(since + 2, tooMany.sequence());
+        assertTrue(tooMany.changed().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> repository.getChangesSince(since, 0));
+    }
+
+    @Test
+    public void testChangeSequenceNumbersAreNotReusedAfterRestart() {
+        repository.createMoosage("Before restart", "user1", "testuser");
+        long before = repository.getChangeSequence();
+        repository.close();
+
+        repository = new MoosageRepository(userRepository,
+                new TestJsonFileHandler(testDataFile.toAbsolutePath().toString()));
+
+        assertFalse(repository.getChangesSince(before, 100).complete());
+    }
+
+    @Test
+    public void testFailedAppendIsNotPublished() throws IOException {
+        FailingStore store = new FailingStore(false);
+        try (MoosageRepository failing = new MoosageRepository(userRepository, store)) {
+            List<MoosageMutation> notified = new ArrayList<>();
+            failing.addListener((mutation, moosage) -> notified.add(mutation));
+            long sequence = failing.getChangeSequence();
+            store.failing = true;
+
+            assertThrows(IllegalStateException.class, () -> failing.toggleLike(1L, "user1"));
+            assertThrows(IllegalStateException.class, () -> failing.createMoosage("Lost", "user1", "testuser"));
+
+            assertEquals(0, failing.getMoosageById(1L).get().getLikeCount());
+            assertEquals(1, failing.getAllMoosages().size());
+            assertEquals(sequence, failing.getChangeSequence());
+            assertTrue(notified.isEmpty());
+
+            store.failing = false;
+            assertEquals(1, failing.toggleLike(1L, "user1").get().getLikeCount());
+            assertEquals(1, notified.size());
+        }
+    }
+
+    @Test
+    public void testFailedCheckpointKeepsThePreviousVersion() throws IOException {
+        FailingStore store = new FailingStore(true);
+        try (MoosageRepository failing = new MoosageRepository(userRepository, store)) {
+            List<MoosageMutation> notified = new ArrayList<>();
+            failing.addListener((mutation, moosage) -> notified.add(mutation));
+            store.failing = true;
+
+            assertThrows(IllegalStateException.class, () -> failing.updateMoosage(1L, "Lost"));
+            assertThrows(IllegalStateException.class, () -> failing.deleteMoosage(1L));
+
+            assertEquals("Stored", failing.getMoosageById(1L).get().getContent());
+            assertTrue(notified.isEmpty());
+        }
+    }
+
+    // A store holding one moosage that fails every write while 'failing' is set
+    private static final class FailingStore implements MoosageStore {
+        private final boolean checkpointsEveryMutation;
+        private final UserIdOrdinals ordinals = new UserIdOrdinals();
+        private volatile boolean failing;
+
+        FailingStore(boolean checkpointsEveryMutation) {
+            this.checkpointsEveryMutation = checkpointsEveryMutation;
+        }
+
+        @Override
+        public UserIdOrdinals userIdOrdinals() {
+            return ordinals;
+        }
+
+        @Override
+        public State load() {
+            return new State(List.of(new Moosage(1L, "Stored", "user2", LocalDateTime.now())), 2);
+        }
+
+        @Override
+        public void append(MoosageMutation mutation) throws IOException {
+            if (failing) {
+                throw new IOException("Disk full");
+            }
+        }
+
+        @Override
+        public long pendingMutations() {
+            return 0;
+        }
+
+        @Override
+        public boolean checkpointsEveryMutation() {
+            return checkpointsEveryMutation;
+        }
+
+        @Override
+        public void checkpoint(Collection<Moosage> moosages, long nextId) throws IOException {
+            if (failing) {
+                throw new IOException("Disk full");
+            }
+        }
+
+        @Override
+        public GroupCommitStats stats() {
+            return new GroupCommitStats(0, 0, 0);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
     //Test JsonFileHandler that uses a custom test file path.
    
     private static class TestJsonFileHandler extends util.JsonFileHandler {
@@ -0,0 +1,231 @@
+package repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import model.Moosage;
+
+// Runs the storage engine conformance tests against the data file engine in shared mode, and
+// checks that instances sharing a data directory see each other's writes. Each instance is an
+// engine with its own repositories, as a separate process would have.
+public class SharedFileStorageEngineTest extends StorageEngineConformanceTest {
+
+    private Path directory;
+    private final List<Instance> instances = new ArrayList<>();
+
+    private record Instance(StorageEngine engine, UserRepository users, MoosageRepository moosages) {
+    }
+
+    @Override
+    protected StorageEngine createEngine(Path directory) {
+        this.directory = directory;
+        return new FileStorageEngine(new FileStorageEngineTest.TestJsonFileHandler(directory),
+                GroupCommitPolicy.defaults(), true);
+    }
+
+    // Runs before the base class deletes the directory
+    @AfterEach
+    public void closeInstances() throws IOException {
+        for (Instance instance : instances) {
+            close(instance);
+        }
+        instances.clear();
+    }
+
+    private Instance startInstance() {
+        StorageEngine engine = createEngine(directory);
+        UserRepository users = new UserRepository(engine);
+        Instance instance = new Instance(engine, users, new MoosageRepository(users, engine));
+        instances.add(instance);
+        return instance;
+    }
+
+    private static void close(Instance instance) throws IOException {
+        instance.moosages().close();
+        instance.engine().close();
+    }
+
+    private static String createUser(Instance instance, String username) {
+        assertTrue(instance.users().createUser(username, username + "@example.com", "hashedPassword123"));
+        return instance.users().findByUsernameOrEmail(username).orElseThrow().getUserID();
+    }
+
+    @Test
+    public void testEngineIsShared() {
+        Instance instance = startInstance();
+
+        assertTrue(((FileStorageEngine) instance.engine()).isShared());
+        assertTrue(instance.engine().moosages().isShared());
+        assertTrue(instance.engine().users().isShared());
+    }
+
+    @Test
+    public void testUsersAreSeenByOtherInstances() {
+        Instance first = startInstance();
+        Instance second = startInstance();
+
+        String userId = createUser(first, "author");
+
+        assertTrue(second.users().existsById(userId));
+        assertEquals("author", second.users().getUsername(userId));
+        assertFalse(second.users().createUser("author", "other@example.com", "hashedPassword123"));
+        assertFalse(second.users().createUser("other", "author@example.com", "hashedPassword123"));
+        createUser(second, "other");
+        assertTrue(first.users().userExists("other"));
+    }
+
+    @Test
+    public void testMoosagesAreSeenByOtherInstances() {
+        Instance first = startInstance();
+        Instance second = startInstance();
+        String authorId = createUser(first, "author");
+        String likerId = createUser(second, "liker");
+
+        Moosage liked = first.moosages().createMoosage("Liked", authorId, "author");
+        Moosage edited = first.moosages().createMoosage("Before edit", authorId, "author");
+        Moosage deleted = first.moosages().createMoosage("Deleted", authorId, "author");
+        second.moosages().toggleLike(liked.getId(), likerId);
+        second.moosages().updateMoosage(edited.getId(), "After edit");
+        second.moosages().deleteMoosage(deleted.getId());
+
+        for (Instance instance : List.of(first, second)) {
+            assertEquals(2, instance.moosages().getAllMoosages().size());
+            Moosage likedRead = instance.moosages().getMoosageById(liked.getId()).orElseThrow();
+            assertEquals(Set.of(likerId), likedRead.getLikedByUserIds());
+            assertEquals("After edit", instance.moosages().getMoosageById(edited.getId()).orElseThrow().getContent());
+            assertTrue(instance.moosages().getMoosageById(deleted.getId()).isEmpty());
+        }
+    }
+
+    @Test
+    public void testIdsAreNotHandedOutTwice() {
+        Instance first = startInstance();
+        Instance second = startInstance();
+        String authorId = createUser(first, "author");
+
+        Moosage fromFirst = first.moosages().createMoosage("From first", authorId, "author");
+        // The second instance has not read anything since the first one wrote
+        Moosage fromSecond = second.moosages().createMoosage("From second", authorId, "author");
+
+        assertNotEquals(fromFirst.getId(), fromSecond.getId());
+        assertEquals(2, first.moosages().getAllMoosages().size());
+        assertEquals(2, second.moosages().getAllMoosages().size());
+    }
+
+    @Test
+    public void testInstancesNumberChangesInTheirOwnEpoch() {
+        Instance first = startInstance();
+        Instance second = startInstance();
+        String authorId = createUser(first, "author");
+        String epoch = first.moosages().getChangeEpoch();
+
+        Moosage created = first.moosages().createMoosage("Shared", authorId, "author");
+        second.moosages().updateMoosage(created.getId(), "Edited");
+
+        // Each instance numbers the changes it sees itself, so the same number can stand for
+        // different states in the two; only the epoch tells them apart
+        assertNotEquals(first.moosages().getChangeEpoch(), second.moosages().getChangeEpoch());
+        assertEquals(epoch, first.moosages().getChangeEpoch());
+        assertEquals("Edited", first.moosages().getMoosageById(created.getId()).orElseThrow().getContent());
+    }
+
+    @Test
+    public void testInstanceThatReadTheWholeLogKeepsItsStateAfterCompaction() {
+        Instance first = startInstance();
+        Instance second = startInstance();
+        String authorId = createUser(first, "author");
+        Moosage before = first.moosages().createMoosage("Before compaction", authorId, "author");
+        assertEquals(1, second.moosages().getAllMoosages().size());
+        Moosage kept = second.moosages().getMoosageById(before.getId()).orElseThrow();
+
+        first.moosages().compact();
+        Moosage after = first.moosages().createMoosage("After compaction", authorId, "author");
+
+        assertEquals(2, second.moosages().getAllMoosages().size());
+        assertTrue(second.moosages().getMoosageById(after.getId()).isPresent());
+        // Caught up from the emptied log instead of reloading the snapshot
+        assertTrue(kept == second.moosages().getMoosageById(before.getId()).orElseThrow());
+    }
+
+    @Test
+    public void testInstanceThatMissedRecordsReloadsAfterCompaction() {
+        Instance first = startInstance();
+        Instance second = startInstance();
+        String authorId = createUser(first, "author");
+        Moosage missed = first.moosages().createMoosage("Missed", authorId, "author");
+
+        first.moosages().compact();
+        Moosage after = first.moosages().createMoosage("After compaction", authorId, "author");
+
+        assertEquals(2, second.moosages().getAllMoosages().size());
+        assertEquals("Missed", second.moosages().getMoosageById(missed.getId()).orElseThrow().getContent());
+        assertTrue(second.moosages().getMoosageById(after.getId()).isPresent());
+    }
+
+    @Test
+    public void testListenersAreToldAboutOtherInstancesChanges() throws InterruptedException {
+        Instance first = startInstance();
+        Instance second = startInstance();
+        String authorId = createUser(first, "author");
+        // Told on the watcher's thread or on the reading one
+        List<String> changes = new CopyOnWriteArrayList<>();
+        second.moosages().addListener((mutation, moosage) -> changes.add(mutation.op() + " " + mutation.id()));
+
+        Moosage created = first.moosages().createMoosage("Listened", authorId, "author");
+        first.moosages().toggleLike(created.getId(), authorId);
+        second.moosages().getAllMoosages();
+
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (changes.size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(List.of("CREATE " + created.getId(), "LIKE " + created.getId()), changes);
+    }
+
+    @Test
+    public void testChangesAreAppliedInTheBackground() throws InterruptedException {
+        Instance first = startInstance();
+        Instance second = startInstance();
+        String authorId = createUser(first, "author");
+
+        first.moosages().createMoosage("Watched", authorId, "author");
+
+        // The directory watcher catches the second instance up without a read
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (second.engine().moosages().changesPending() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertFalse(second.engine().moosages().changesPending());
+    }
+
+    @Test
+    public void testBothInstancesWritesSurviveRestart() throws IOException {
+        Instance first = startInstance();
+        Instance second = startInstance();
+        String authorId = createUser(first, "author");
+        Moosage fromFirst = first.moosages().createMoosage("From first", authorId, "author");
+        Moosage fromSecond = second.moosages().createMoosage("From second", authorId, "author");
+        second.moosages().toggleLike(fromFirst.getId(), authorId);
+
+        close(first);
+        close(second);
+        instances.clear();
+        Instance restarted = startInstance();
+
+        assertEquals(2, restarted.moosages().getAllMoosages().size());
+        assertTrue(restarted.moosages().getMoosageById(fromFirst.getId()).orElseThrow().isLikedBy(authorId));
+        assertTrue(restarted.moosages().getMoosageById(fromSecond.getId()).isPresent());
+    }
+}
@@ -0,0 +1,214 @@
+package repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import model.Moosage;
+import model.User;
+
+// Behaviour every StorageEngine has to share: whatever the repositories did before a restart
+// is what they see after it. Subclasses create the engine under test in a temp directory.
+public abstract class StorageEngineConformanceTest {
+
+    private Path directory;
+    private StorageEngine engine;
+    private UserRepository users;
+    private MoosageRepository moosages;
+
+    protected abstract StorageEngine createEngine(Path directory);
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("test-storage-engine-");
+        open();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        closeEngine();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private void open() {
+        engine = createEngine(directory);
+        users = new UserRepository(engine);
+        moosages = new MoosageRepository(users, engine);
+    }
+
+    private void closeEngine() throws IOException {
+        if (engine != null) {
+            moosages.close();
+            engine.close();
+            engine = null;
+        }
+    }
+
+    private void reopen() throws IOException {
+        closeEngine();
+        open();
+    }
+
+    private String createUser(String username) {
+        assertTrue(users.createUser(username, username + "@example.com", "hashedPassword123"));
+        return users.findByUsernameOrEmail(username).orElseThrow().getUserID();
+    }
+
+    @Test
+    public void testEngineStartsEmpty() {
+        assertTrue(moosages.getAllMoosages().isEmpty());
+        assertFalse(users.userExists("testuser"));
+    }
+
+    @Test
+    public void testUsersSurviveRestart() throws IOException {
+        String userId = createUser("testuser");
+
+        reopen();
+
+        User user = users.getUserById(userId).orElseThrow();
+        assertEquals("testuser", user.getUsername());
+        assertEquals("testuser@example.com", user.getEmail());
+        assertEquals("hashedPassword123", user.getPassword());
+        assertTrue(users.emailExists("testuser@example.com"));
+        assertFalse(users.createUser("testuser", "other@example.com", "hashedPassword123"));
+    }
+
+    @Test
+    public void testMoosagesSurviveRestart() throws IOException {
+        String authorId = createUser("author");
+        String likerId = createUser("liker");
+        Moosage kept = moosages.createMoosage("Kept", authorId, "author");
+        Moosage edited = moosages.createMoosage("Before edit", authorId, "author");
+        Moosage deleted = moosages.createMoosage("Deleted", authorId, "author");
+        moosages.toggleLike(kept.getId(), likerId);
+        moosages.toggleLike(kept.getId(), authorId);
+        moosages.toggleLike(kept.getId(), authorId);
+        moosages.updateMoosage(edited.getId(), "After edit");
+        moosages.deleteMoosage(deleted.getId());
+
+        reopen();
+
+        List<Moosage> all = moosages.getAllMoosages();
+        assertEquals(2, all.size());
+        Moosage keptRead = moosages.getMoosageById(kept.getId()).orElseThrow();
+        assertEquals("Kept", keptRead.getContent());
+        assertEquals(Set.of(likerId), keptRead.getLikedByUserIds());
+        assertFalse(keptRead.isEdited());
+        assertEquals(kept.getTime(), keptRead.getTime());
+        assertEquals(authorId, keptRead.getAuthorId());
+        assertEquals("author", users.getUsername(keptRead.getAuthorId()));
+        Moosage editedRead = moosages.getMoosageById(edited.getId()).orElseThrow();
+        assertEquals("After edit", editedRead.getContent());
+        assertTrue(editedRead.isEdited());
+        assertTrue(moosages.getMoosageById(deleted.getId()).isEmpty());
+    }
+
+    @Test
+    public void testDeletedIdsAreNotReused() throws IOException {
+        String authorId = createUser("author");
+        Moosage first = moosages.createMoosage("First", authorId, "author");
+        Moosage last = moosages.createMoosage("Last", authorId, "author");
+        moosages.deleteMoosage(last.getId());
+
+        reopen();
+
+        Moosage next = moosages.createMoosage("Next", authorId, "author");
+        assertNotEquals(last.getId(), next.getId());
+        assertTrue(next.getId() > first.getId());
+    }
+
+    @Test
+    public void testCompactionKeepsState() throws IOException {
+        String authorId = createUser("author");
+        Moosage moosage = moosages.createMoosage("Compacted", authorId, "author");
+        moosages.toggleLike(moosage.getId(), authorId);
+        moosages.compact();
+        moosages.updateMoosage(moosage.getId(), "After compaction");
+
+        reopen();
+
+        Moosage read = moosages.getMoosageById(moosage.getId()).orElseThrow();
+        assertEquals("After compaction", read.getContent());
+        assertEquals(Set.of(authorId), read.getLikedByUserIds());
+    }
+
+    @Test
+    public void testCheckpointReplacesStoredState() throws IOException {
+        String authorId = createUser("author");
+        moosages.createMoosage("Replaced", authorId, "author");
+        Moosage imported = new Moosage(42L, "Imported", authorId, LocalDateTime.of(2025, 1, 2, 3, 4, 5));
+        imported.addLike(authorId);
+
+        engine.moosages().checkpoint(List.of(imported), 43L);
+        reopen();
+
+        List<Moosage> all = moosages.getAllMoosages();
+        assertEquals(1, all.size());
+        assertEquals("Imported", all.get(0).getContent());
+        assertEquals(Set.of(authorId), all.get(0).getLikedByUserIds());
+        assertEquals(43L, moosages.createMoosage("After import", authorId, "author").getId());
+    }
+
+    @Test
+    public void testConcurrentLikesAreAllStored() throws Exception {
+        String authorId = createUser("author");
+        Moosage moosage = moosages.createMoosage("Popular", authorId, "author");
+        int likers = 32;
+        String[] likerIds = new String[likers];
+        for (int i = 0; i < likers; i++) {
+            likerIds[i] = createUser("liker" + i);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (String likerId : likerIds) {
+                futures.add(executor.submit(() -> moosages.toggleLike(moosage.getId(), likerId)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        reopen();
+
+        assertEquals(Set.of(likerIds), moosages.getMoosageById(moosage.getId()).orElseThrow().getLikedByUserIds());
+    }
+
+    @Test
+    public void testExportWritesJson() throws IOException {
+        String authorId = createUser("author");
+        moosages.createMoosage("Exported", authorId, "author");
+        File export = directory.resolve("export.json").toFile();
+
+        moosages.exportJson(export);
+
+        assertTrue(Files.readString(export.toPath()).contains("Exported"));
+    }
+}
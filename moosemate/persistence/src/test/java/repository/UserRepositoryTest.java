@@ -4,18 +4,27 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import model.User;
 import util.JsonFileHandler;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 //Test class for UserRepository.
 // Tests persistence layer operations for user data.
@@ -50,9 +59,9 @@ class UserRepositoryTest {
 
     @AfterEach
     void deleteTestData() throws IOException {
-        // Clean up test file after each test
-        if (testDataFile != null && Files.exists(testDataFile)) {
-            Files.delete(testDataFile);
+        // Clean up test file and its earlier snapshots after each test
+        if (testDataFile != null) {
+            new JsonFileHandler().deleteDataFile(testDataFile.toFile());
         }
     }
 
@@ -87,27 +96,27 @@ class UserRepositoryTest {
     void testFindByUsernameOrEmail_ByUsername() {
         repository.createUser("testuser", "test@example.com", "hashedPassword123");
         
-        Optional<Map<String, String>> result = repository.findByUsernameOrEmail("testuser");
+        Optional<User> result = repository.findByUsernameOrEmail("testuser");
         
         assertTrue(result.isPresent(), "User should be found by username");
-        assertEquals("testuser", result.get().get("username"));
-        assertEquals("test@example.com", result.get().get("email"));
+        assertEquals("testuser", result.get().getUsername());
+        assertEquals("test@example.com", result.get().getEmail());
     }
 
     @Test
     void testFindByUsernameOrEmail_ByEmail() {
         repository.createUser("testuser", "test@example.com", "hashedPassword123");
         
-        Optional<Map<String, String>> result = repository.findByUsernameOrEmail("test@example.com");
+        Optional<User> result = repository.findByUsernameOrEmail("test@example.com");
         
         assertTrue(result.isPresent(), "User should be found by email");
-        assertEquals("testuser", result.get().get("username"));
-        assertEquals("test@example.com", result.get().get("email"));
+        assertEquals("testuser", result.get().getUsername());
+        assertEquals("test@example.com", result.get().getEmail());
     }
 
     @Test
     void testFindByUsernameOrEmail_NotFound() {
-        Optional<Map<String, String>> result = repository.findByUsernameOrEmail("nonexistent");
+        Optional<User> result = repository.findByUsernameOrEmail("nonexistent");
         
         assertFalse(result.isPresent(), "Non-existent user should not be found");
     }
@@ -153,13 +162,13 @@ class UserRepositoryTest {
         assertTrue(repository.emailExists("user3@example.com"));
         
         // Verify correct retrieval
-        Optional<Map<String, String>> user1 = repository.findByUsernameOrEmail("user1");
+        Optional<User> user1 = repository.findByUsernameOrEmail("user1");
         assertTrue(user1.isPresent());
-        assertEquals("user1@example.com", user1.get().get("email"));
+        assertEquals("user1@example.com", user1.get().getEmail());
         
-        Optional<Map<String, String>> user2 = repository.findByUsernameOrEmail("user2@example.com");
+        Optional<User> user2 = repository.findByUsernameOrEmail("user2@example.com");
         assertTrue(user2.isPresent());
-        assertEquals("user2", user2.get().get("username"));
+        assertEquals("user2", user2.get().getUsername());
     }
 
     @Test
@@ -167,14 +176,14 @@ class UserRepositoryTest {
         repository.createUser("user1", "user1@example.com", "password1");
         repository.createUser("user2", "user2@example.com", "password2");
         
-        Optional<Map<String, String>> user1 = repository.findByUsernameOrEmail("user1");
-        Optional<Map<String, String>> user2 = repository.findByUsernameOrEmail("user2");
+        Optional<User> user1 = repository.findByUsernameOrEmail("user1");
+        Optional<User> user2 = repository.findByUsernameOrEmail("user2");
         
         assertTrue(user1.isPresent());
         assertTrue(user2.isPresent());
         
-        String userId1 = user1.get().get("userID");
-        String userId2 = user2.get().get("userID");
+        String userId1 = user1.get().getUserID();
+        String userId2 = user2.get().getUserID();
         
         assertNotNull(userId1, "User ID should not be null");
         assertNotNull(userId2, "User ID should not be null");
@@ -193,9 +202,9 @@ class UserRepositoryTest {
         assertTrue(newRepository.userExists("persistentuser"), 
                 "User should persist across repository instances");
         
-        Optional<Map<String, String>> user = newRepository.findByUsernameOrEmail("persistentuser");
+        Optional<User> user = newRepository.findByUsernameOrEmail("persistentuser");
         assertTrue(user.isPresent());
-        assertEquals("persistent@example.com", user.get().get("email"));
+        assertEquals("persistent@example.com", user.get().getEmail());
     }
 
     @Test
@@ -204,9 +213,9 @@ class UserRepositoryTest {
         repository.createUser("testuser", "test@example.com", "hashedPassword123");
         
         // Get the user's ID
-        Optional<Map<String, String>> userData = repository.findByUsernameOrEmail("testuser");
+        Optional<User> userData = repository.findByUsernameOrEmail("testuser");
         assertTrue(userData.isPresent());
-        String userId = userData.get().get("userID");
+        String userId = userData.get().getUserID();
         
         // Test getUserById
         var result = repository.getUserById(userId);
@@ -232,9 +241,29 @@ class UserRepositoryTest {
         assertFalse(result.isPresent(), "Empty user ID should return empty");
     }
 
+    @Test
+    void testExistsById() {
+        repository.createUser("testuser", "test@example.com", "hashedPassword123");
+        String userId = repository.findByUsernameOrEmail("testuser").orElseThrow().getUserID();
+
+        assertTrue(repository.existsById(userId), "Created user should be visible at once");
+        assertFalse(repository.existsById("non-existent-id"));
+        assertFalse(repository.existsById(null));
+    }
+
+    @Test
+    void testGetUsername() {
+        repository.createUser("testuser", "test@example.com", "hashedPassword123");
+        String userId = repository.findByUsernameOrEmail("testuser").orElseThrow().getUserID();
+
+        assertEquals("testuser", repository.getUsername(userId));
+        assertNull(repository.getUsername("non-existent-id"));
+        assertNull(repository.getUsername(null));
+    }
+
     @Test
     void testFindByUsernameOrEmail_NullInput() {
-        Optional<Map<String, String>> result = repository.findByUsernameOrEmail(null);
+        Optional<User> result = repository.findByUsernameOrEmail(null);
         
         assertFalse(result.isPresent(), "Null input should return empty");
     }
@@ -284,4 +313,79 @@ class UserRepositoryTest {
                     "Error should mention password or null/empty");
         }
     }
+
+    @Test
+    void testLookupsAreServedFromMemory() throws IOException {
+        repository.createUser("testuser", "test@example.com", "hashedPassword123");
+        String userId = repository.findByUsernameOrEmail("testuser").get().getUserID();
+
+        // Removing the file must not affect lookups once the users are loaded
+        Files.delete(testDataFile);
+
+        assertTrue(repository.userExists("testuser"));
+        assertTrue(repository.emailExists("test@example.com"));
+        assertTrue(repository.getUserById(userId).isPresent());
+    }
+
+    @Test
+    void testIncompleteEntriesAreSkippedButKeptOnSave() throws IOException {
+        Files.writeString(testDataFile, "{\"users\": [{\"username\": \"incomplete\"}]}");
+        UserRepository loaded = new UserRepository(new TestJsonFileHandler(testDataFile.toString()));
+
+        assertFalse(loaded.findByUsernameOrEmail("incomplete").isPresent());
+
+        assertTrue(loaded.createUser("complete", "complete@example.com", "hashedPassword123"));
+        assertTrue(Files.readString(testDataFile).contains("incomplete"));
+    }
+
+    @Test
+    void testDamagedSnapshotIsRecoveredFromPreviousGeneration() throws IOException {
+        repository.createUser("firstuser", "first@example.com", "hashedPassword123");
+        repository.createUser("seconduser", "second@example.com", "hashedPassword123");
+
+        // The latest snapshot is cut short, as by a crash mid-write without atomic renames
+        byte[] snapshot = Files.readAllBytes(testDataFile);
+        Files.write(testDataFile, Arrays.copyOf(snapshot, snapshot.length / 2));
+        UserRepository loaded = new UserRepository(new TestJsonFileHandler(testDataFile.toString()));
+
+        assertTrue(loaded.userExists("firstuser"));
+        assertFalse(loaded.userExists("seconduser"));
+    }
+
+    @Test
+    void testUnreadableDataFileRefusesToStartEmpty() throws IOException {
+        new JsonFileHandler().deleteDataFile(testDataFile.toFile());
+        Files.writeString(testDataFile, "{\"users\": [");
+
+        assertThrows(IllegalStateException.class,
+                () -> new UserRepository(new TestJsonFileHandler(testDataFile.toString())));
+    }
+
+    @Test
+    void testConcurrentSignupsWithSameUsernameCreateOneUser() throws Exception {
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            String email = "racer" + i + "@example.com";
+            results.add(executor.submit(() -> {
+                start.await();
+                return repository.createUser("racer", email, "hashedPassword123");
+            }));
+        }
+        start.countDown();
+
+        int created = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get()) {
+                created++;
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(1, created, "Exactly one concurrent signup should win the username");
+        UserRepository reloaded = new UserRepository(new TestJsonFileHandler(testDataFile.toString()));
+        assertTrue(reloaded.userExists("racer"));
+    }
 }
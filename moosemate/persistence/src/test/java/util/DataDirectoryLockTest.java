@@ -0,0 +1,155 @@
+package util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Test class for DataDirectoryLock.
+ * Two handles on the same directory stand in for two processes sharing it.
+ */
+class DataDirectoryLockTest {
+
+    private Path directory;
+    private DataDirectoryLock first;
+    private DataDirectoryLock second;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("test-data-directory-");
+        first = DataDirectoryLock.open(directory.toFile());
+        second = DataDirectoryLock.open(directory.toFile());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        first.close();
+        second.close();
+        Files.deleteIfExists(directory.resolve(DataDirectoryLock.FILE_NAME));
+        Files.deleteIfExists(directory);
+    }
+
+    @Test
+    void testCountersStartAtZero() {
+        for (DataDirectoryLock.Counter counter : DataDirectoryLock.Counter.values()) {
+            assertEquals(0, first.get(counter));
+        }
+    }
+
+    @Test
+    void testCountersAreSeenThroughEveryHandle() throws IOException {
+        first.lock();
+        try {
+            assertEquals(1, first.increment(DataDirectoryLock.Counter.MOOSAGES));
+            first.set(DataDirectoryLock.Counter.CHECKPOINTED_LOG_LENGTH, 1234);
+        } finally {
+            first.unlock();
+        }
+
+        assertEquals(1, second.get(DataDirectoryLock.Counter.MOOSAGES));
+        assertEquals(1234, second.get(DataDirectoryLock.Counter.CHECKPOINTED_LOG_LENGTH));
+        assertEquals(0, second.get(DataDirectoryLock.Counter.USERS));
+    }
+
+    @Test
+    void testCountersSurviveReopening() throws IOException {
+        first.lock();
+        try {
+            first.increment(DataDirectoryLock.Counter.USERS);
+        } finally {
+            first.unlock();
+        }
+        first.close();
+
+        first = DataDirectoryLock.open(directory.toFile());
+
+        assertEquals(1, first.get(DataDirectoryLock.Counter.USERS));
+    }
+
+    @Test
+    void testChangingCountersNeedsTheLock() {
+        assertThrows(IllegalStateException.class, () -> first.increment(DataDirectoryLock.Counter.MOOSAGES));
+        assertThrows(IllegalStateException.class, () -> first.set(DataDirectoryLock.Counter.LOG_EPOCH, 1));
+    }
+
+    @Test
+    void testLockExcludesOtherHandles() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            first.lock();
+            AtomicBoolean locked = new AtomicBoolean();
+            Future<?> waiting = executor.submit(() -> {
+                second.lock();
+                locked.set(true);
+                second.unlock();
+                return null;
+            });
+
+            assertThrows(TimeoutException.class, () -> waiting.get(200, TimeUnit.MILLISECONDS));
+            assertFalse(locked.get());
+
+            first.unlock();
+            waiting.get(5, TimeUnit.SECONDS);
+            assertTrue(locked.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testLockIsReentrant() throws Exception {
+        first.lock();
+        first.lock();
+        first.unlock();
+        assertTrue(first.isHeldByCurrentThread());
+        first.unlock();
+        assertFalse(first.isHeldByCurrentThread());
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CountDownLatch locked = new CountDownLatch(1);
+            executor.submit(() -> {
+                second.lock();
+                second.unlock();
+                locked.countDown();
+                return null;
+            }).get(5, TimeUnit.SECONDS);
+            assertEquals(0, locked.getCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testNullDirectoryIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> DataDirectoryLock.open(null));
+    }
+
+    @Test
+    void testMissingDirectoryIsCreated() throws IOException {
+        File nested = directory.resolve("nested").toFile();
+        try (DataDirectoryLock lock = DataDirectoryLock.open(nested)) {
+            assertTrue(Files.isRegularFile(lock.file()));
+        } finally {
+            Files.deleteIfExists(nested.toPath().resolve(DataDirectoryLock.FILE_NAME));
+            Files.deleteIfExists(nested.toPath());
+        }
+    }
+}
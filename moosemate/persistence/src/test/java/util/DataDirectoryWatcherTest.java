@@ -0,0 +1,50 @@
+package util;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test class for DataDirectoryWatcher.
+ */
+class DataDirectoryWatcherTest {
+
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("test-data-watcher-");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(directory.resolve("data.json"));
+        Files.deleteIfExists(directory);
+    }
+
+    @Test
+    void testListenerRunsWhenAFileIsWritten() throws Exception {
+        CountDownLatch changed = new CountDownLatch(1);
+        try (DataDirectoryWatcher watcher = new DataDirectoryWatcher(directory.toFile(), changed::countDown)) {
+            Files.writeString(directory.resolve("data.json"), "{}");
+
+            // Generous, as some platforms poll for changes
+            assertTrue(changed.await(30, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void testNullArgumentsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new DataDirectoryWatcher(null, () -> { }));
+        assertThrows(IllegalArgumentException.class, () -> new DataDirectoryWatcher(directory.toFile(), null));
+    }
+}
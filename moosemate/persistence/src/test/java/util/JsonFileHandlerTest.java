@@ -1,7 +1,9 @@
 package util;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -10,9 +12,12 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -33,11 +38,23 @@ class JsonFileHandlerTest {
 
     @AfterEach
     void tearDown() throws IOException {
-        if (testFile != null && Files.exists(testFile)) {
-            Files.delete(testFile);
+        if (testFile != null) {
+            fileHandler.deleteDataFile(testFile.toFile());
         }
     }
 
+    private Path previousOf(Path file) {
+        return Path.of(file + JsonFileHandler.PREVIOUS_SUFFIX);
+    }
+
+    private Path tempOf(Path file) {
+        return Path.of(file + JsonFileHandler.TEMP_SUFFIX);
+    }
+
+    private Map<String, Object> readMap(Path file) throws IOException {
+        return fileHandler.readJsonFromFile(file.toFile(), new TypeReference<Map<String, Object>>() { });
+    }
+
     @Test
     void testInitializeDataFile_CreatesFileWithData() throws IOException {
         File file = testFile.toFile();
@@ -103,4 +120,101 @@ class JsonFileHandlerTest {
     void testGetObjectMapper_NotNull() {
         assertNotNull(fileHandler.getObjectMapper(), "ObjectMapper should not be null");
     }
+
+    @Test
+    void testWrittenSnapshotHasHeaderAndKeepsPreviousGeneration() throws IOException {
+        fileHandler.writeJsonToFile(testFile.toFile(), Map.of("value", "first"));
+        fileHandler.writeJsonToFile(testFile.toFile(), Map.of("value", "second"));
+
+        String content = Files.readString(testFile);
+        assertTrue(content.startsWith("#moosemate-snapshot version=1 generation=0000000000000000002 "));
+        assertTrue(Files.readString(previousOf(testFile)).contains("first"));
+        assertFalse(Files.exists(tempOf(testFile)), "Temp file should be renamed away");
+        assertEquals("second", readMap(testFile).get("value"));
+    }
+
+    @Test
+    void testCorruptedSnapshotFallsBackToPreviousGeneration() throws IOException {
+        fileHandler.writeJsonToFile(testFile.toFile(), Map.of("value", "first"));
+        fileHandler.writeJsonToFile(testFile.toFile(), Map.of("value", "second"));
+
+        // Same length, different body: only the checksum can tell
+        String content = Files.readString(testFile);
+        Files.writeString(testFile, content.replace("second", "sekond"));
+
+        assertEquals("first", readMap(testFile).get("value"));
+    }
+
+    @Test
+    void testTruncatedSnapshotFallsBackToPreviousGeneration() throws IOException {
+        fileHandler.writeJsonToFile(testFile.toFile(), Map.of("value", "first"));
+        fileHandler.writeJsonToFile(testFile.toFile(), Map.of("value", "second"));
+
+        byte[] content = Files.readAllBytes(testFile);
+        Files.write(testFile, Arrays.copyOf(content, content.length - 5));
+
+        assertEquals("first", readMap(testFile).get("value"));
+    }
+
+    @Test
+    void testNewerTempSnapshotIsUsedAfterCrashBetweenRenames() throws IOException {
+        fileHandler.writeJsonToFile(testFile.toFile(), Map.of("value", "first"));
+        fileHandler.writeJsonToFile(testFile.toFile(), Map.of("value", "second"));
+        // Simulate a crash after the data file was moved aside but before the new one took its place
+        Files.move(testFile, tempOf(testFile));
+
+        assertEquals("second", readMap(testFile).get("value"));
+
+        // The next write continues after the newest generation
+        fileHandler.writeJsonToFile(testFile.toFile(), Map.of("value", "third"));
+        assertTrue(Files.readString(testFile).contains("generation=0000000000000000003"));
+    }
+
+    @Test
+    void testPlainJsonFileIsReadAndTakesPrecedence() throws IOException {
+        fileHandler.writeJsonToFile(testFile.toFile(), Map.of("value", "first"));
+        fileHandler.writeJsonToFile(testFile.toFile(), Map.of("value", "second"));
+        Files.writeString(testFile, "{\"value\": \"edited by hand\"}", StandardCharsets.UTF_8);
+
+        assertEquals("edited by hand", readMap(testFile).get("value"));
+    }
+
+    @Test
+    void testNoIntactSnapshotThrows() throws IOException {
+        Files.writeString(testFile, "{\"value\": ");
+
+        IOException exception = assertThrows(IOException.class, () -> readMap(testFile));
+        assertFalse(exception instanceof FileNotFoundException);
+    }
+
+    @Test
+    void testMissingDataFileThrowsFileNotFound() throws IOException {
+        Files.delete(testFile);
+
+        assertThrows(FileNotFoundException.class, () -> readMap(testFile));
+    }
+
+    @Test
+    void testInitializeDataFile_DoesNotReplaceRecoverableSnapshot() throws IOException {
+        fileHandler.writeJsonToFile(testFile.toFile(), Map.of("value", "first"));
+        fileHandler.writeJsonToFile(testFile.toFile(), Map.of("value", "second"));
+        Files.move(testFile, tempOf(testFile));
+
+        fileHandler.initializeDataFile(testFile.toFile(), Map.of("value", "initial"));
+
+        assertFalse(Files.exists(testFile));
+        assertEquals("second", readMap(testFile).get("value"));
+    }
+
+    @Test
+    void testDeletedDataFileIsNotBroughtBackFromPreviousSnapshot() throws IOException {
+        fileHandler.writeJsonToFile(testFile.toFile(), Map.of("value", "first"));
+        fileHandler.writeJsonToFile(testFile.toFile(), Map.of("value", "second"));
+        Files.delete(testFile);
+
+        assertThrows(FileNotFoundException.class, () -> readMap(testFile));
+
+        fileHandler.initializeDataFile(testFile.toFile(), Map.of("value", "initial"));
+        assertEquals("initial", readMap(testFile).get("value"));
+    }
 }
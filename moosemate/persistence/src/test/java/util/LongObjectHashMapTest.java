@@ -0,0 +1,121 @@
+package util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+// Tests for the primitive long-keyed open-addressing map.
+public class LongObjectHashMapTest {
+
+    @Test
+    public void testPutGetAndReplace() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+
+        assertNull(map.put(1L, "one"));
+        assertNull(map.put(-5L, "minus five"));
+        assertNull(map.put(0L, "zero"));
+
+        assertEquals("one", map.get(1L));
+        assertEquals("minus five", map.get(-5L));
+        assertEquals("zero", map.get(0L));
+        assertEquals(3, map.size());
+
+        assertEquals("one", map.put(1L, "uno"));
+        assertEquals("uno", map.get(1L));
+        assertEquals(3, map.size());
+    }
+
+    @Test
+    public void testMissingKeys() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        map.put(1L, "one");
+
+        assertNull(map.get(2L));
+        assertFalse(map.containsKey(2L));
+        assertNull(map.remove(2L));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testNullValuesAreRejected() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+
+        assertThrows(IllegalArgumentException.class, () -> map.put(1L, null));
+        assertThrows(IllegalArgumentException.class, () -> new LongObjectHashMap<String>(-1));
+    }
+
+    @Test
+    public void testGrowsPastInitialCapacity() {
+        LongObjectHashMap<Long> map = new LongObjectHashMap<>();
+        for (long i = 1; i <= 10_000; i++) {
+            map.put(i, i * 10);
+        }
+
+        assertEquals(10_000, map.size());
+        for (long i = 1; i <= 10_000; i++) {
+            assertEquals(i * 10, map.get(i));
+        }
+    }
+
+    @Test
+    public void testRemoveKeepsOtherEntriesReachable() {
+        LongObjectHashMap<Long> map = new LongObjectHashMap<>();
+        for (long i = 1; i <= 1000; i++) {
+            map.put(i, i);
+        }
+        for (long i = 1; i <= 1000; i += 2) {
+            assertEquals(i, map.remove(i));
+        }
+
+        assertEquals(500, map.size());
+        for (long i = 1; i <= 1000; i++) {
+            assertEquals(i % 2 == 0, map.containsKey(i));
+        }
+    }
+
+    @Test
+    public void testValuesAndClear() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        map.put(1L, "a");
+        map.put(2L, "b");
+
+        assertEquals(new HashSet<>(List.of("a", "b")), new HashSet<>(map.values()));
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1L));
+        assertTrue(map.values().isEmpty());
+    }
+
+    @Test
+    public void testRandomOperationsMatchHashMap() {
+        Random random = new Random(42);
+        LongObjectHashMap<Integer> map = new LongObjectHashMap<>();
+        Map<Long, Integer> reference = new HashMap<>();
+
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(5000);
+            int op = random.nextInt(3);
+            if (op == 0) {
+                assertEquals(reference.put(key, i), map.put(key, i));
+            } else if (op == 1) {
+                assertEquals(reference.remove(key), map.remove(key));
+            } else {
+                assertEquals(reference.get(key), map.get(key));
+            }
+        }
+
+        assertEquals(reference.size(), map.size());
+        reference.forEach((key, value) -> assertEquals(value, map.get(key)));
+    }
+}
@@ -0,0 +1,122 @@
+package util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+// Tests for the immutable primitive long-keyed hash trie.
+public class LongObjectHashTrieTest {
+
+    @Test
+    public void testPlusGetAndReplace() {
+        LongObjectHashTrie<String> map = LongObjectHashTrie.<String>empty()
+                .plus(1L, "one")
+                .plus(-5L, "minus five")
+                .plus(0L, "zero");
+
+        assertEquals("one", map.get(1L));
+        assertEquals("minus five", map.get(-5L));
+        assertEquals("zero", map.get(0L));
+        assertNull(map.get(2L));
+        assertEquals(3, map.size());
+
+        LongObjectHashTrie<String> replaced = map.plus(1L, "uno");
+        assertEquals("uno", replaced.get(1L));
+        assertEquals(3, replaced.size());
+        assertEquals("one", map.get(1L));
+    }
+
+    @Test
+    public void testUnchangedMapIsReturnedAsIs() {
+        String one = "one";
+        LongObjectHashTrie<String> map = LongObjectHashTrie.<String>empty().plus(1L, one);
+
+        assertSame(map, map.plus(1L, one));
+        assertSame(map, map.minus(2L));
+        assertTrue(map.minus(1L).isEmpty());
+    }
+
+    @Test
+    public void testNullValuesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> LongObjectHashTrie.empty().plus(1L, null));
+        List<String> values = new ArrayList<>();
+        values.add(null);
+        assertThrows(IllegalArgumentException.class, () -> LongObjectHashTrie.of(values, value -> 1L));
+    }
+
+    @Test
+    public void testOfKeepsLastValueForDuplicateKeys() {
+        LongObjectHashTrie<String> map = LongObjectHashTrie.of(List.of("a1", "b2", "c1"),
+                value -> value.charAt(1) - '0');
+
+        assertEquals(2, map.size());
+        assertEquals("c1", map.get(1L));
+        assertEquals("b2", map.get(2L));
+    }
+
+    @Test
+    public void testOlderMapsAreUnchangedByLaterChanges() {
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= 1000; id++) {
+            ids.add(id);
+        }
+        LongObjectHashTrie<Long> before = LongObjectHashTrie.of(ids, Long::longValue);
+
+        LongObjectHashTrie<Long> after = before;
+        for (long id = 1; id <= 1000; id += 2) {
+            after = after.minus(id);
+        }
+        after = after.plus(5000L, 5000L);
+
+        assertEquals(1000, before.size());
+        assertEquals(501, after.size());
+        for (long id = 1; id <= 1000; id++) {
+            assertEquals(id, before.get(id));
+            assertEquals(id % 2 == 0, after.containsKey(id));
+        }
+        assertFalse(before.containsKey(5000L));
+    }
+
+    @Test
+    public void testMatchesHashMapUnderRandomChanges() {
+        Random random = new Random(42);
+        Map<Long, Long> expected = new HashMap<>();
+        LongObjectHashTrie<Long> map = LongObjectHashTrie.empty();
+
+        for (int i = 0; i < 20_000; i++) {
+            long key = random.nextInt(2000) - 100;
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.minus(key);
+            } else {
+                expected.put(key, (long) i);
+                map = map.plus(key, (long) i);
+            }
+            assertEquals(expected.size(), map.size());
+        }
+
+        for (long key = -100; key < 1900; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+        assertEquals(new HashSet<>(expected.values()), new HashSet<>(map.values()));
+
+        // Removing everything folds the branches back into an empty map
+        for (Long key : expected.keySet()) {
+            map = map.minus(key);
+        }
+        assertTrue(map.isEmpty());
+        assertTrue(map.values().isEmpty());
+    }
+}
@@ -0,0 +1,61 @@
+package config;
+
+import java.time.Duration;
+import java.util.Locale;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import repository.FileStorageEngine;
+import repository.GroupCommitPolicy;
+import repository.JdbcStorageEngine;
+import repository.StorageEngine;
+import util.JsonFileHandler;
+
+// Selects the storage engine behind the repositories with moosemate.storage.engine:
+// "file" (default) keeps JSON and binary data files, "jdbc" an embedded H2 database at
+// moosemate.storage.jdbc.url (next to the data files unless set). Set moosemate.storage.shared
+// when several instances use the same data directory, so the file engine coordinates their
+// writes and each picks up the others' changes (see FileStorageEngine).
+@Configuration
+public class StorageConfig {
+
+    private static final String DEFAULT_DATABASE_PATH = "persistence/src/main/resources/data/moosemate";
+
+    @Bean(destroyMethod = "close")
+    public StorageEngine storageEngine(
+            @Value("${moosemate.storage.engine:" + FileStorageEngine.NAME + "}") String engine,
+            @Value("${moosemate.storage.shared:false}") boolean shared,
+            @Value("${moosemate.storage.jdbc.url:}") String jdbcUrl,
+            @Value("${moosemate.storage.jdbc.username:sa}") String jdbcUsername,
+            @Value("${moosemate.storage.jdbc.password:}") String jdbcPassword,
+            @Value("${moosemate.storage.jdbc.pool-size:" + JdbcStorageEngine.DEFAULT_POOL_SIZE + "}") int poolSize,
+            @Value("${moosemate.moosage-log.batch-window:PT0.001S}") Duration batchWindow,
+            @Value("${moosemate.moosage-log.max-batch-size:256}") int maxBatchSize,
+            @Value("${moosemate.moosage-log.sync:EVERY_BATCH}") GroupCommitPolicy.SyncMode sync,
+            @Value("${moosemate.moosage-log.sync-interval:PT0.1S}") Duration syncInterval) {
+        String name = engine != null ? engine.trim().toLowerCase(Locale.ROOT) : "";
+        switch (name) {
+            case FileStorageEngine.NAME:
+                return new FileStorageEngine(new JsonFileHandler(),
+                        new GroupCommitPolicy(batchWindow, maxBatchSize, sync, syncInterval), shared);
+            case JdbcStorageEngine.NAME:
+                if (shared) {
+                    // An embedded H2 file can only be opened by one process
+                    throw new IllegalArgumentException(
+                            "Shared storage needs the " + FileStorageEngine.NAME + " engine");
+                }
+                String url = jdbcUrl == null || jdbcUrl.isBlank() ? defaultJdbcUrl() : jdbcUrl;
+                return new JdbcStorageEngine(url, jdbcUsername, jdbcPassword, poolSize);
+            default:
+                throw new IllegalArgumentException("Unknown storage engine: " + engine
+                        + " (expected " + FileStorageEngine.NAME + " or " + JdbcStorageEngine.NAME + ")");
+        }
+    }
+
+    // H2 adds .mv.db to the path
+    static String defaultJdbcUrl() {
+        return "jdbc:h2:file:" + new JsonFileHandler().getDataFilePath(DEFAULT_DATABASE_PATH);
+    }
+}
@@ -15,6 +15,7 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import service.LoginService;
+import service.ServiceBusyException;
 import service.SessionService;
 import service.SignUpService;
 import util.ResponseUtils;
@@ -26,6 +27,9 @@ import util.ResponseUtils;
 @RequestMapping("/api/auth")
 public class AuthController {
 
+    // Suggested wait before retrying when password checks are at capacity
+    private static final int RETRY_AFTER_SECONDS = 1;
+
     @Autowired
     private LoginService loginService;
 
@@ -60,6 +64,8 @@ public class AuthController {
             }
         } catch (IllegalArgumentException e) {
             return ResponseUtils.badRequest(e.getMessage());
+        } catch (ServiceBusyException e) {
+            return ResponseUtils.serviceUnavailable(e.getMessage(), RETRY_AFTER_SECONDS);
         } catch (Exception e) {
             return ResponseUtils.internalError("Login failed: " + e.getMessage());
         }
@@ -79,6 +85,8 @@ public class AuthController {
             }
         } catch (IllegalArgumentException e) {
             return ResponseUtils.badRequest(e.getMessage());
+        } catch (ServiceBusyException e) {
+            return ResponseUtils.serviceUnavailable(e.getMessage(), RETRY_AFTER_SECONDS);
         } catch (Exception e) {
             return ResponseUtils.internalError("Signup failed: " + e.getMessage());
         }
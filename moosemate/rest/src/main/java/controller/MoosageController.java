@@ -2,10 +2,15 @@ package controller;
 
 import dto.ApiResponse;
 import dto.CreateMoosageRequest;
+import dto.LikersPage;
+import dto.MoosageChanges;
 import dto.MoosageDto;
 import dto.UpdateMoosageRequest;
 import model.Moosage;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -15,12 +20,23 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import repository.MoosageChangeSet;
+import service.FeedEventHub;
+import service.FeedResponseCache;
 import service.MoosageService;
+import service.ServiceBusyException;
 import service.SessionService;
+import util.FeedCursor;
 import util.ResponseUtils;
 import util.ValidationUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -30,63 +46,232 @@ import java.util.stream.Collectors;
 @RequestMapping("/api/moosages")
 public final class MoosageController {
 
+    // Upper bound for the 'limit' parameter of the paged feed
+    static final int MAX_PAGE_SIZE = 100;
+    // More changed moosages than this are answered with an incomplete change set, as
+    // reloading the feed is then cheaper for the client
+    static final int MAX_CHANGES = 500;
+    // Clients turned away from the event stream retry after this many seconds
+    private static final int STREAM_RETRY_AFTER_SECONDS = 5;
+
     private final MoosageService moosageService;
     private final SessionService sessionService;
+    private final FeedEventHub feedEventHub;
+    private final FeedResponseCache feedResponseCache;
 
     @Autowired
-    public MoosageController(MoosageService moosageService, SessionService sessionService) {
+    public MoosageController(MoosageService moosageService, SessionService sessionService,
+                             FeedEventHub feedEventHub, FeedResponseCache feedResponseCache) {
         if (moosageService == null) {
             throw new IllegalArgumentException("MoosageService cannot be null");
         }
         if (sessionService == null) {
             throw new IllegalArgumentException("SessionService cannot be null");
         }
+        if (feedEventHub == null) {
+            throw new IllegalArgumentException("FeedEventHub cannot be null");
+        }
+        if (feedResponseCache == null) {
+            throw new IllegalArgumentException("FeedResponseCache cannot be null");
+        }
         this.moosageService = moosageService;
         this.sessionService = sessionService;
+        this.feedEventHub = feedEventHub;
+        this.feedResponseCache = feedResponseCache;
     }
 
     // Get all moosages (GET /api/moosages)
+    // Answered with 304 if the If-None-Match validator is still current; see etag. The body,
+    // an ApiResponse<List<MoosageDto>>, comes serialized from the FeedResponseCache.
     @GetMapping
-    public ResponseEntity<ApiResponse<List<MoosageDto>>> getAllMoosages(
+    public ResponseEntity<?> getAllMoosages(
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch,
+            @RequestHeader(value = "Accept-Encoding", required = false) String acceptEncoding,
             @RequestHeader("Session-Token") String sessionToken) {
 
-        // Verify session
-        if (ValidationUtils.isNullOrEmpty(sessionService.getUserIdByToken(sessionToken))) {
+        // Get userID and verify session
+        String userId = sessionService.getUserIdByToken(sessionToken);
+        if (ValidationUtils.isNullOrEmpty(userId)) {
             return ResponseUtils.unauthorized("Invalid session token");
         }
 
         try {
-            List<Moosage> moosages = moosageService.getAllMoosages();
-            List<MoosageDto> moosageDtos = moosages.stream()
-                    .map(MoosageDto::fromMoosage)
-                    .collect(Collectors.toList());
-            return ResponseUtils.ok("Moosages retrieved successfully", moosageDtos);
+            // Read before the moosages, so the validator is never newer than the body
+            long changeSequence = moosageService.getChangeSequence();
+            String etag = etag(moosageService.getChangeEpoch(), changeSequence, userId);
+            String matching = ResponseUtils.matchingEtag(ifNoneMatch, etag);
+            if (matching != null) {
+                return ResponseUtils.notModifiedSerialized(matching);
+            }
+            FeedResponseCache.Body body = feedResponseCache.getAllMoosages(
+                    changeSequence, userId, ResponseUtils.acceptsGzip(acceptEncoding));
+            return ResponseUtils.okSerialized(body.bytes(), body.gzipped(), etag);
+        } catch (Exception e) {
+            return ResponseUtils.internalError("Error retrieving moosages: " + e.getMessage());
+        }
+    }
+
+    // Get one page of the feed, newest first (GET /api/moosages?limit=50&before=<cursor>)
+    // The cursor marks the last moosage of the previous page, so pages stay stable while
+    // new moosages are posted and no offset has to be skipped over. Answered with 304 if the
+    // If-None-Match validator is still current; see pageEtag. The body, an
+    // ApiResponse<MoosagePage>, comes serialized from the FeedResponseCache.
+    @GetMapping(params = "limit")
+    public ResponseEntity<?> getMoosagePage(
+            @RequestParam("limit") int limit,
+            @RequestParam(value = "before", required = false) String before,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch,
+            @RequestHeader(value = "Accept-Encoding", required = false) String acceptEncoding,
+            @RequestHeader("Session-Token") String sessionToken) {
+
+        // Get userID and verify session
+        String userId = sessionService.getUserIdByToken(sessionToken);
+        if (ValidationUtils.isNullOrEmpty(userId)) {
+            return ResponseUtils.unauthorized("Invalid session token");
+        }
+
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseUtils.badRequest("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        FeedCursor cursor = null;
+        if (before != null) {
+            try {
+                cursor = FeedCursor.decode(before);
+            } catch (IllegalArgumentException e) {
+                return ResponseUtils.badRequest(e.getMessage());
+            }
+        }
+
+        try {
+            // Read first, so changes made while the page is read are reported again rather than missed
+            long changeSequence = moosageService.getChangeSequence();
+            String etag = pageEtag(moosageService.getChangeEpoch(), changeSequence, userId, before, limit);
+            String matching = ResponseUtils.matchingEtag(ifNoneMatch, etag);
+            if (matching != null) {
+                return ResponseUtils.notModifiedSerialized(matching);
+            }
+            FeedResponseCache.Body body = feedResponseCache.getPage(
+                    changeSequence, cursor, limit, userId, ResponseUtils.acceptsGzip(acceptEncoding));
+            return ResponseUtils.okSerialized(body.bytes(), body.gzipped(), etag);
         } catch (Exception e) {
             return ResponseUtils.internalError("Error retrieving moosages: " + e.getMessage());
         }
     }
 
+    // Get what changed after a change sequence number (GET /api/moosages/changes?since=<seq>)
+    // A client keeps the changeSequence of its feed page and later asks for the moosages changed
+    // or deleted since, so a refresh costs as much as what changed rather than the whole feed.
+    @GetMapping("/changes")
+    public ResponseEntity<ApiResponse<MoosageChanges>> getChanges(
+            @RequestParam("since") long since,
+            @RequestHeader("Session-Token") String sessionToken) {
+
+        // Get userID and verify session
+        String userId = sessionService.getUserIdByToken(sessionToken);
+        if (ValidationUtils.isNullOrEmpty(userId)) {
+            return ResponseUtils.unauthorized("Invalid session token");
+        }
+
+        try {
+            MoosageChangeSet changes = moosageService.getChangesSince(since, MAX_CHANGES);
+            List<MoosageDto> changed = changes.changed().stream()
+                    .map(moosage -> toDto(moosage, userId))
+                    .collect(Collectors.toList());
+            return ResponseUtils.ok("Changes retrieved successfully",
+                    new MoosageChanges(changes.sequence(), changes.complete(), changed, changes.deleted()));
+        } catch (Exception e) {
+            return ResponseUtils.internalError("Error retrieving changes: " + e.getMessage());
+        }
+    }
+
+    // Stream of feed changes as server-sent events (GET /api/moosages/stream)
+    // Clients load the feed once and apply the events to it; see MoosageEvent. The stream has
+    // no JSON envelope, so refusals carry only the status.
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamMoosageEvents(
+            @RequestHeader("Session-Token") String sessionToken) {
+
+        // Verify session
+        if (ValidationUtils.isNullOrEmpty(sessionService.getUserIdByToken(sessionToken))) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        try {
+            return ResponseEntity.ok(feedEventHub.subscribe());
+        } catch (ServiceBusyException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(STREAM_RETRY_AFTER_SECONDS))
+                    .build();
+        }
+    }
+
     // Get a specific moosage by ID. (GET /api/moosages/{id})
+    // Answered with 304 if the If-None-Match validator is still current; see etag.
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<MoosageDto>> getMoosageById(
             @PathVariable Long id,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch,
             @RequestHeader("Session-Token") String sessionToken) {
 
-        // Verify session
-        if (ValidationUtils.isNullOrEmpty(sessionService.getUserIdByToken(sessionToken))) {
+        // Get userID and verify session
+        String userId = sessionService.getUserIdByToken(sessionToken);
+        if (ValidationUtils.isNullOrEmpty(userId)) {
             return ResponseUtils.unauthorized("Invalid session token");
         }
 
+        // The moosage's own change number, so other moosages' changes keep it valid
+        String etag = etag(moosageService.getChangeEpoch(), moosageService.getChangeSequence(id), userId);
+        if (ResponseUtils.etagMatches(ifNoneMatch, etag)) {
+            return ResponseUtils.notModified(etag);
+        }
+
         Optional<Moosage> moosage = moosageService.getMoosageById(id);
 
         if (moosage.isPresent()) {
-            MoosageDto dto = MoosageDto.fromMoosage(moosage.get());
-            return ResponseUtils.ok("Moosage found", dto);
+            MoosageDto dto = toDto(moosage.get(), userId);
+            return ResponseUtils.ok("Moosage found", dto, etag);
         } else {
             return ResponseUtils.notFound("Moosage not found");
         }
     }
 
+    // Get the users who liked a moosage, one page at a time (GET /api/moosages/{id}/likes?limit=50&after=<cursor>)
+    // The feed only carries the like count, so the full list is served from here.
+    @GetMapping("/{id}/likes")
+    public ResponseEntity<ApiResponse<LikersPage>> getLikers(
+            @PathVariable Long id,
+            @RequestParam(value = "limit", defaultValue = "50") int limit,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestHeader("Session-Token") String sessionToken) {
+
+        // Verify session
+        if (ValidationUtils.isNullOrEmpty(sessionService.getUserIdByToken(sessionToken))) {
+            return ResponseUtils.unauthorized("Invalid session token");
+        }
+
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseUtils.badRequest("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        try {
+            // Fetch one extra userID to find out whether another page follows
+            Optional<List<String>> likers = moosageService.getLikers(id, after, limit + 1);
+            if (likers.isEmpty()) {
+                return ResponseUtils.notFound("Moosage not found");
+            }
+            List<String> userIds = likers.get();
+            boolean hasMore = userIds.size() > limit;
+            if (hasMore) {
+                userIds = userIds.subList(0, limit);
+            }
+            String nextCursor = hasMore ? userIds.get(limit - 1) : null;
+            return ResponseUtils.ok("Likes retrieved successfully", new LikersPage(userIds, nextCursor));
+        } catch (Exception e) {
+            return ResponseUtils.internalError("Error retrieving likes: " + e.getMessage());
+        }
+    }
+
     // Create a new moosage. (POST /api/moosages)
     @PostMapping
     public ResponseEntity<ApiResponse<MoosageDto>> createMoosage(
@@ -109,7 +294,7 @@ public final class MoosageController {
 
         try {
             Moosage moosage = moosageService.createMoosage(request.getContent(), userId);
-            MoosageDto dto = MoosageDto.fromMoosage(moosage);
+            MoosageDto dto = toDto(moosage, userId);
             return ResponseUtils.created("Moosage created successfully", dto);
         } catch (IllegalArgumentException e) {
             return ResponseUtils.badRequest(e.getMessage());
@@ -133,7 +318,7 @@ public final class MoosageController {
         try {
             Optional<Moosage> moosage = moosageService.toggleLike(id, userId);
             if (moosage.isPresent()) {
-                MoosageDto dto = MoosageDto.fromMoosage(moosage.get());
+                MoosageDto dto = toDto(moosage.get(), userId);
                 return ResponseUtils.ok("Like toggled successfully", dto);
             } else {
                 return ResponseUtils.notFound("Moosage not found");
@@ -171,14 +356,14 @@ public final class MoosageController {
             return ResponseUtils.notFound("Moosage not found");
         }
 
-        if (!moosage.get().getAuthor().getUserID().equals(userId)) {
+        if (!userId.equals(moosage.get().getAuthorId())) {
             return ResponseUtils.forbidden("You can only edit your own moosage");
         }
 
         try {
             Optional<Moosage> updatedMoosage = moosageService.updateMoosage(id, request.getContent().trim());
             if (updatedMoosage.isPresent()) {
-                MoosageDto dto = MoosageDto.fromMoosage(updatedMoosage.get());
+                MoosageDto dto = toDto(updatedMoosage.get(), userId);
                 return ResponseUtils.ok("Moosage updated successfully", dto);
             } else {
                 return ResponseUtils.notFound("Moosage not found");
@@ -206,15 +391,49 @@ public final class MoosageController {
             return ResponseUtils.notFound("Moosage not found");
         }
 
-        if (!moosage.get().getAuthor().getUserID().equals(userId)) {
+        if (!userId.equals(moosage.get().getAuthorId())) {
             return ResponseUtils.forbidden("You can only delete your own moosage");
         }
 
-        boolean deleted = moosageService.deleteMoosage(id);
-        if (deleted) {
-            return ResponseUtils.ok("Moosage deleted successfully");
-        } else {
-            return ResponseUtils.notFound("Moosage not found");
+        try {
+            boolean deleted = moosageService.deleteMoosage(id);
+            if (deleted) {
+                return ResponseUtils.ok("Moosage deleted successfully");
+            } else {
+                return ResponseUtils.notFound("Moosage not found");
+            }
+        } catch (Exception e) {
+            return ResponseUtils.internalError("Error deleting moosage: " + e.getMessage());
+        }
+    }
+
+    // Strong ETag from a change sequence number, which changes with every change of what was
+    // read. The numbers are only unique within one epoch (another instance or a restart counts
+    // on its own), so the epoch is part of it. likedByMe makes bodies differ per user, so the
+    // user is part of it too, as a digest: a hash code would let two users share a tag.
+    static String etag(String changeEpoch, long changeSequence, String userId) {
+        return "\"" + changeEpoch + "-" + Long.toString(changeSequence, 36) + "-" + digest(userId) + "\"";
+    }
+
+    // ETag of one page of the feed: as etag, with the cursor and limit in the digest too, so
+    // pages of the same feed never share a tag
+    static String pageEtag(String changeEpoch, long changeSequence, String userId, String before, int limit) {
+        String page = userId + "\n" + (before != null ? before : "") + "\n" + limit;
+        return "\"" + changeEpoch + "-" + Long.toString(changeSequence, 36) + "-" + digest(page) + "\"";
+    }
+
+    // SHA-256 of the userID (and page), so the header does not show the id itself
+    private static String digest(String value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
         }
     }
+
+    // Joins the author's username, which moosages do not store
+    private MoosageDto toDto(Moosage moosage, String userId) {
+        return MoosageDto.fromMoosage(moosage, moosageService.getAuthorUsername(moosage), userId);
+    }
 }
@@ -0,0 +1,15 @@
+package service;
+
+// Reads asked for and reads actually run by a single-flight layer since it was created; the
+// difference shared another caller's result.
+public record CoalescingStats(long reads, long executions) {
+
+    public long coalesced() {
+        return reads - executions;
+    }
+
+    // Share of reads answered by another caller's read, or 0 before the first read
+    public double coalescingRatio() {
+        return reads == 0 ? 0.0 : (double) coalesced() / reads;
+    }
+}
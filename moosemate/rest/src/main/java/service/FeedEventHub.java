@@ -0,0 +1,388 @@
+package service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dto.MoosageDto;
+import dto.MoosageEvent;
+import model.Moosage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import repository.MoosageListener;
+import repository.MoosageMutation;
+import repository.MoosageRepository;
+import repository.UserRepository;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Pushes feed changes to subscribed clients as server-sent events, so they can update the
+// moosages they show instead of reloading the feed (see MoosageEvent).
+//
+// Writers only hand the change to a queue; a dispatcher thread turns it into an event,
+// serializes it once and adds it to every subscriber's pending events, and each subscriber is
+// drained by its own virtual thread. A slow client therefore never holds up a writer or the
+// other clients. Pending events are keyed by moosage and kind, so a newer like count or edit
+// replaces one that was not sent yet. A subscriber that falls further behind than the pending
+// limit gets its events dropped and a single RESYNC instead, telling it to reload the feed.
+// The writers' queue is bounded too: when the dispatcher falls that far behind, the queued
+// changes are dropped and every subscriber gets a RESYNC.
+@Service
+public final class FeedEventHub implements MoosageListener, AutoCloseable {
+
+    static final int DEFAULT_MAX_SUBSCRIBERS = 1000;
+    static final int DEFAULT_MAX_PENDING = 256;
+    static final int DEFAULT_MAX_QUEUED = 4096;
+    static final long DEFAULT_TIMEOUT_SECONDS = 30 * 60;
+    static final long DEFAULT_HEARTBEAT_SECONDS = 20;
+
+    // An event as sent: the SSE event name and the serialized MoosageEvent. A null name is a
+    // heartbeat comment, which keeps idle connections from being closed by proxies.
+    record Outgoing(String key, String name, String json) {
+    }
+
+    // Where a subscriber's events go; an SseEmitter outside of tests
+    interface Sink {
+        void send(List<Outgoing> events) throws IOException;
+
+        void close();
+    }
+
+    // A null mutation stands for a reload
+    private record Change(MoosageMutation mutation, Moosage moosage) {
+    }
+
+    private static final Change RELOADED = new Change(null, null);
+
+    private final class Subscriber {
+        private final Sink sink;
+        // Events not sent yet, in arrival order; guarded by this
+        private final Map<String, Outgoing> pending = new LinkedHashMap<>();
+        private boolean draining;
+        private boolean closed;
+
+        Subscriber(Sink sink) {
+            this.sink = sink;
+        }
+    }
+
+    private static final Outgoing HEARTBEAT = new Outgoing("heartbeat", null, "");
+
+    private final MoosageRepository moosageRepository;
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+    private final int maxSubscribers;
+    private final int maxPending;
+    private final long timeoutMillis;
+    private final Outgoing resync;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    // Counts a subscriber before it is added, so concurrent subscribes cannot pass the limit
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final BlockingQueue<Change> changes;
+    // Set by a writer that found the queue full; the dispatcher then sends a RESYNC instead
+    private final AtomicBoolean overflowed = new AtomicBoolean();
+    private final Thread dispatcher;
+    private final ExecutorService senders;
+    private final ScheduledExecutorService heartbeat;
+
+    // Metrics
+    private final AtomicLong sentCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong resyncCount = new AtomicLong();
+    private final AtomicLong overflowCount = new AtomicLong();
+
+    @Autowired
+    public FeedEventHub(MoosageRepository moosageRepository, UserRepository userRepository,
+            ObjectMapper objectMapper,
+            @Value("${moosemate.feed-events.max-subscribers:" + DEFAULT_MAX_SUBSCRIBERS + "}") int maxSubscribers,
+            @Value("${moosemate.feed-events.max-pending:" + DEFAULT_MAX_PENDING + "}") int maxPending,
+            @Value("${moosemate.feed-events.max-queued:" + DEFAULT_MAX_QUEUED + "}") int maxQueued,
+            @Value("${moosemate.feed-events.timeout-seconds:" + DEFAULT_TIMEOUT_SECONDS + "}") long timeoutSeconds,
+            @Value("${moosemate.feed-events.heartbeat-seconds:" + DEFAULT_HEARTBEAT_SECONDS + "}")
+            long heartbeatSeconds) {
+        if (moosageRepository == null) {
+            throw new IllegalArgumentException("MoosageRepository cannot be null");
+        }
+        if (userRepository == null) {
+            throw new IllegalArgumentException("UserRepository cannot be null");
+        }
+        if (objectMapper == null) {
+            throw new IllegalArgumentException("ObjectMapper cannot be null");
+        }
+        if (maxSubscribers < 1 || maxPending < 1 || maxQueued < 1) {
+            throw new IllegalArgumentException("Subscriber, pending and queued event limits must be positive");
+        }
+        if (timeoutSeconds < 1 || heartbeatSeconds < 1) {
+            throw new IllegalArgumentException("Timeout and heartbeat interval must be positive");
+        }
+        this.moosageRepository = moosageRepository;
+        this.userRepository = userRepository;
+        this.objectMapper = objectMapper;
+        this.maxSubscribers = maxSubscribers;
+        this.maxPending = maxPending;
+        this.timeoutMillis = TimeUnit.SECONDS.toMillis(timeoutSeconds);
+        this.resync = toOutgoing("resync", MoosageEvent.resync());
+        this.changes = new ArrayBlockingQueue<>(maxQueued);
+
+        this.senders = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("feed-event-sender-", 0).factory());
+        this.dispatcher = new Thread(this::dispatch, "feed-event-dispatcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "feed-event-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat.scheduleAtFixedRate(() -> publish(HEARTBEAT), heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        moosageRepository.addListener(this);
+    }
+
+    // Opens a stream for one client. Throws ServiceBusyException when the subscriber limit is
+    // reached.
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = add(new Sink() {
+            @Override
+            public void send(List<Outgoing> events) throws IOException {
+                // One write and flush for everything that was pending
+                Set<DataWithMediaType> data = new LinkedHashSet<>();
+                for (Outgoing event : events) {
+                    SseEmitter.SseEventBuilder builder = event.name() == null
+                            ? SseEmitter.event().comment("")
+                            : SseEmitter.event().name(event.name()).data(event.json(), MediaType.APPLICATION_JSON);
+                    data.addAll(builder.build());
+                }
+                emitter.send(data);
+            }
+
+            @Override
+            public void close() {
+                emitter.complete();
+            }
+        });
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+        return emitter;
+    }
+
+    void subscribe(Sink sink) {
+        add(sink);
+    }
+
+    private Subscriber add(Sink sink) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new ServiceBusyException("Too many feed subscribers, please try again shortly");
+        }
+        Subscriber subscriber = new Subscriber(sink);
+        subscribers.add(subscriber);
+        return subscriber;
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            subscriberCount.decrementAndGet();
+        }
+        synchronized (subscriber) {
+            subscriber.closed = true;
+            subscriber.pending.clear();
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    public long getSentCount() {
+        return sentCount.get();
+    }
+
+    // Events replaced by a newer one for the same moosage before they were sent
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    // Times a subscriber fell behind and was told to reload instead
+    public long getResyncCount() {
+        return resyncCount.get();
+    }
+
+    // Times the writers' queue was full and all subscribers were told to reload instead
+    public long getOverflowCount() {
+        return overflowCount.get();
+    }
+
+    // Runs on the writing thread, so it only queues the change
+    @Override
+    public void moosageChanged(MoosageMutation mutation, Moosage moosage) {
+        queue(new Change(mutation, moosage));
+    }
+
+    @Override
+    public void moosagesReloaded() {
+        queue(RELOADED);
+    }
+
+    // Never blocks a writer: a change that does not fit turns into a RESYNC for everyone
+    private void queue(Change change) {
+        if (!changes.offer(change)) {
+            overflowed.set(true);
+        }
+    }
+
+    private void dispatch() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Change change;
+            try {
+                change = changes.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (overflowed.getAndSet(false)) {
+                // Everything queued so far is covered by the reload; newer changes follow it
+                changes.clear();
+                overflowCount.incrementAndGet();
+                change = RELOADED;
+            }
+            try {
+                Outgoing event = toOutgoing(change);
+                if (event != null) {
+                    publish(event);
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Error publishing feed event: " + e.getMessage());
+            }
+        }
+    }
+
+    // The event for a change, or null if clients need not hear about it
+    private Outgoing toOutgoing(Change change) {
+        if (change == RELOADED) {
+            return resync;
+        }
+        MoosageMutation mutation = change.mutation();
+        Moosage moosage = change.moosage();
+        if (mutation.op() == MoosageMutation.Operation.DELETE) {
+            return toOutgoing("deleted", MoosageEvent.deleted(mutation.id()));
+        }
+        if (moosage == null) {
+            // Deleted again before the change was applied; its delete follows
+            return null;
+        }
+        return switch (mutation.op()) {
+            case CREATE -> toOutgoing("created", MoosageEvent.created(MoosageDto.fromMoosage(moosage,
+                    userRepository.getUsername(moosage.getAuthorId()), null)));
+            case LIKE -> toOutgoing("likes", MoosageEvent.likes(moosage.getId(), moosage.getLikeCount()));
+            case UPDATE -> toOutgoing("edited", MoosageEvent.edited(moosage.getId(), moosage.getContent()));
+            default -> null;
+        };
+    }
+
+    private Outgoing toOutgoing(String name, MoosageEvent event) {
+        try {
+            String key = event.getId() == null ? name : name + ":" + event.getId();
+            return new Outgoing(key, name, objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Serializing feed event failed: " + e.getMessage(), e);
+        }
+    }
+
+    private void publish(Outgoing event) {
+        for (Subscriber subscriber : subscribers) {
+            enqueue(subscriber, event);
+        }
+    }
+
+    private void enqueue(Subscriber subscriber, Outgoing event) {
+        synchronized (subscriber) {
+            if (subscriber.closed || subscriber.pending.containsKey(resync.key()) && event != resync) {
+                // The client reloads the feed anyway
+                return;
+            }
+            if (subscriber.pending.remove(event.key()) != null) {
+                coalescedCount.incrementAndGet();
+            }
+            if ("deleted".equals(event.name())) {
+                dropPendingChangesOf(subscriber, event);
+            }
+            subscriber.pending.put(event.key(), event);
+            if (subscriber.pending.size() > maxPending) {
+                subscriber.pending.clear();
+                subscriber.pending.put(resync.key(), resync);
+                resyncCount.incrementAndGet();
+            }
+            if (subscriber.draining) {
+                return;
+            }
+            subscriber.draining = true;
+        }
+        senders.execute(() -> drain(subscriber));
+    }
+
+    // A deleted moosage's pending create, edit and like count need not be sent
+    private void dropPendingChangesOf(Subscriber subscriber, Outgoing deleted) {
+        String id = deleted.key().substring(deleted.key().indexOf(':'));
+        for (String name : List.of("created", "edited", "likes")) {
+            if (subscriber.pending.remove(name + id) != null) {
+                coalescedCount.incrementAndGet();
+            }
+        }
+    }
+
+    // Sends pending events until there are none left. Only one drain runs per subscriber.
+    private void drain(Subscriber subscriber) {
+        while (true) {
+            List<Outgoing> batch;
+            synchronized (subscriber) {
+                if (subscriber.closed || subscriber.pending.isEmpty()) {
+                    subscriber.draining = false;
+                    return;
+                }
+                batch = new ArrayList<>(subscriber.pending.values());
+                subscriber.pending.clear();
+            }
+            try {
+                subscriber.sink.send(batch);
+                sentCount.addAndGet(batch.size());
+            } catch (IOException | RuntimeException e) {
+                // The client went away; the container reports the completion as well
+                unsubscribe(subscriber);
+                subscriber.sink.close();
+                return;
+            }
+        }
+    }
+
+    // Ends every stream; clients reconnect to another instance or once this one is back
+    @Override
+    public void close() {
+        moosageRepository.removeListener(this);
+        heartbeat.shutdownNow();
+        dispatcher.interrupt();
+        for (Subscriber subscriber : subscribers) {
+            unsubscribe(subscriber);
+            subscriber.sink.close();
+        }
+        senders.shutdownNow();
+    }
+}
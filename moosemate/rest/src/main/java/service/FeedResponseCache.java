@@ -0,0 +1,304 @@
+package service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dto.ApiResponse;
+import dto.MoosageDto;
+import dto.MoosagePage;
+import model.Moosage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import util.FeedCursor;
+import util.UserIdOrdinals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+// Serialized feed responses (GET /api/moosages, with or without a page cursor), kept between
+// writes so a read is a byte copy instead of mapping every moosage and running Jackson.
+//
+// The feed reads the same for every user apart from likedByMe, so each response is serialized
+// once with likedByMe false everywhere, remembering where each flag sits. A user's response is
+// that body with the flags of the moosages they liked turned to true; a user who liked none of
+// them gets the shared body itself, gzipped once if the client takes it.
+//
+// Responses are kept per change sequence number (see MoosageRepository), so any write makes
+// them unreachable; the first read of the next number drops the rest. Only maxPages responses
+// are kept per number, further ones are built for the request and not kept.
+@Service
+public final class FeedResponseCache {
+
+    static final int DEFAULT_MAX_PAGES = 256;
+    // Smaller bodies are not worth compressing
+    static final int GZIP_MIN_BYTES = 1024;
+    static final String MESSAGE = "Moosages retrieved successfully";
+
+    private static final byte[] FLAG = "\"likedByMe\":false".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.UTF_8);
+
+    private final MoosageService moosageService;
+    // The repository's table, in which the likes of the cached moosages are interned
+    private final UserIdOrdinals ordinals;
+    private final ObjectMapper objectMapper;
+    private final int maxPages;
+    private final AtomicReference<Generation> generation = new AtomicReference<>(new Generation(Long.MIN_VALUE));
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    // A response body, gzipped or not
+    public record Body(byte[] bytes, boolean gzipped) {
+    }
+
+    // Which response: a page of the given size before the cursor, or the whole feed (limit 0)
+    private record Key(String before, int limit) {
+    }
+
+    // The responses for one change sequence number
+    private record Generation(long changeSequence, Map<Key, Entry> entries) {
+        Generation(long changeSequence) {
+            this(changeSequence, new ConcurrentHashMap<>());
+        }
+    }
+
+    @Autowired
+    public FeedResponseCache(MoosageService moosageService, ObjectMapper objectMapper,
+            @Value("${moosemate.feed-cache.max-pages:" + DEFAULT_MAX_PAGES + "}") int maxPages) {
+        if (moosageService == null) {
+            throw new IllegalArgumentException("MoosageService cannot be null");
+        }
+        if (objectMapper == null) {
+            throw new IllegalArgumentException("ObjectMapper cannot be null");
+        }
+        if (maxPages < 0) {
+            throw new IllegalArgumentException("Max pages cannot be negative");
+        }
+        this.moosageService = moosageService;
+        this.ordinals = moosageService.getUserIdOrdinals();
+        this.objectMapper = objectMapper;
+        this.maxPages = maxPages;
+    }
+
+    // The whole feed as ApiResponse<List<MoosageDto>>. changeSequence must be read before the
+    // call, so a body is never kept under a number older than what it shows.
+    public Body getAllMoosages(long changeSequence, String userId, boolean gzip) {
+        return entry(changeSequence, new Key(null, 0), this::buildAll).render(userId, ordinals, gzip);
+    }
+
+    // One page of the feed as ApiResponse<MoosagePage>; see MoosageController.getMoosagePage
+    public Body getPage(long changeSequence, FeedCursor cursor, int limit, String userId, boolean gzip) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        Key key = new Key(cursor != null ? cursor.encode() : null, limit);
+        return entry(changeSequence, key, k -> buildPage(changeSequence, cursor, limit))
+                .render(userId, ordinals, gzip);
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    // Number of responses kept for the latest change sequence number
+    public int size() {
+        return generation.get().entries().size();
+    }
+
+    private Entry entry(long changeSequence, Key key, Function<Key, Entry> builder) {
+        Generation current = generation.get();
+        while (current.changeSequence() < changeSequence) {
+            Generation next = new Generation(changeSequence);
+            if (generation.compareAndSet(current, next)) {
+                current = next;
+            } else {
+                current = generation.get();
+            }
+        }
+        if (current.changeSequence() != changeSequence) {
+            // Read before a write that another request has already seen; not worth keeping
+            misses.incrementAndGet();
+            return builder.apply(key);
+        }
+        Entry entry = current.entries().get(key);
+        if (entry != null) {
+            hits.incrementAndGet();
+            return entry;
+        }
+        misses.incrementAndGet();
+        if (current.entries().size() >= maxPages) {
+            return builder.apply(key);
+        }
+        // Concurrent misses of the same response build it once
+        return current.entries().computeIfAbsent(key, builder);
+    }
+
+    private Entry buildAll(Key key) {
+        List<Moosage> moosages = moosageService.getAllMoosages();
+        return serialize(new ApiResponse<>(true, MESSAGE, toSharedDtos(moosages)), moosages);
+    }
+
+    private Entry buildPage(long changeSequence, FeedCursor cursor, int limit) {
+        // Fetch one extra moosage to find out whether another page follows
+        List<Moosage> moosages = cursor == null
+                ? moosageService.getMoosagesBefore(null, null, limit + 1)
+                : moosageService.getMoosagesBefore(cursor.time(), cursor.id(), limit + 1);
+        boolean hasMore = moosages.size() > limit;
+        if (hasMore) {
+            moosages = moosages.subList(0, limit);
+        }
+        String nextCursor = hasMore ? FeedCursor.of(moosages.get(limit - 1)).encode() : null;
+        MoosagePage page = new MoosagePage(toSharedDtos(moosages), nextCursor);
+        page.setChangeSequence(changeSequence);
+        return serialize(new ApiResponse<>(true, MESSAGE, page), moosages);
+    }
+
+    // DTOs as every user sees them before their own likes are filled in
+    private List<MoosageDto> toSharedDtos(List<Moosage> moosages) {
+        List<MoosageDto> dtos = new ArrayList<>(moosages.size());
+        for (Moosage moosage : moosages) {
+            MoosageDto dto = new MoosageDto(moosage.getId(), moosage.getContent(), moosage.getAuthorId(),
+                    moosageService.getAuthorUsername(moosage), moosage.getTime(), moosage.getLikeCount(), false);
+            dto.setEdited(moosage.isEdited());
+            dtos.add(dto);
+        }
+        return dtos;
+    }
+
+    private Entry serialize(ApiResponse<?> response, List<Moosage> moosages) {
+        byte[] bytes;
+        try {
+            bytes = objectMapper.writeValueAsBytes(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Serializing feed failed: " + e.getMessage(), e);
+        }
+        return new Entry(bytes, List.copyOf(moosages), flagOffsets(bytes, moosages.size()));
+    }
+
+    // Offsets of the "false" of each moosage's likedByMe, in feed order. Inside strings quotes
+    // are escaped, so the unescaped field name only occurs as the field itself.
+    static int[] flagOffsets(byte[] bytes, int count) {
+        int[] offsets = new int[count];
+        int found = 0;
+        int last = bytes.length - FLAG.length;
+        for (int i = 0; i <= last; i++) {
+            if (matchesFlag(bytes, i)) {
+                if (found == count) {
+                    throw new IllegalStateException("Feed has more likedByMe fields than moosages");
+                }
+                offsets[found++] = i + FLAG.length - FALSE.length;
+                i += FLAG.length - 1;
+            }
+        }
+        if (found != count) {
+            throw new IllegalStateException("Feed has " + found + " likedByMe fields for " + count + " moosages");
+        }
+        return offsets;
+    }
+
+    private static boolean matchesFlag(byte[] bytes, int at) {
+        for (int j = 0; j < FLAG.length; j++) {
+            if (bytes[at + j] != FLAG[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream zip = new GZIPOutputStream(out)) {
+            zip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    // One serialized response and the moosages it shows, in the same order as the flags
+    private static final class Entry {
+
+        private final byte[] shared;
+        private final List<Moosage> moosages;
+        private final int[] flagOffsets;
+        private volatile byte[] sharedGzipped;
+
+        Entry(byte[] shared, List<Moosage> moosages, int[] flagOffsets) {
+            this.shared = shared;
+            this.moosages = moosages;
+            this.flagOffsets = flagOffsets;
+        }
+
+        // The user's ordinal is looked up once in the repository's table; a moosage whose likes
+        // are in another table is asked by userID
+        Body render(String userId, UserIdOrdinals ordinals, boolean gzip) {
+            int ordinal = userId != null && ordinals != null ? ordinals.find(userId) : -1;
+            int liked = 0;
+            if (userId != null) {
+                for (Moosage moosage : moosages) {
+                    if (isLikedBy(moosage, userId, ordinals, ordinal)) {
+                        liked++;
+                    }
+                }
+            }
+            if (liked == 0) {
+                if (gzip && shared.length >= GZIP_MIN_BYTES) {
+                    return new Body(sharedGzipped(), true);
+                }
+                return new Body(shared, false);
+            }
+            // Personal bodies are copied, not compressed: the copy is cheap, gzip is not
+            return new Body(withLikes(userId, ordinals, ordinal, liked), false);
+        }
+
+        private byte[] sharedGzipped() {
+            byte[] gzipped = sharedGzipped;
+            if (gzipped == null) {
+                // Racing requests may both compress; either result is kept
+                gzipped = gzip(shared);
+                sharedGzipped = gzipped;
+            }
+            return gzipped;
+        }
+
+        private static boolean isLikedBy(Moosage moosage, String userId, UserIdOrdinals ordinals, int ordinal) {
+            if (moosage.getUserIdOrdinals() == ordinals) {
+                return ordinal >= 0 && moosage.getLikes().contains(ordinal);
+            }
+            return moosage.isLikedBy(userId);
+        }
+
+        private byte[] withLikes(String userId, UserIdOrdinals ordinals, int ordinal, int liked) {
+            byte[] body = new byte[shared.length - liked * (FALSE.length - TRUE.length)];
+            int from = 0;
+            int to = 0;
+            for (int i = 0; i < flagOffsets.length; i++) {
+                if (!isLikedBy(moosages.get(i), userId, ordinals, ordinal)) {
+                    continue;
+                }
+                int length = flagOffsets[i] - from;
+                System.arraycopy(shared, from, body, to, length);
+                to += length;
+                System.arraycopy(TRUE, 0, body, to, TRUE.length);
+                to += TRUE.length;
+                from = flagOffsets[i] + FALSE.length;
+            }
+            System.arraycopy(shared, from, body, to, shared.length - from);
+            return body;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import repository.GroupCommitStats;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Writes the server's load metrics to the log at a fixed interval, so they can be followed on a
+// running server: the password pool's queue, rejections and BCrypt times, the share of feed reads
+// answered by a concurrent identical read, and the moosage log's group commit batch sizes. The
+// interval is set by moosemate.metrics.log-interval (default one minute); zero turns it off.
+@Service
+public class MetricsReporter implements AutoCloseable {
+
+    static final Duration DEFAULT_INTERVAL = Duration.ofMinutes(1);
+
+    private final PasswordService passwordService;
+    private final MoosageService moosageService;
+    // Null when the log is turned off
+    private final ScheduledExecutorService timer;
+
+    @Autowired
+    public MetricsReporter(PasswordService passwordService, MoosageService moosageService,
+                           @Value("${moosemate.metrics.log-interval:PT1M}") Duration interval) {
+        if (passwordService == null) {
+            throw new IllegalArgumentException("PasswordService cannot be null");
+        }
+        if (moosageService == null) {
+            throw new IllegalArgumentException("MoosageService cannot be null");
+        }
+        if (interval == null || interval.isNegative()) {
+            throw new IllegalArgumentException("Metrics log interval cannot be negative");
+        }
+        this.passwordService = passwordService;
+        this.moosageService = moosageService;
+        if (interval.isZero()) {
+            this.timer = null;
+            return;
+        }
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = interval.toMillis();
+        timer.scheduleAtFixedRate(this::logReport, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    // The current metrics, one line per component
+    List<String> report() {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format(Locale.ROOT,
+                "Password pool: %d queued, %d active, %d rejected, %.1f ms per hash, %.1f ms per verify",
+                passwordService.getQueueDepth(), passwordService.getActiveWorkers(),
+                passwordService.getRejectedCount(), passwordService.getAverageHashMillis(),
+                passwordService.getAverageVerifyMillis()));
+        CoalescingStats reads = moosageService.getReadCoalescingStats();
+        lines.add(String.format(Locale.ROOT, "Feed reads: %d asked, %d run, %.1f%% shared",
+                reads.reads(), reads.executions(), reads.coalescingRatio() * 100));
+        GroupCommitStats log = moosageService.getLogStats();
+        lines.add(String.format(Locale.ROOT,
+                "Moosage log: %d records in %d batches, %.1f records per batch, largest batch %d",
+                log.records(), log.batches(), log.averageBatchSize(), log.largestBatch()));
+        return lines;
+    }
+
+    private void logReport() {
+        try {
+            for (String line : report()) {
+                System.err.println(line);
+            }
+        } catch (RuntimeException e) {
+            // A failed report must not end the schedule
+            System.err.println("Error reporting metrics: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+    }
+}
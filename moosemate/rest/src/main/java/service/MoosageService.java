@@ -1,12 +1,16 @@
 package service;
 
 import model.Moosage;
-import model.User;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import repository.GroupCommitStats;
+import repository.MoosageChangeSet;
 import repository.MoosageRepository;
 import repository.UserRepository;
+import util.UserIdOrdinals;
 
+import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,6 +20,12 @@ public final class MoosageService {
     
     private final MoosageRepository moosageRepository;
     private final UserRepository userRepository;
+    // Concurrent identical feed reads share one read, e.g. when many clients start at once
+    private final SingleFlight<FeedRead, List<Moosage>> feedReads = new SingleFlight<>();
+    
+    // A feed read: a page before the (time, id) cursor, or the whole feed (limit 0)
+    private record FeedRead(LocalDateTime time, Long id, int limit) {
+    }
     
     @Autowired
     public MoosageService(MoosageRepository moosageRepository, UserRepository userRepository) {
@@ -29,28 +39,83 @@ public final class MoosageService {
         this.userRepository = userRepository;
     }
     
+    // Feed reads may be shared between callers, so the lists are unmodifiable
     public List<Moosage> getAllMoosages() {
-        return moosageRepository.getAllMoosages();
+        return feedReads.run(new FeedRead(null, null, 0), moosageRepository.getChangeSequence(),
+                () -> Collections.unmodifiableList(moosageRepository.getAllMoosages()));
+    }
+    
+    // Gets one feed page of moosages older than the (time, id) cursor; null time for the first page
+    public List<Moosage> getMoosagesBefore(LocalDateTime time, Long id, int limit) {
+        return feedReads.run(new FeedRead(time, id, limit), moosageRepository.getChangeSequence(),
+                () -> Collections.unmodifiableList(moosageRepository.getMoosagesBefore(time, id, limit)));
+    }
+    
+    // How many feed reads were answered by a concurrent identical read
+    public CoalescingStats getReadCoalescingStats() {
+        return feedReads.stats();
+    }
+    
+    // Batch sizes achieved by the moosage store's group commit
+    public GroupCommitStats getLogStats() {
+        return moosageRepository.getLogStats();
+    }
+    
+    // The table the likes of the moosages this service returns are interned in
+    public UserIdOrdinals getUserIdOrdinals() {
+        return moosageRepository.getUserIdOrdinals();
+    }
+    
+    // Gets one page of userIDs that liked a moosage, in ascending order after 'afterUserId'
+    public Optional<List<String>> getLikers(Long id, String afterUserId, int limit) {
+        return moosageRepository.getLikers(id, afterUserId, limit);
+    }
+    
+    // The change sequence number to pass to getChangesSince; read it before reading moosages
+    public long getChangeSequence() {
+        return moosageRepository.getChangeSequence();
+    }
+    
+    // Names the numbering of this instance's change sequence numbers; see MoosageRepository
+    public String getChangeEpoch() {
+        return moosageRepository.getChangeEpoch();
+    }
+    
+    // The change sequence number of a moosage's latest change
+    public long getChangeSequence(Long id) {
+        return moosageRepository.getChangeSequence(id);
+    }
+    
+    // Gets the moosages changed and deleted after the given change sequence number
+    public MoosageChangeSet getChangesSince(long since, int limit) {
+        return moosageRepository.getChangesSince(since, limit);
     }
     
     public Optional<Moosage> getMoosageById(Long id) {
         return moosageRepository.getMoosageById(id);
     }
     
+    // User checks are lookups in the user repository's in-memory indexes, which createUser
+    // writes through to, so they cost the same however many users there are
     public Moosage createMoosage(String content, String authorId) {
         // Get author username
-        Optional<User> userOpt = userRepository.getUserById(authorId);
-        if (userOpt.isEmpty()) {
+        String authorUsername = userRepository.getUsername(authorId);
+        if (authorUsername == null) {
             throw new IllegalArgumentException("User not found with ID: " + authorId);
         }
         
-        String authorUsername = userOpt.get().getUsername();
         return moosageRepository.createMoosage(content, authorId, authorUsername);
     }
     
+    // Username to show for a moosage's author, from the user repository's cache; null if the
+    // author no longer exists
+    public String getAuthorUsername(Moosage moosage) {
+        return userRepository.getUsername(moosage.getAuthorId());
+    }
+    
     public Optional<Moosage> toggleLike(Long moosageId, String userId) {
         // Verify user exists
-        if (userRepository.getUserById(userId).isEmpty()) {
+        if (!userRepository.existsById(userId)) {
             throw new IllegalArgumentException("User not found with ID: " + userId);
         }
         
@@ -1,32 +1,195 @@
 package service;
 
+import jakarta.annotation.PostConstruct;
 import org.mindrot.jbcrypt.BCrypt;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import util.ValidationUtils;
 
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
 // Service for handling password operations using BCrypt hashing.
 // Provides secure password hashing and verification functionality.
+//
+// BCrypt is deliberately slow, so the work runs on a small dedicated pool instead of on the
+// request threads. The pool has a bounded queue; when it is full the call fails at once with
+// ServiceBusyException, so a burst of logins cannot starve the other endpoints. By default the
+// pool has half the available processors (moosemate.password.pool-size sets it), so the other
+// half stay free for the feed even while every password worker is busy.
 @Service
-public class PasswordService {
-    
+public class PasswordService implements AutoCloseable {
+
     private static final int BCRYPT_ROUNDS = 12;
-    
+    static final int DEFAULT_QUEUE_CAPACITY = 64;
+
+    // Cost used for the startup calibration; each extra round doubles the work
+    private static final int CALIBRATION_ROUNDS = 8;
+
+    private final ThreadPoolExecutor executor;
+
+    // Metrics
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong hashCount = new AtomicLong();
+    private final AtomicLong hashNanos = new AtomicLong();
+    private final AtomicLong verifyCount = new AtomicLong();
+    private final AtomicLong verifyNanos = new AtomicLong();
+    private volatile double calibratedMillisPerRound = Double.NaN;
+
+    public PasswordService() {
+        this(defaultPoolSize(), DEFAULT_QUEUE_CAPACITY);
+    }
+
+    // Half the available processors, at least one
+    static int defaultPoolSize() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    }
+
+    @Autowired
+    public PasswordService(
+            @Value("${moosemate.password.pool-size:0}") int poolSize,
+            @Value("${moosemate.password.queue-capacity:" + DEFAULT_QUEUE_CAPACITY + "}") int queueCapacity) {
+        // 0 means the default, see defaultPoolSize
+        int threads = poolSize > 0 ? poolSize : defaultPoolSize();
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be positive");
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "bcrypt-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        // Idle workers exit, so an unused service holds no threads
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
     // Hashes the password using BCrypt.
     public String hashPassword(String plainPassword) {
         if (plainPassword == null || plainPassword.trim().isEmpty()) {
             throw new IllegalArgumentException("Password cannot be null or empty");
         }
-        return BCrypt.hashpw(plainPassword, BCrypt.gensalt(BCRYPT_ROUNDS));
+        return run(() -> {
+            long start = System.nanoTime();
+            String hashed = BCrypt.hashpw(plainPassword, BCrypt.gensalt(BCRYPT_ROUNDS));
+            hashNanos.addAndGet(System.nanoTime() - start);
+            hashCount.incrementAndGet();
+            return hashed;
+        });
     }
-    
+
     // Verifies a raw password against a hashed password.
     public boolean verifyPassword(String plainPassword, String hashedPassword) {
         ValidationUtils.requireNonEmpty(plainPassword, "Password");
-        
+
+        return run(() -> {
+            long start = System.nanoTime();
+            try {
+                return BCrypt.checkpw(plainPassword, hashedPassword);
+            } catch (IllegalArgumentException e) {
+                return false;
+            } finally {
+                verifyNanos.addAndGet(System.nanoTime() - start);
+                verifyCount.incrementAndGet();
+            }
+        });
+    }
+
+    // Measures the BCrypt cost on this host and logs it (see getCalibratedMillisPerRound), so
+    // BCRYPT_ROUNDS can be checked against the hardware. Runs once at startup on the password pool.
+    @PostConstruct
+    public void calibrate() {
         try {
-            return BCrypt.checkpw(plainPassword, hashedPassword);
-        } catch (IllegalArgumentException e) {
-            return false; 
+            executor.execute(() -> {
+                // Warm up once, then time a low-cost hash and scale it to the configured rounds
+                BCrypt.hashpw("calibration", BCrypt.gensalt(CALIBRATION_ROUNDS));
+                long start = System.nanoTime();
+                BCrypt.hashpw("calibration", BCrypt.gensalt(CALIBRATION_ROUNDS));
+                double millis = (System.nanoTime() - start) / 1_000_000.0;
+                calibratedMillisPerRound = millis / (1 << CALIBRATION_ROUNDS);
+                System.err.printf("BCrypt calibration: %.4f ms per round, about %.0f ms per hash at cost %d%n",
+                        calibratedMillisPerRound, calibratedMillisPerRound * (1 << BCRYPT_ROUNDS), BCRYPT_ROUNDS);
+            });
+        } catch (RejectedExecutionException e) {
+            System.err.println("Skipping BCrypt calibration: " + e.getMessage());
         }
     }
+
+    // Password tasks waiting for a worker
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    // Workers currently hashing or verifying
+    public int getActiveWorkers() {
+        return executor.getActiveCount();
+    }
+
+    // Calls turned away because the queue was full
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    // Average time spent in BCrypt per hash, or 0 if nothing was hashed yet
+    public double getAverageHashMillis() {
+        return averageMillis(hashNanos.get(), hashCount.get());
+    }
+
+    // Average time spent in BCrypt per verification, or 0 if nothing was verified yet
+    public double getAverageVerifyMillis() {
+        return averageMillis(verifyNanos.get(), verifyCount.get());
+    }
+
+    // Measured time of one BCrypt expansion round on this host; a hash at cost N runs 2^N of them.
+    // NaN until the calibration has run.
+    public double getCalibratedMillisPerRound() {
+        return calibratedMillisPerRound;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    // For tests that need to fill the pool
+    ThreadPoolExecutor getExecutor() {
+        return executor;
+    }
+
+    // Runs the task on the password pool and waits for its result on the calling thread.
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejectedCount.incrementAndGet();
+            throw new ServiceBusyException("Too many password requests, please try again shortly");
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("Interrupted while waiting for password check");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password operation failed", cause);
+        }
+    }
+
+    private static double averageMillis(long nanos, long count) {
+        return count == 0 ? 0.0 : nanos / 1_000_000.0 / count;
+    }
 }
@@ -0,0 +1,10 @@
+package service;
+
+// Thrown when a service is at capacity and turns work away instead of queueing it.
+// Controllers answer with 503 Service Unavailable so clients can retry later.
+public class ServiceBusyException extends RuntimeException {
+
+    public ServiceBusyException(String message) {
+        super(message);
+    }
+}
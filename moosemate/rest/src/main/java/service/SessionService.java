@@ -1,41 +1,243 @@
 package service;
 
 import model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import util.IdGenerator;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+// Keeps track of logged-in sessions. A session ends on logout, after being idle for longer than
+// the idle timeout, or once it reaches its absolute lifetime, whichever comes first. When the
+// maximum number of sessions is reached, the oldest session is ended to make room.
+//
+// Expired sessions are removed by a hashed timing wheel: each session sits in the slot for its
+// deadline, and the reaper only looks at the slot for the current tick, never at the whole map.
+// Requests only update a timestamp; a session whose deadline moved while it waited is put back
+// into the slot for its new deadline when its old slot comes up.
 
 @Service
-public class SessionService {
-    
-    private final Map<String, User> activeSessions = new ConcurrentHashMap<>();
+public class SessionService implements AutoCloseable {
+
+    static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(30);
+    static final Duration DEFAULT_ABSOLUTE_TIMEOUT = Duration.ofHours(12);
+    static final int DEFAULT_MAX_SESSIONS = 10_000;
+
+    static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_SIZE = 512;  // power of two
+
+    private final long idleTimeoutMillis;
+    private final long absoluteTimeoutMillis;
+    private final int maxSessions;
+    private final LongSupplier clock;
+    private final ScheduledExecutorService reaper;
+
+    // Lookups are lock-free; creating, ending and reaping sessions hold the monitor
+    private final Map<String, Session> activeSessions = new ConcurrentHashMap<>();
+    private final Set<Session> sessionsByAge = new LinkedHashSet<>();
+    private final List<Set<Session>> wheel = new ArrayList<>(WHEEL_SIZE);
+    private long currentTick;
+
+    public SessionService() {
+        this(DEFAULT_IDLE_TIMEOUT, DEFAULT_ABSOLUTE_TIMEOUT, DEFAULT_MAX_SESSIONS);
+    }
+
+    @Autowired
+    public SessionService(
+            @Value("${moosemate.session.idle-timeout:PT30M}") Duration idleTimeout,
+            @Value("${moosemate.session.absolute-timeout:PT12H}") Duration absoluteTimeout,
+            @Value("${moosemate.session.max-sessions:10000}") int maxSessions) {
+        this(idleTimeout, absoluteTimeout, maxSessions, System::currentTimeMillis, true);
+    }
+
+    // Constructor for testing with a manual clock; without a reaper thread, reapExpired() drives expiry
+    SessionService(Duration idleTimeout, Duration absoluteTimeout, int maxSessions,
+                   LongSupplier clock, boolean startReaper) {
+        if (idleTimeout == null || idleTimeout.isNegative() || idleTimeout.isZero()) {
+            throw new IllegalArgumentException("Idle timeout must be positive");
+        }
+        if (absoluteTimeout == null || absoluteTimeout.compareTo(idleTimeout) < 0) {
+            throw new IllegalArgumentException("Absolute timeout cannot be shorter than the idle timeout");
+        }
+        if (maxSessions < 1) {
+            throw new IllegalArgumentException("Max sessions must be positive");
+        }
+        if (clock == null) {
+            throw new IllegalArgumentException("Clock cannot be null");
+        }
+        this.idleTimeoutMillis = idleTimeout.toMillis();
+        this.absoluteTimeoutMillis = absoluteTimeout.toMillis();
+        this.maxSessions = maxSessions;
+        this.clock = clock;
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel.add(new HashSet<>());
+        }
+        this.currentTick = clock.getAsLong() / TICK_MILLIS;
+
+        if (startReaper) {
+            this.reaper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "session-reaper");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.reaper.scheduleWithFixedDelay(this::reapExpired, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+        } else {
+            this.reaper = null;
+        }
+    }
 
     // creates new session, returns unique UUID token for each session
     public String createSession(User user) {
+        if (user == null) {
+            throw new IllegalArgumentException("User cannot be null");
+        }
+        long now = clock.getAsLong();
+        Session session = new Session(user.getUserID(), user.getUsername(), now);
         String sessionToken = IdGenerator.generateUUID();
-        activeSessions.put(sessionToken, user);
+
+        synchronized (this) {
+            advanceWheel(now);
+            while (activeSessions.size() >= maxSessions) {
+                // Make room by ending the oldest session
+                Iterator<Session> oldest = sessionsByAge.iterator();
+                remove(oldest.next());
+            }
+            session.token = sessionToken;
+            activeSessions.put(sessionToken, session);
+            sessionsByAge.add(session);
+            schedule(session, session.deadline(idleTimeoutMillis, absoluteTimeoutMillis));
+        }
         return sessionToken;
     }
 
-    // returns user from session token
-    public User getUser(String sessionToken) {
-        return activeSessions.get(sessionToken);
+    // returns username from session token, and counts as activity on the session
+    public String getUsernameByToken(String sessionToken) {
+        Session session = touch(sessionToken);
+        return (session != null) ? session.username : null;
     }
 
-    // returns user ID from session token
+    // returns user ID from session token, and counts as activity on the session
     public String getUserIdByToken(String sessionToken) {
-        User user = activeSessions.get(sessionToken);
-        return (user != null) ? user.getUserID() : null;
+        Session session = touch(sessionToken);
+        return (session != null) ? session.userId : null;
     }
 
     // checks if session is valid
     public boolean isValidSession(String sessionToken) {
-        return sessionToken != null && activeSessions.containsKey(sessionToken);
+        return sessionToken != null && touch(sessionToken) != null;
     }
 
     public void terminateSession(String sessionToken) {
-        activeSessions.remove(sessionToken);
+        Session session = activeSessions.get(sessionToken);
+        if (session != null) {
+            synchronized (this) {
+                remove(session);
+            }
+        }
+    }
+
+    // Number of sessions that have not been ended or reaped yet
+    public int getActiveSessionCount() {
+        return activeSessions.size();
+    }
+
+    // Ends every session whose deadline has passed. Called by the reaper once per tick.
+    synchronized void reapExpired() {
+        advanceWheel(clock.getAsLong());
+    }
+
+    @Override
+    public void close() {
+        if (reaper != null) {
+            reaper.shutdownNow();
+        }
+    }
+
+    // Looks up a live session and records the access for the idle timeout.
+    private Session touch(String sessionToken) {
+        Session session = activeSessions.get(sessionToken);
+        if (session == null) {
+            return null;
+        }
+        long now = clock.getAsLong();
+        // The reaper may lag up to a tick behind, so check the deadline here too
+        if (session.deadline(idleTimeoutMillis, absoluteTimeoutMillis) <= now) {
+            return null;
+        }
+        session.lastAccessMillis = now;
+        return session;
+    }
+
+    // Processes every wheel slot up to the current time. Must hold the monitor.
+    private void advanceWheel(long now) {
+        long nowTick = now / TICK_MILLIS;
+        while (currentTick <= nowTick) {
+            Set<Session> slot = wheel.get((int) (currentTick & (WHEEL_SIZE - 1)));
+            // Step first, so sessions put back below land in a later slot, not in this one
+            currentTick++;
+            if (!slot.isEmpty()) {
+                List<Session> due = new ArrayList<>(slot);
+                slot.clear();
+                for (Session session : due) {
+                    long deadline = session.deadline(idleTimeoutMillis, absoluteTimeoutMillis);
+                    if (deadline <= now) {
+                        activeSessions.remove(session.token, session);
+                        sessionsByAge.remove(session);
+                    } else {
+                        // Still active, or its deadline is more than one turn of the wheel away
+                        schedule(session, deadline);
+                    }
+                }
+            }
+        }
+    }
+
+    // Puts the session into the slot for its deadline. Must hold the monitor.
+    private void schedule(Session session, long deadline) {
+        long tick = Math.max(deadline / TICK_MILLIS, currentTick);
+        session.slot = (int) (tick & (WHEEL_SIZE - 1));
+        wheel.get(session.slot).add(session);
+    }
+
+    // Ends a session. Must hold the monitor.
+    private void remove(Session session) {
+        activeSessions.remove(session.token, session);
+        sessionsByAge.remove(session);
+        wheel.get(session.slot).remove(session);
+    }
+
+    // Only what the controllers need; the user object and its password hash are not kept.
+    // Uses identity equality, so it can be stored in hash sets.
+    private static final class Session {
+        private final String userId;
+        private final String username;
+        private final long createdMillis;
+        private volatile long lastAccessMillis;
+        private String token;
+        private int slot;
+
+        private Session(String userId, String username, long createdMillis) {
+            this.userId = userId;
+            this.username = username;
+            this.createdMillis = createdMillis;
+            this.lastAccessMillis = createdMillis;
+        }
+
+        private long deadline(long idleTimeoutMillis, long absoluteTimeoutMillis) {
+            return Math.min(lastAccessMillis + idleTimeoutMillis, createdMillis + absoluteTimeoutMillis);
+        }
     }
 }
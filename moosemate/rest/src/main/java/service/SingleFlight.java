@@ -0,0 +1,71 @@
+package service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Lets concurrent identical reads share one computation ("single flight"): the first caller
+// for a key runs the read, callers arriving while it runs wait for it and get the same result.
+//
+// Each caller passes the change sequence number it read before asking (see
+// MoosageRepository.getChangeSequence). It only joins a read that started at or after that
+// number, so a shared result never predates a write the caller could have seen; otherwise it
+// starts a read of its own, which later callers join instead. Nothing is kept once a read
+// completes, so this never serves anything a fresh read would not.
+final class SingleFlight<K, V> {
+
+    // A read in progress and the change sequence number read before it started
+    private record Flight<V>(long sequence, CompletableFuture<V> result) {
+    }
+
+    private final ConcurrentHashMap<K, Flight<V>> flights = new ConcurrentHashMap<>();
+    private final AtomicLong reads = new AtomicLong();
+    private final AtomicLong executions = new AtomicLong();
+
+    V run(K key, long sequence, Supplier<V> read) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        reads.incrementAndGet();
+        Flight<V> own = new Flight<>(sequence, new CompletableFuture<>());
+        Flight<V> flight = flights.compute(key,
+                (k, current) -> current != null && current.sequence() >= sequence ? current : own);
+        if (flight != own) {
+            return join(flight);
+        }
+
+        executions.incrementAndGet();
+        try {
+            V value = read.get();
+            own.result().complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            own.result().completeExceptionally(e);
+            throw e;
+        } finally {
+            // A newer read may have taken the key already
+            flights.remove(key, own);
+        }
+    }
+
+    private V join(Flight<V> flight) {
+        try {
+            return flight.result().join();
+        } catch (CompletionException e) {
+            // The leader's own exception, as if this caller had run the read
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    CoalescingStats stats() {
+        return new CoalescingStats(reads.get(), executions.get());
+    }
+}
@@ -4,9 +4,6 @@ import model.User;
 import org.springframework.stereotype.Service;
 import repository.UserRepository;
 
-import java.util.Map;
-import java.util.Optional;
-
 // Service class for handling user data operations.
 // Acts as a bridge between other services and the persistence layer.
 // Focuses on user CRUD operations and data validation.
@@ -30,29 +27,9 @@ public class UserService {
     }
 
     // Finds a user by username or email.
+    // Returns null if no user matches; incomplete user entries are never indexed.
     public User findByUsernameOrEmail(String usernameOrEmail) {
-        Optional<Map<String, String>> userDataOptional = userRepository.findByUsernameOrEmail(usernameOrEmail);
-        
-        if (userDataOptional.isPresent()) {
-            Map<String, String> userData = userDataOptional.get();
-            
-            try {
-                // Convert Map to User object
-                User user = new User(
-                        userData.get("username"),
-                        userData.get("email"),
-                        userData.get("password"),
-                        userData.get("userID")
-                );
-                
-                return user;
-            } catch (IllegalArgumentException e) {
-                // User data is incomplete or invalid, return null
-                return null;
-            }
-        }
-        
-        return null;
+        return userRepository.findByUsernameOrEmail(usernameOrEmail).orElse(null);
     }
 
     // Checks if a username already exists.
@@ -0,0 +1,49 @@
+package util;
+
+import model.Moosage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// Keyset cursor for the paged feed: the (time, id) of the last moosage on a page.
+// Sent to clients as an opaque URL-safe Base64 token that they pass back unchanged.
+
+public record FeedCursor(LocalDateTime time, long id) {
+
+    private static final String SEPARATOR = "|";
+
+    public FeedCursor {
+        if (time == null) {
+            throw new IllegalArgumentException("Cursor time cannot be null");
+        }
+    }
+
+    public static FeedCursor of(Moosage moosage) {
+        return new FeedCursor(moosage.getTime(), moosage.getId());
+    }
+
+    public String encode() {
+        String raw = time + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static FeedCursor decode(String cursor) {
+        if (ValidationUtils.isNullOrEmpty(cursor)) {
+            throw new IllegalArgumentException("Cursor cannot be empty");
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new FeedCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            // NumberFormatException and Base64 errors are IllegalArgumentExceptions too
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -1,13 +1,18 @@
 package util;
 
 import dto.ApiResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
 // utility class for creating standarized REST API responses used in rest controllers
 
 public final class ResponseUtils {
 
+    // Marks the ETag of a gzipped body, which is a different representation than the plain one
+    private static final String GZIP_ETAG_SUFFIX = "-gz";
+
     // Private constructor to prevent instantiation
     private ResponseUtils() {
         // Utility class - no instantiation needed
@@ -19,6 +24,37 @@ public final class ResponseUtils {
         return ResponseEntity.ok(new ApiResponse<>(true, message, data));
     }
     
+    // With a validator for conditional requests. Bodies depend on the session's user, so
+    // caches are told to keep one per Session-Token.
+    public static <T> ResponseEntity<ApiResponse<T>> ok(String message, T data, String etag) {
+        return ResponseEntity.ok()
+            .eTag(etag)
+            .header(HttpHeaders.VARY, "Session-Token")
+            .body(new ApiResponse<>(true, message, data));
+    }
+
+    // An ApiResponse that was serialized beforehand, written out as it is (see FeedResponseCache).
+    // Whether it was gzipped depends on Accept-Encoding, so caches are told to vary on that too,
+    // and a gzipped body gets the gzip form of the ETag (see gzipEtag).
+    public static ResponseEntity<byte[]> okSerialized(byte[] body, boolean gzipped, String etag) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .header(HttpHeaders.VARY, "Session-Token", HttpHeaders.ACCEPT_ENCODING);
+        if (gzipped) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        if (etag != null) {
+            builder.eTag(gzipped ? gzipEtag(etag) : etag);
+        }
+        return builder.body(body);
+    }
+
+    // The ETag of the gzipped body of the response the strong ETag belongs to. Strong ETags must
+    // differ between content codings, since the bytes do.
+    public static String gzipEtag(String etag) {
+        return etag.substring(0, etag.length() - 1) + GZIP_ETAG_SUFFIX + "\"";
+    }
+
     public static <T> ResponseEntity<ApiResponse<T>> ok(String message) {
         return ResponseEntity.ok(new ApiResponse<>(true, message));
     }
@@ -33,6 +69,76 @@ public final class ResponseUtils {
             .body(new ApiResponse<>(true, message));
     }
 
+    // 304 for a conditional request whose validator still matches; there is no body
+    public static <T> ResponseEntity<ApiResponse<T>> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+            .eTag(etag)
+            .header(HttpHeaders.VARY, "Session-Token")
+            .build();
+    }
+
+    // 304 for a response that would have come from okSerialized, with the form of the ETag the
+    // client holds (see matchingEtag)
+    public static ResponseEntity<byte[]> notModifiedSerialized(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+            .eTag(etag)
+            .header(HttpHeaders.VARY, "Session-Token", HttpHeaders.ACCEPT_ENCODING)
+            .build();
+    }
+
+    // True if an If-None-Match header lists the ETag in either coding form, or is "*"
+    public static boolean etagMatches(String ifNoneMatch, String etag) {
+        return matchingEtag(ifNoneMatch, etag) != null;
+    }
+
+    // The form of the ETag an If-None-Match header lists: the ETag itself or its gzip form
+    // (see gzipEtag). The ETag for "*", null if the header lists neither. As If-None-Match
+    // compares weakly, a W/ prefix is ignored.
+    public static String matchingEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return null;
+        }
+        String gzipped = gzipEtag(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.startsWith("W/")) {
+                trimmed = trimmed.substring(2);
+            }
+            if (trimmed.equals("*") || trimmed.equals(etag)) {
+                return etag;
+            }
+            if (trimmed.equals(gzipped)) {
+                return gzipped;
+            }
+        }
+        return null;
+    }
+
+    // True if an Accept-Encoding header takes gzip: it lists gzip, or else "*", without q=0
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean wildcard = null;
+        for (String candidate : acceptEncoding.split(",")) {
+            String[] parts = candidate.split(";");
+            String coding = parts[0].trim();
+            boolean refused = false;
+            for (int i = 1; i < parts.length; i++) {
+                if (parts[i].replace(" ", "").matches("[qQ]=0(\\.0{0,3})?")) {
+                    refused = true;
+                }
+            }
+            if (coding.equalsIgnoreCase("gzip")) {
+                return !refused;
+            }
+            if (coding.equals("*")) {
+                wildcard = !refused;
+            }
+        }
+        return wildcard != null && wildcard;
+    }
+
     // ===== ERROR RESPONSES =====
 
     public static <T> ResponseEntity<ApiResponse<T>> badRequest(String message) {
@@ -64,4 +170,11 @@ public final class ResponseUtils {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
             .body(new ApiResponse<>(false, message, null));
     }
+
+    // Tells the client to retry after the given number of seconds
+    public static <T> ResponseEntity<ApiResponse<T>> serviceUnavailable(String message, int retryAfterSeconds) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+            .body(new ApiResponse<>(false, message, null));
+    }
 }
@@ -0,0 +1,57 @@
+package config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import repository.GroupCommitPolicy;
+import repository.JdbcStorageEngine;
+import repository.StorageEngine;
+
+// Tests for selecting the storage engine from configuration.
+public class StorageConfigTest {
+
+    private final StorageConfig storageConfig = new StorageConfig();
+
+    private StorageEngine storageEngine(String engine, String jdbcUrl) {
+        return storageEngine(engine, false, jdbcUrl);
+    }
+
+    private StorageEngine storageEngine(String engine, boolean shared, String jdbcUrl) {
+        return storageConfig.storageEngine(engine, shared, jdbcUrl, "sa", "", 2,
+                Duration.ofMillis(1), 256, GroupCommitPolicy.SyncMode.EVERY_BATCH, Duration.ofMillis(100));
+    }
+
+    @Test
+    public void testJdbcEngineIsSelectedByName() throws IOException {
+        try (StorageEngine engine = storageEngine(" JDBC ", "jdbc:h2:mem:storage-config-test")) {
+            assertTrue(engine instanceof JdbcStorageEngine);
+            assertEquals("jdbc", engine.name());
+        }
+    }
+
+    @Test
+    public void testUnknownEngineIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> storageEngine("mongodb", ""));
+    }
+
+    @Test
+    public void testSharedStorageNeedsTheFileEngine() {
+        assertThrows(IllegalArgumentException.class,
+                () -> storageEngine("jdbc", true, "jdbc:h2:mem:storage-config-shared-test"));
+    }
+
+    @Test
+    public void testDefaultJdbcUrlPointsAtTheDataDirectory() {
+        String url = StorageConfig.defaultJdbcUrl();
+
+        assertTrue(url.startsWith("jdbc:h2:file:"));
+        assertTrue(url.endsWith("data" + File.separator + "moosemate"));
+    }
+}
@@ -28,6 +28,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
 import service.LoginService;
+import service.ServiceBusyException;
 import service.SessionService;
 import service.SignUpService;
 
@@ -180,8 +181,31 @@ public class AuthControllerTest {
         assertTrue(body.getMessage().contains("Login failed"));
     }
     
+    @Test
+    public void testLoginWhenPasswordPoolIsFull() {
+        when(loginService.loginUser("testuser", "password"))
+                .thenThrow(new ServiceBusyException("Too many password requests"));
+
+        ResponseEntity<ApiResponse<LoginResponse>> response = authController.login(loginRequest);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("1", response.getHeaders().getFirst("Retry-After"));
+        assertFalse(response.getBody().isSuccess());
+        verify(sessionService, times(0)).createSession(testUser);
+    }
+    
     // ========== Signup Tests ==========
     
+    @Test
+    public void testSignupWhenPasswordPoolIsFull() {
+        when(signUpService.signUpUser("newuser", "new@example.com", "Password123"))
+                .thenThrow(new ServiceBusyException("Too many password requests"));
+
+        ResponseEntity<ApiResponse<String>> response = authController.signup(signUpRequest);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+    }
+    
     @Test
     public void testSignupSuccess() {
         when(signUpService.signUpUser("newuser", "new@example.com", "Password123")).thenReturn(true);
@@ -1,30 +1,49 @@
 package controller;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import dto.ApiResponse;
 import dto.CreateMoosageRequest;
+import dto.LikersPage;
+import dto.MoosageChanges;
 import dto.MoosageDto;
+import dto.MoosagePage;
 import dto.UpdateMoosageRequest;
 import model.Moosage;
 import model.User;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import repository.MoosageChangeSet;
+import service.FeedEventHub;
+import service.FeedResponseCache;
 import service.MoosageService;
+import service.ServiceBusyException;
 import service.SessionService;
+import util.FeedCursor;
+import util.ResponseUtils;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.never;
@@ -43,7 +62,11 @@ public class MoosageControllerTest {
     @Mock
     private SessionService sessionService;
 
-    @InjectMocks
+    @Mock
+    private FeedEventHub feedEventHub;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private FeedResponseCache feedResponseCache;
     private MoosageController moosageController;
 
     private Moosage testMoosage;
@@ -51,29 +74,54 @@ public class MoosageControllerTest {
     private String validToken = "valid-token-123";
     private String invalidToken = "invalid-token";
     private String userId = "user123";
+    private static final String EPOCH = "epoch1";
 
     @BeforeEach
     public void setUp() {
         MockitoAnnotations.openMocks(this);
+        when(moosageService.getChangeEpoch()).thenReturn(EPOCH);
+        feedResponseCache = new FeedResponseCache(moosageService, objectMapper, 16);
+        moosageController = new MoosageController(moosageService, sessionService, feedEventHub, feedResponseCache);
         
         testUser = new User("testuser", "test@example.com", "password", userId);
-        testMoosage = new Moosage(1L, "Test moosage content", testUser, LocalDateTime.now());
+        testMoosage = new Moosage(1L, "Test moosage content", testUser.getUserID(), LocalDateTime.now());
+    }
+
+    // Feed responses come serialized, so they are read back the way a client reads them
+    @SuppressWarnings("unchecked")
+    private <T> ApiResponse<T> read(ResponseEntity<?> response, TypeReference<ApiResponse<T>> type) throws IOException {
+        Object body = response.getBody();
+        if (!(body instanceof byte[] bytes)) {
+            return (ApiResponse<T>) body;
+        }
+        if ("gzip".equals(response.getHeaders().getFirst("Content-Encoding"))) {
+            bytes = new GZIPInputStream(new ByteArrayInputStream(bytes)).readAllBytes();
+        }
+        return objectMapper.readValue(bytes, type);
+    }
+
+    private ApiResponse<List<MoosageDto>> readFeed(ResponseEntity<?> response) throws IOException {
+        return read(response, new TypeReference<ApiResponse<List<MoosageDto>>>() { });
+    }
+
+    private ApiResponse<MoosagePage> readPage(ResponseEntity<?> response) throws IOException {
+        return read(response, new TypeReference<ApiResponse<MoosagePage>>() { });
     }
 
         // ============== GET ALL MOOSAGES TESTS ==============
 
     @Test
-    public void testGetAllMoosagesSuccess() {
+    public void testGetAllMoosagesSuccess() throws Exception {
         List<Moosage> moosages = Arrays.asList(testMoosage);
         when(sessionService.getUserIdByToken(validToken)).thenReturn(userId);
         when(moosageService.getAllMoosages()).thenReturn(moosages);
 
-        ResponseEntity<ApiResponse<List<MoosageDto>>> response = 
-            moosageController.getAllMoosages(validToken);
+        ResponseEntity<?> response = 
+            moosageController.getAllMoosages(null, null, validToken);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
-        ApiResponse<List<MoosageDto>> body = response.getBody();
+        ApiResponse<List<MoosageDto>> body = readFeed(response);
         assertNotNull(body);
         assertTrue(body.isSuccess());
         List<MoosageDto> data = body.getData();
@@ -84,15 +132,15 @@ public class MoosageControllerTest {
     }
 
     @Test
-    public void testGetAllMoosagesUnauthorized() {
+    public void testGetAllMoosagesUnauthorized() throws Exception {
         when(sessionService.getUserIdByToken(invalidToken)).thenReturn(null);
 
-        ResponseEntity<ApiResponse<List<MoosageDto>>> response = 
-            moosageController.getAllMoosages(invalidToken);
+        ResponseEntity<?> response = 
+            moosageController.getAllMoosages(null, null, invalidToken);
 
         assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
         assertNotNull(response.getBody());
-        ApiResponse<List<MoosageDto>> body = response.getBody();
+        ApiResponse<List<MoosageDto>> body = readFeed(response);
         assertNotNull(body);
         assertFalse(body.isSuccess());
         assertEquals("Invalid session token", body.getMessage());
@@ -100,21 +148,192 @@ public class MoosageControllerTest {
     }
 
     @Test
-    public void testGetAllMoosagesException() {
+    public void testGetAllMoosagesException() throws Exception {
         when(sessionService.getUserIdByToken(validToken)).thenReturn(userId);
         when(moosageService.getAllMoosages()).thenThrow(new RuntimeException("Database error"));
 
-        ResponseEntity<ApiResponse<List<MoosageDto>>> response = 
-            moosageController.getAllMoosages(validToken);
+        ResponseEntity<?> response = 
+            moosageController.getAllMoosages(null, null, validToken);
 
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
         assertNotNull(response.getBody());
-        ApiResponse<List<MoosageDto>> body = response.getBody();
+        ApiResponse<List<MoosageDto>> body = readFeed(response);
         assertNotNull(body);
         assertFalse(body.isSuccess());
         assertTrue(body.getMessage().contains("Error retrieving moosages"));
     }
 
+    // ============== GET MOOSAGE PAGE TESTS ==============
+
+    @Test
+    public void testGetMoosagePageFirstPageWithMore() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        Moosage newest = new Moosage(3L, "Third", testUser.getUserID(), now);
+        Moosage middle = new Moosage(2L, "Second", testUser.getUserID(), now.minusMinutes(1));
+        Moosage oldest = new Moosage(1L, "First", testUser.getUserID(), now.minusMinutes(2));
+        when(sessionService.getUserIdByToken(validToken)).thenReturn(userId);
+        when(moosageService.getMoosagesBefore(null, null, 3)).thenReturn(Arrays.asList(newest, middle, oldest));
+        when(moosageService.getChangeSequence()).thenReturn(42L);
+
+        ResponseEntity<?> response =
+            moosageController.getMoosagePage(2, null, null, null, validToken);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        MoosagePage page = readPage(response).getData();
+        assertEquals(2, page.getMoosages().size());
+        assertEquals(3L, page.getMoosages().get(0).getId());
+        assertEquals(2L, page.getMoosages().get(1).getId());
+        assertEquals(FeedCursor.of(middle).encode(), page.getNextCursor());
+        assertEquals(42L, page.getChangeSequence());
+    }
+
+    @Test
+    public void testGetMoosagePageWithCursorLastPage() throws Exception {
+        FeedCursor cursor = new FeedCursor(testMoosage.getTime().plusMinutes(1), 2L);
+        when(sessionService.getUserIdByToken(validToken)).thenReturn(userId);
+        when(moosageService.getMoosagesBefore(cursor.time(), 2L, 3)).thenReturn(Arrays.asList(testMoosage));
+
+        ResponseEntity<?> response =
+            moosageController.getMoosagePage(2, cursor.encode(), null, null, validToken);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        MoosagePage page = readPage(response).getData();
+        assertEquals(1, page.getMoosages().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    public void testGetMoosagePageUnauthorized() {
+        when(sessionService.getUserIdByToken(invalidToken)).thenReturn(null);
+
+        ResponseEntity<?> response =
+            moosageController.getMoosagePage(10, null, null, null, invalidToken);
+
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+        verify(moosageService, never()).getMoosagesBefore(any(), any(), anyInt());
+    }
+
+    @Test
+    public void testGetMoosagePageInvalidLimit() {
+        when(sessionService.getUserIdByToken(validToken)).thenReturn(userId);
+
+        ResponseEntity<?> tooSmall = moosageController.getMoosagePage(0, null, null, null, validToken);
+        ResponseEntity<?> tooLarge =
+            moosageController.getMoosagePage(MoosageController.MAX_PAGE_SIZE + 1, null, null, null, validToken);
+
+        assertEquals(HttpStatus.BAD_REQUEST, tooSmall.getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, tooLarge.getStatusCode());
+        verify(moosageService, never()).getMoosagesBefore(any(), any(), anyInt());
+    }
+
+    @Test
+    public void testGetMoosagePageInvalidCursor() throws Exception {
+        when(sessionService.getUserIdByToken(validToken)).thenReturn(userId);
+
+        ResponseEntity<?> response =
+            moosageController.getMoosagePage(10, "not-a-cursor", null, null, validToken);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Invalid cursor", readPage(response).getMessage());
+    }
+
+    @Test
+    public void testGetMoosagePageException() {
+        when(sessionService.getUserIdByToken(validToken)).thenReturn(userId);
+        when(moosageService.getMoosagesBefore(null, null, 11)).thenThrow(new RuntimeException("Database error"));
+
+        ResponseEntity<?> response =
+            moosageController.getMoosagePage(10, null, null, null, validToken);
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+    }
+
+    @Test
+    public void testFeedSendsLikeCountAndLikedByMe() throws Exception {
+        testMoosage.addLike(userId);
+        testMoosage.addLike("other-user");
+        Moosage notLiked = new Moosage(2L, "Other", testUser.getUserID(), LocalDateTime.now());
+        notLiked.addLike("other-user");
+        when(sessionService.getUserIdByToken(validToken)).thenReturn(userId);
+        when(moosageService.getAllMoosages()).thenReturn(Arrays.asList(testMoosage, notLiked));
+
+        List<MoosageDto> data = readFeed(moosageController.getAllMoosages(null, null, validToken)).getData();
+
+        assertEquals(2, data.get(0).getLikeCount());
+        assertTrue(data.get(0).isLikedByMe());
+        assertEquals(1, data.get(1).getLikeCount());
+        assertFalse(data.get(1).isLikedByMe());
+    }
+
+    @Test
+    public void testFeedIsGzippedWhenAccepted() throws Exception {
+        List<Moosage> moosages = new ArrayList<>();
+        for (long id = 1; id <= 40; id++) {
+            moosages.add(new Moosage(id, "Content " + id, testUser.getUserID(), LocalDateTime.now()));
+        }
+        when(sessionService.getUserIdByToken(validToken)).thenReturn(userId);
+        when(moosageService.getAllMoosages()).thenReturn(moosages);
+
+        ResponseEntity<?> gzipped = moosageController.getAllMoosages(null, "gzip, deflate", validToken);
+        ResponseEntity<?> plain = moosageController.getAllMoosages(null, null, validToken);
+
+        assertEquals("gzip", gzipped.getHeaders().getFirst("Content-Encoding"));
+        assertNull(plain.getHeaders().getFirst("Content-Encoding"));
+        assertEquals(40, readFeed(gzipped).getData().size());
+        assertEquals(40, readFeed(plain).getData().size());
+        // Serialized once for both
+        verify(moosageService, times(1)).getAllMoosages();
+        // Different bytes, so different strong validators
+        String etag = MoosageController.etag(EPOCH, 0L, userId);
+        assertEquals(etag, plain.getHeaders().getETag());
+        assertEquals(ResponseUtils.gzipEtag(etag), gzipped.getHeaders().getETag());
+        assertFalse(etag.equals(gzipped.getHeaders().getETag()));
+    }
+
+    // ============== GET LIKERS TESTS ==============
+
+    @Test
+    public void testGetLikersWithMore() {
+        when(sessionService.getUserIdByToken(validToken)).thenReturn(userId);
+        when(moosageService.getLikers(1L, null, 3)).thenReturn(Optional.of(Arrays.asList("a", "b", "c")));
+
+        ResponseEntity<ApiResponse<LikersPage>> response = moosageController.getLikers(1L, 2, null, validToken);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        LikersPage page = response.getBody().getData();
+        assertEquals(Arrays.asList("a", "b"), page.getUserIds());
+        assertEquals("b", page.getNextCursor());
+    }
+
+    @Test
+    public void testGetLikersLastPage() {
+        when(sessionService.getUserIdByToken(validToken)).thenReturn(userId);
+        when(moosageService.getLikers(1L, "b", 3)).thenReturn(Optional.of(Arrays.asList("c")));
+
+        LikersPage page = moosageController.getLikers(1L, 2, "b", validToken).getBody().getData();
+
+        assertEquals(Arrays.asList("c"), page.getUserIds());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    public void testGetLikersNotFound() {
+        when(sessionService.getUserIdByToken(validToken)).thenReturn(userId);
+        when(moosageService.getLikers(999L, null, 51)).thenReturn(Optional.empty());
+
+        assertEquals(HttpStatus.NOT_FOUND, moosageController.getLikers(999L, 50, null, validToken).getStatusCode());
+    }
+
+    @Test
+    public void testGetLikersInvalidLimitAndSession() {
+        when(sessionService.getUserIdByToken(validToken)).thenReturn(userId);
+        when(sessionService.getUserIdByToken(invalidToken)).thenReturn(null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, moosageController.getLikers(1L, 0, null, validToken).getStatusCode());
+        assertEquals(HttpStatus.UNAUTHORIZED, moosageController.getLikers(1L, 10, null, invalidToken).getStatusCode());
+        verify(moosageService, never()).getLikers(any(), any(), anyInt());
+    }
+
     // ============== GET MOOSAGE BY ID TESTS ==============
 
     @Test
@@ -123,7 +342,7 @@ public class MoosageControllerTest {
         when(moosageService.getMoosageById(1L)).thenReturn(Optional.of(testMoosage));
 
         ResponseEntity<ApiResponse<MoosageDto>> response = 
-            moosageController.getMoosageById(1L, validToken);
+            moosageController.getMoosageById(1L, null, validToken);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
@@ -140,7 +359,7 @@ public class MoosageControllerTest {
         when(moosageService.getMoosageById(999L)).thenReturn(Optional.empty());
 
         ResponseEntity<ApiResponse<MoosageDto>> response = 
-            moosageController.getMoosageById(999L, validToken);
+            moosageController.getMoosageById(999L, null, validToken);
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
         assertNotNull(response.getBody());
@@ -155,7 +374,7 @@ public class MoosageControllerTest {
         when(sessionService.getUserIdByToken(invalidToken)).thenReturn(null);
 
         ResponseEntity<ApiResponse<MoosageDto>> response = 
-            moosageController.getMoosageById(1L, invalidToken);
+            moosageController.getMoosageById(1L, null, invalidToken);
 
         assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
         assertNotNull(response.getBody());
@@ -460,7 +679,7 @@ public class MoosageControllerTest {
         request.setContent("Updated content");
         
         User otherUser = new User("otheruser", "other@example.com", "password", "otherUserId");
-        Moosage otherUserMoosage = new Moosage(1L, "Original content", otherUser, LocalDateTime.now());
+        Moosage otherUserMoosage = new Moosage(1L, "Original content", otherUser.getUserID(), LocalDateTime.now());
         
         when(sessionService.getUserIdByToken(validToken)).thenReturn(userId);
         when(moosageService.getMoosageById(1L)).thenReturn(Optional.of(otherUserMoosage));
@@ -549,7 +768,7 @@ public class MoosageControllerTest {
     @Test
     public void testDeleteMoosageForbidden() {
         User otherUser = new User("otheruser", "other@example.com", "password", "otherUserId");
-        Moosage otherUserMoosage = new Moosage(1L, "Content", otherUser, LocalDateTime.now());
+        Moosage otherUserMoosage = new Moosage(1L, "Content", otherUser.getUserID(), LocalDateTime.now());
         
         when(sessionService.getUserIdByToken(validToken)).thenReturn(userId);
         when(moosageService.getMoosageById(1L)).thenReturn(Optional.of(otherUserMoosage));
@@ -581,4 +800,277 @@ public class MoosageControllerTest {
         assertFalse(body.isSuccess());
         assertEquals("Moosage not found", body.getMessage());
     }
+
+    @Test
+    public void testDeleteMoosageStoreFailure() {
+        when(sessionService.getUserIdByToken(validToken)).thenReturn(userId);
+        when(moosageService.getMoosageById(1L)).thenReturn(Optional.of(testMoosage));
+        when(moosageService.deleteMoosage(1L)).thenThrow(new IllegalStateException("Storing moosage DELETE failed"));
+
+        ResponseEntity<ApiResponse<Void>> response = moosageController.deleteMoosage(1L, validToken);
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+        assertFalse(response.getBody().isSuccess());
+    }
+
+    // ============== CONDITIONAL GET TESTS ==============
+
+    @Test
+    public void testGetAllMoosagesSendsETag() {
+        when(sessionService.getUserIdByToken(validToken)).thenReturn(userId);
+        when(moosageService.getChangeSequence()).thenReturn(7L);
+        when(moosageService.getAllMoosages()).thenReturn(List.of(testMoosage));
+
+        ResponseEntity<?> response = moosageController.getAllMoosages(null, null, validToken);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MoosageController.etag(EPOCH, 7L, userId), response.getHeaders().getETag());
+        assertEquals(List.of("Session-Token", "Accept-Encoding"), response.getHeaders().getVary());
+    }
+
+    @Test
+    public void testGetAllMoosagesNotModified() {
+        String etag = MoosageController.etag(EPOCH, 7L, userId);
+        when(sessionService.getUserIdByToken(validToken)).thenReturn(userId);
+        when(moosageService.getChangeSequence()).thenReturn(7L);
+
+        ResponseEntity<?> response =
+            moosageController.getAllMoosages("\"other\", " + etag, null, validToken);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals(etag, response.getHeaders().getETag());
+        assertNull(response.getBody());
+        // Answered before any moosage was read or mapped
+        verify(moosageService, never()).getAllMoosages();
+    }
+
+    @Test
+    public void testGetAllMoosagesNotModifiedForGzipETag() {
+        String etag = ResponseUtils.gzipEtag(MoosageController.etag(EPOCH, 7L, userId));
+        when(sessionService.getUserIdByToken(validToken)).thenReturn(userId);
+        when(moosageService.getChangeSequence()).thenReturn(7L);
+
+        ResponseEntity<?> response = moosageController.getAllMoosages(etag, "gzip", validToken);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals(etag, response.getHeaders().getETag());
+        assertEquals(List.of("Session-Token", "Accept-Encoding"), response.getHeaders().getVary());
+        verify(moosageService, never()).getAllMoosages();
+    }
+
+    @Test
+    public void testETagMatchesEitherCodingForm() {
+        String etag = MoosageController.etag(EPOCH, 7L, userId);
+        String gzipped = ResponseUtils.gzipEtag(etag);
+
+        assertTrue(gzipped.startsWith("\"") && gzipped.endsWith("-gz\""));
+        assertEquals(etag, ResponseUtils.matchingEtag(etag, etag));
+        assertEquals(gzipped, ResponseUtils.matchingEtag("\"other\", " + gzipped, etag));
+        assertEquals(gzipped, ResponseUtils.matchingEtag("W/" + gzipped, etag));
+        assertEquals(etag, ResponseUtils.matchingEtag("*", etag));
+        assertNull(ResponseUtils.matchingEtag("\"other\"", etag));
+        assertFalse(ResponseUtils.etagMatches(null, etag));
+    }
+
+    @Test
+    public void testGetAllMoosagesOutdatedETag() {
+        when(sessionService.getUserIdByToken(validToken)).thenReturn(userId);
+        when(moosageService.getChangeSequence()).thenReturn(8L);
+        when(moosageService.getAllMoosages()).thenReturn(List.of(testMoosage));
+
+        ResponseEntity<?> response =
+            moosageController.getAllMoosages(MoosageController.etag(EPOCH, 7L, userId), null, validToken);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MoosageController.etag(EPOCH, 8L, userId), response.getHeaders().getETag());
+    }
+
+    @Test
+    public void testETagsDifferPerUser() {
+        assertFalse(MoosageController.etag(EPOCH, 7L, "user1").equals(MoosageController.etag(EPOCH, 7L, "user2")));
+        assertTrue(MoosageController.etag(EPOCH, 7L, "user1").startsWith("\""));
+        // Same String.hashCode
+        assertFalse(MoosageController.etag(EPOCH, 7L, "Aa").equals(MoosageController.etag(EPOCH, 7L, "BB")));
+        assertFalse(MoosageController.etag(EPOCH, 7L, "user1").contains("user1"));
+    }
+
+    @Test
+    public void testETagsDifferPerEpoch() {
+        // Another instance, or this one after a restart, may hand out the same number
+        assertFalse(MoosageController.etag("epoch1", 7L, userId).equals(MoosageController.etag("epoch2", 7L, userId)));
+    }
+
+    @Test
+    public void testETagOfAnotherEpochIsNotMatched() {
+        when(sessionService.getUserIdByToken(validToken)).thenReturn(userId);
+        when(moosageService.getChangeSequence()).thenReturn(7L);
+        when(moosageService.getAllMoosages()).thenReturn(List.of(testMoosage));
+
+        ResponseEntity<?> response =
+            moosageController.getAllMoosages(MoosageController.etag("other", 7L, userId), null, validToken);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MoosageController.etag(EPOCH, 7L, userId), response.getHeaders().getETag());
+    }
+
+    @Test
+    public void testGetMoosagePageSendsETag() throws Exception {
+        when(sessionService.getUserIdByToken(validToken)).thenReturn(userId);
+        when(moosageService.getChangeSequence()).thenReturn(7L);
+        when(moosageService.getMoosagesBefore(null, null, 3)).thenReturn(List.of(testMoosage));
+
+        ResponseEntity<?> response = moosageController.getMoosagePage(2, null, null, null, validToken);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MoosageController.pageEtag(EPOCH, 7L, userId, null, 2), response.getHeaders().getETag());
+        assertEquals(1, readPage(response).getData().getMoosages().size());
+    }
+
+    @Test
+    public void testGetMoosagePageNotModified() {
+        FeedCursor cursor = new FeedCursor(testMoosage.getTime().plusMinutes(1), 2L);
+        String etag = ResponseUtils.gzipEtag(MoosageController.pageEtag(EPOCH, 7L, userId, cursor.encode(), 2));
+        when(sessionService.getUserIdByToken(validToken)).thenReturn(userId);
+        when(moosageService.getChangeSequence()).thenReturn(7L);
+
+        ResponseEntity<?> response = moosageController.getMoosagePage(2, cursor.encode(), etag, "gzip", validToken);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals(etag, response.getHeaders().getETag());
+        assertNull(response.getBody());
+        // Answered before the page was read
+        verify(moosageService, never()).getMoosagesBefore(any(), any(), anyInt());
+    }
+
+    @Test
+    public void testGetMoosagePageETagOfAnotherPageIsNotMatched() {
+        when(sessionService.getUserIdByToken(validToken)).thenReturn(userId);
+        when(moosageService.getChangeSequence()).thenReturn(7L);
+        when(moosageService.getMoosagesBefore(null, null, 11)).thenReturn(List.of(testMoosage));
+
+        ResponseEntity<?> response = moosageController.getMoosagePage(
+            10, null, MoosageController.pageEtag(EPOCH, 7L, userId, null, 2), null, validToken);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MoosageController.pageEtag(EPOCH, 7L, userId, null, 10), response.getHeaders().getETag());
+    }
+
+    @Test
+    public void testPageETagsDifferPerPageAndUser() {
+        String first = MoosageController.pageEtag(EPOCH, 7L, "user1", null, 10);
+
+        assertFalse(first.equals(MoosageController.pageEtag(EPOCH, 7L, "user2", null, 10)));
+        assertFalse(first.equals(MoosageController.pageEtag(EPOCH, 7L, "user1", "cursor", 10)));
+        assertFalse(first.equals(MoosageController.pageEtag(EPOCH, 7L, "user1", null, 20)));
+        assertFalse(first.equals(MoosageController.pageEtag(EPOCH, 8L, "user1", null, 10)));
+        assertFalse(first.equals(MoosageController.etag(EPOCH, 7L, "user1")));
+    }
+
+    @Test
+    public void testGetMoosageByIdNotModified() {
+        String etag = MoosageController.etag(EPOCH, 3L, userId);
+        when(sessionService.getUserIdByToken(validToken)).thenReturn(userId);
+        when(moosageService.getChangeSequence(1L)).thenReturn(3L);
+
+        ResponseEntity<ApiResponse<MoosageDto>> response = moosageController.getMoosageById(1L, etag, validToken);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+        verify(moosageService, never()).getMoosageById(anyLong());
+    }
+
+    @Test
+    public void testGetMoosageByIdSendsETag() {
+        when(sessionService.getUserIdByToken(validToken)).thenReturn(userId);
+        when(moosageService.getChangeSequence(1L)).thenReturn(4L);
+        when(moosageService.getMoosageById(1L)).thenReturn(Optional.of(testMoosage));
+
+        ResponseEntity<ApiResponse<MoosageDto>> response =
+            moosageController.getMoosageById(1L, MoosageController.etag(EPOCH, 3L, userId), validToken);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MoosageController.etag(EPOCH, 4L, userId), response.getHeaders().getETag());
+    }
+
+    // ============== CHANGES TESTS ==============
+
+    @Test
+    public void testGetChangesSuccess() {
+        testMoosage.addLike(userId);
+        when(sessionService.getUserIdByToken(validToken)).thenReturn(userId);
+        when(moosageService.getChangesSince(10L, MoosageController.MAX_CHANGES))
+            .thenReturn(new MoosageChangeSet(12L, true, List.of(testMoosage), List.of(5L)));
+        when(moosageService.getAuthorUsername(testMoosage)).thenReturn("testuser");
+
+        ResponseEntity<ApiResponse<MoosageChanges>> response = moosageController.getChanges(10L, validToken);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        MoosageChanges changes = response.getBody().getData();
+        assertTrue(changes.isComplete());
+        assertEquals(12L, changes.getSequence());
+        assertEquals(1, changes.getChanged().size());
+        assertEquals("testuser", changes.getChanged().get(0).getAuthorUsername());
+        assertTrue(changes.getChanged().get(0).isLikedByMe());
+        assertEquals(List.of(5L), changes.getDeleted());
+    }
+
+    @Test
+    public void testGetChangesIncomplete() {
+        when(sessionService.getUserIdByToken(validToken)).thenReturn(userId);
+        when(moosageService.getChangesSince(1L, MoosageController.MAX_CHANGES))
+            .thenReturn(new MoosageChangeSet(12L, false, List.of(), List.of()));
+
+        ResponseEntity<ApiResponse<MoosageChanges>> response = moosageController.getChanges(1L, validToken);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertFalse(response.getBody().getData().isComplete());
+        assertEquals(12L, response.getBody().getData().getSequence());
+    }
+
+    @Test
+    public void testGetChangesUnauthorized() {
+        when(sessionService.getUserIdByToken(invalidToken)).thenReturn(null);
+
+        ResponseEntity<ApiResponse<MoosageChanges>> response = moosageController.getChanges(1L, invalidToken);
+
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+        verify(moosageService, never()).getChangesSince(anyLong(), anyInt());
+    }
+
+    // ============== EVENT STREAM TESTS ==============
+
+    @Test
+    public void testStreamMoosageEventsSubscribes() {
+        SseEmitter emitter = new SseEmitter();
+        when(sessionService.getUserIdByToken(validToken)).thenReturn(userId);
+        when(feedEventHub.subscribe()).thenReturn(emitter);
+
+        ResponseEntity<SseEmitter> response = moosageController.streamMoosageEvents(validToken);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(response.getBody() == emitter);
+    }
+
+    @Test
+    public void testStreamMoosageEventsInvalidToken() {
+        when(sessionService.getUserIdByToken(invalidToken)).thenReturn(null);
+
+        ResponseEntity<SseEmitter> response = moosageController.streamMoosageEvents(invalidToken);
+
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+        assertNull(response.getBody());
+        verify(feedEventHub, never()).subscribe();
+    }
+
+    @Test
+    public void testStreamMoosageEventsWhenFull() {
+        when(sessionService.getUserIdByToken(validToken)).thenReturn(userId);
+        when(feedEventHub.subscribe()).thenThrow(new ServiceBusyException("Too many feed subscribers"));
+
+        ResponseEntity<SseEmitter> response = moosageController.streamMoosageEvents(validToken);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertNotNull(response.getHeaders().getFirst("Retry-After"));
+        assertNull(response.getBody());
+    }
 }
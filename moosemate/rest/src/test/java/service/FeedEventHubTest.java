@@ -0,0 +1,350 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import dto.MoosageEvent;
+import model.Moosage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import repository.MoosageMutation;
+import repository.MoosageRepository;
+import repository.UserRepository;
+
+/**
+ * Tests for FeedEventHub. Subscribers are recording sinks instead of HTTP streams.
+ */
+public class FeedEventHubTest {
+
+    @Mock
+    private MoosageRepository moosageRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private FeedEventHub hub;
+
+    // Records every batch; blocks in send until released, if a gate is set
+    private static final class RecordingSink implements FeedEventHub.Sink {
+        final BlockingQueue<List<FeedEventHub.Outgoing>> batches = new LinkedBlockingQueue<>();
+        final CountDownLatch gate;
+        final CountDownLatch sending = new CountDownLatch(1);
+        volatile boolean fail;
+        volatile boolean closed;
+
+        RecordingSink(CountDownLatch gate) {
+            this.gate = gate;
+        }
+
+        @Override
+        public void send(List<FeedEventHub.Outgoing> events) throws IOException {
+            sending.countDown();
+            if (fail) {
+                throw new IOException("Broken pipe");
+            }
+            if (gate != null) {
+                try {
+                    gate.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            batches.add(events);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        List<FeedEventHub.Outgoing> nextBatch() throws InterruptedException {
+            List<FeedEventHub.Outgoing> batch = batches.poll(10, TimeUnit.SECONDS);
+            assertNotNull(batch, "No events were sent");
+            return batch;
+        }
+    }
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(userRepository.getUsername("author1")).thenReturn("author");
+        hub = createHub(FeedEventHub.DEFAULT_MAX_SUBSCRIBERS, FeedEventHub.DEFAULT_MAX_PENDING);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        hub.close();
+    }
+
+    private FeedEventHub createHub(int maxSubscribers, int maxPending) {
+        return createHub(maxSubscribers, maxPending, FeedEventHub.DEFAULT_MAX_QUEUED);
+    }
+
+    private FeedEventHub createHub(int maxSubscribers, int maxPending, int maxQueued) {
+        return new FeedEventHub(moosageRepository, userRepository, objectMapper,
+                maxSubscribers, maxPending, maxQueued, 60, 3600);
+    }
+
+    private static Moosage moosage(long id, int likes) {
+        Moosage moosage = new Moosage(id, "Content " + id, "author1", LocalDateTime.now());
+        for (int i = 0; i < likes; i++) {
+            moosage.addLike("liker" + i);
+        }
+        return moosage;
+    }
+
+    private MoosageEvent parse(FeedEventHub.Outgoing event) throws IOException {
+        return objectMapper.readValue(event.json(), MoosageEvent.class);
+    }
+
+    @Test
+    public void testRegistersWithTheRepository() {
+        verify(moosageRepository).addListener(hub);
+    }
+
+    @Test
+    public void testChangesAreSentAsEvents() throws Exception {
+        RecordingSink sink = new RecordingSink(null);
+        hub.subscribe(sink);
+        Moosage created = moosage(1, 0);
+
+        hub.moosageChanged(MoosageMutation.create(created), created);
+        FeedEventHub.Outgoing event = sink.nextBatch().get(0);
+
+        assertEquals("created", event.name());
+        MoosageEvent parsed = parse(event);
+        assertEquals(MoosageEvent.Type.CREATED, parsed.getType());
+        assertEquals(1L, parsed.getId());
+        assertEquals("author", parsed.getMoosage().getAuthorUsername());
+        assertEquals("Content 1", parsed.getMoosage().getContent());
+
+        hub.moosageChanged(MoosageMutation.delete(1L), null);
+        MoosageEvent deleted = parse(sink.nextBatch().get(0));
+        assertEquals(MoosageEvent.Type.DELETED, deleted.getType());
+        assertEquals(1L, deleted.getId());
+    }
+
+    @Test
+    public void testEveryEventIsSentToEverySubscriber() throws Exception {
+        RecordingSink first = new RecordingSink(null);
+        RecordingSink second = new RecordingSink(null);
+        hub.subscribe(first);
+        hub.subscribe(second);
+        Moosage liked = moosage(1, 3);
+
+        hub.moosageChanged(MoosageMutation.like(1L, "liker2", true), liked);
+
+        for (RecordingSink sink : List.of(first, second)) {
+            MoosageEvent event = parse(sink.nextBatch().get(0));
+            assertEquals(MoosageEvent.Type.LIKES, event.getType());
+            assertEquals(3, event.getLikeCount());
+        }
+        assertEquals(2, hub.getSubscriberCount());
+    }
+
+    @Test
+    public void testPendingChangesOfAMoosageAreCoalesced() throws Exception {
+        CountDownLatch gate = new CountDownLatch(1);
+        RecordingSink sink = new RecordingSink(gate);
+        hub.subscribe(sink);
+        Moosage first = moosage(1, 0);
+        hub.moosageChanged(MoosageMutation.create(first), first);
+        assertTrue(sink.sending.await(10, TimeUnit.SECONDS));
+
+        // The sink is stuck sending the create; these queue up behind it
+        for (int likes = 1; likes <= 50; likes++) {
+            hub.moosageChanged(MoosageMutation.like(1L, "liker" + likes, true), moosage(1, likes));
+        }
+        Moosage edited = moosage(2, 0);
+        edited.setContent("Edited");
+        hub.moosageChanged(MoosageMutation.update(2L, "Edited"), edited);
+        waitForDispatch();
+        gate.countDown();
+
+        assertEquals(1, sink.nextBatch().size());
+        List<FeedEventHub.Outgoing> batch = sink.nextBatch();
+        assertEquals(2, batch.size());
+        assertEquals(50, parse(batch.get(0)).getLikeCount());
+        assertEquals("Edited", parse(batch.get(1)).getContent());
+        assertEquals(49, hub.getCoalescedCount());
+    }
+
+    @Test
+    public void testSubscriberThatFallsBehindIsToldToResync() throws Exception {
+        hub.close();
+        hub = createHub(FeedEventHub.DEFAULT_MAX_SUBSCRIBERS, 3);
+        CountDownLatch gate = new CountDownLatch(1);
+        RecordingSink slow = new RecordingSink(gate);
+        hub.subscribe(slow);
+        Moosage first = moosage(1, 0);
+        hub.moosageChanged(MoosageMutation.create(first), first);
+        assertTrue(slow.sending.await(10, TimeUnit.SECONDS));
+
+        for (long id = 2; id <= 10; id++) {
+            Moosage created = moosage(id, 0);
+            hub.moosageChanged(MoosageMutation.create(created), created);
+        }
+        waitForDispatch();
+        gate.countDown();
+
+        slow.nextBatch();
+        List<FeedEventHub.Outgoing> batch = slow.nextBatch();
+        assertEquals(1, batch.size());
+        assertTrue(parse(batch.get(0)).isResync());
+        assertEquals(1, hub.getResyncCount());
+    }
+
+    @Test
+    public void testFullQueueTurnsIntoResync() throws Exception {
+        hub.close();
+        hub = createHub(FeedEventHub.DEFAULT_MAX_SUBSCRIBERS, FeedEventHub.DEFAULT_MAX_PENDING, 4);
+        RecordingSink sink = new RecordingSink(null);
+        hub.subscribe(sink);
+        // Holds up the dispatcher on the first create while writers keep going
+        CountDownLatch dispatching = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(userRepository.getUsername("author1")).thenAnswer(invocation -> {
+            dispatching.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return "author";
+        });
+        Moosage first = moosage(1, 0);
+        hub.moosageChanged(MoosageMutation.create(first), first);
+        assertTrue(dispatching.await(10, TimeUnit.SECONDS));
+
+        for (long id = 2; id <= 20; id++) {
+            Moosage liked = moosage(id, 1);
+            hub.moosageChanged(MoosageMutation.like(id, "liker0", true), liked);
+        }
+        release.countDown();
+
+        // The like counts were dropped for a single RESYNC
+        List<String> names = new ArrayList<>();
+        while (!names.contains("resync")) {
+            sink.nextBatch().forEach(event -> names.add(event.name()));
+        }
+        assertEquals(List.of("created", "resync"), names);
+        assertEquals(1, hub.getOverflowCount());
+    }
+
+    @Test
+    public void testReloadSendsResync() throws Exception {
+        RecordingSink sink = new RecordingSink(null);
+        hub.subscribe(sink);
+
+        hub.moosagesReloaded();
+
+        assertTrue(parse(sink.nextBatch().get(0)).isResync());
+    }
+
+    @Test
+    public void testFailingSubscriberIsRemoved() throws Exception {
+        RecordingSink sink = new RecordingSink(null);
+        sink.fail = true;
+        hub.subscribe(sink);
+        Moosage created = moosage(1, 0);
+
+        hub.moosageChanged(MoosageMutation.create(created), created);
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (hub.getSubscriberCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, hub.getSubscriberCount());
+        assertTrue(sink.closed);
+    }
+
+    @Test
+    public void testSubscribersAreLimited() {
+        hub.close();
+        hub = createHub(1, FeedEventHub.DEFAULT_MAX_PENDING);
+
+        assertNotNull(hub.subscribe());
+        assertThrows(ServiceBusyException.class, () -> hub.subscribe());
+        assertEquals(1, hub.getSubscriberCount());
+    }
+
+    @Test
+    public void testConcurrentSubscribesKeepToTheLimit() throws Exception {
+        hub.close();
+        hub = createHub(10, FeedEventHub.DEFAULT_MAX_PENDING);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger rejected = new AtomicInteger();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await(10, TimeUnit.SECONDS);
+                    try {
+                        hub.subscribe(new RecordingSink(null));
+                    } catch (ServiceBusyException e) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(10, hub.getSubscriberCount());
+        assertEquals(90, rejected.get());
+    }
+
+    @Test
+    public void testCloseEndsStreams() {
+        RecordingSink sink = new RecordingSink(null);
+        hub.subscribe(sink);
+
+        hub.close();
+
+        assertEquals(0, hub.getSubscriberCount());
+        assertTrue(sink.closed);
+        verify(moosageRepository).removeListener(hub);
+    }
+
+    @Test
+    public void testInvalidLimitsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> createHub(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> createHub(1, 0));
+        assertThrows(IllegalArgumentException.class, () -> createHub(1, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new FeedEventHub(null, userRepository, objectMapper,
+                1, 1, 1, 60, 60));
+    }
+
+    // Changes are handed to the dispatcher thread; give it time to queue them
+    private static void waitForDispatch() throws InterruptedException {
+        Thread.sleep(200);
+    }
+}
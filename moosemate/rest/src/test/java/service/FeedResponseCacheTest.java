@@ -0,0 +1,211 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import dto.ApiResponse;
+import dto.MoosageDto;
+import dto.MoosagePage;
+import model.Moosage;
+import util.FeedCursor;
+
+// Tests for the serialized feed responses kept between writes.
+public class FeedResponseCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private MoosageService moosageService;
+    private FeedResponseCache cache;
+    private List<Moosage> moosages;
+
+    @BeforeEach
+    public void setUp() {
+        moosageService = mock(MoosageService.class);
+        when(moosageService.getAuthorUsername(any())).thenReturn("moose");
+        LocalDateTime now = LocalDateTime.now();
+        moosages = new ArrayList<>();
+        for (long id = 3; id >= 1; id--) {
+            moosages.add(new Moosage(id, "Content " + id, "author-id", now.minusMinutes(3 - id)));
+        }
+        when(moosageService.getAllMoosages()).thenReturn(moosages);
+        cache = new FeedResponseCache(moosageService, objectMapper, FeedResponseCache.DEFAULT_MAX_PAGES);
+    }
+
+    private List<MoosageDto> readFeed(FeedResponseCache.Body body) throws IOException {
+        byte[] bytes = body.gzipped()
+                ? new GZIPInputStream(new ByteArrayInputStream(body.bytes())).readAllBytes()
+                : body.bytes();
+        ApiResponse<List<MoosageDto>> response =
+                objectMapper.readValue(bytes, new TypeReference<ApiResponse<List<MoosageDto>>>() { });
+        assertTrue(response.isSuccess());
+        return response.getData();
+    }
+
+    private ApiResponse<MoosagePage> readPage(FeedResponseCache.Body body) throws IOException {
+        return objectMapper.readValue(body.bytes(), new TypeReference<ApiResponse<MoosagePage>>() { });
+    }
+
+    @Test
+    public void testSameSequenceIsServedFromCache() throws Exception {
+        FeedResponseCache.Body first = cache.getAllMoosages(5, "reader", false);
+        FeedResponseCache.Body second = cache.getAllMoosages(5, "other-reader", false);
+
+        assertSame(first.bytes(), second.bytes());
+        assertEquals(3, readFeed(second).size());
+        verify(moosageService, times(1)).getAllMoosages();
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testNewSequenceReadsAgain() throws Exception {
+        cache.getAllMoosages(5, "reader", false);
+        moosages.remove(0);
+
+        assertEquals(2, readFeed(cache.getAllMoosages(6, "reader", false)).size());
+        verify(moosageService, times(2)).getAllMoosages();
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testOlderSequenceIsNotKept() throws Exception {
+        cache.getAllMoosages(6, "reader", false);
+
+        cache.getAllMoosages(5, "reader", false);
+        cache.getAllMoosages(5, "reader", false);
+
+        verify(moosageService, times(3)).getAllMoosages();
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testLikedByMeIsFilledInPerUser() throws Exception {
+        moosages.get(0).addLike("liker");
+        moosages.get(2).addLike("liker");
+        moosages.get(2).addLike("other-liker");
+
+        List<MoosageDto> liker = readFeed(cache.getAllMoosages(5, "liker", false));
+        List<MoosageDto> otherLiker = readFeed(cache.getAllMoosages(5, "other-liker", false));
+        List<MoosageDto> reader = readFeed(cache.getAllMoosages(5, "reader", false));
+
+        assertEquals(List.of(true, false, true), liker.stream().map(MoosageDto::isLikedByMe).toList());
+        assertEquals(List.of(false, false, true), otherLiker.stream().map(MoosageDto::isLikedByMe).toList());
+        assertEquals(List.of(false, false, false), reader.stream().map(MoosageDto::isLikedByMe).toList());
+        assertEquals(List.of(1, 0, 2), liker.stream().map(MoosageDto::getLikeCount).toList());
+        verify(moosageService, times(1)).getAllMoosages();
+    }
+
+    @Test
+    public void testContentLookingLikeTheFlagIsKept() throws Exception {
+        String content = "\"likedByMe\":false";
+        moosages.get(1).setContent(content);
+        moosages.get(1).addLike("liker");
+
+        List<MoosageDto> feed = readFeed(cache.getAllMoosages(5, "liker", false));
+
+        assertEquals(content, feed.get(1).getContent());
+        assertTrue(feed.get(1).isLikedByMe());
+        assertFalse(feed.get(0).isLikedByMe());
+    }
+
+    @Test
+    public void testSharedBodyIsGzippedWhenLargeEnough() throws Exception {
+        assertFalse(cache.getAllMoosages(5, "reader", true).gzipped());
+
+        for (long id = 4; id < 40; id++) {
+            moosages.add(new Moosage(id, "Content " + id, "author-id", LocalDateTime.now()));
+        }
+        FeedResponseCache.Body gzipped = cache.getAllMoosages(6, "reader", true);
+        FeedResponseCache.Body plain = cache.getAllMoosages(6, "reader", false);
+
+        assertTrue(gzipped.gzipped());
+        assertTrue(gzipped.bytes().length < plain.bytes().length);
+        assertEquals(readFeed(plain).size(), readFeed(gzipped).size());
+        assertSame(gzipped.bytes(), cache.getAllMoosages(6, "other-reader", true).bytes());
+    }
+
+    @Test
+    public void testPersonalBodiesAreNotGzipped() {
+        for (long id = 4; id < 40; id++) {
+            moosages.add(new Moosage(id, "Content " + id, "author-id", LocalDateTime.now()));
+        }
+        moosages.get(0).addLike("liker");
+
+        assertFalse(cache.getAllMoosages(5, "liker", true).gzipped());
+    }
+
+    @Test
+    public void testPagesAreKeptPerCursorAndLimit() throws Exception {
+        when(moosageService.getMoosagesBefore(null, null, 3)).thenReturn(moosages);
+        FeedCursor cursor = FeedCursor.of(moosages.get(1));
+        when(moosageService.getMoosagesBefore(cursor.time(), cursor.id(), 3)).thenReturn(moosages.subList(2, 3));
+
+        ApiResponse<MoosagePage> first = readPage(cache.getPage(5, null, 2, "reader", false));
+        ApiResponse<MoosagePage> last = readPage(cache.getPage(5, cursor, 2, "reader", false));
+        cache.getPage(5, null, 2, "reader", false);
+
+        assertEquals(List.of(3L, 2L), first.getData().getMoosages().stream().map(MoosageDto::getId).toList());
+        assertEquals(cursor.encode(), first.getData().getNextCursor());
+        assertEquals(5L, first.getData().getChangeSequence());
+        assertEquals(1, last.getData().getMoosages().size());
+        assertNull(last.getData().getNextCursor());
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void testMaxPagesBoundsKeptResponses() {
+        cache = new FeedResponseCache(moosageService, objectMapper, 1);
+        when(moosageService.getMoosagesBefore(null, null, 2)).thenReturn(moosages);
+
+        cache.getAllMoosages(5, "reader", false);
+        cache.getPage(5, null, 1, "reader", false);
+        cache.getPage(5, null, 1, "reader", false);
+
+        assertEquals(1, cache.size());
+        verify(moosageService, times(2)).getMoosagesBefore(null, null, 2);
+    }
+
+    @Test
+    public void testFlagOffsetsPointAtEachFlag() {
+        byte[] bytes = "[{\"likedByMe\":false},{\"a\":1,\"likedByMe\":false}]".getBytes(StandardCharsets.UTF_8);
+
+        int[] offsets = FeedResponseCache.flagOffsets(bytes, 2);
+
+        assertArrayEquals(new int[] {14, 40}, offsets);
+        assertThrows(IllegalStateException.class, () -> FeedResponseCache.flagOffsets(bytes, 1));
+        assertThrows(IllegalStateException.class, () -> FeedResponseCache.flagOffsets(bytes, 3));
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new FeedResponseCache(null, objectMapper, 1));
+        assertThrows(IllegalArgumentException.class, () -> new FeedResponseCache(moosageService, null, 1));
+        assertThrows(IllegalArgumentException.class, () -> new FeedResponseCache(moosageService, objectMapper, -1));
+        assertThrows(IllegalArgumentException.class, () -> cache.getPage(5, null, 0, "reader", false));
+    }
+}
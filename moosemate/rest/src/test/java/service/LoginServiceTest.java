@@ -56,9 +56,14 @@ public class LoginServiceTest {
         // Clean up any existing test data
         cleanupTestFile();
         // Initialize services with test isolation
+        passwordService = new PasswordService();
+        reloadServices();
+    }
+
+    // The repository loads users once, so tests that write the data file must reload it
+    private void reloadServices() {
         userRepository = new UserRepository(new TestJsonFileHandler(testDataFile));
         userService = new UserService(userRepository);
-        passwordService = new PasswordService();
         loginService = new LoginService(userService, passwordService);
     }
 
@@ -68,9 +73,11 @@ public class LoginServiceTest {
     }
 
     private void cleanupTestFile() {
-        File file = new File(testDataFile);
-        if (file.exists()) {
-            file.delete();
+        // Also removes the earlier snapshots kept next to the data file
+        try {
+            new JsonFileHandler().deleteDataFile(new File(testDataFile));
+        } catch (IOException e) {
+            System.err.println("Could not delete test data: " + e.getMessage());
         }
     }
     
@@ -86,6 +93,7 @@ public class LoginServiceTest {
                 + "  ]\n"
                 + "}";
         Files.write(Paths.get(testDataFile), testData.getBytes());
+        reloadServices();
     }
 
     @Test
@@ -336,6 +344,7 @@ public class LoginServiceTest {
                 + "  ]\n"
                 + "}";
         Files.write(Paths.get(testDataFile), testDataWithSpecialChars.getBytes());
+        reloadServices();
         
         boolean result = userService.userExists("user@#$%");
         assertTrue(result);
@@ -357,6 +366,7 @@ public class LoginServiceTest {
                 + "  ]\n"
                 + "}";
         Files.write(Paths.get(testDataFile), incompleteData.getBytes());
+        reloadServices();
         
         User user1 = loginService.loginUser("incompleteuser", "password123");
         assertNull(user1, "Should fail login with incomplete user data");
@@ -0,0 +1,71 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import repository.GroupCommitStats;
+import repository.MoosageRepository;
+import repository.UserRepository;
+
+// Unit tests for MetricsReporter.
+public class MetricsReporterTest {
+
+    private PasswordService passwordService;
+    private MoosageRepository moosageRepository;
+    private MoosageService moosageService;
+    private MetricsReporter reporter;
+
+    @BeforeEach
+    void setUp() {
+        passwordService = new PasswordService(1, 1);
+        moosageRepository = mock(MoosageRepository.class);
+        moosageService = new MoosageService(moosageRepository, mock(UserRepository.class));
+        reporter = new MetricsReporter(passwordService, moosageService, Duration.ZERO);
+    }
+
+    @AfterEach
+    void tearDown() {
+        reporter.close();
+        passwordService.close();
+    }
+
+    @Test
+    void testRejectsNegativeInterval() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new MetricsReporter(passwordService, moosageService, Duration.ofSeconds(-1)));
+        assertThrows(IllegalArgumentException.class, () -> new MetricsReporter(null, moosageService, Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> new MetricsReporter(passwordService, null, Duration.ZERO));
+    }
+
+    @Test
+    void testReportsPasswordPool() {
+        passwordService.verifyPassword("password", "not a hash");
+
+        List<String> report = reporter.report();
+
+        assertTrue(report.get(0).startsWith("Password pool: 0 queued, 0 active, 0 rejected, 0.0 ms per hash"),
+                report.get(0));
+    }
+
+    @Test
+    void testReportsFeedCoalescingAndLogBatches() {
+        when(moosageRepository.getAllMoosages()).thenReturn(List.of());
+        when(moosageRepository.getLogStats()).thenReturn(new GroupCommitStats(4, 10, 5));
+        moosageService.getAllMoosages();
+
+        List<String> report = reporter.report();
+
+        assertEquals("Feed reads: 1 asked, 1 run, 0.0% shared", report.get(1));
+        assertEquals("Moosage log: 10 records in 4 batches, 2.5 records per batch, largest batch 5", report.get(2));
+    }
+}
@@ -3,19 +3,27 @@ package service;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import model.Moosage;
 import model.User;
@@ -26,6 +34,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import repository.MoosageChangeSet;
 import repository.MoosageRepository;
 import repository.UserRepository;
 
@@ -50,7 +59,7 @@ public class MoosageServiceTest {
     public void setUp() {
         MockitoAnnotations.openMocks(this);
         testUser = new User("testuser", "test@example.com", "password", "user123");
-        testMoosage = new Moosage(1L, "Test content", testUser, LocalDateTime.now());
+        testMoosage = new Moosage(1L, "Test content", testUser.getUserID(), LocalDateTime.now());
     }
     
     @Test
@@ -75,6 +84,35 @@ public class MoosageServiceTest {
         verify(moosageRepository, times(1)).getAllMoosages();
     }
     
+    @Test
+    public void testGetMoosagesBefore() {
+        LocalDateTime cursorTime = LocalDateTime.now();
+        when(moosageRepository.getMoosagesBefore(cursorTime, 5L, 20)).thenReturn(Arrays.asList(testMoosage));
+
+        List<Moosage> result = moosageService.getMoosagesBefore(cursorTime, 5L, 20);
+
+        assertEquals(1, result.size());
+        verify(moosageRepository, times(1)).getMoosagesBefore(cursorTime, 5L, 20);
+    }
+    
+    @Test
+    public void testGetAuthorUsernameLooksUpTheAuthorId() {
+        when(userRepository.getUsername("user123")).thenReturn("testuser");
+
+        assertEquals("testuser", moosageService.getAuthorUsername(testMoosage));
+        verify(userRepository, times(1)).getUsername("user123");
+    }
+
+    @Test
+    public void testGetLikers() {
+        when(moosageRepository.getLikers(1L, "user1", 10)).thenReturn(Optional.of(List.of("user2")));
+
+        Optional<List<String>> result = moosageService.getLikers(1L, "user1", 10);
+
+        assertEquals(List.of("user2"), result.orElseThrow());
+        verify(moosageRepository, times(1)).getLikers(1L, "user1", 10);
+    }
+    
     @Test
     public void testGetMoosageById() {
         when(moosageRepository.getMoosageById(1L)).thenReturn(Optional.of(testMoosage));
@@ -98,7 +136,7 @@ public class MoosageServiceTest {
     
     @Test
     public void testCreateMoosageSuccess() {
-        when(userRepository.getUserById("user123")).thenReturn(Optional.of(testUser));
+        when(userRepository.getUsername("user123")).thenReturn("testuser");
         when(moosageRepository.createMoosage(anyString(), anyString(), anyString()))
                 .thenReturn(testMoosage);
         
@@ -106,26 +144,26 @@ public class MoosageServiceTest {
         
         assertNotNull(result);
         assertEquals(testMoosage.getId(), result.getId());
-        verify(userRepository, times(1)).getUserById("user123");
+        verify(userRepository, times(1)).getUsername("user123");
         verify(moosageRepository, times(1)).createMoosage("Test content", "user123", "testuser");
     }
     
     @Test
     public void testCreateMoosageUserNotFound() {
-        when(userRepository.getUserById("nonexistent")).thenReturn(Optional.empty());
+        when(userRepository.getUsername("nonexistent")).thenReturn(null);
         
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
             moosageService.createMoosage("Test content", "nonexistent");
         });
         
         assertEquals("User not found with ID: nonexistent", exception.getMessage());
-        verify(userRepository, times(1)).getUserById("nonexistent");
+        verify(userRepository, times(1)).getUsername("nonexistent");
         verify(moosageRepository, never()).createMoosage(anyString(), anyString(), anyString());
     }
     
     @Test
     public void testCreateMoosageWithNullUserId() {
-        when(userRepository.getUserById(null)).thenReturn(Optional.empty());
+        when(userRepository.getUsername(null)).thenReturn(null);
         
         assertThrows(IllegalArgumentException.class, () -> {
             moosageService.createMoosage("Test content", null);
@@ -134,32 +172,32 @@ public class MoosageServiceTest {
     
     @Test
     public void testToggleLikeSuccess() {
-        when(userRepository.getUserById("user123")).thenReturn(Optional.of(testUser));
+        when(userRepository.existsById("user123")).thenReturn(true);
         when(moosageRepository.toggleLike(1L, "user123")).thenReturn(Optional.of(testMoosage));
         
         Optional<Moosage> result = moosageService.toggleLike(1L, "user123");
         
         assertTrue(result.isPresent());
-        verify(userRepository, times(1)).getUserById("user123");
+        verify(userRepository, times(1)).existsById("user123");
         verify(moosageRepository, times(1)).toggleLike(1L, "user123");
     }
     
     @Test
     public void testToggleLikeUserNotFound() {
-        when(userRepository.getUserById("nonexistent")).thenReturn(Optional.empty());
+        when(userRepository.existsById("nonexistent")).thenReturn(false);
         
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
             moosageService.toggleLike(1L, "nonexistent");
         });
         
         assertEquals("User not found with ID: nonexistent", exception.getMessage());
-        verify(userRepository, times(1)).getUserById("nonexistent");
+        verify(userRepository, times(1)).existsById("nonexistent");
         verify(moosageRepository, never()).toggleLike(anyLong(), anyString());
     }
     
     @Test
     public void testToggleLikeMoosageNotFound() {
-        when(userRepository.getUserById("user123")).thenReturn(Optional.of(testUser));
+        when(userRepository.existsById("user123")).thenReturn(true);
         when(moosageRepository.toggleLike(999L, "user123")).thenReturn(Optional.empty());
         
         Optional<Moosage> result = moosageService.toggleLike(999L, "user123");
@@ -249,7 +287,7 @@ public class MoosageServiceTest {
     
     @Test
     public void testCreateMoosageWithEmptyContent() {
-        when(userRepository.getUserById("user123")).thenReturn(Optional.of(testUser));
+        when(userRepository.getUsername("user123")).thenReturn("testuser");
         when(moosageRepository.createMoosage("", "user123", "testuser"))
                 .thenReturn(testMoosage);
         
@@ -261,7 +299,7 @@ public class MoosageServiceTest {
     
     @Test
     public void testToggleLikeWithNullUserId() {
-        when(userRepository.getUserById(null)).thenReturn(Optional.empty());
+        when(userRepository.existsById(null)).thenReturn(false);
         
         assertThrows(IllegalArgumentException.class, () -> {
             moosageService.toggleLike(1L, null);
@@ -270,11 +308,89 @@ public class MoosageServiceTest {
     
     @Test
     public void testToggleLikeWithNullMoosageId() {
-        when(userRepository.getUserById("user123")).thenReturn(Optional.of(testUser));
+        when(userRepository.existsById("user123")).thenReturn(true);
         when(moosageRepository.toggleLike(null, "user123")).thenReturn(Optional.empty());
         
         Optional<Moosage> result = moosageService.toggleLike(null, "user123");
         
         assertFalse(result.isPresent());
     }
+
+    @Test
+    public void testGetChangesSinceDelegatesToRepository() {
+        MoosageChangeSet changes = new MoosageChangeSet(8L, true, List.of(testMoosage), List.of(2L));
+        when(moosageRepository.getChangeSequence()).thenReturn(7L);
+        when(moosageRepository.getChangesSince(7L, 100)).thenReturn(changes);
+
+        assertEquals(7L, moosageService.getChangeSequence());
+        assertEquals(changes, moosageService.getChangesSince(7L, 100));
+    }
+
+    // Runs getAllMoosages on another thread while the repository read is held back
+    private Future<List<Moosage>> startHeldFeedRead(ExecutorService executor, CountDownLatch release,
+                                                    List<Moosage> moosages) throws InterruptedException {
+        CountDownLatch reading = new CountDownLatch(1);
+        when(moosageRepository.getAllMoosages()).thenAnswer(invocation -> {
+            reading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return moosages;
+        });
+        Future<List<Moosage>> future = executor.submit(moosageService::getAllMoosages);
+        assertTrue(reading.await(5, TimeUnit.SECONDS));
+        return future;
+    }
+
+    @Test
+    public void testConcurrentFeedReadsShareOneRead() throws Exception {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            CountDownLatch release = new CountDownLatch(1);
+            when(moosageRepository.getChangeSequence()).thenReturn(7L);
+            Future<List<Moosage>> first = startHeldFeedRead(executor, release, List.of(testMoosage));
+            Future<List<Moosage>> second = executor.submit(moosageService::getAllMoosages);
+            while (moosageService.getReadCoalescingStats().reads() < 2) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+            verify(moosageRepository, times(1)).getAllMoosages();
+            assertEquals(1, moosageService.getReadCoalescingStats().coalesced());
+            assertEquals(0.5, moosageService.getReadCoalescingStats().coalescingRatio());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFeedReadAfterAWriteIsNotShared() throws Exception {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            CountDownLatch release = new CountDownLatch(1);
+            when(moosageRepository.getChangeSequence()).thenReturn(7L);
+            Future<List<Moosage>> before = startHeldFeedRead(executor, release, List.of());
+            // A write commits while the first read is still running
+            when(moosageRepository.getChangeSequence()).thenReturn(8L);
+            doReturn(List.of(testMoosage)).when(moosageRepository).getAllMoosages();
+
+            assertEquals(List.of(testMoosage), moosageService.getAllMoosages());
+            release.countDown();
+
+            assertEquals(List.of(), before.get(5, TimeUnit.SECONDS));
+            verify(moosageRepository, times(2)).getAllMoosages();
+            assertEquals(0, moosageService.getReadCoalescingStats().coalesced());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFeedReadsAreUnmodifiable() {
+        when(moosageRepository.getAllMoosages()).thenReturn(new ArrayList<>(List.of(testMoosage)));
+        when(moosageRepository.getMoosagesBefore(null, null, 10)).thenReturn(new ArrayList<>(List.of(testMoosage)));
+
+        assertThrows(UnsupportedOperationException.class, () -> moosageService.getAllMoosages().clear());
+        assertThrows(UnsupportedOperationException.class,
+            () -> moosageService.getMoosagesBefore(null, null, 10).clear());
+    }
 }
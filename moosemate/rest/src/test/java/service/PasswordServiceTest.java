@@ -1,11 +1,16 @@
 package service;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -19,6 +24,11 @@ public class PasswordServiceTest {
         passwordService = new PasswordService();
     }
     
+    @AfterEach
+    void tearDown() {
+        passwordService.close();
+    }
+    
     @Test
     void testHashPassword() {
         String password = "testPassword123";
@@ -89,4 +99,66 @@ public class PasswordServiceTest {
         assertTrue(passwordService.verifyPassword(password, hash1));
         assertTrue(passwordService.verifyPassword(password, hash2));
     }
+    
+    @Test
+    void testFullQueueFailsFast() throws InterruptedException {
+        PasswordService smallPool = new PasswordService(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            // Occupy the only worker and the only queue slot
+            smallPool.getExecutor().execute(() -> awaitQuietly(release));
+            smallPool.getExecutor().execute(() -> awaitQuietly(release));
+            
+            assertThrows(ServiceBusyException.class, () -> smallPool.hashPassword("password123"));
+            assertThrows(ServiceBusyException.class, () -> smallPool.verifyPassword("password123", "hash"));
+            assertEquals(2, smallPool.getRejectedCount());
+            assertEquals(1, smallPool.getQueueDepth());
+        } finally {
+            release.countDown();
+            smallPool.close();
+        }
+    }
+    
+    @Test
+    void testLatencyMetrics() {
+        assertEquals(0.0, passwordService.getAverageHashMillis());
+        
+        String hashed = passwordService.hashPassword("password123");
+        passwordService.verifyPassword("password123", hashed);
+        
+        assertTrue(passwordService.getAverageHashMillis() > 0);
+        assertTrue(passwordService.getAverageVerifyMillis() > 0);
+        assertEquals(0, passwordService.getQueueDepth());
+    }
+    
+    @Test
+    void testCalibrationReportsCostPerRound() throws InterruptedException {
+        passwordService.calibrate();
+        
+        passwordService.getExecutor().shutdown();
+        assertTrue(passwordService.getExecutor().awaitTermination(30, TimeUnit.SECONDS));
+        assertTrue(passwordService.getCalibratedMillisPerRound() > 0);
+    }
+    
+    @Test
+    void testDefaultPoolLeavesHalfTheProcessors() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        
+        assertEquals(Math.max(1, processors / 2), PasswordService.defaultPoolSize());
+        assertEquals(PasswordService.defaultPoolSize(), passwordService.getExecutor().getMaximumPoolSize());
+        assertEquals(3, new PasswordService(3, 1).getExecutor().getMaximumPoolSize());
+    }
+    
+    @Test
+    void testInvalidQueueCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new PasswordService(1, 0));
+    }
+    
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 }
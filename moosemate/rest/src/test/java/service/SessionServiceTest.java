@@ -9,8 +9,12 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
 import model.User;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -21,11 +25,23 @@ public class SessionServiceTest {
 
     private SessionService sessionService;
     private User testUser;
+    private AtomicLong now;
 
     @BeforeEach
     public void setUp() {
         sessionService = new SessionService();
         testUser = new User("testuser", "test@example.com", "password123", "user123");
+        now = new AtomicLong(1_000_000L);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        sessionService.close();
+    }
+
+    // Session service with a manual clock and no reaper thread
+    private SessionService manualClockService(int maxSessions) {
+        return new SessionService(Duration.ofMinutes(30), Duration.ofHours(12), maxSessions, now::get, false);
     }
 
     // ============== CREATE SESSION TESTS ==============
@@ -62,44 +78,36 @@ public class SessionServiceTest {
         assertTrue(sessionService.isValidSession(token2));
         assertTrue(sessionService.isValidSession(token3));
         
-        assertEquals(testUser, sessionService.getUser(token1));
-        assertEquals(user2, sessionService.getUser(token2));
-        assertEquals(user3, sessionService.getUser(token3));
+        assertEquals(testUser.getUserID(), sessionService.getUserIdByToken(token1));
+        assertEquals(user2.getUserID(), sessionService.getUserIdByToken(token2));
+        assertEquals(user3.getUserID(), sessionService.getUserIdByToken(token3));
     }
 
-    // ============== GET USER TESTS ==============
+    // ============== GET USERNAME TESTS ==============
 
     @Test
-    public void testGetUserSuccess() {
+    public void testGetUsernameSuccess() {
         String sessionToken = sessionService.createSession(testUser);
-        User retrievedUser = sessionService.getUser(sessionToken);
 
-        assertNotNull(retrievedUser);
-        assertEquals(testUser.getUsername(), retrievedUser.getUsername());
-        assertEquals(testUser.getUserID(), retrievedUser.getUserID());
+        assertEquals(testUser.getUsername(), sessionService.getUsernameByToken(sessionToken));
     }
 
     @Test
-    public void testGetUserWithInvalidToken() {
-        User retrievedUser = sessionService.getUser("invalid-token");
-
-        assertNull(retrievedUser);
+    public void testGetUsernameWithInvalidToken() {
+        assertNull(sessionService.getUsernameByToken("invalid-token"));
     }
 
     @Test
-    public void testGetUserWithNullToken() {
+    public void testGetUsernameWithNullToken() {
         // ConcurrentHashMap doesn't allow null keys, so this will throw NPE
-        // We should handle this gracefully in real implementation
         assertThrows(NullPointerException.class, () -> {
-            sessionService.getUser(null);
+            sessionService.getUsernameByToken(null);
         });
     }
 
     @Test
-    public void testGetUserWithEmptyToken() {
-        User retrievedUser = sessionService.getUser("");
-
-        assertNull(retrievedUser);
+    public void testGetUsernameWithEmptyToken() {
+        assertNull(sessionService.getUsernameByToken(""));
     }
 
     // ============== GET USER ID BY TOKEN TESTS ==============
@@ -178,7 +186,7 @@ public class SessionServiceTest {
         sessionService.terminateSession(sessionToken);
 
         assertFalse(sessionService.isValidSession(sessionToken));
-        assertNull(sessionService.getUser(sessionToken));
+        assertNull(sessionService.getUsernameByToken(sessionToken));
         assertNull(sessionService.getUserIdByToken(sessionToken));
     }
 
@@ -261,19 +269,16 @@ public class SessionServiceTest {
     }
 
     @Test
-    public void testGetUserReturnsCorrectUser() {
+    public void testGetUsernameReturnsCorrectUser() {
         User user1 = new User("alice", "alice@example.com", "pass1", "id1");
         User user2 = new User("bob", "bob@example.com", "pass2", "id2");
 
         String token1 = sessionService.createSession(user1);
         String token2 = sessionService.createSession(user2);
 
-        User retrieved1 = sessionService.getUser(token1);
-        User retrieved2 = sessionService.getUser(token2);
-
-        assertEquals("alice", retrieved1.getUsername());
-        assertEquals("bob", retrieved2.getUsername());
-        assertNotEquals(retrieved1.getUserID(), retrieved2.getUserID());
+        assertEquals("alice", sessionService.getUsernameByToken(token1));
+        assertEquals("bob", sessionService.getUsernameByToken(token2));
+        assertNotEquals(sessionService.getUserIdByToken(token1), sessionService.getUserIdByToken(token2));
     }
 
     @Test
@@ -315,4 +320,110 @@ public class SessionServiceTest {
             assertTrue(sessionService.isValidSession(tokens[i]));
         }
     }
+
+    // ============== EXPIRY TESTS ==============
+
+    @Test
+    public void testIdleSessionExpires() {
+        SessionService service = manualClockService(10);
+        String token = service.createSession(testUser);
+
+        now.addAndGet(Duration.ofMinutes(29).toMillis());
+        assertEquals("user123", service.getUserIdByToken(token));
+
+        // Activity slides the idle deadline forward
+        now.addAndGet(Duration.ofMinutes(29).toMillis());
+        assertTrue(service.isValidSession(token));
+
+        now.addAndGet(Duration.ofMinutes(31).toMillis());
+        assertNull(service.getUserIdByToken(token));
+        assertFalse(service.isValidSession(token));
+    }
+
+    @Test
+    public void testAbsoluteLifetimeEndsActiveSession() {
+        SessionService service = manualClockService(10);
+        String token = service.createSession(testUser);
+
+        // Keep the session busy for almost twelve hours
+        for (int i = 0; i < 12 * 4 - 1; i++) {
+            now.addAndGet(Duration.ofMinutes(15).toMillis());
+            assertTrue(service.isValidSession(token));
+        }
+        now.addAndGet(Duration.ofMinutes(15).toMillis());
+
+        assertFalse(service.isValidSession(token));
+    }
+
+    @Test
+    public void testReaperRemovesExpiredSessions() {
+        SessionService service = manualClockService(10);
+        String idle = service.createSession(testUser);
+        String active = service.createSession(new User("bob", "bob@example.com", "pass", "id2"));
+
+        for (int i = 0; i < 4; i++) {
+            now.addAndGet(Duration.ofMinutes(10).toMillis());
+            assertTrue(service.isValidSession(active));
+            service.reapExpired();
+        }
+
+        assertEquals(1, service.getActiveSessionCount());
+        assertFalse(service.isValidSession(idle));
+        assertTrue(service.isValidSession(active));
+
+        now.addAndGet(Duration.ofHours(1).toMillis());
+        service.reapExpired();
+        assertEquals(0, service.getActiveSessionCount());
+    }
+
+    @Test
+    public void testReaperFindsSessionsBeyondOneTurnOfTheWheel() {
+        // With a one-second tick the thirty minute deadline is several turns of the wheel away
+        SessionService service = manualClockService(10);
+        service.createSession(testUser);
+
+        for (int second = 0; second < 30 * 60 - 1; second++) {
+            now.addAndGet(SessionService.TICK_MILLIS);
+            service.reapExpired();
+        }
+        assertEquals(1, service.getActiveSessionCount());
+
+        now.addAndGet(2 * SessionService.TICK_MILLIS);
+        service.reapExpired();
+        assertEquals(0, service.getActiveSessionCount());
+    }
+
+    @Test
+    public void testMaxSessionsEvictsOldest() {
+        SessionService service = manualClockService(2);
+        String first = service.createSession(testUser);
+        String second = service.createSession(testUser);
+        String third = service.createSession(testUser);
+
+        assertEquals(2, service.getActiveSessionCount());
+        assertFalse(service.isValidSession(first));
+        assertTrue(service.isValidSession(second));
+        assertTrue(service.isValidSession(third));
+    }
+
+    @Test
+    public void testTerminatedSessionIsNotReaped() {
+        SessionService service = manualClockService(10);
+        String token = service.createSession(testUser);
+        service.terminateSession(token);
+
+        now.addAndGet(Duration.ofHours(1).toMillis());
+        assertDoesNotThrow(service::reapExpired);
+        assertEquals(0, service.getActiveSessionCount());
+    }
+
+    @Test
+    public void testInvalidConfigurationRejected() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new SessionService(Duration.ZERO, Duration.ofHours(1), 10, now::get, false));
+        assertThrows(IllegalArgumentException.class,
+            () -> new SessionService(Duration.ofHours(2), Duration.ofHours(1), 10, now::get, false));
+        assertThrows(IllegalArgumentException.class,
+            () -> new SessionService(Duration.ofMinutes(1), Duration.ofHours(1), 0, now::get, false));
+    }
 }
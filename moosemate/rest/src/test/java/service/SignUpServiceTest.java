@@ -50,9 +50,14 @@ public class SignUpServiceTest {
         // Clean up any existing test data
         cleanupTestFile();
         // Initialize services with test repository
+        passwordService = new PasswordService();
+        reloadServices();
+    }
+
+    // The repository loads users once, so tests that write the data file must reload it
+    private void reloadServices() {
         UserRepository testRepository = new UserRepository(new TestJsonFileHandler(testDataFile));
         userService = new UserService(testRepository);
-        passwordService = new PasswordService();
         signUpService = new SignUpService(userService, passwordService);
     }
 
@@ -62,9 +67,11 @@ public class SignUpServiceTest {
     }
 
     private void cleanupTestFile() {
-        File file = new File(testDataFile);
-        if (file.exists()) {
-            file.delete();
+        // Also removes the earlier snapshots kept next to the data file
+        try {
+            new JsonFileHandler().deleteDataFile(new File(testDataFile));
+        } catch (IOException e) {
+            System.err.println("Could not delete test data: " + e.getMessage());
         }
     }
     
@@ -80,6 +87,7 @@ public class SignUpServiceTest {
                 + "  ]\n"
                 + "}";
         Files.write(Paths.get(testDataFile), testData.getBytes());
+        reloadServices();
     }
 
     @Test
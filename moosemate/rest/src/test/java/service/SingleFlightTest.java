@@ -0,0 +1,173 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+// Tests for sharing concurrent identical reads.
+public class SingleFlightTest {
+
+    private SingleFlight<String, Object> flight;
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void setUp() {
+        flight = new SingleFlight<>();
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    // Starts a read of the key that blocks until released, and waits until it runs
+    private Future<Object> startBlockedRead(String key, long sequence, CountDownLatch release, Object result)
+            throws InterruptedException {
+        CountDownLatch running = new CountDownLatch(1);
+        Future<Object> future = executor.submit(() -> flight.run(key, sequence, () -> {
+            running.countDown();
+            await(release);
+            return result;
+        }));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        return future;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Waits until the given number of reads have been asked for
+    private void awaitReads(long reads) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (flight.stats().reads() < reads && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(reads, flight.stats().reads());
+    }
+
+    @Test
+    public void testConcurrentReadsShareOneRead() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Object result = new Object();
+        AtomicInteger followerReads = new AtomicInteger();
+        Future<Object> leader = startBlockedRead("feed", 5, release, result);
+
+        List<Future<Object>> followers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            followers.add(executor.submit(() -> flight.run("feed", 5, () -> {
+                followerReads.incrementAndGet();
+                return new Object();
+            })));
+        }
+        awaitReads(9);
+        release.countDown();
+
+        assertSame(result, leader.get(5, TimeUnit.SECONDS));
+        for (Future<Object> follower : followers) {
+            assertSame(result, follower.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(0, followerReads.get());
+        assertEquals(new CoalescingStats(9, 1), flight.stats());
+        assertEquals(8.0 / 9, flight.stats().coalescingRatio(), 1e-9);
+    }
+
+    @Test
+    public void testReadAfterANewerWriteDoesNotJoin() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<Object> leader = startBlockedRead("feed", 5, release, "old");
+
+        // Read after a write the running read may not include
+        assertEquals("new", flight.run("feed", 6, () -> "new"));
+        release.countDown();
+
+        assertEquals("old", leader.get(5, TimeUnit.SECONDS));
+        assertEquals(new CoalescingStats(2, 2), flight.stats());
+    }
+
+    @Test
+    public void testOlderReadJoinsNewerRead() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<Object> leader = startBlockedRead("feed", 6, release, "new");
+
+        Future<Object> follower = executor.submit(() -> flight.run("feed", 5, () -> "old"));
+        awaitReads(2);
+        release.countDown();
+
+        assertEquals("new", leader.get(5, TimeUnit.SECONDS));
+        assertEquals("new", follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1, flight.stats().coalesced());
+    }
+
+    @Test
+    public void testDifferentKeysDoNotShare() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<Object> leader = startBlockedRead("page-1", 5, release, "first");
+
+        assertEquals("second", flight.run("page-2", 5, () -> "second"));
+        release.countDown();
+
+        assertEquals("first", leader.get(5, TimeUnit.SECONDS));
+        assertEquals(0, flight.stats().coalesced());
+    }
+
+    @Test
+    public void testCompletedReadsAreNotKept() {
+        assertEquals("first", flight.run("feed", 5, () -> "first"));
+        assertEquals("second", flight.run("feed", 5, () -> "second"));
+
+        assertEquals(new CoalescingStats(2, 2), flight.stats());
+    }
+
+    @Test
+    public void testFailureReachesEveryCaller() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch running = new CountDownLatch(1);
+        Future<Object> leader = executor.submit(() -> flight.run("feed", 5, () -> {
+            running.countDown();
+            await(release);
+            throw new IllegalStateException("Store failed");
+        }));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        Future<Object> follower = executor.submit(() -> flight.run("feed", 5, () -> "unused"));
+        awaitReads(2);
+        release.countDown();
+
+        Exception leaderFailure = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+        Exception followerFailure = assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS));
+        assertTrue(leaderFailure.getCause() instanceof IllegalStateException);
+        assertTrue(followerFailure.getCause() instanceof IllegalStateException);
+        // The failed read is not kept either
+        assertEquals("fresh", flight.run("feed", 5, () -> "fresh"));
+    }
+
+    @Test
+    public void testNullKey() {
+        assertThrows(IllegalArgumentException.class, () -> flight.run(null, 5, () -> "unused"));
+    }
+
+    @Test
+    public void testStatsBeforeAnyRead() {
+        assertEquals(0.0, flight.stats().coalescingRatio());
+        assertEquals(0, flight.stats().coalesced());
+    }
+}
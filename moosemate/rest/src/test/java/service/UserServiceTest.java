@@ -14,6 +14,7 @@ import repository.UserRepository;
 import util.JsonFileHandler;
 
 import java.io.File;
+import java.io.IOException;
 
 /**
  * Unit tests for UserService.
@@ -54,23 +55,14 @@ public class UserServiceTest {
     }
     
     @AfterEach
-    void tearDown() {
-        // Clean up all test files after each test
-        File testFile = new File(TEST_DATA_FILE);
-        if (testFile.exists()) {
-            testFile.delete();
-        }
+    void tearDown() throws IOException {
+        // Clean up all test files, with their earlier snapshots, after each test
+        JsonFileHandler fileHandler = new JsonFileHandler();
+        fileHandler.deleteDataFile(new File(TEST_DATA_FILE));
         
         // Clean up special test files used in individual tests
-        File ioTestFile = new File("./target/test-io-exception.json");
-        if (ioTestFile.exists()) {
-            ioTestFile.delete();
-        }
-        
-        File nonExistentTestFile = new File("./target/non-existent-test-file.json");
-        if (nonExistentTestFile.exists()) {
-            nonExistentTestFile.delete();
-        }
+        fileHandler.deleteDataFile(new File("./target/test-io-exception.json"));
+        fileHandler.deleteDataFile(new File("./target/non-existent-test-file.json"));
     }
     
     @Test
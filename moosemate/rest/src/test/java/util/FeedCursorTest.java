@@ -0,0 +1,56 @@
+package util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+import model.Moosage;
+import model.User;
+
+// Tests for encoding and decoding of feed page cursors.
+public class FeedCursorTest {
+
+    @Test
+    public void testRoundTrip() {
+        FeedCursor cursor = new FeedCursor(LocalDateTime.of(2025, 3, 1, 12, 30, 15, 123_456_789), 42L);
+
+        assertEquals(cursor, FeedCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    public void testEncodedCursorIsUrlSafe() {
+        String encoded = new FeedCursor(LocalDateTime.of(2025, 3, 1, 12, 30), Long.MAX_VALUE).encode();
+
+        assertFalse(encoded.contains("+"));
+        assertFalse(encoded.contains("/"));
+        assertFalse(encoded.contains("="));
+    }
+
+    @Test
+    public void testOfMoosage() {
+        User author = new User("testuser", "test@example.com", "password", "user1");
+        LocalDateTime time = LocalDateTime.of(2025, 1, 1, 8, 0);
+        FeedCursor cursor = FeedCursor.of(new Moosage(9L, "Hello", author.getUserID(), time));
+
+        assertEquals(time, cursor.time());
+        assertEquals(9L, cursor.id());
+    }
+
+    @Test
+    public void testDecodeRejectsInvalidInput() {
+        assertThrows(IllegalArgumentException.class, () -> FeedCursor.decode(null));
+        assertThrows(IllegalArgumentException.class, () -> FeedCursor.decode(""));
+        assertThrows(IllegalArgumentException.class, () -> FeedCursor.decode("%%%"));
+        assertThrows(IllegalArgumentException.class, () -> FeedCursor.decode("bm8tc2VwYXJhdG9y"));
+        assertThrows(IllegalArgumentException.class, () -> FeedCursor.decode("MjAyNS0wMS0wMXw0Mg"));
+    }
+
+    @Test
+    public void testNullTimeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new FeedCursor(null, 1L));
+    }
+}
@@ -1,7 +1,10 @@
 package controller;
 
 import dto.ApiResponse;
+import dto.MoosageChanges;
 import dto.MoosageDto;
+import dto.MoosageEvent;
+import dto.MoosagePage;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
@@ -10,11 +13,10 @@ import javafx.scene.control.Label;
 import javafx.scene.input.MouseEvent;
 import javafx.stage.Stage;
 import service.ApiClient;
+import service.MoosageEventStream;
 import service.SessionManager;
 import util.ValidationUtils;
 
-import java.util.List;
-
 public class HomePageController extends BaseController {
 
     @FXML
@@ -37,6 +39,16 @@ public class HomePageController extends BaseController {
 
     private ObservableList<MoosageDto> moosages;
     private static final int MAX_CHARS = 280;
+    private static final int PAGE_SIZE = 50;
+
+    // Cursor for the next (older) page, or null when everything is loaded
+    private String nextCursor;
+    private boolean loadingPage;
+    // The server's change sequence number the loaded feed is current with, or null if unknown
+    private Long changeSequence;
+
+    // Keeps the loaded feed current; open while this page is shown
+    private MoosageEventStream feedEvents;
 
     @FXML
     public void initialize() {
@@ -57,6 +69,9 @@ public class HomePageController extends BaseController {
             }
         });
 
+        // Subscribed first. Changes made before the stream is open are caught up on by the RESYNC
+        // it starts with, which refreshes the loaded feed from its changeSequence.
+        subscribeToFeedEvents();
         loadMoosages();
     }
 
@@ -72,22 +87,20 @@ public class HomePageController extends BaseController {
         }
     }
 
+    // Loads the first page of the feed; further pages are fetched as the list is scrolled
     private void loadMoosages() {
         try {
             ApiClient apiClient = ApiClient.getInstance();
-            ApiResponse<List<MoosageDto>> response = apiClient.getMoosages();
+            ApiResponse<MoosagePage> response = apiClient.getMoosagePage(PAGE_SIZE, null);
             
             if (response.isSuccess() && response.getData() != null) {
-                moosages = FXCollections.observableArrayList(response.getData());
+                moosages = FXCollections.observableArrayList(response.getData().getMoosages());
+                nextCursor = response.getData().getNextCursor();
+                changeSequence = response.getData().getChangeSequence();
                 moosageList.setItems(moosages);
                 
                 // Set custom cell factory for better display
-                moosageList.setCellFactory(param -> {
-                    MoosageListCell cell = new MoosageListCell();
-                    cell.setOnDeleteCallback(this::handleMoosageDeleted);
-                    cell.setOnEditCallback(this::handleMoosageEdited);
-                    return cell;
-                });
+                moosageList.setCellFactory(param -> createMoosageCell());
             } else {
                 System.err.println("Failed to load moosages: " + response.getMessage());
             }
@@ -97,6 +110,122 @@ public class HomePageController extends BaseController {
         }
     }
 
+    // Applies the server's feed events to the loaded moosages instead of reloading the feed
+    private void subscribeToFeedEvents() {
+        feedEvents = ApiClient.getInstance().subscribeToMoosageEvents(
+                event -> javafx.application.Platform.runLater(() -> applyFeedEvent(event)));
+    }
+
+    // Runs on the FX thread. Events only change moosages that are loaded; after a RESYNC, sent
+    // each time the stream opens, the feed is refreshed with what changed since it was loaded.
+    private void applyFeedEvent(MoosageEvent event) {
+        if (moosages == null) {
+            // Nothing loaded yet; the first page will have the change
+            return;
+        }
+        if (!event.applyTo(moosages)) {
+            refreshMoosages();
+        }
+    }
+
+    // Fetches and applies what changed since the feed was loaded or last refreshed, so a
+    // refresh transfers only the changes. Reloads the first page if the server cannot tell.
+    // Runs on the FX thread; the request itself is off-thread.
+    private void refreshMoosages() {
+        Long since = changeSequence;
+        if (since == null) {
+            reloadMoosages();
+            return;
+        }
+        new Thread(() -> {
+            try {
+                ApiResponse<MoosageChanges> response = ApiClient.getInstance().getMoosageChanges(since);
+                if (response != null && response.isSuccess() && response.getData() != null) {
+                    MoosageChanges changes = response.getData();
+                    javafx.application.Platform.runLater(() -> {
+                        if (changes.applyTo(moosages)) {
+                            // A reload meanwhile may have brought the feed further already
+                            changeSequence = changeSequence == null ? changes.getSequence()
+                                    : Math.max(changeSequence, changes.getSequence());
+                        } else {
+                            reloadMoosages();
+                        }
+                    });
+                } else {
+                    System.err.println("Failed to refresh moosages: "
+                            + (response != null ? response.getMessage() : "null response"));
+                }
+            } catch (Exception e) {
+                System.err.println("Error refreshing moosages: " + e.getMessage());
+            }
+        }).start();
+    }
+
+    // Replaces the feed with its first page. The request is off-thread.
+    private void reloadMoosages() {
+        new Thread(() -> {
+            try {
+                ApiResponse<MoosagePage> response = ApiClient.getInstance().getMoosagePage(PAGE_SIZE, null);
+                if (response != null && response.isSuccess() && response.getData() != null) {
+                    MoosagePage page = response.getData();
+                    javafx.application.Platform.runLater(() -> {
+                        moosages.setAll(page.getMoosages());
+                        nextCursor = page.getNextCursor();
+                        changeSequence = page.getChangeSequence();
+                    });
+                } else {
+                    System.err.println("Failed to reload moosages: "
+                            + (response != null ? response.getMessage() : "null response"));
+                }
+            } catch (Exception e) {
+                System.err.println("Error reloading moosages: " + e.getMessage());
+            }
+        }).start();
+    }
+
+    private MoosageListCell createMoosageCell() {
+        MoosageListCell cell = new MoosageListCell();
+        cell.setOnDeleteCallback(this::handleMoosageDeleted);
+        cell.setOnEditCallback(this::handleMoosageEdited);
+        // Fetch the next page once the last loaded moosage is shown
+        cell.itemProperty().addListener((observable, oldItem, newItem) -> {
+            if (newItem != null && moosages != null && !moosages.isEmpty()
+                    && newItem == moosages.get(moosages.size() - 1)) {
+                loadNextPage();
+            }
+        });
+        return cell;
+    }
+
+    // Appends the next page of older moosages. Runs on the FX thread; the request itself is off-thread.
+    private void loadNextPage() {
+        if (loadingPage || nextCursor == null) {
+            return;
+        }
+        loadingPage = true;
+        String cursor = nextCursor;
+
+        new Thread(() -> {
+            try {
+                ApiResponse<MoosagePage> response = ApiClient.getInstance().getMoosagePage(PAGE_SIZE, cursor);
+                if (response != null && response.isSuccess() && response.getData() != null) {
+                    MoosagePage page = response.getData();
+                    javafx.application.Platform.runLater(() -> {
+                        moosages.addAll(page.getMoosages());
+                        nextCursor = page.getNextCursor();
+                    });
+                } else {
+                    System.err.println("Failed to load more moosages: "
+                            + (response != null ? response.getMessage() : "null response"));
+                }
+            } catch (Exception e) {
+                System.err.println("Error loading more moosages: " + e.getMessage());
+            } finally {
+                javafx.application.Platform.runLater(() -> loadingPage = false);
+            }
+        }).start();
+    }
+
     @FXML
     private void handleCreatePost(ActionEvent event) {
         String content = postTextArea.getText();
@@ -117,14 +246,10 @@ public class HomePageController extends BaseController {
                         if (moosages == null) {
                             moosages = FXCollections.observableArrayList();
                             moosageList.setItems(moosages);
-                            moosageList.setCellFactory(param -> {
-                                MoosageListCell cell = new MoosageListCell();
-                                cell.setOnDeleteCallback(this::handleMoosageDeleted);
-                                cell.setOnEditCallback(this::handleMoosageEdited);
-                                return cell;
-                            });
+                            moosageList.setCellFactory(param -> createMoosageCell());
                         }
-                        moosages.add(0, created);
+                        // The feed event for the new moosage may have added it already
+                        MoosageEvent.created(created).applyTo(moosages);
                         postTextArea.clear();
                     });
                 } else {
@@ -169,6 +294,9 @@ public class HomePageController extends BaseController {
             }
             
             SessionManager.getInstance().logout();
+            if (feedEvents != null) {
+                feedEvents.close();
+            }
             
             // Load and navigate to login page
             java.net.URL resourceUrl = getClass().getResource("/fxml/loginpage.fxml");
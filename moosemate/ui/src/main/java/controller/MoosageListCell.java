@@ -154,8 +154,8 @@ public class MoosageListCell extends ListCell<MoosageDto> {
     }
     
     private void updateLikeButton(MoosageDto moosage) {
-        String currentUserId = service.SessionManager.getInstance().getUserId();
-        boolean isLiked = currentUserId != null && moosage.isLikedBy(currentUserId);
+        // likedByMe is computed by the server for the logged-in session
+        boolean isLiked = moosage.isLikedByMe();
         int likeCount = moosage.getLikeCount();
         
         likeButton.setText("♥ " + likeCount);
@@ -181,7 +181,8 @@ public class MoosageListCell extends ListCell<MoosageDto> {
                     
                     // Update UI on JavaFX thread
                     Platform.runLater(() -> {
-                        moosage.setLikedByUserIds(updatedMoosage.getLikedByUserIds());
+                        moosage.setLikeCount(updatedMoosage.getLikeCount());
+                        moosage.setLikedByMe(updatedMoosage.isLikedByMe());
                         
                         updateLikeButton(moosage);
                     });
@@ -15,7 +15,6 @@ import org.testfx.framework.junit5.Start;
 import service.SessionManager;
 
 import java.time.LocalDateTime;
-import java.util.HashSet;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -92,7 +91,8 @@ class MoosageListCellTest extends FxRobot {
     @Test
     void testLikeCountDisplayed() {
         MoosageDto moosage = createTestMoosage("testUser", "testId", "Test content");
-        moosage.setLikedByUserIds(new HashSet<>());
+        moosage.setLikeCount(0);
+        moosage.setLikedByMe(false);
         
         cell.updateItem(moosage, false);
         
@@ -230,7 +230,8 @@ class MoosageListCellTest extends FxRobot {
         SessionManager.getInstance().login(createMockLoginResponse(userId));
         
         MoosageDto moosage = createTestMoosage("testUser", "otherId", "Test content");
-        moosage.setLikedByUserIds(new HashSet<>());
+        moosage.setLikeCount(0);
+        moosage.setLikedByMe(false);
         
         cell.updateItem(moosage, false);
         
@@ -249,9 +250,8 @@ class MoosageListCellTest extends FxRobot {
         SessionManager.getInstance().login(createMockLoginResponse(userId));
         
         MoosageDto moosage = createTestMoosage("testUser", "otherId", "Test content");
-        HashSet<String> likedBy = new HashSet<>();
-        likedBy.add(userId);
-        moosage.setLikedByUserIds(likedBy);
+        moosage.setLikeCount(1);
+        moosage.setLikedByMe(true);
         
         cell.updateItem(moosage, false);
         
@@ -273,7 +273,8 @@ class MoosageListCellTest extends FxRobot {
         moosage.setContent(content);
         moosage.setTime(LocalDateTime.now());
         moosage.setEdited(false);
-        moosage.setLikedByUserIds(new HashSet<>());
+        moosage.setLikeCount(0);
+        moosage.setLikedByMe(false);
         return moosage;
     }
 